@@ -0,0 +1,75 @@
+package com.phonebook.jmh;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Данные для бенчмарков: воспроизводимый набор абонентов с русскими ФИО и 0-3 номерами.
+ * Фамилии получают буквенный суффикс, поэтому данные проходят проверку {@code PhoneBookValidator},
+ * а поиск по фамилии из справочника находит примерно 1/24 книги.
+ */
+final class BenchmarkData {
+
+    /**
+     * Размеры книги, на которых по умолчанию выполняется каждый бенчмарк.
+     */
+    static final String SMALL = "10000";
+    static final String LARGE = "1000000";
+
+    static final String[] LAST_NAMES = {
+            "Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев", "Петров", "Соколов", "Михайлов",
+            "Новиков", "Федоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семенов", "Егоров",
+            "Павлов", "Козлов", "Степанов", "Николаев", "Орлов", "Андреев", "Макаров", "Никитин"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Александр", "Сергей", "Дмитрий", "Андрей", "Алексей", "Иван", "Михаил", "Елена",
+            "Ольга", "Наталья", "Татьяна", "Мария", "Анна", "Екатерина", "Николай", "Владимир"
+    };
+    private static final String[] MIDDLE_NAMES = {
+            "Александрович", "Сергеевич", "Дмитриевич", "Андреевич", "Иванович", "Михайлович",
+            "Александровна", "Сергеевна", "Дмитриевна", "Андреевна", "Ивановна", "Михайловна"
+    };
+
+    private BenchmarkData() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Генерирует абонентов. Одинаковые аргументы дают одинаковые данные в каждом запуске.
+     *
+     * @param count количество абонентов
+     * @return абоненты
+     */
+    static List<Subscriber> generate(int count) {
+        Random random = new Random(1);
+        List<Subscriber> subscribers = new ArrayList<>(count);
+        PhoneType[] types = PhoneType.values();
+        for (int i = 0; i < count; i++) {
+            int suffix = i % 900;
+            Subscriber subscriber = new Subscriber(
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)] + (char) ('а' + suffix / 30) + (char) ('а' + suffix % 30),
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    MIDDLE_NAMES[random.nextInt(MIDDLE_NAMES.length)]);
+            for (int p = random.nextInt(4); p > 0; p--) {
+                subscriber.addPhoneNumber(new PhoneNumber(
+                        "+7 9" + (100_000_000 + random.nextInt(900_000_000)), types[random.nextInt(types.length)]));
+            }
+            subscribers.add(subscriber);
+        }
+        return subscribers;
+    }
+
+    /**
+     * Отключает информационный журнал сервиса: запись в консоль на каждую операцию исказила бы замеры.
+     */
+    static void quietLogging() {
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.WARN);
+    }
+}
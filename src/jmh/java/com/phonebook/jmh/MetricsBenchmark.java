@@ -0,0 +1,47 @@
+package com.phonebook.jmh;
+
+import com.phonebook.metrics.Counter;
+import com.phonebook.metrics.MetricsRegistry;
+import com.phonebook.metrics.Operation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена записи метрик на пути каждой операции {@link MetricsRegistry}: чтение таймера отдельно
+ * от записи в гистограмму, а также запись из нескольких потоков в одну гистограмму.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void recordSince() {
+        registry.recordSince(Operation.SEARCH, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordSinceContended() {
+        registry.recordSince(Operation.SEARCH, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void incrementContended() {
+        registry.increment(Counter.CACHE_HITS);
+    }
+}
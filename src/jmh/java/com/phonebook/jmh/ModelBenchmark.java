@@ -0,0 +1,73 @@
+package com.phonebook.jmh;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проход по всей книге: {@link Subscriber#contains(String)} и проверка данных
+ * {@link PhoneBookValidator}, как при поиске без индекса и при импорте.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModelBenchmark {
+
+    @Param({BenchmarkData.SMALL, BenchmarkData.LARGE})
+    public int size;
+
+    private List<Subscriber> subscribers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData.quietLogging();
+        subscribers = BenchmarkData.generate(size);
+    }
+
+    @Benchmark
+    public int containsName() {
+        return countContaining("смирнов");
+    }
+
+    @Benchmark
+    public int containsPhone() {
+        return countContaining("9123");
+    }
+
+    @Benchmark
+    public int validateAll() {
+        int valid = 0;
+        for (Subscriber subscriber : subscribers) {
+            if (PhoneBookValidator.isValidSubscriber(subscriber)) {
+                valid++;
+            }
+            for (PhoneNumber phoneNumber : subscriber.getPhoneNumbers()) {
+                if (PhoneBookValidator.isValidPhoneNumber(phoneNumber)) {
+                    valid++;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private int countContaining(String text) {
+        int found = 0;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.contains(text)) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
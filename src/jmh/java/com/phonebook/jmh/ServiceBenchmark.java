@@ -0,0 +1,63 @@
+package com.phonebook.jmh;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск и сортировка {@link PhoneBookService}.
+ * Хранилище выбирается системным свойством {@link StorageEngine#ENGINE_PROPERTY}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ServiceBenchmark {
+
+    @Param({BenchmarkData.SMALL, BenchmarkData.LARGE})
+    public int size;
+
+    private PhoneBookService service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.quietLogging();
+        File dataFile = File.createTempFile("phonebook-jmh", ".dat");
+        dataFile.deleteOnExit();
+        service = PhoneBookService.createUnloaded(dataFile.getPath(), StorageEngine.fromSystemProperty());
+        service.setAutoSave(false);
+        service.replaceAll(BenchmarkData.generate(size));
+    }
+
+    @Benchmark
+    public List<Subscriber> searchByLastName() {
+        return service.searchSubscribers("Смирнов");
+    }
+
+    @Benchmark
+    public List<Subscriber> searchByPhonePrefix() {
+        return service.searchSubscribers("+7 9123");
+    }
+
+    @Benchmark
+    public List<Subscriber> searchWithoutMatches() {
+        return service.searchSubscribers("Отсутствующий");
+    }
+
+    @Benchmark
+    public void sortSubscribers() {
+        service.sortSubscribers();
+    }
+}
@@ -0,0 +1,60 @@
+package com.phonebook.jmh;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.FileDataService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись и чтение файла данных {@link FileDataService}.
+ * Файл находится во временном каталоге; на результат влияет кэш файловой системы.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+
+    @Param({BenchmarkData.SMALL, BenchmarkData.LARGE})
+    public int size;
+
+    private List<Subscriber> subscribers;
+    private File dataFile;
+    private FileDataService fileDataService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkData.quietLogging();
+        subscribers = BenchmarkData.generate(size);
+        dataFile = File.createTempFile("phonebook-jmh", ".dat");
+        fileDataService = new FileDataService(dataFile.getPath());
+        fileDataService.saveSubscribers(subscribers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fileDataService.deleteDataFile();
+    }
+
+    @Benchmark
+    public long save() throws IOException {
+        fileDataService.saveSubscribers(subscribers);
+        return dataFile.length();
+    }
+
+    @Benchmark
+    public List<Subscriber> load() throws IOException, ClassNotFoundException {
+        return fileDataService.loadSubscribers();
+    }
+}
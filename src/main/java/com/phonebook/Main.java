@@ -1,21 +1,30 @@
 package com.phonebook;
 
+import com.phonebook.cli.PhoneBookCli;
 import com.phonebook.gui.PhoneBookGUI;
+import com.phonebook.metrics.FlightRecording;
 
 /**
- * Главный класс приложения телефонного справочника.
- * Точка входа в программу.
+ * Главный класс приложения телефонного справочника. Точка входа в программу.
+ * Если первый аргумент - команда, она выполняется без графического интерфейса.
+ * Свойство {@value FlightRecording#JFR_PROPERTY} включает запись JFR с профилем телефонной книги.
  */
 public class Main {
+    public static void main(String[] args) {
+        System.setProperty("file.encoding", "UTF-8");
+        FlightRecording.startFromSystemProperty();
+        if (args.length > 0 && PhoneBookCli.isCommand(args[0])) {
+            System.exit(PhoneBookCli.run(args, System.out, System.err));
+        }
+        launchGui(args);
+    }
 
     /**
-     * Основной метод запуска приложения.
-     *
-     * @param args аргументы командной строки
+     * Запускает графический интерфейс. Вынесено в отдельный метод, чтобы классы JavaFX
+     * загружались только при запуске интерфейса.
      */
-    public static void main(String[] args) {
-        System.setProperty("file.encoding", "UTF-8");
+    private static void launchGui(String[] args) {
         System.out.println("Starting Phone Book Application...");
         PhoneBookGUI.main(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,597 @@
+package com.phonebook.cli;
+
+import com.phonebook.cluster.PartitionNode;
+import com.phonebook.cluster.PhoneBookCluster;
+import com.phonebook.cluster.RemotePartition;
+import com.phonebook.metrics.JfrSummary;
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.replication.ReplicationFollower;
+import com.phonebook.replication.ReplicationPrimary;
+import com.phonebook.server.BinaryServer;
+import com.phonebook.server.PhoneBookServer;
+import com.phonebook.service.FileDataService;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.PhoneBookValidator;
+import com.phonebook.service.StorageEngine;
+import com.phonebook.util.SubscriberGenerator;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Командная строка телефонной книги для пакетных операций без графического интерфейса.
+ * Команды работают с {@link PhoneBookService} и {@link FileDataService} напрямую и не загружают
+ * классы JavaFX. Результат команды выводится в стандартный вывод, ошибки и время выполнения -
+ * в поток ошибок, поэтому вывод можно обрабатывать в скриптах.
+ * <p>
+ * Формат CSV: {@code last_name,first_name,middle_name,phones}, где телефоны перечислены через
+ * {@code |} в виде {@code ТИП:номер}. Имена и номера не содержат запятых, поэтому экранирование
+ * не требуется.
+ * <p>
+ * С параметром {@code --nodes} команды {@code import}, {@code search} и {@code stats} работают
+ * с кластером узлов, запущенных командой {@code serve}, через {@link PhoneBookCluster}.
+ */
+public class PhoneBookCli {
+
+    private static final String CSV_HEADER = "last_name,first_name,middle_name,phones";
+    private static final String DEFAULT_FILE_NAME = "phonebook.dat";
+    private static final int DEFAULT_PORT = 8080;
+    private static final String LOG_CONFIGURATION = "/log4j2-cli.xml";
+
+    private static final Set<String> COMMANDS = Set.of(
+            "import", "export", "search", "stats", "compact", "verify", "backup", "serve", "generate", "jfr", "help");
+    private static final Set<String> CLUSTER_COMMANDS = Set.of("import", "search", "stats", "help");
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    private String command;
+    private String fileName = DEFAULT_FILE_NAME;
+    private StorageEngine engine = StorageEngine.fromSystemProperty();
+    private int limit = Integer.MAX_VALUE;
+    private int port = DEFAULT_PORT;
+    private int binaryPort = -1;
+    private int replicationPort = -1;
+    private String replicateFrom;
+    private List<String> nodes;
+    private long seed = 1;
+    private double malformedRate;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean verbose;
+    private final List<String> arguments = new ArrayList<>();
+
+    private PhoneBookCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Проверяет, является ли аргумент командой командной строки.
+     *
+     * @param argument первый аргумент программы
+     * @return true если аргумент - команда
+     */
+    public static boolean isCommand(String argument) {
+        return argument != null && (COMMANDS.contains(argument) || "--help".equals(argument));
+    }
+
+    /**
+     * Выполняет команду.
+     *
+     * @param args команда, ее аргументы и параметры
+     * @param out поток для результата
+     * @param err поток для ошибок и времени выполнения
+     * @return код завершения: 0 - успешно, 1 - ошибка данных, 2 - ошибка вызова
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        PhoneBookCli cli = new PhoneBookCli(out, err);
+        try {
+            cli.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            cli.usage();
+            return 2;
+        }
+
+        // Стандартный вывод содержит только результат команды, поэтому журнал выводится в поток ошибок
+        try {
+            Configurator.reconfigure(PhoneBookCli.class.getResource(LOG_CONFIGURATION).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid log configuration location", e);
+        }
+        if (!cli.verbose) {
+            Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.WARN);
+        }
+
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = cli.execute();
+        } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
+            err.println("Error: " + e.getMessage());
+            status = e instanceof IllegalArgumentException ? 2 : 1;
+        }
+        err.printf("%s finished in %d ms (JVM uptime %d ms)%n", cli.command,
+                (System.nanoTime() - start) / 1_000_000, ManagementFactory.getRuntimeMXBean().getUptime());
+        return status;
+    }
+
+    private void parse(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Command is missing");
+        }
+        command = "--help".equals(args[0]) ? "help" : args[0];
+        if (!COMMANDS.contains(command)) {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--file":
+                    fileName = value(args, ++i);
+                    break;
+                case "--engine":
+                    engine = StorageEngine.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                    break;
+                case "--limit":
+                    limit = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--port":
+                    port = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--binary-port":
+                    binaryPort = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--replication-port":
+                    replicationPort = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--replicate-from":
+                    replicateFrom = value(args, ++i);
+                    break;
+                case "--nodes":
+                    nodes = List.of(value(args, ++i).split(","));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value(args, ++i));
+                    break;
+                case "--malformed-rate":
+                    malformedRate = Double.parseDouble(value(args, ++i));
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--verbose":
+                    verbose = true;
+                    break;
+                default:
+                    arguments.add(args[i]);
+            }
+        }
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Option " + args[index - 1] + " requires a value");
+        }
+        return args[index];
+    }
+
+    private String argument(int index, String name) {
+        if (index >= arguments.size()) {
+            throw new IllegalArgumentException("Missing argument: " + name);
+        }
+        return arguments.get(index);
+    }
+
+    private int execute() throws IOException, ClassNotFoundException {
+        if (nodes != null && !CLUSTER_COMMANDS.contains(command)) {
+            throw new IllegalArgumentException("Option --nodes is not supported by " + command);
+        }
+        switch (command) {
+            case "import":
+                return importSubscribers(Paths.get(argument(0, "source")));
+            case "export":
+                return exportSubscribers(Paths.get(argument(0, "target")));
+            case "search":
+                return search(String.join(" ", arguments));
+            case "stats":
+                return stats();
+            case "compact":
+                return compact();
+            case "verify":
+                return verify();
+            case "backup":
+                return backup();
+            case "serve":
+                return serve();
+            case "generate":
+                return generate(Integer.parseInt(argument(0, "count")), Paths.get(argument(1, "target")));
+            case "jfr":
+                return summarizeRecording(Paths.get(argument(0, "recording")));
+            default:
+                usage();
+                return 0;
+        }
+    }
+
+    private void usage() {
+        err.println("Usage: phonebook <command> [arguments] [--file phonebook.dat] [--engine heap|columnar|off_heap]"
+                + " [--verbose]");
+        err.println("  import <file.csv|file.dat>   add subscribers from CSV or another data file");
+        err.println("  export <file.csv|file.dat>   write all subscribers to CSV or a data file");
+        err.println("  search <text> [--limit N]    print subscribers matching name or phone number");
+        err.println("  stats                        print subscriber and phone number counts");
+        err.println("  compact                      rewrite the data file sorted in the current format");
+        err.println("  verify                       check the data file; exit code 1 if problems are found");
+        err.println("  backup [target]              copy the data file");
+        err.println("  serve [--port 8080]          serve the JSON HTTP API until the process is stopped;");
+        err.println("        [--binary-port N]      also serve the binary lookup protocol on port N");
+        err.println("        [--replication-port N] accept read replicas on port N");
+        err.println("        [--replicate-from host:port]  run as a read-only replica of that primary");
+        err.println("  generate <count> <file.csv|file.dat> [--seed 1] [--malformed-rate 0] [--threads N]");
+        err.println("                               write synthetic subscribers for scale testing");
+        err.println("  jfr <recording.jfr>          summarize a flight recording per operation;");
+        err.println("                               record with -Dphonebook.jfr=recording.jfr");
+        err.println("  --nodes host:port,...        run import, search and stats on a cluster of serve nodes");
+    }
+
+    /**
+     * Добавляет абонентов из CSV или файла данных одной транзакцией.
+     * Строки с невалидными данными пропускаются и перечисляются в потоке ошибок.
+     */
+    private int importSubscribers(Path source) throws IOException, ClassNotFoundException {
+        List<Subscriber> imported = isDataFile(source)
+                ? new FileDataService(source.toString()).loadSubscribers()
+                : readCsv(source);
+        if (nodes != null) {
+            try (PhoneBookCluster cluster = cluster()) {
+                cluster.putAll(imported);
+                out.printf("Imported %d subscribers into %d nodes, total %d%n",
+                        imported.size(), nodes.size(), sum(cluster.getNodeCounts()));
+            }
+            return 0;
+        }
+
+        PhoneBookService service = PhoneBookService.open(fileName, engine);
+        boolean committed = service.transaction(tx -> {
+            for (Subscriber subscriber : imported) {
+                Subscriber added = tx.addSubscriber(
+                        subscriber.getLastName(), subscriber.getFirstName(), subscriber.getMiddleName());
+                for (PhoneNumber phone : subscriber.getPhoneNumbers()) {
+                    tx.addPhoneNumber(added, phone.getNumber(), phone.getType());
+                }
+            }
+        });
+        if (!committed) {
+            err.println("Import failed, the phone book is unchanged");
+            return 1;
+        }
+        out.printf("Imported %d subscribers, total %d%n", imported.size(), service.getSubscriberCount());
+        return 0;
+    }
+
+    private List<Subscriber> readCsv(Path source) throws IOException {
+        List<Subscriber> subscribers = new ArrayList<>();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.isBlank() || line.equals(CSV_HEADER)) {
+                    continue;
+                }
+                try {
+                    subscribers.add(parseCsvLine(line));
+                } catch (IllegalArgumentException e) {
+                    err.printf("Skipped line %d: %s%n", lineNumber, e.getMessage());
+                }
+            }
+        }
+        return subscribers;
+    }
+
+    private static Subscriber parseCsvLine(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 3 || fields.length > 4) {
+            throw new IllegalArgumentException("expected 3 or 4 fields, found " + fields.length);
+        }
+        String lastName = fields[0].trim();
+        String firstName = fields[1].trim();
+        String middleName = fields[2].trim();
+        PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
+
+        Subscriber subscriber = new Subscriber(lastName, firstName, middleName);
+        if (fields.length == 4 && !fields[3].isBlank()) {
+            for (String phone : fields[3].split("\\|")) {
+                int separator = phone.indexOf(':');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("phone must be TYPE:number: " + phone);
+                }
+                PhoneType type = PhoneType.valueOf(phone.substring(0, separator).trim().toUpperCase(Locale.ROOT));
+                String number = phone.substring(separator + 1).trim();
+                PhoneBookValidator.validatePhoneNumber(number);
+                subscriber.addPhoneNumber(new PhoneNumber(number, type));
+            }
+        }
+        return subscriber;
+    }
+
+    private int exportSubscribers(Path target) throws IOException {
+        PhoneBookService service = PhoneBookService.open(fileName, engine);
+        List<Subscriber> subscribers = service.getAllSubscribers();
+        writeSubscribers(target, subscribers.size(), subscribers);
+        out.printf("Exported %d subscribers to %s%n", subscribers.size(), target);
+        return 0;
+    }
+
+    /**
+     * Генерирует синтетических абонентов и записывает их в CSV или файл данных по мере генерации.
+     * Одинаковые количество, начальное значение и доля ошибок дают одинаковые ФИО и номера.
+     */
+    private int generate(int count, Path target) throws IOException {
+        SubscriberGenerator generator = new SubscriberGenerator(seed);
+        generator.setMalformedRate(malformedRate);
+        writeSubscribers(target, count, () -> generator.iterator(count, threads));
+        out.printf("Generated %d subscribers into %s (%d threads)%n", count, target, threads);
+        return 0;
+    }
+
+    /**
+     * Выводит сводку записи JFR по операциям телефонной книги, сборке мусора и вводу-выводу.
+     */
+    private int summarizeRecording(Path recording) throws IOException {
+        if (!Files.exists(recording)) {
+            err.println("File not found: " + recording);
+            return 1;
+        }
+        out.print(JfrSummary.read(recording).report());
+        return 0;
+    }
+
+    private static void writeSubscribers(Path target, int count, Iterable<Subscriber> subscribers)
+            throws IOException {
+        if (isDataFile(target)) {
+            new FileDataService(target.toString()).saveSubscribers(count, subscribers);
+        } else {
+            try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+                for (Subscriber subscriber : subscribers) {
+                    writer.write(toCsvLine(subscriber));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private static String toCsvLine(Subscriber subscriber) {
+        StringBuilder line = new StringBuilder()
+                .append(subscriber.getLastName()).append(',')
+                .append(subscriber.getFirstName()).append(',')
+                .append(nullToEmpty(subscriber.getMiddleName())).append(',');
+        List<PhoneNumber> phones = subscriber.getPhoneNumbers();
+        for (int i = 0; i < phones.size(); i++) {
+            if (i > 0) {
+                line.append('|');
+            }
+            line.append(phones.get(i).getType().name()).append(':').append(phones.get(i).getNumber());
+        }
+        return line.toString();
+    }
+
+    private int search(String text) throws IOException {
+        if (text.isBlank()) {
+            throw new IllegalArgumentException("Missing argument: text");
+        }
+        List<Subscriber> found;
+        if (nodes != null) {
+            try (PhoneBookCluster cluster = cluster()) {
+                found = cluster.search(text, limit);
+            }
+        } else {
+            found = PhoneBookService.open(fileName, engine).searchSubscribers(text);
+        }
+        int printed = 0;
+        for (Subscriber subscriber : found) {
+            if (printed++ == limit) {
+                break;
+            }
+            out.println(toCsvLine(subscriber));
+        }
+        err.printf("Found %d subscribers%n", found.size());
+        return 0;
+    }
+
+    private int stats() throws IOException {
+        if (nodes != null) {
+            try (PhoneBookCluster cluster = cluster()) {
+                List<Integer> counts = cluster.getNodeCounts();
+                for (int i = 0; i < counts.size(); i++) {
+                    out.printf("Node %-20s %d subscribers%n", cluster.getNodes().get(i).getName(), counts.get(i));
+                }
+                out.printf("Subscribers:   %d%n", sum(counts));
+            }
+            return 0;
+        }
+        long start = System.nanoTime();
+        PhoneBookService service = PhoneBookService.open(fileName, engine);
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        out.printf("File:          %s (%,d bytes)%n", fileName, new File(fileName).length());
+        out.printf("Engine:        %s, %d shards%n", engine, service.getShardCount());
+        out.printf("Subscribers:   %d%n", service.getSubscriberCount());
+        out.printf("Phone numbers: %d%n", service.getPhoneNumberCount());
+        out.printf("Load time:     %d ms%n", loadMillis);
+        return 0;
+    }
+
+    /**
+     * Перезаписывает файл данных в текущем потоковом формате в порядке сортировки.
+     */
+    private int compact() throws IOException {
+        long before = new File(fileName).length();
+        PhoneBookService service = PhoneBookService.open(fileName, engine);
+        if (!service.saveData()) {
+            err.println("Failed to write " + fileName);
+            return 1;
+        }
+        out.printf("Compacted %d subscribers: %,d -> %,d bytes%n",
+                service.getSubscriberCount(), before, new File(fileName).length());
+        return 0;
+    }
+
+    /**
+     * Проверяет файл данных: читаемость, валидность абонентов и номеров, уникальность идентификаторов.
+     */
+    private int verify() throws IOException, ClassNotFoundException {
+        if (!new File(fileName).exists()) {
+            err.println("File not found: " + fileName);
+            return 1;
+        }
+        List<Subscriber> subscribers = new FileDataService(fileName).loadSubscribers();
+        Set<String> ids = new HashSet<>();
+        int problems = 0;
+        for (Subscriber subscriber : subscribers) {
+            if (!ids.add(subscriber.getId())) {
+                out.println("Duplicate id: " + subscriber.getId());
+                problems++;
+            }
+            if (!PhoneBookValidator.isValidSubscriber(subscriber)) {
+                out.println("Invalid subscriber: " + subscriber.getId() + " " + subscriber.getFullName());
+                problems++;
+            }
+            for (PhoneNumber phone : subscriber.getPhoneNumbers()) {
+                if (!PhoneBookValidator.isValidPhoneNumber(phone)) {
+                    out.println("Invalid phone number of " + subscriber.getId() + ": " + phone.getNumber());
+                    problems++;
+                }
+            }
+        }
+        out.printf("Checked %d subscribers: %d problems%n", subscribers.size(), problems);
+        return problems == 0 ? 0 : 1;
+    }
+
+    private int backup() {
+        String target = arguments.isEmpty()
+                ? fileName + "." + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".bak"
+                : arguments.get(0);
+        if (!new FileDataService(fileName).createBackup(target)) {
+            err.println("Failed to back up " + fileName);
+            return 1;
+        }
+        out.println("Backup written to " + target);
+        return 0;
+    }
+
+    /**
+     * Запускает HTTP-сервер и, если указаны порты, сервер двоичного протокола и репликацию,
+     * затем ждет остановки процесса. Серверы останавливаются при завершении JVM.
+     * Реплика не читает файл данных: она получает снимок от основного процесса
+     * и записывает его в свой файл только при остановке.
+     */
+    private int serve() throws IOException {
+        PhoneBookService service;
+        if (replicateFrom != null) {
+            service = PhoneBookService.createUnloaded(fileName, engine);
+            service.setAutoSave(false);
+        } else {
+            service = PhoneBookService.open(fileName, engine);
+        }
+        PhoneBookServer server = new PhoneBookServer(service, new InetSocketAddress(port));
+        server.setReadOnly(replicateFrom != null);
+        BinaryServer binaryServer = binaryPort >= 0 ? new BinaryServer(service, new InetSocketAddress(binaryPort)) : null;
+        ReplicationPrimary primary = replicationPort >= 0
+                ? new ReplicationPrimary(service, new InetSocketAddress(replicationPort)) : null;
+        ReplicationFollower follower = replicateFrom != null ? follower(service, replicateFrom) : null;
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            if (binaryServer != null) {
+                binaryServer.stop();
+            }
+            if (primary != null) {
+                primary.stop();
+            }
+            if (follower != null) {
+                follower.close();
+                service.saveData();
+            }
+            stopped.countDown();
+        }, "phonebook-server-shutdown"));
+
+        server.start();
+        out.printf("Serving %d subscribers on http://localhost:%d/api/%n", service.getSubscriberCount(), server.getPort());
+        if (binaryServer != null) {
+            binaryServer.start();
+            out.printf("Binary lookup protocol on port %d%n", binaryServer.getPort());
+        }
+        if (primary != null) {
+            primary.start();
+            out.printf("Replication primary on port %d%n", primary.getPort());
+        }
+        if (follower != null) {
+            follower.start();
+            out.printf("Read-only replica of %s%n", replicateFrom);
+        }
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.stop(0);
+        }
+        return 0;
+    }
+
+    private PhoneBookCluster cluster() {
+        List<PartitionNode> partitions = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            partitions.add(RemotePartition.parse(node.trim()));
+        }
+        return new PhoneBookCluster(partitions);
+    }
+
+    private static int sum(List<Integer> counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static ReplicationFollower follower(PhoneBookService service, String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Primary address must be host:port: " + address);
+        }
+        return new ReplicationFollower(service, address.substring(0, separator),
+                Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    private static boolean isDataFile(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".dat");
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
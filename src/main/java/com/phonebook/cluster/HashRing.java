@@ -0,0 +1,71 @@
+package com.phonebook.cluster;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Кольцо согласованного хэширования: сопоставляет идентификатору абонента номер узла.
+ * Каждый узел занимает на кольце {@link #VIRTUAL_NODES} точек, вычисленных по его имени;
+ * идентификатор принадлежит узлу первой точки по часовой стрелке от хэша идентификатора.
+ * Поэтому при добавлении узла на него переходит примерно 1/N абонентов, а остальные
+ * остаются на прежних узлах.
+ */
+final class HashRing {
+
+    /**
+     * Количество точек узла на кольце; сглаживает неравномерность распределения.
+     */
+    static final int VIRTUAL_NODES = 160;
+
+    private final TreeMap<Long, Integer> points = new TreeMap<>();
+
+    /**
+     * Строит кольцо.
+     *
+     * @param nodeNames уникальные имена узлов
+     */
+    HashRing(List<String> nodeNames) {
+        if (nodeNames.isEmpty()) {
+            throw new IllegalArgumentException("Cluster needs at least one node");
+        }
+        if (new HashSet<>(nodeNames).size() != nodeNames.size()) {
+            throw new IllegalArgumentException("Node names must be unique: " + nodeNames);
+        }
+        for (int node = 0; node < nodeNames.size(); node++) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                points.put(hash(nodeNames.get(node) + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * Возвращает номер узла для ключа.
+     *
+     * @param key идентификатор абонента
+     * @return номер узла в списке, переданном при построении
+     */
+    int nodeFor(String key) {
+        Map.Entry<Long, Integer> point = points.ceilingEntry(hash(key));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    /**
+     * 64-битный хэш строки: FNV-1a по символам с перемешиванием из MurmurHash3, чтобы похожие
+     * строки (соседние идентификаторы, имена узлов с общим началом) расходились по всему кольцу.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
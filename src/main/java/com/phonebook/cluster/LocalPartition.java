@@ -0,0 +1,70 @@
+package com.phonebook.cluster;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.server.PhoneIndex;
+import com.phonebook.service.PhoneBookService;
+import java.util.List;
+
+/**
+ * Узел кластера в том же процессе, что и координатор.
+ */
+public class LocalPartition implements PartitionNode {
+
+    private final String name;
+    private final PhoneBookService service;
+    private final PhoneIndex phoneIndex;
+
+    /**
+     * Создает узел.
+     *
+     * @param name имя узла
+     * @param service сервис, хранящий абонентов узла
+     */
+    public LocalPartition(String name, PhoneBookService service) {
+        this.name = name;
+        this.service = service;
+        this.phoneIndex = new PhoneIndex(service);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void put(Subscriber subscriber) {
+        service.putSubscriber(subscriber);
+    }
+
+    @Override
+    public void putAll(List<Subscriber> subscribers) {
+        service.putSubscribers(subscribers);
+    }
+
+    @Override
+    public boolean delete(String id) {
+        Subscriber subscriber = get(id);
+        return subscriber != null && service.deleteSubscriber(subscriber);
+    }
+
+    @Override
+    public Subscriber get(String id) {
+        return service.findSubscriberById(id);
+    }
+
+    @Override
+    public List<Subscriber> search(String text, int limit) {
+        List<Subscriber> found = service.searchSubscribers(text);
+        return found.subList(0, Math.min(Math.max(limit, 0), found.size()));
+    }
+
+    @Override
+    public List<Subscriber> findByPhone(String number) {
+        return phoneIndex.find(number);
+    }
+
+    @Override
+    public int count() {
+        return service.getSubscriberCount();
+    }
+}
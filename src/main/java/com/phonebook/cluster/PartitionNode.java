@@ -0,0 +1,84 @@
+package com.phonebook.cluster;
+
+import com.phonebook.model.Subscriber;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Узел кластера, хранящий одну часть телефонной книги.
+ * Координатор {@link PhoneBookCluster} сам выбирает узел для каждого абонента и обращается
+ * к узлам только через этот интерфейс, поэтому узлы могут находиться в том же процессе
+ * ({@link LocalPartition}) или в других процессах ({@link RemotePartition}).
+ */
+public interface PartitionNode {
+
+    /**
+     * Возвращает имя узла. Имя определяет положение узла на кольце хэшей и должно быть
+     * уникальным и неизменным между запусками, иначе абоненты окажутся на других узлах.
+     *
+     * @return имя узла
+     */
+    String getName();
+
+    /**
+     * Добавляет абонента с его идентификатором или заменяет абонента с тем же идентификатором.
+     *
+     * @param subscriber абонент вместе с номерами телефонов
+     * @throws IOException при ошибке обращения к узлу
+     */
+    void put(Subscriber subscriber) throws IOException;
+
+    /**
+     * Добавляет или заменяет абонентов с их идентификаторами, сохраняя данные узла один раз
+     * на пакет, а не после каждого абонента.
+     *
+     * @param subscribers абоненты вместе с номерами телефонов
+     * @throws IOException при ошибке обращения к узлу; часть абонентов может быть уже записана
+     */
+    void putAll(List<Subscriber> subscribers) throws IOException;
+
+    /**
+     * Удаляет абонента.
+     *
+     * @param id идентификатор абонента
+     * @return true если абонент был удален
+     * @throws IOException при ошибке обращения к узлу
+     */
+    boolean delete(String id) throws IOException;
+
+    /**
+     * Возвращает абонента по идентификатору.
+     *
+     * @param id идентификатор абонента
+     * @return абонент или null, если абонента нет на узле
+     * @throws IOException при ошибке обращения к узлу
+     */
+    Subscriber get(String id) throws IOException;
+
+    /**
+     * Выполняет поиск абонентов узла.
+     *
+     * @param text текст для поиска; пустой текст находит всех абонентов
+     * @param limit максимальное количество абонентов
+     * @return первые найденные абоненты в порядке сортировки
+     * @throws IOException при ошибке обращения к узлу
+     */
+    List<Subscriber> search(String text, int limit) throws IOException;
+
+    /**
+     * Находит абонентов узла по номеру телефона через индекс номеров узла.
+     *
+     * @param number номер в произвольном форматировании
+     * @return абоненты узла с этим номером в порядке сортировки
+     * @throws IOException при ошибке обращения к узлу
+     */
+    List<Subscriber> findByPhone(String number) throws IOException;
+
+    /**
+     * Возвращает количество абонентов узла.
+     *
+     * @return количество абонентов
+     * @throws IOException при ошибке обращения к узлу
+     */
+    int count() throws IOException;
+}
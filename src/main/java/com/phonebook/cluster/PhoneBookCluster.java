@@ -0,0 +1,344 @@
+package com.phonebook.cluster;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.server.PhoneIndex;
+import com.phonebook.service.PhoneBookValidator;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Координатор телефонной книги, разделенной между несколькими узлами.
+ * <p>
+ * Абонент хранится на узле, выбранном согласованным хэшированием его идентификатора
+ * ({@link HashRing}), поэтому операции с известным идентификатором обращаются к одному узлу.
+ * Поиск по тексту выполняется на всех узлах параллельно; каждый узел возвращает первые
+ * найденные записи в порядке сортировки, и координатор сливает их в общий упорядоченный список.
+ * <p>
+ * Индекс номеров телефонов разделен между узлами так же, как абоненты: каждый узел индексирует
+ * номера своих абонентов ({@link com.phonebook.server.PhoneIndex}) и поддерживает индекс по своим
+ * изменениям. Поиск по номеру опрашивает индексы всех узлов параллельно, поэтому координатор
+ * не хранит номера и не загружает данные узлов при запуске, а изменения, выполненные на узле
+ * напрямую, сразу находятся по номеру.
+ */
+public class PhoneBookCluster implements Closeable {
+
+    // Изменения одного абонента выполняются под общей блокировкой, чтобы чтение и запись узла не чередовались
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * Вызов одного узла.
+     *
+     * @param <T> тип результата
+     */
+    @FunctionalInterface
+    private interface PartitionCall<T> {
+        T call(PartitionNode node) throws IOException;
+    }
+
+    private final List<PartitionNode> nodes;
+    private final HashRing ring;
+    private final ExecutorService executor;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * Создает координатор. Узлы должны быть перечислены с теми же именами при каждом запуске.
+     *
+     * @param nodes узлы кластера
+     * @throws IllegalArgumentException если узлов нет или их имена повторяются
+     */
+    public PhoneBookCluster(List<? extends PartitionNode> nodes) {
+        this.nodes = List.copyOf(nodes);
+        List<String> names = new ArrayList<>(nodes.size());
+        for (PartitionNode node : nodes) {
+            names.add(node.getName());
+        }
+        this.ring = new HashRing(names);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(nodes.size(), runnable -> {
+            Thread thread = new Thread(runnable, "phonebook-cluster-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Возвращает узлы кластера.
+     *
+     * @return узлы в порядке, переданном при создании
+     */
+    public List<PartitionNode> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Возвращает узел, на котором хранится абонент.
+     *
+     * @param id идентификатор абонента
+     * @return узел
+     */
+    public PartitionNode nodeFor(String id) {
+        return nodes.get(ring.nodeFor(id));
+    }
+
+    /**
+     * Добавляет абонента вместе с номерами телефонов.
+     *
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество
+     * @param phoneNumbers номера телефонов
+     * @return добавленный абонент
+     * @throws IllegalArgumentException если данные абонента или номера невалидны
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public Subscriber addSubscriber(String lastName, String firstName, String middleName,
+                                    List<PhoneNumber> phoneNumbers) throws IOException {
+        PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
+        Subscriber subscriber = new Subscriber(lastName, firstName, middleName);
+        for (PhoneNumber phoneNumber : phoneNumbers) {
+            PhoneBookValidator.validatePhoneNumber(phoneNumber.getNumber());
+            subscriber.addPhoneNumber(phoneNumber);
+        }
+        nodeFor(subscriber.getId()).put(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Записывает абонентов с их идентификаторами, параллельно на все узлы, каждому узлу
+     * одним пакетом. Используется для импорта; данные должны быть проверены заранее.
+     *
+     * @param subscribers абоненты
+     * @throws IOException при ошибке обращения к узлу; часть абонентов может быть уже записана
+     */
+    public void putAll(Collection<Subscriber> subscribers) throws IOException {
+        List<List<Subscriber>> byNode = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            byNode.add(new ArrayList<>());
+        }
+        for (Subscriber subscriber : subscribers) {
+            byNode.get(ring.nodeFor(subscriber.getId())).add(subscriber);
+        }
+        onAllNodes(node -> {
+            node.putAll(byNode.get(nodes.indexOf(node)));
+            return null;
+        });
+    }
+
+    /**
+     * Возвращает абонента по идентификатору.
+     *
+     * @param id идентификатор абонента
+     * @return абонент или null, если абонент не найден
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public Subscriber findSubscriberById(String id) throws IOException {
+        return nodeFor(id).get(id);
+    }
+
+    /**
+     * Изменяет ФИО абонента.
+     *
+     * @param id идентификатор абонента
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество
+     * @return true если абонент найден и изменен
+     * @throws IllegalArgumentException если данные невалидны
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public boolean updateSubscriber(String id, String lastName, String firstName, String middleName)
+            throws IOException {
+        PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
+        synchronized (lockFor(id)) {
+            Subscriber subscriber = findSubscriberById(id);
+            if (subscriber == null) {
+                return false;
+            }
+            nodeFor(id).put(new Subscriber(id, lastName, firstName, middleName, subscriber.getPhoneNumbers()));
+            return true;
+        }
+    }
+
+    /**
+     * Удаляет абонента.
+     *
+     * @param id идентификатор абонента
+     * @return true если абонент был удален
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public boolean deleteSubscriber(String id) throws IOException {
+        synchronized (lockFor(id)) {
+            return nodeFor(id).delete(id);
+        }
+    }
+
+    /**
+     * Добавляет номер телефона абоненту.
+     *
+     * @param id идентификатор абонента
+     * @param number номер телефона
+     * @param type тип телефона
+     * @return true если номер добавлен; false если абонента нет или номер у него уже есть
+     * @throws IllegalArgumentException если номер невалиден
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public boolean addPhoneNumber(String id, String number, PhoneType type) throws IOException {
+        PhoneBookValidator.validatePhoneNumber(number);
+        synchronized (lockFor(id)) {
+            Subscriber subscriber = findSubscriberById(id);
+            if (subscriber == null || PhoneIndex.findNumber(subscriber, number) != null) {
+                return false;
+            }
+            Subscriber changed = subscriber.copy();
+            changed.addPhoneNumber(new PhoneNumber(number, type));
+            nodeFor(id).put(changed);
+            return true;
+        }
+    }
+
+    /**
+     * Удаляет номер телефона абонента.
+     *
+     * @param id идентификатор абонента
+     * @param number номер телефона в произвольном форматировании
+     * @return true если номер удален
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public boolean removePhoneNumber(String id, String number) throws IOException {
+        synchronized (lockFor(id)) {
+            Subscriber subscriber = findSubscriberById(id);
+            PhoneNumber phoneNumber = subscriber != null ? PhoneIndex.findNumber(subscriber, number) : null;
+            if (phoneNumber == null) {
+                return false;
+            }
+            Subscriber changed = subscriber.copy();
+            changed.removePhoneNumber(phoneNumber);
+            nodeFor(id).put(changed);
+            return true;
+        }
+    }
+
+    /**
+     * Выполняет поиск абонентов на всех узлах.
+     *
+     * @param text текст для поиска; пустой текст находит всех абонентов
+     * @param limit максимальное количество абонентов
+     * @return первые найденные абоненты всего кластера в порядке сортировки
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public List<Subscriber> search(String text, int limit) throws IOException {
+        return merge(onAllNodes(node -> node.search(text, limit)), limit);
+    }
+
+    /**
+     * Находит абонентов по номеру телефона через индексы номеров всех узлов.
+     *
+     * @param number номер в произвольном форматировании
+     * @return абоненты с этим номером в порядке сортировки
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public List<Subscriber> findByPhone(String number) throws IOException {
+        return merge(onAllNodes(node -> node.findByPhone(number)), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Возвращает количество абонентов на каждом узле.
+     *
+     * @return количества в порядке узлов
+     * @throws IOException при ошибке обращения к узлу
+     */
+    public List<Integer> getNodeCounts() throws IOException {
+        return onAllNodes(PartitionNode::count);
+    }
+
+    /**
+     * Останавливает потоки обращения к узлам. Сами узлы продолжают работу.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Сливает упорядоченные списки узлов в один упорядоченный список.
+     *
+     * @param sorted списки, каждый в порядке сортировки абонентов
+     * @param limit максимальная длина результата
+     * @return первые записи общего порядка
+     */
+    static List<Subscriber> merge(List<List<Subscriber>> sorted, int limit) {
+        // Курсор - номер списка и позиция в нем; очередь упорядочена по текущему элементу курсора
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, sorted.size()),
+                (a, b) -> sorted.get(a[0]).get(a[1]).compareTo(sorted.get(b[0]).get(b[1])));
+        int total = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).isEmpty()) {
+                cursors.add(new int[] {i, 0});
+                total += sorted.get(i).size();
+            }
+        }
+        List<Subscriber> merged = new ArrayList<>(Math.min(Math.max(limit, 0), total));
+        while (merged.size() < limit && !cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            List<Subscriber> list = sorted.get(cursor[0]);
+            merged.add(list.get(cursor[1]));
+            if (++cursor[1] < list.size()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Выполняет вызов на всех узлах параллельно.
+     *
+     * @return результаты в порядке узлов
+     */
+    private <T> List<T> onAllNodes(PartitionCall<T> call) throws IOException {
+        List<Future<T>> futures = new ArrayList<>(nodes.size());
+        for (PartitionNode node : nodes) {
+            futures.add(executor.submit(() -> call.call(node)));
+        }
+        List<T> results = new ArrayList<>(nodes.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cluster request interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Cluster request failed", cause);
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    private Object lockFor(String id) {
+        return locks[Math.floorMod(id.hashCode(), LOCK_STRIPES)];
+    }
+}
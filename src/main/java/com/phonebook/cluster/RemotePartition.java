@@ -0,0 +1,82 @@
+package com.phonebook.cluster;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.server.PhoneBookClient;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Узел кластера в другом процессе: телефонная книга, запущенная командой {@code serve}.
+ * Узел обслуживается через JSON HTTP API; имя узла - его адрес {@code host:port}.
+ */
+public class RemotePartition implements PartitionNode {
+
+    private final String name;
+    private final PhoneBookClient client;
+
+    /**
+     * Создает узел.
+     *
+     * @param host имя или адрес узла
+     * @param port порт HTTP API узла
+     */
+    public RemotePartition(String host, int port) {
+        this.name = host + ":" + port;
+        this.client = new PhoneBookClient(host, port);
+    }
+
+    /**
+     * Создает узел по адресу {@code host:port}.
+     *
+     * @param address адрес узла
+     * @return узел
+     * @throws IllegalArgumentException если адрес записан неверно
+     */
+    public static RemotePartition parse(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Node address must be host:port: " + address);
+        }
+        return new RemotePartition(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void put(Subscriber subscriber) throws IOException {
+        client.put(subscriber);
+    }
+
+    @Override
+    public void putAll(List<Subscriber> subscribers) throws IOException {
+        client.putAll(subscribers);
+    }
+
+    @Override
+    public boolean delete(String id) throws IOException {
+        return client.delete(id);
+    }
+
+    @Override
+    public Subscriber get(String id) throws IOException {
+        return client.get(id);
+    }
+
+    @Override
+    public List<Subscriber> search(String text, int limit) throws IOException {
+        return client.search(text, limit);
+    }
+
+    @Override
+    public List<Subscriber> findByPhone(String number) throws IOException {
+        return client.findByPhone(number);
+    }
+
+    @Override
+    public int count() throws IOException {
+        return client.count();
+    }
+}
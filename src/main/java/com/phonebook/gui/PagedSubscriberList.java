@@ -0,0 +1,413 @@
+package com.phonebook.gui;
+
+import com.phonebook.model.Subscriber;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Наблюдаемый список абонентов для таблицы, читающий строки из снимка сервиса по требованию.
+ * Список не копирует снимок: строки материализуются страницами вокруг запрошенных таблицей
+ * индексов и хранятся в ограниченном кэше страниц. Во время прокрутки соседняя страница
+ * загружается заранее в фоновом потоке.
+ * <p>
+ * Изменения отдельных строк ({@link #add(int, Subscriber)}, {@link #remove(int)},
+ * {@link #set(int, Subscriber)}) записываются поверх снимка и не сбрасывают кэш.
+ * Когда таких изменений становится много, {@link #isFragmented()} сообщает, что снимок
+ * пора заменить новым через {@link #setAll(Collection)}.
+ * Методы списка вызываются из потока JavaFX.
+ */
+public class PagedSubscriberList extends ObservableListBase<Subscriber> {
+
+    /**
+     * Размер страницы по умолчанию.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 256;
+
+    /**
+     * Количество страниц в кэше по умолчанию.
+     */
+    public static final int DEFAULT_MAX_PAGES = 64;
+
+    // Количество изменений поверх снимка, после которого снимок пора заменить
+    private static final int MAX_PATCHES = 128;
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "phonebook-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int pageSize;
+    private final int maxPages;
+    private final Executor prefetchExecutor;
+
+    // Заменяется в потоке JavaFX, читается также при фоновой загрузке
+    private volatile State state = new State(Collections.emptyList(), new ArrayList<>(), 0);
+
+    // Кэш страниц снимка по номеру страницы; дополняется фоновой загрузкой
+    private final Map<Integer, Subscriber[]> pages;
+    private final Set<Integer> loading = new HashSet<>();
+
+    /**
+     * Создает пустой список с размерами страницы и кэша по умолчанию.
+     */
+    public PagedSubscriberList() {
+        this(DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, PREFETCH_EXECUTOR);
+    }
+
+    /**
+     * Создает пустой список.
+     *
+     * @param pageSize количество строк в странице
+     * @param maxPages максимальное количество страниц в кэше
+     * @param prefetchExecutor пул для предварительной загрузки страниц
+     */
+    public PagedSubscriberList(int pageSize, int maxPages, Executor prefetchExecutor) {
+        if (pageSize < 1 || maxPages < 2) {
+            throw new IllegalArgumentException("Invalid page cache size: " + pageSize + " x " + maxPages);
+        }
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.prefetchExecutor = prefetchExecutor;
+        this.pages = new LinkedHashMap<>(maxPages, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Subscriber[]> eldest) {
+                return size() > PagedSubscriberList.this.maxPages;
+            }
+        };
+    }
+
+    /**
+     * Снимок и изменения поверх него. Состояние заменяется целиком при замене снимка,
+     * поэтому фоновая загрузка страницы прежнего снимка не попадает в кэш.
+     */
+    private static final class State {
+
+        final List<Subscriber> source;
+        final List<Patch> patches;
+        final int size;
+
+        State(List<Subscriber> source, List<Patch> patches, int size) {
+            this.source = source;
+            this.patches = patches;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Изменение строки поверх снимка.
+     */
+    private static final class Patch {
+
+        static final int INSERT = 0;
+        static final int REMOVE = 1;
+        static final int SET = 2;
+
+        final int kind;
+        final int index;
+        final Subscriber element;
+
+        Patch(int kind, int index, Subscriber element) {
+            this.kind = kind;
+            this.index = index;
+            this.element = element;
+        }
+    }
+
+    /**
+     * Заменяет содержимое списка снимком. Снимок с произвольным доступом используется без
+     * копирования и не должен изменяться.
+     *
+     * @param source новый снимок абонентов
+     * @return true
+     */
+    @Override
+    public boolean setAll(Collection<? extends Subscriber> source) {
+        List<Subscriber> snapshot = source instanceof List && source instanceof RandomAccess
+                ? Collections.unmodifiableList((List<? extends Subscriber>) source)
+                : new ArrayList<>(source);
+        State previous = state;
+        synchronized (pages) {
+            state = new State(snapshot, new ArrayList<>(), snapshot.size());
+            pages.clear();
+            loading.clear();
+        }
+
+        if (previous.size > 0 || snapshot.size() > 0) {
+            // Построитель изменений копирует удаленные строки, поэтому замена сообщается
+            // отдельным изменением, которое читает прежние строки только по запросу слушателя
+            fireChange(new ReplaceChange(this, view(previous), snapshot.size()));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean setAll(Subscriber... elements) {
+        return setAll(List.of(elements));
+    }
+
+    @Override
+    public int size() {
+        return state.size;
+    }
+
+    @Override
+    public Subscriber get(int index) {
+        checkIndex(index, state.size);
+        return resolve(state, index, true);
+    }
+
+    /**
+     * Возвращает строку без загрузки страницы в кэш. Используется для двоичного поиска,
+     * который обращается к разрозненным строкам и не должен вытеснять видимые страницы.
+     *
+     * @param index индекс строки
+     * @return абонент
+     */
+    public Subscriber peek(int index) {
+        checkIndex(index, state.size);
+        return resolve(state, index, false);
+    }
+
+    @Override
+    public void add(int index, Subscriber element) {
+        checkIndex(index, state.size + 1);
+        patch(new Patch(Patch.INSERT, index, element), state.size + 1);
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    @Override
+    public Subscriber remove(int index) {
+        Subscriber removed = get(index);
+        patch(new Patch(Patch.REMOVE, index, null), state.size - 1);
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+        return removed;
+    }
+
+    @Override
+    public Subscriber set(int index, Subscriber element) {
+        Subscriber previous = get(index);
+        patch(new Patch(Patch.SET, index, element), state.size);
+        beginChange();
+        nextSet(index, previous);
+        endChange();
+        return previous;
+    }
+
+    /**
+     * Проверяет, накопилось ли поверх снимка столько изменений, что его пора заменить.
+     *
+     * @return true если снимок пора заменить
+     */
+    public boolean isFragmented() {
+        return state.patches.size() >= MAX_PATCHES;
+    }
+
+    /**
+     * Возвращает количество страниц в кэше.
+     *
+     * @return количество страниц
+     */
+    public int getCachedPageCount() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    private void patch(Patch patch, int newSize) {
+        List<Patch> patches = new ArrayList<>(state.patches);
+        patches.add(patch);
+        // Кэш хранит строки снимка, поэтому изменения поверх снимка его не затрагивают
+        state = new State(state.source, patches, newSize);
+    }
+
+    /**
+     * Находит строку, применяя изменения поверх снимка в обратном порядке.
+     */
+    private Subscriber resolve(State current, int index, boolean cache) {
+        int sourceIndex = index;
+        for (int i = current.patches.size() - 1; i >= 0; i--) {
+            Patch patch = current.patches.get(i);
+            if (patch.kind == Patch.INSERT) {
+                if (sourceIndex == patch.index) {
+                    return patch.element;
+                }
+                if (sourceIndex > patch.index) {
+                    sourceIndex--;
+                }
+            } else if (patch.kind == Patch.REMOVE) {
+                if (sourceIndex >= patch.index) {
+                    sourceIndex++;
+                }
+            } else if (sourceIndex == patch.index) {
+                return patch.element;
+            }
+        }
+        return cache ? sourceRow(current, sourceIndex) : peekSourceRow(current, sourceIndex);
+    }
+
+    private Subscriber peekSourceRow(State current, int sourceIndex) {
+        synchronized (pages) {
+            // Кэш относится только к текущему снимку
+            Subscriber[] page = state.source == current.source ? pages.get(sourceIndex / pageSize) : null;
+            if (page != null) {
+                return page[sourceIndex % pageSize];
+            }
+        }
+        return current.source.get(sourceIndex);
+    }
+
+    private Subscriber sourceRow(State current, int sourceIndex) {
+        int pageNumber = sourceIndex / pageSize;
+        int offset = sourceIndex % pageSize;
+        Subscriber[] page;
+        synchronized (pages) {
+            page = pages.get(pageNumber);
+        }
+        if (page == null) {
+            page = loadPage(current, pageNumber);
+            synchronized (pages) {
+                pages.put(pageNumber, page);
+            }
+        }
+
+        // Строка в последней или первой четверти страницы: таблица прокручивается к соседней странице
+        if (offset >= pageSize - pageSize / 4) {
+            prefetch(current, pageNumber + 1);
+        } else if (offset < pageSize / 4) {
+            prefetch(current, pageNumber - 1);
+        }
+        return page[offset];
+    }
+
+    private void prefetch(State current, int pageNumber) {
+        if (pageNumber < 0 || (long) pageNumber * pageSize >= current.source.size()) {
+            return;
+        }
+        synchronized (pages) {
+            if (pages.containsKey(pageNumber) || !loading.add(pageNumber)) {
+                return;
+            }
+        }
+        prefetchExecutor.execute(() -> {
+            Subscriber[] page = loadPage(current, pageNumber);
+            synchronized (pages) {
+                if (state.source == current.source && loading.remove(pageNumber)) {
+                    pages.put(pageNumber, page);
+                }
+            }
+        });
+    }
+
+    private Subscriber[] loadPage(State current, int pageNumber) {
+        int from = pageNumber * pageSize;
+        int to = Math.min(from + pageSize, current.source.size());
+        Subscriber[] page = new Subscriber[to - from];
+        for (int i = from; i < to; i++) {
+            page[i - from] = current.source.get(i);
+        }
+        return page;
+    }
+
+    /**
+     * Представление прежнего состояния для уведомления об удаленных строках.
+     */
+    private List<Subscriber> view(State previous) {
+        return new AbstractList<>() {
+            @Override
+            public Subscriber get(int index) {
+                checkIndex(index, previous.size);
+                return resolve(previous, index, false);
+            }
+
+            @Override
+            public int size() {
+                return previous.size;
+            }
+        };
+    }
+
+    /**
+     * Замена всех строк: удаленные строки - представление прежнего состояния списка.
+     */
+    private static final class ReplaceChange extends ListChangeListener.Change<Subscriber> {
+
+        private final List<Subscriber> removed;
+        private final int addedSize;
+        private boolean onChange;
+
+        ReplaceChange(ObservableList<Subscriber> list, List<Subscriber> removed, int addedSize) {
+            super(list);
+            this.removed = Collections.unmodifiableList(removed);
+            this.addedSize = addedSize;
+        }
+
+        @Override
+        public boolean next() {
+            if (onChange) {
+                return false;
+            }
+            onChange = true;
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            onChange = false;
+        }
+
+        @Override
+        public int getFrom() {
+            checkState();
+            return 0;
+        }
+
+        @Override
+        public int getTo() {
+            checkState();
+            return addedSize;
+        }
+
+        @Override
+        public List<Subscriber> getRemoved() {
+            checkState();
+            return removed;
+        }
+
+        @Override
+        protected int[] getPermutation() {
+            checkState();
+            return new int[0];
+        }
+
+        private void checkState() {
+            if (!onChange) {
+                throw new IllegalStateException("Invalid Change state: next() must be called before inspecting the Change.");
+            }
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+}
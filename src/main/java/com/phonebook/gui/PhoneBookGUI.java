@@ -3,9 +3,14 @@ package com.phonebook.gui;
 import com.phonebook.model.Subscriber;
 import com.phonebook.model.PhoneNumber;
 import com.phonebook.model.PhoneType;
+import com.phonebook.service.AsyncPhoneBookService;
+import com.phonebook.service.PhoneBookChange;
 import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.PhoneBookSnapshot;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -17,12 +22,21 @@ import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.lang.management.ManagementFactory;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 /**
  * Графический интерфейс приложения телефонного справочника.
  * Основное окно с возможностями управления абонентами.
+ * Все вызовы сервиса выполняются асинхронно через {@link AsyncPhoneBookService},
+ * а их результаты применяются к интерфейсу в потоке JavaFX.
+ * Таблицы обновляются по пакетам изменений сервиса: изменяются только затронутые строки.
+ * Окно показывается сразу, а данные загружаются в фоне частями; поиск доступен по уже
+ * загруженной части, изменение данных - после окончания загрузки.
  */
 public class PhoneBookGUI extends Application {
 
@@ -31,8 +45,8 @@ public class PhoneBookGUI extends Application {
     private static final int WINDOW_WIDTH = 1000;
     private static final int WINDOW_HEIGHT = 700;
 
-    private PhoneBookService phoneBookService;
-    private ObservableList<Subscriber> subscribersList;
+    private AsyncPhoneBookService phoneBookService;
+    private PagedSubscriberList subscribersList;
     private ObservableList<PhoneNumber> phoneNumbersList;
 
     // Основные элементы интерфейса
@@ -41,6 +55,10 @@ public class PhoneBookGUI extends Application {
     private TextField searchField;
     private Label statusLabel;
     private Label statsLabel;
+    private ProgressBar loadProgress;
+    // Панели кнопок изменения данных, недоступные до окончания загрузки
+    private HBox subscriberButtons;
+    private HBox phoneButtons;
 
     // Колонки таблицы абонентов
     private TableColumn<Subscriber, String> lastNameColumn;
@@ -51,6 +69,19 @@ public class PhoneBookGUI extends Application {
     private TableColumn<PhoneNumber, String> phoneNumberColumn;
     private TableColumn<PhoneNumber, PhoneType> phoneTypeColumn;
 
+    // Номер последнего запрошенного поиска; результаты более ранних поисков отбрасываются
+    private long searchGeneration;
+    // Номер поиска, результаты которого показаны в таблице абонентов
+    private long appliedSearchGeneration;
+    // Текст поиска в нижнем регистре, по которому отобраны строки таблицы абонентов
+    private String appliedFilter = "";
+    // Абонент, номера которого показаны в таблице телефонных номеров
+    private Subscriber phonesOwner;
+
+    // Фоновая загрузка данных; null после ее завершения
+    private Task<Boolean> loadTask;
+    private boolean interactiveLogged;
+
     /**
      * Точка входа для запуска графического интерфейса.
      *
@@ -65,24 +96,102 @@ public class PhoneBookGUI extends Application {
         logger.info("Starting Phone Book Application GUI");
 
         try {
-            phoneBookService = new PhoneBookService();
             initializeData();
             initializeUI(primaryStage);
+            logFirstFrame(primaryStage.getScene());
             primaryStage.show();
-            updateStatus("Application started successfully");
-            updateStats();
-            logger.info("Phone Book GUI initialized successfully");
+
+            PhoneBookService service = PhoneBookService.createUnloaded();
+            phoneBookService = new AsyncPhoneBookService(service);
+            service.addListener(changes -> Platform.runLater(() -> applyChanges(changes)));
+            startLoading(service);
         } catch (Exception e) {
             logger.error("Error starting GUI: {}", e.getMessage(), e);
             showErrorDialog("Startup Error", "Failed to start application", e.getMessage());
         }
     }
 
+    /**
+     * Запускает фоновую загрузку данных. Загруженные части попадают в таблицу через изменения
+     * сервиса, ход загрузки показывается в строке состояния.
+     */
+    private void startLoading(PhoneBookService service) {
+        subscriberButtons.setDisable(true);
+        phoneButtons.setDisable(true);
+        long started = System.nanoTime();
+
+        loadTask = new Task<>() {
+            @Override
+            protected Boolean call() {
+                return service.loadProgressively((loaded, progress) -> {
+                    updateProgress(progress, 1.0);
+                    updateMessage(String.format("Loading data... %,d subscribers", loaded));
+                });
+            }
+        };
+        loadProgress.progressProperty().bind(loadTask.progressProperty());
+        loadProgress.setVisible(true);
+        loadTask.messageProperty().addListener((observable, oldValue, message) -> updateStatus(message));
+        loadTask.setOnSucceeded(e -> finishLoading(loadTask.getValue(), started));
+        loadTask.setOnFailed(e -> finishLoading(false, started));
+
+        Thread loader = new Thread(loadTask, "phonebook-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void finishLoading(boolean loaded, long started) {
+        loadTask = null;
+        loadProgress.progressProperty().unbind();
+        loadProgress.setVisible(false);
+        logInteractive();
+        updateStats();
+        if (loaded) {
+            // Изменения разрешаются только после полной загрузки, иначе сохранение перезапишет файл частью данных
+            subscriberButtons.setDisable(false);
+            phoneButtons.setDisable(false);
+            updateStatus("Application started successfully");
+            logger.info("Data loaded in {} ms", (System.nanoTime() - started) / 1_000_000);
+        } else {
+            updateStatus("Read-only: the phone book is not fully loaded");
+            showErrorDialog("Startup Error", "Failed to load phone book",
+                    "Editing is disabled and the data file will not be overwritten. See the log for details.");
+        }
+    }
+
+    /**
+     * Записывает в журнал время от запуска процесса до первого отрисованного кадра окна.
+     */
+    private void logFirstFrame(Scene scene) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            logger.info("Time to first frame: {} ms", millisSinceLaunch());
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    /**
+     * Записывает в журнал время от запуска процесса до момента, когда в таблице показаны
+     * загруженные абоненты и по ним можно искать.
+     */
+    private void logInteractive() {
+        if (!interactiveLogged) {
+            interactiveLogged = true;
+            logger.info("Time to interactive: {} ms", millisSinceLaunch());
+        }
+    }
+
+    private static long millisSinceLaunch() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
     /**
      * Инициализирует данные приложения.
      */
     private void initializeData() {
-        subscribersList = FXCollections.observableArrayList(phoneBookService.getAllSubscribers());
+        // Таблица абонентов читает строки снимка сервиса страницами, не копируя его
+        subscribersList = new PagedSubscriberList();
         phoneNumbersList = FXCollections.observableArrayList();
     }
 
@@ -111,7 +220,14 @@ public class PhoneBookGUI extends Application {
 
         stage.setOnCloseRequest(event -> {
             logger.info("Closing Phone Book Application");
-            saveData();
+            if (phoneBookService != null) {
+                // Окно закрывается после фонового сохранения, чтобы не блокировать поток JavaFX
+                event.consume();
+                saveData(() -> {
+                    phoneBookService.close();
+                    stage.close();
+                });
+            }
         });
     }
 
@@ -189,10 +305,10 @@ public class PhoneBookGUI extends Application {
         phoneNumbersTable = createPhoneNumbersTable();
 
         // Панель управления абонентами
-        HBox subscriberButtons = createSubscriberButtons();
+        subscriberButtons = createSubscriberButtons();
 
         // Панель управления телефонными номерами
-        HBox phoneButtons = createPhoneNumberButtons();
+        phoneButtons = createPhoneNumberButtons();
 
         // Разделитель
         Label phonesLabel = new Label("Phone Numbers:");
@@ -327,8 +443,10 @@ public class PhoneBookGUI extends Application {
 
         statusLabel = new Label("Ready");
         statsLabel = new Label();
+        loadProgress = new ProgressBar();
+        loadProgress.setVisible(false);
 
-        bottomPanel.getChildren().addAll(statusLabel, new Separator(), statsLabel);
+        bottomPanel.getChildren().addAll(statusLabel, loadProgress, new Separator(), statsLabel);
         HBox.setHgrow(statusLabel, Priority.ALWAYS);
 
         return bottomPanel;
@@ -407,15 +525,33 @@ public class PhoneBookGUI extends Application {
      * Выполняет поиск абонентов.
      */
     private void performSearch(String searchText) {
-        List<Subscriber> searchResults = phoneBookService.searchSubscribers(searchText);
-        subscribersList.setAll(searchResults);
-        updateStatus("Found " + searchResults.size() + " subscribers");
+        long generation = ++searchGeneration;
+        onFxThread(phoneBookService.searchSubscribers(searchText), searchResults -> {
+            if (generation == searchGeneration) {
+                appliedSearchGeneration = generation;
+                appliedFilter = searchText == null || searchText.trim().isEmpty() ? "" : searchText.toLowerCase();
+                Subscriber selected = subscribersTable.getSelectionModel().getSelectedItem();
+                subscribersList.setAll(searchResults);
+                if (!searchResults.isEmpty()) {
+                    logInteractive();
+                }
+                // Во время загрузки таблица обновляется после каждой части, выделение сохраняется
+                int selectedIndex = selected != null ? locateSubscriber(selected) : -1;
+                if (selectedIndex >= 0) {
+                    subscribersTable.getSelectionModel().select(selectedIndex);
+                }
+                if (loadTask == null) {
+                    updateStatus("Found " + searchResults.size() + " subscribers");
+                }
+            }
+        });
     }
 
     /**
      * Обновляет таблицу телефонных номеров для выбранного абонента.
      */
     private void updatePhoneNumbersTable(Subscriber subscriber) {
+        phonesOwner = subscriber;
         phoneNumbersList.setAll(subscriber.getPhoneNumbers());
         updateStatus("Selected: " + subscriber.getFullName());
     }
@@ -432,30 +568,40 @@ public class PhoneBookGUI extends Application {
      * Обновляет статистику.
      */
     private void updateStats() {
-        int subscriberCount = phoneBookService.getSubscriberCount();
-        int phoneCount = phoneBookService.getPhoneNumberCount();
-        statsLabel.setText(String.format("Subscribers: %d | Phone Numbers: %d",
-                subscriberCount, phoneCount));
+        // Оба счетчика берутся из одного снимка, чтобы относиться к одной версии данных
+        CompletableFuture<String> stats = phoneBookService.openSnapshot().thenApply(snapshot -> {
+            try (PhoneBookSnapshot opened = snapshot) {
+                return String.format("Subscribers: %d | Phone Numbers: %d",
+                        opened.getSubscriberCount(), opened.getPhoneNumberCount());
+            }
+        });
+        onFxThread(stats, statsLabel::setText);
     }
 
     /**
      * Обновляет данные в таблицах.
      */
     private void refreshData() {
-        subscribersList.setAll(phoneBookService.getAllSubscribers());
-        updateStats();
-        updateStatus("Data refreshed");
+        onFxThread(phoneBookService.getAllSubscribers(), subscribers -> {
+            appliedFilter = "";
+            subscribersList.setAll(subscribers);
+            updateStats();
+            updateStatus("Data refreshed");
+        });
     }
 
     /**
-     * Сохраняет данные.
+     * Сохраняет данные и затем выполняет указанное действие.
      */
-    private void saveData() {
-        if (phoneBookService.saveData()) {
-            updateStatus("Data saved successfully");
-        } else {
-            updateStatus("Error saving data");
-        }
+    private void saveData(Runnable then) {
+        phoneBookService.saveData().whenComplete((saved, error) -> Platform.runLater(() -> {
+            if (error == null && saved) {
+                updateStatus("Data saved successfully");
+            } else {
+                updateStatus("Error saving data");
+            }
+            then.run();
+        }));
     }
 
     /**
@@ -466,24 +612,24 @@ public class PhoneBookGUI extends Application {
                 "Enter subscriber information:");
 
         Optional<SubscriberDialog.SubscriberResult> result = dialog.showAndWait();
-        result.ifPresent(subscriberResult -> {
-            Subscriber newSubscriber = phoneBookService.addSubscriber(
-                    subscriberResult.getLastName(),
-                    subscriberResult.getFirstName(),
-                    subscriberResult.getMiddleName()
-            );
-
+        result.ifPresent(subscriberResult -> onFxThread(phoneBookService.addSubscriber(
+                subscriberResult.getLastName(),
+                subscriberResult.getFirstName(),
+                subscriberResult.getMiddleName()
+        ), newSubscriber -> {
             if (newSubscriber != null) {
-                subscribersList.add(newSubscriber);
-                subscribersTable.getSelectionModel().select(newSubscriber);
+                // Строка уже добавлена пакетом изменений сервиса; двоичный поиск не обходит весь список
+                int index = locateSubscriber(newSubscriber);
+                if (index >= 0) {
+                    subscribersTable.getSelectionModel().select(index);
+                }
                 updatePhoneNumbersTable(newSubscriber);
-                updateStats();
                 updateStatus("Subscriber added: " + newSubscriber.getFullName());
             } else {
                 showErrorDialog("Error", "Failed to add subscriber",
                         "Please check the entered data.");
             }
-        });
+        }));
     }
 
     /**
@@ -502,24 +648,20 @@ public class PhoneBookGUI extends Application {
         dialog.setValues(selected.getLastName(), selected.getFirstName(), selected.getMiddleName());
 
         Optional<SubscriberDialog.SubscriberResult> result = dialog.showAndWait();
-        result.ifPresent(subscriberResult -> {
-            boolean success = phoneBookService.updateSubscriber(
-                    selected,
-                    subscriberResult.getLastName(),
-                    subscriberResult.getFirstName(),
-                    subscriberResult.getMiddleName()
-            );
-
+        result.ifPresent(subscriberResult -> onFxThread(phoneBookService.updateSubscriber(
+                selected,
+                subscriberResult.getLastName(),
+                subscriberResult.getFirstName(),
+                subscriberResult.getMiddleName()
+        ), success -> {
             if (success) {
-                subscribersList.setAll(phoneBookService.getAllSubscribers());
-                subscribersTable.getSelectionModel().select(selected);
-                updatePhoneNumbersTable(selected);
-                updateStatus("Subscriber updated: " + selected.getFullName());
+                updateStatus("Subscriber updated: " + subscriberResult.getLastName() + " "
+                        + subscriberResult.getFirstName());
             } else {
                 showErrorDialog("Error", "Failed to update subscriber",
                         "Please check the entered data.");
             }
-        });
+        }));
     }
 
     /**
@@ -541,15 +683,14 @@ public class PhoneBookGUI extends Application {
 
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            if (phoneBookService.deleteSubscriber(selected)) {
-                subscribersList.remove(selected);
-                phoneNumbersList.clear();
-                updateStats();
-                updateStatus("Subscriber deleted: " + selected.getFullName());
-            } else {
-                showErrorDialog("Error", "Delete Failed",
-                        "Failed to delete subscriber.");
-            }
+            onFxThread(phoneBookService.deleteSubscriber(selected), deleted -> {
+                if (deleted) {
+                    updateStatus("Subscriber deleted: " + selected.getFullName());
+                } else {
+                    showErrorDialog("Error", "Delete Failed",
+                            "Failed to delete subscriber.");
+                }
+            });
         }
     }
 
@@ -568,22 +709,18 @@ public class PhoneBookGUI extends Application {
                 "Enter phone number information:");
 
         Optional<PhoneNumberDialog.PhoneNumberResult> result = dialog.showAndWait();
-        result.ifPresent(phoneResult -> {
-            boolean success = phoneBookService.addPhoneNumber(
-                    selected,
-                    phoneResult.getNumber(),
-                    phoneResult.getType()
-            );
-
+        result.ifPresent(phoneResult -> onFxThread(phoneBookService.addPhoneNumber(
+                selected,
+                phoneResult.getNumber(),
+                phoneResult.getType()
+        ), success -> {
             if (success) {
-                updatePhoneNumbersTable(selected);
-                updateStats();
                 updateStatus("Phone number added to: " + selected.getFullName());
             } else {
                 showErrorDialog("Error", "Failed to add phone number",
                         "Please check the entered data or if number already exists.");
             }
-        });
+        }));
     }
 
     /**
@@ -607,14 +744,14 @@ public class PhoneBookGUI extends Application {
 
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            if (phoneBookService.removePhoneNumber(selectedSubscriber, selectedPhone)) {
-                phoneNumbersList.remove(selectedPhone);
-                updateStats();
-                updateStatus("Phone number deleted: " + selectedPhone.getNumber());
-            } else {
-                showErrorDialog("Error", "Delete Failed",
-                        "Failed to delete phone number.");
-            }
+            onFxThread(phoneBookService.removePhoneNumber(selectedSubscriber, selectedPhone), removed -> {
+                if (removed) {
+                    updateStatus("Phone number deleted: " + selectedPhone.getNumber());
+                } else {
+                    showErrorDialog("Error", "Delete Failed",
+                            "Failed to delete phone number.");
+                }
+            });
         }
     }
 
@@ -622,9 +759,170 @@ public class PhoneBookGUI extends Application {
      * Сортирует абонентов по ФИО.
      */
     private void sortSubscribers() {
-        phoneBookService.sortSubscribers();
-        subscribersList.setAll(phoneBookService.getAllSubscribers());
-        updateStatus("Subscribers sorted by name");
+        // Таблица перечитывается по изменению RESET, опубликованному сервисом после сортировки
+        onFxThread(phoneBookService.sortSubscribers(), sorted -> updateStatus("Subscribers sorted by name"));
+    }
+
+    /**
+     * Применяет пакет изменений сервиса к таблицам, изменяя только затронутые строки.
+     * Позиция строки находится двоичным поиском по ФИО, поэтому изменение одного абонента
+     * не зависит от размера таблицы.
+     */
+    private void applyChanges(List<PhoneBookChange> changes) {
+        if (appliedSearchGeneration != searchGeneration) {
+            // Начатый поиск мог прочитать данные до этих изменений, и его результат заменил бы
+            // примененные изменения: поиск выполняется заново под новым номером
+            performSearch(searchField.getText());
+        }
+        for (PhoneBookChange change : changes) {
+            Subscriber subscriber = change.getSubscriber();
+            switch (change.getType()) {
+                case RESET:
+                    // Данные заменены целиком: текущий поиск выполняется заново
+                    phonesOwner = null;
+                    phoneNumbersList.clear();
+                    performSearch(searchField.getText());
+                    updateStats();
+                    return;
+                case ADDED:
+                    if (matchesFilter(subscriber) && locateSubscriber(subscriber) < 0) {
+                        subscribersList.add(insertionPoint(subscriber), subscriber);
+                    }
+                    break;
+                case REMOVED:
+                    int index = locateSubscriber(change.getPrevious());
+                    if (index >= 0) {
+                        subscribersList.remove(index);
+                    }
+                    if (subscriber.equals(phonesOwner)) {
+                        phonesOwner = null;
+                        phoneNumbersList.clear();
+                    }
+                    break;
+                case UPDATED:
+                    replaceSubscriber(change.getPrevious(), subscriber);
+                    if (subscriber.equals(phonesOwner)) {
+                        phonesOwner = subscriber;
+                        phoneNumbersList.setAll(subscriber.getPhoneNumbers());
+                    }
+                    break;
+                case PHONE_ADDED:
+                    replaceSubscriber(change.getPrevious(), subscriber);
+                    if (subscriber.equals(phonesOwner)) {
+                        phonesOwner = subscriber;
+                        phoneNumbersList.add(change.getPhoneNumber());
+                    }
+                    break;
+                case PHONE_REMOVED:
+                    replaceSubscriber(change.getPrevious(), subscriber);
+                    if (subscriber.equals(phonesOwner)) {
+                        phonesOwner = subscriber;
+                        phoneNumbersList.remove(change.getPhoneNumber());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (subscribersList.isFragmented()) {
+            // Накопилось много изменений поверх снимка: таблица переключается на новый снимок
+            performSearch(searchField.getText());
+        }
+        updateStats();
+    }
+
+    /**
+     * Заменяет строку абонента новой версией. Строка остается на месте, если новая версия
+     * не нарушает порядок сортировки, иначе перемещается в новую позицию.
+     */
+    private void replaceSubscriber(Subscriber previous, Subscriber current) {
+        int index = locateSubscriber(previous);
+        boolean visible = matchesFilter(current);
+        if (index < 0) {
+            if (visible) {
+                subscribersList.add(insertionPoint(current), current);
+            }
+            return;
+        }
+        if (!visible) {
+            subscribersList.remove(index);
+            return;
+        }
+
+        boolean selected = subscribersTable.getSelectionModel().getSelectedIndex() == index;
+        boolean inPlace = (index == 0 || subscribersList.peek(index - 1).compareTo(current) <= 0)
+                && (index == subscribersList.size() - 1 || current.compareTo(subscribersList.peek(index + 1)) <= 0);
+        if (inPlace) {
+            subscribersList.set(index, current);
+        } else {
+            subscribersList.remove(index);
+            index = insertionPoint(current);
+            subscribersList.add(index, current);
+        }
+        if (selected) {
+            subscribersTable.getSelectionModel().select(index);
+        }
+    }
+
+    /**
+     * Возвращает индекс строки абонента или -1. Строки упорядочены по ФИО, поэтому
+     * просматриваются только абоненты с тем же ФИО.
+     */
+    private int locateSubscriber(Subscriber subscriber) {
+        int low = 0;
+        int high = subscribersList.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (subscribersList.peek(mid).compareTo(subscriber) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < subscribersList.size() && subscribersList.peek(i).compareTo(subscriber) == 0; i++) {
+            if (subscribersList.peek(i).equals(subscriber)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает позицию для вставки абонента после всех абонентов с тем же ФИО.
+     */
+    private int insertionPoint(Subscriber subscriber) {
+        int low = 0;
+        int high = subscribersList.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (subscribersList.peek(mid).compareTo(subscriber) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean matchesFilter(Subscriber subscriber) {
+        return appliedFilter.isEmpty() || subscriber.contains(appliedFilter);
+    }
+
+    /**
+     * Применяет результат асинхронного вызова сервиса в потоке JavaFX.
+     * Ошибка вызова показывается пользователю.
+     */
+    private <T> void onFxThread(CompletableFuture<T> future, Consumer<T> action) {
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                action.accept(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            logger.error("Service call failed: {}", cause.getMessage(), cause);
+            showErrorDialog("Error", "Operation failed", String.valueOf(cause.getMessage()));
+        }));
     }
 
     /**
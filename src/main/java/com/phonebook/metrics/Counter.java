@@ -0,0 +1,17 @@
+package com.phonebook.metrics;
+
+/**
+ * Счетчики событий телефонной книги в {@link MetricsRegistry}.
+ */
+public enum Counter {
+    SUBSCRIBERS_ADDED,
+    SUBSCRIBERS_DELETED,
+    PHONES_ADDED,
+    PHONES_REMOVED,
+    SUBSCRIBERS_SAVED,
+    SUBSCRIBERS_LOADED,
+    BYTES_WRITTEN,
+    BYTES_READ,
+    CACHE_HITS,
+    CACHE_MISSES
+}
@@ -0,0 +1,89 @@
+package com.phonebook.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Запуск записи JFR с профилем телефонной книги {@value #PROFILE_RESOURCE}.
+ * Профиль дополняет стандартный профиль JDK: в записи вместе с событиями сохранения, загрузки,
+ * поиска, сортировки и проверки оказываются сборка мусора, файловый ввод-вывод и выборки стеков.
+ */
+public final class FlightRecording {
+
+    /**
+     * Системное свойство с путем файла записи; если задано, запись начинается при запуске
+     * приложения и сохраняется при завершении JVM.
+     */
+    public static final String JFR_PROPERTY = "phonebook.jfr";
+
+    /**
+     * Ресурс с профилем JFR телефонной книги.
+     */
+    public static final String PROFILE_RESOURCE = "/phonebook.jfc";
+
+    private FlightRecording() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Возвращает настройки стандартного профиля JDK, дополненные профилем телефонной книги.
+     *
+     * @return настройки событий для {@link Recording#Recording(Map)}
+     * @throws IOException если профиль не найден или не прочитан
+     * @throws ParseException если профиль содержит ошибку
+     */
+    public static Map<String, String> settings() throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+        InputStream profile = FlightRecording.class.getResourceAsStream(PROFILE_RESOURCE);
+        if (profile == null) {
+            throw new IOException("Resource not found: " + PROFILE_RESOURCE);
+        }
+        try (Reader reader = new InputStreamReader(profile, StandardCharsets.UTF_8)) {
+            settings.putAll(Configuration.create(reader).getSettings());
+        }
+        return settings;
+    }
+
+    /**
+     * Начинает запись, которая сохраняется в файл при остановке или завершении JVM.
+     *
+     * @param destination файл записи
+     * @return начатая запись
+     * @throws IOException если профиль не прочитан или файл недоступен
+     * @throws ParseException если профиль содержит ошибку
+     */
+    public static Recording start(Path destination) throws IOException, ParseException {
+        Recording recording = new Recording(settings());
+        recording.setName("phonebook");
+        recording.setToDisk(true);
+        recording.setDestination(destination);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Начинает запись в файл из свойства {@value #JFR_PROPERTY}, если свойство задано.
+     * Ошибка запуска записи выводится в поток ошибок и не останавливает приложение.
+     */
+    public static void startFromSystemProperty() {
+        String file = System.getProperty(JFR_PROPERTY);
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        try {
+            start(Path.of(file));
+        } catch (IOException | ParseException | RuntimeException e) {
+            System.err.println("Flight recording is not started: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.phonebook.metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Сводка записи JFR по операциям: количество, время и объем данных событий телефонной книги
+ * и событий сборки мусора и ввода-вывода, которые объясняют их время.
+ * Операции упорядочены по суммарному времени.
+ */
+public class JfrSummary {
+
+    private static final String EVENT_PREFIX = "com.phonebook.";
+    private static final Set<String> CONTEXT_EVENTS = Set.of(
+            "jdk.GarbageCollection", "jdk.GCPhasePause", "jdk.FileRead", "jdk.FileWrite", "jdk.FileForce",
+            "jdk.SocketRead", "jdk.SocketWrite", "jdk.JavaMonitorEnter");
+    // Поля с количеством записей и байтов в порядке предпочтения
+    private static final String[] RECORD_FIELDS = {"results", "subscribers"};
+    private static final String[] BYTE_FIELDS = {"bytes", "bytesRead", "bytesWritten"};
+
+    private final Map<String, OperationStats> operations = new LinkedHashMap<>();
+    private Instant first;
+    private Instant last;
+
+    /**
+     * Статистика одного типа событий.
+     */
+    public static final class OperationStats {
+
+        private final String name;
+        private final LatencyHistogram durations = new LatencyHistogram();
+        private long totalNanos;
+        private long records;
+        private long bytes;
+
+        OperationStats(String name) {
+            this.name = name;
+        }
+
+        void add(RecordedEvent event) {
+            long nanos = event.getDuration().toNanos();
+            durations.record(nanos);
+            totalNanos += nanos;
+            records += firstField(event, RECORD_FIELDS);
+            bytes += firstField(event, BYTE_FIELDS);
+        }
+
+        private static long firstField(RecordedEvent event, String[] fields) {
+            for (String field : fields) {
+                if (event.hasField(field)) {
+                    return event.getLong(field);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Возвращает имя типа событий, например {@code com.phonebook.Save}.
+         *
+         * @return имя типа событий
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Возвращает количество событий.
+         *
+         * @return количество событий
+         */
+        public long getCount() {
+            return durations.getCount();
+        }
+
+        /**
+         * Возвращает суммарную длительность событий.
+         *
+         * @return длительность в наносекундах
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Возвращает гистограмму длительностей событий.
+         *
+         * @return гистограмма в наносекундах
+         */
+        public LatencyHistogram getDurations() {
+            return durations;
+        }
+
+        /**
+         * Возвращает сумму количества записей: найденных абонентов для поиска,
+         * обработанных абонентов для остальных операций.
+         *
+         * @return количество записей
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * Возвращает сумму записанных или прочитанных байтов.
+         *
+         * @return количество байтов
+         */
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Читает запись JFR и строит сводку.
+     *
+     * @param recording файл записи
+     * @return сводка
+     * @throws IOException если файл не прочитан
+     */
+    public static JfrSummary read(Path recording) throws IOException {
+        JfrSummary summary = new JfrSummary();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                summary.add(file.readEvent());
+            }
+        }
+        return summary;
+    }
+
+    private void add(RecordedEvent event) {
+        String name = event.getEventType().getName();
+        if (!name.startsWith(EVENT_PREFIX) && !CONTEXT_EVENTS.contains(name)) {
+            return;
+        }
+        operations.computeIfAbsent(name, OperationStats::new).add(event);
+        Instant start = event.getStartTime();
+        if (first == null || start.isBefore(first)) {
+            first = start;
+        }
+        if (last == null || event.getEndTime().isAfter(last)) {
+            last = event.getEndTime();
+        }
+    }
+
+    /**
+     * Возвращает статистику по типам событий в порядке убывания суммарного времени.
+     *
+     * @return статистика операций
+     */
+    public List<OperationStats> getOperations() {
+        List<OperationStats> sorted = new ArrayList<>(operations.values());
+        sorted.sort(Comparator.comparingLong(OperationStats::getTotalNanos).reversed());
+        return sorted;
+    }
+
+    /**
+     * Возвращает статистику типа событий.
+     *
+     * @param name имя типа событий
+     * @return статистика или null, если событий этого типа нет в записи
+     */
+    public OperationStats getOperation(String name) {
+        return operations.get(name);
+    }
+
+    /**
+     * Возвращает сводку в виде таблицы.
+     *
+     * @return текст сводки
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        if (first != null) {
+            report.append(String.format(Locale.ROOT, "Recording span: %d ms%n", last.toEpochMilli() - first.toEpochMilli()));
+        }
+        report.append(String.format(Locale.ROOT, "%-28s %8s %11s %10s %10s %10s %10s %10s %12s%n",
+                "event", "count", "total(ms)", "mean(us)", "p50(us)", "p99(us)", "max(us)", "records", "bytes"));
+        for (OperationStats stats : getOperations()) {
+            LatencyHistogram durations = stats.getDurations();
+            report.append(String.format(Locale.ROOT, "%-28s %8d %11.1f %10.1f %10.1f %10.1f %10.1f %10d %12d%n",
+                    stats.getName(), stats.getCount(), stats.getTotalNanos() / 1_000_000.0, durations.getMeanMicros(),
+                    durations.getP50Micros(), durations.getP99Micros(), durations.getMaxMicros(),
+                    stats.getRecords(), stats.getBytes()));
+        }
+        return report.toString();
+    }
+}
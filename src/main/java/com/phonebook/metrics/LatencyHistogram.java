@@ -0,0 +1,140 @@
+package com.phonebook.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма времени выполнения операции в наносекундах.
+ * Интервалы устроены как в HdrHistogram: каждая степень двойки делится на 32 равных интервала,
+ * поэтому процентили оцениваются с относительной погрешностью не более 1/32 во всем диапазоне long.
+ * Запись выполняется без блокировок: индекс интервала вычисляется сдвигами,
+ * затем увеличиваются счетчик интервала и сумма времени.
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Значения меньше этого записываются каждое в свой интервал
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Записывает время выполнения операции.
+     *
+     * @param nanos время в наносекундах; отрицательное значение записывается как 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        totalNanos.add(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Записывает время, прошедшее с указанного момента.
+     *
+     * @param startNanos значение {@link System#nanoTime()} в начале операции
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в интервал.
+     */
+    static long upperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Возвращает наибольшее записанное время.
+     *
+     * @return время в наносекундах
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Оценивает процентиль времени верхней границей интервала гистограммы.
+     *
+     * @param quantile доля операций от 0 до 1
+     * @return время в наносекундах, не меньшее времени указанной доли операций
+     */
+    public long getPercentileNanos(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMaxNanos());
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1_000.0 / n;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return getMaxNanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return getPercentileNanos(0.50) / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return getPercentileNanos(0.90) / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return getPercentileNanos(0.99) / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return getPercentileNanos(0.999) / 1_000.0;
+    }
+}
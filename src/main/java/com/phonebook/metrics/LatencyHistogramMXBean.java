@@ -0,0 +1,57 @@
+package com.phonebook.metrics;
+
+/**
+ * Интерфейс управления гистограммы времени операции, публикуемый через JMX.
+ * Процентили - верхние границы интервалов гистограммы.
+ */
+public interface LatencyHistogramMXBean {
+
+    /**
+     * Возвращает количество записанных операций.
+     *
+     * @return количество операций
+     */
+    long getCount();
+
+    /**
+     * Возвращает среднее время операции.
+     *
+     * @return среднее время в микросекундах
+     */
+    double getMeanMicros();
+
+    /**
+     * Возвращает наибольшее время операции.
+     *
+     * @return время в микросекундах
+     */
+    double getMaxMicros();
+
+    /**
+     * Возвращает медиану времени операции.
+     *
+     * @return время в микросекундах
+     */
+    double getP50Micros();
+
+    /**
+     * Возвращает 90-й процентиль времени операции.
+     *
+     * @return время в микросекундах
+     */
+    double getP90Micros();
+
+    /**
+     * Возвращает 99-й процентиль времени операции.
+     *
+     * @return время в микросекундах
+     */
+    double getP99Micros();
+
+    /**
+     * Возвращает 99,9-й процентиль времени операции.
+     *
+     * @return время в микросекундах
+     */
+    double getP999Micros();
+}
@@ -0,0 +1,27 @@
+package com.phonebook.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR загрузки абонентов из файла данных.
+ */
+@Name("com.phonebook.Load")
+@Label("Phone Book Load")
+@Description("Subscribers read from the data file")
+@Category({"Phone Book", "Persistence"})
+public class LoadEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Subscribers")
+    public int subscribers;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
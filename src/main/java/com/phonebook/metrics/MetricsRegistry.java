@@ -0,0 +1,232 @@
+package com.phonebook.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Метрики телефонной книги: гистограмма времени каждой операции {@link Operation}
+ * и счетчики событий {@link Counter}.
+ * <p>
+ * Запись не использует блокировок и сводится к нескольким атомарным сложениям, поэтому
+ * метрики записываются всегда. Общий реестр процесса {@link #getDefault()} публикуется
+ * через JMX в домене {@value #DOMAIN} и, если задано свойство {@value #DUMP_PROPERTY},
+ * записывает отчет в файл при завершении JVM.
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+    /**
+     * Домен имен MBean телефонной книги.
+     */
+    public static final String DOMAIN = "com.phonebook";
+
+    /**
+     * Системное свойство с путем файла, в который записывается отчет при завершении JVM.
+     */
+    public static final String DUMP_PROPERTY = "phonebook.metrics.dump";
+
+    private static final Logger logger = LogManager.getLogger(MetricsRegistry.class);
+
+    private static final MetricsRegistry DEFAULT = createDefault();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    private final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+    /**
+     * Создает пустой реестр, не публикуя его через JMX.
+     */
+    public MetricsRegistry() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Возвращает общий реестр процесса.
+     *
+     * @return реестр метрик
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Создает общий реестр. Сервер MBean платформы запускается несколько сотен миллисекунд,
+     * поэтому реестр публикуется в фоновом потоке и не задерживает запуск приложения.
+     */
+    private static MetricsRegistry createDefault() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Thread publisher = new Thread(() -> {
+            try {
+                registry.registerMBeans(ManagementFactory.getPlatformMBeanServer());
+            } catch (JMException | RuntimeException e) {
+                logger.warn("Metrics are not published over JMX: {}", e.getMessage());
+            }
+        }, "phonebook-metrics-jmx");
+        publisher.setDaemon(true);
+        publisher.start();
+
+        String dumpFile = System.getProperty(DUMP_PROPERTY);
+        if (dumpFile != null && !dumpFile.isBlank()) {
+            registry.dumpOnShutdown(Path.of(dumpFile));
+        }
+        return registry;
+    }
+
+    /**
+     * Публикует счетчики и гистограммы операций на сервере MBean.
+     *
+     * @param server сервер MBean
+     * @throws JMException если MBean не удалось зарегистрировать
+     */
+    public void registerMBeans(MBeanServer server) throws JMException {
+        server.registerMBean(this, new ObjectName(DOMAIN + ":type=Metrics"));
+        for (Operation operation : Operation.values()) {
+            server.registerMBean(histogram(operation),
+                    new ObjectName(DOMAIN + ":type=Latency,operation=" + operation.getName()));
+        }
+    }
+
+    /**
+     * Записывает отчет в файл при завершении JVM.
+     *
+     * @param file файл отчета
+     */
+    public void dumpOnShutdown(Path file) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Files.writeString(file, getReport(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("Failed to write metrics to " + file + ": " + e.getMessage());
+            }
+        }, "phonebook-metrics-dump"));
+    }
+
+    /**
+     * Возвращает гистограмму времени операции.
+     *
+     * @param operation операция
+     * @return гистограмма
+     */
+    public LatencyHistogram histogram(Operation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    /**
+     * Записывает время операции, прошедшее с указанного момента.
+     *
+     * @param operation операция
+     * @param startNanos значение {@link System#nanoTime()} в начале операции
+     */
+    public void recordSince(Operation operation, long startNanos) {
+        histograms[operation.ordinal()].recordSince(startNanos);
+    }
+
+    /**
+     * Увеличивает счетчик на единицу.
+     *
+     * @param counter счетчик
+     */
+    public void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    /**
+     * Увеличивает счетчик на указанное значение.
+     *
+     * @param counter счетчик
+     * @param delta прибавляемое значение
+     */
+    public void add(Counter counter, long delta) {
+        counters[counter.ordinal()].add(delta);
+    }
+
+    /**
+     * Возвращает значение счетчика.
+     *
+     * @param counter счетчик
+     * @return значение
+     */
+    public long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    @Override
+    public long getSubscribersAdded() {
+        return get(Counter.SUBSCRIBERS_ADDED);
+    }
+
+    @Override
+    public long getSubscribersDeleted() {
+        return get(Counter.SUBSCRIBERS_DELETED);
+    }
+
+    @Override
+    public long getPhonesAdded() {
+        return get(Counter.PHONES_ADDED);
+    }
+
+    @Override
+    public long getPhonesRemoved() {
+        return get(Counter.PHONES_REMOVED);
+    }
+
+    @Override
+    public long getSubscribersSaved() {
+        return get(Counter.SUBSCRIBERS_SAVED);
+    }
+
+    @Override
+    public long getSubscribersLoaded() {
+        return get(Counter.SUBSCRIBERS_LOADED);
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return get(Counter.BYTES_WRITTEN);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return get(Counter.BYTES_READ);
+    }
+
+    @Override
+    public long getCacheHits() {
+        return get(Counter.CACHE_HITS);
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return get(Counter.CACHE_MISSES);
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%-10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = histogram(operation);
+            report.append(String.format(Locale.ROOT, "%-10s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    operation.getName(), histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+                    histogram.getP90Micros(), histogram.getP99Micros(), histogram.getP999Micros(),
+                    histogram.getMaxMicros()));
+        }
+        for (Counter counter : Counter.values()) {
+            report.append(String.format(Locale.ROOT, "%-20s %d%n", counter.name().toLowerCase(Locale.ROOT), get(counter)));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.phonebook.metrics;
+
+/**
+ * Интерфейс управления счетчиков телефонной книги, публикуемый через JMX.
+ * Время операций публикуется отдельными {@link LatencyHistogramMXBean}.
+ */
+public interface MetricsRegistryMXBean {
+
+    /**
+     * Возвращает количество добавленных абонентов.
+     *
+     * @return количество абонентов
+     */
+    long getSubscribersAdded();
+
+    /**
+     * Возвращает количество удаленных абонентов.
+     *
+     * @return количество абонентов
+     */
+    long getSubscribersDeleted();
+
+    /**
+     * Возвращает количество добавленных телефонных номеров.
+     *
+     * @return количество номеров
+     */
+    long getPhonesAdded();
+
+    /**
+     * Возвращает количество удаленных телефонных номеров.
+     *
+     * @return количество номеров
+     */
+    long getPhonesRemoved();
+
+    /**
+     * Возвращает количество абонентов, записанных в файл данных.
+     *
+     * @return количество абонентов
+     */
+    long getSubscribersSaved();
+
+    /**
+     * Возвращает количество абонентов, прочитанных из файла данных.
+     *
+     * @return количество абонентов
+     */
+    long getSubscribersLoaded();
+
+    /**
+     * Возвращает количество байтов, записанных в файл данных.
+     *
+     * @return количество байтов
+     */
+    long getBytesWritten();
+
+    /**
+     * Возвращает количество байтов, прочитанных из файла данных.
+     *
+     * @return количество байтов
+     */
+    long getBytesRead();
+
+    /**
+     * Возвращает количество обращений к абонентам, найденным в кэше хранилища вне кучи.
+     *
+     * @return количество попаданий
+     */
+    long getCacheHits();
+
+    /**
+     * Возвращает количество обращений, для которых абонент восстанавливался из записи вне кучи.
+     *
+     * @return количество промахов
+     */
+    long getCacheMisses();
+
+    /**
+     * Возвращает текстовый отчет по всем операциям и счетчикам.
+     *
+     * @return отчет
+     */
+    String getReport();
+}
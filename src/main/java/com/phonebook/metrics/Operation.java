@@ -0,0 +1,24 @@
+package com.phonebook.metrics;
+
+import java.util.Locale;
+
+/**
+ * Операции телефонной книги, время которых записывается в {@link MetricsRegistry}.
+ */
+public enum Operation {
+    SEARCH,
+    ADD,
+    UPDATE,
+    DELETE,
+    SAVE,
+    LOAD;
+
+    /**
+     * Возвращает имя операции в отчетах и именах MBean.
+     *
+     * @return имя строчными буквами
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
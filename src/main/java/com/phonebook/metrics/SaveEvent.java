@@ -0,0 +1,27 @@
+package com.phonebook.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR сохранения абонентов в файл данных.
+ */
+@Name("com.phonebook.Save")
+@Label("Phone Book Save")
+@Description("Subscribers written to the data file")
+@Category({"Phone Book", "Persistence"})
+public class SaveEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Subscribers")
+    public int subscribers;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
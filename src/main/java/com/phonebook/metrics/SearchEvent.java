@@ -0,0 +1,26 @@
+package com.phonebook.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR поиска абонентов. Текст запроса не записывается, только его длина.
+ */
+@Name("com.phonebook.Search")
+@Label("Phone Book Search")
+@Description("Text search over a snapshot of the phone book")
+@Category({"Phone Book", "Operations"})
+public class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Query Length")
+    public int queryLength;
+
+    @Label("Subscribers")
+    @Description("Subscribers in the searched snapshot")
+    public int subscribers;
+
+    @Label("Results")
+    public int results;
+}
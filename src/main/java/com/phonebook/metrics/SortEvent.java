@@ -0,0 +1,22 @@
+package com.phonebook.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR полной пересортировки абонентов.
+ */
+@Name("com.phonebook.Sort")
+@Label("Phone Book Sort")
+@Description("Full re-sort of all shards")
+@Category({"Phone Book", "Operations"})
+public class SortEvent extends jdk.jfr.Event {
+
+    @Label("Subscribers")
+    public int subscribers;
+
+    @Label("Shards")
+    public int shards;
+}
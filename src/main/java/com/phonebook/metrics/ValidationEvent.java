@@ -0,0 +1,29 @@
+package com.phonebook.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR проверки ФИО абонента или телефонного номера.
+ * Проверка выполняется при каждом изменении, поэтому в профиле телефонной книги
+ * событие записывается только для проверок дольше порога.
+ */
+@Name("com.phonebook.Validation")
+@Label("Phone Book Validation")
+@Description("Validation of subscriber names or a phone number")
+@Category({"Phone Book", "Operations"})
+public class ValidationEvent extends jdk.jfr.Event {
+
+    @Label("Target")
+    @Description("Validated data: subscriber or phone")
+    public String target;
+
+    @Label("Input Length")
+    @Description("Characters in the validated names or number")
+    public int inputLength;
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,201 @@
+package com.phonebook.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Общий словарь имен абонентов.
+ * Небольшое число различных имен и отчеств покрывает почти весь справочник,
+ * поэтому одинаковые строки заменяются единственным экземпляром, а каждому имени
+ * присваивается небольшой целочисленный номер. Словарь безопасен для использования
+ * из нескольких потоков и никогда не удаляет записи.
+ * <p>
+ * Поэтому размер словаря ограничен ({@link #DEFAULT_MAX_NAMES} имен): после заполнения
+ * {@link #intern} возвращает новые имена без добавления, а {@link #accepts} сообщает, что
+ * абонента с новым именем принимать нельзя. Номера ({@link #idOf}) выдаются и сверх предела:
+ * они нужны хранилищам для уже принятых абонентов и абонентов из файла.
+ */
+public final class NameDictionary {
+
+    /**
+     * Наибольшее количество имен, добавляемых в словарь при дедупликации.
+     */
+    public static final int DEFAULT_MAX_NAMES = 1 << 20;
+
+    private static final NameDictionary DEFAULT = new NameDictionary();
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int STRING_HEADER_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+    private int nameCount;
+    private final int maxNames;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Создает словарь с пределом {@link #DEFAULT_MAX_NAMES}.
+     */
+    public NameDictionary() {
+        this(DEFAULT_MAX_NAMES);
+    }
+
+    /**
+     * Создает словарь с указанным пределом количества имен.
+     *
+     * @param maxNames наибольшее количество имен, добавляемых при дедупликации
+     */
+    public NameDictionary(int maxNames) {
+        this.maxNames = maxNames;
+    }
+
+    /**
+     * Возвращает словарь, используемый моделью по умолчанию.
+     *
+     * @return общий словарь имен
+     */
+    public static NameDictionary getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Возвращает единственный экземпляр строки с указанным значением.
+     * Если словарь заполнен, новое имя возвращается как есть и в словарь не добавляется.
+     *
+     * @param name имя
+     * @return канонический экземпляр имени или null, если имя не задано
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        requests.increment();
+        Integer id = ids.get(name);
+        if (id == null) {
+            if (isFull()) {
+                return name;
+            }
+            id = register(name);
+        }
+        String canonical = names[id];
+        if (canonical != name) {
+            deduplicated.increment();
+            savedBytes.add(estimateBytes(name));
+        }
+        return canonical;
+    }
+
+    /**
+     * Возвращает номер имени в словаре, добавляя имя при первом обращении, в том числе
+     * сверх предела: номер нужен хранилищу для абонента, который уже принят.
+     *
+     * @param name имя
+     * @return номер имени
+     */
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : register(name);
+    }
+
+    /**
+     * Проверяет, можно ли принять абонента с указанным именем: имя уже есть в словаре
+     * или словарь еще не заполнен.
+     *
+     * @param name имя
+     * @return true, если имя можно принять
+     */
+    public boolean accepts(String name) {
+        return name == null || !isFull() || ids.containsKey(name);
+    }
+
+    /**
+     * Проверяет, достиг ли словарь предела количества имен.
+     *
+     * @return true, если новые имена больше не добавляются при дедупликации
+     */
+    public boolean isFull() {
+        return ids.size() >= maxNames;
+    }
+
+    /**
+     * Возвращает имя по номеру в словаре.
+     *
+     * @param id номер имени
+     * @return имя
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * Возвращает количество различных имен в словаре.
+     *
+     * @return количество имен
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Возвращает количество строк, замененных уже имевшимся экземпляром.
+     *
+     * @return количество дедуплицированных строк
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.sum();
+    }
+
+    /**
+     * Возвращает приблизительный объем памяти, освобожденный дедупликацией.
+     *
+     * @return объем в байтах
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * Формирует отчет об использовании словаря.
+     *
+     * @return строка отчета
+     */
+    public String report() {
+        return String.format("Name dictionary: %d distinct names, %d lookups, %d duplicates shared, ~%d bytes saved",
+                size(), requests.sum(), getDeduplicatedCount(), getSavedBytes());
+    }
+
+    private synchronized int register(String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        // Имя записывается в массив до публикации номера, чтобы читатели всегда видели его
+        String[] current = names;
+        if (nameCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        int id = nameCount++;
+        current[id] = name;
+        names = current;
+        ids.put(name, id);
+        return id;
+    }
+
+    /**
+     * Оценивает размер строки в куче с учетом компактного хранения латиницы.
+     */
+    private static long estimateBytes(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) {
+            latin1 = value.charAt(i) < 256;
+        }
+        long bytes = STRING_HEADER_BYTES + ARRAY_HEADER_BYTES + (long) value.length() * (latin1 ? 1 : 2);
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -1,16 +1,37 @@
 package com.phonebook.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Класс, представляющий телефонный номер.
  * Хранит номер и его тип.
+ * Номер хранится в компактном виде: цифры - в числе long, тип - в байте.
+ * Исходная запись номера сохраняется, только если она отличается от нормализованной.
  */
 public class PhoneNumber implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private String number;
-    private PhoneType type;
+    // Формат файла прежний: номер строкой и тип
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("number", String.class),
+            new ObjectStreamField("type", PhoneType.class)
+    };
+
+    private static final PhoneType[] TYPES = PhoneType.values();
+    private static final int MAX_DIGITS = 18;
+    private static final byte NOT_NORMALIZED = -1;
+    private static final byte NO_TYPE = -1;
+
+    private long digits;
+    private byte digitCount;
+    private boolean international;
+    private String formatting;
+    private byte typeCode;
 
     /**
      * Конструктор для создания телефонного номера.
@@ -19,8 +40,25 @@ public class PhoneNumber implements Serializable {
      * @param type тип телефонного номера
      */
     public PhoneNumber(String number, PhoneType type) {
-        this.number = number;
-        this.type = type;
+        encode(number);
+        setType(type);
+    }
+
+    /**
+     * Конструктор для создания телефонного номера из компактного представления.
+     *
+     * @param digits цифры номера
+     * @param digitCount количество цифр с учетом ведущих нулей
+     * @param international true если номер начинается со знака +
+     * @param formatting исходная запись номера или null, если она совпадает с нормализованной
+     * @param type тип телефонного номера
+     */
+    public PhoneNumber(long digits, int digitCount, boolean international, String formatting, PhoneType type) {
+        this.digits = digits;
+        this.digitCount = (byte) digitCount;
+        this.international = international;
+        this.formatting = formatting;
+        setType(type);
     }
 
     /**
@@ -29,7 +67,10 @@ public class PhoneNumber implements Serializable {
      * @return номер телефона
      */
     public String getNumber() {
-        return number;
+        if (formatting != null || digitCount == NOT_NORMALIZED) {
+            return formatting;
+        }
+        return normalized();
     }
 
     /**
@@ -38,7 +79,7 @@ public class PhoneNumber implements Serializable {
      * @param number новый номер телефона
      */
     public void setNumber(String number) {
-        this.number = number;
+        encode(number);
     }
 
     /**
@@ -47,7 +88,7 @@ public class PhoneNumber implements Serializable {
      * @return тип номера
      */
     public PhoneType getType() {
-        return type;
+        return typeCode == NO_TYPE ? null : TYPES[typeCode];
     }
 
     /**
@@ -56,7 +97,43 @@ public class PhoneNumber implements Serializable {
      * @param type новый тип номера
      */
     public void setType(PhoneType type) {
-        this.type = type;
+        this.typeCode = type == null ? NO_TYPE : (byte) type.ordinal();
+    }
+
+    /**
+     * Возвращает цифры номера без оформления.
+     *
+     * @return цифры номера или -1, если номер не удалось нормализовать
+     */
+    public long getDigits() {
+        return digitCount == NOT_NORMALIZED ? -1 : digits;
+    }
+
+    /**
+     * Возвращает количество цифр номера с учетом ведущих нулей.
+     *
+     * @return количество цифр или -1, если номер не удалось нормализовать
+     */
+    public int getDigitCount() {
+        return digitCount;
+    }
+
+    /**
+     * Проверяет, начинается ли номер со знака +.
+     *
+     * @return true если номер международный, иначе false
+     */
+    public boolean isInternational() {
+        return international;
+    }
+
+    /**
+     * Возвращает исходную запись номера, если она отличается от нормализованной.
+     *
+     * @return исходная запись или null
+     */
+    public String getFormatting() {
+        return formatting;
     }
 
     /**
@@ -66,7 +143,7 @@ public class PhoneNumber implements Serializable {
      * @return true если номер содержит подстроку, иначе false
      */
     public boolean contains(String searchText) {
-        return number.toLowerCase().contains(searchText.toLowerCase());
+        return getNumber().toLowerCase().contains(searchText.toLowerCase());
     }
 
     /**
@@ -76,6 +153,7 @@ public class PhoneNumber implements Serializable {
      * @return true если номер валиден, иначе false
      */
     public boolean isValid() {
+        String number = getNumber();
         if (number == null || number.trim().isEmpty()) {
             return false;
         }
@@ -89,7 +167,77 @@ public class PhoneNumber implements Serializable {
      * @return отформатированная строка с номером и типом
      */
     public String getFormatted() {
-        return String.format("%s (%s)", number, type.getDisplayName());
+        return String.format("%s (%s)", getNumber(), getType().getDisplayName());
+    }
+
+    /**
+     * Разбирает строку номера в компактное представление.
+     * Номер из знака + и не более чем {@value #MAX_DIGITS} цифр хранится только в виде числа.
+     */
+    private void encode(String number) {
+        digits = 0;
+        digitCount = 0;
+        international = false;
+        formatting = null;
+
+        if (number == null) {
+            digitCount = NOT_NORMALIZED;
+            return;
+        }
+
+        boolean plain = true;
+        int count = 0;
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++count <= MAX_DIGITS) {
+                    digits = digits * 10 + (c - '0');
+                }
+            } else if (c == '+' && i == 0) {
+                international = true;
+            } else {
+                plain = false;
+            }
+        }
+
+        if (count > MAX_DIGITS) {
+            digits = 0;
+            digitCount = NOT_NORMALIZED;
+            formatting = number;
+            return;
+        }
+        digitCount = (byte) count;
+        if (!plain) {
+            formatting = number;
+        }
+    }
+
+    /**
+     * Восстанавливает нормализованную запись номера с ведущими нулями.
+     */
+    private String normalized() {
+        StringBuilder result = new StringBuilder(digitCount + 1);
+        if (international) {
+            result.append('+');
+        }
+        String value = digitCount == 0 ? "" : Long.toString(digits);
+        for (int i = value.length(); i < digitCount; i++) {
+            result.append('0');
+        }
+        return result.append(value).toString();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("number", getNumber());
+        fields.put("type", getType());
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        encode((String) fields.get("number", null));
+        setType((PhoneType) fields.get("type", null));
     }
 
     @Override
@@ -97,16 +245,20 @@ public class PhoneNumber implements Serializable {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         PhoneNumber that = (PhoneNumber) obj;
-        return number.equals(that.number) && type == that.type;
+        return digits == that.digits && digitCount == that.digitCount && international == that.international
+                && typeCode == that.typeCode && Objects.equals(formatting, that.formatting);
     }
 
     @Override
     public int hashCode() {
-        return 31 * number.hashCode() + type.hashCode();
+        int result = Long.hashCode(digits);
+        result = 31 * result + digitCount;
+        result = 31 * result + Objects.hashCode(formatting);
+        return 31 * result + typeCode;
     }
 
     @Override
     public String toString() {
         return getFormatted();
     }
-}
\ No newline at end of file
+}
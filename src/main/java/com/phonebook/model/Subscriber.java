@@ -1,22 +1,54 @@
 package com.phonebook.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Класс, представляющий абонента телефонной книги.
  * Хранит информацию об абоненте и его телефонных номерах.
+ * Идентификатор хранится в двух числах long (см. {@link SubscriberIds}),
+ * строковое представление формируется только для отображения и записи в файл.
+ * Абонент, входящий в снимок телефонной книги, заморожен ({@link #freeze()}) и не может
+ * быть изменен; для изменения используется копия {@link #copy()}.
  */
 public class Subscriber implements Serializable, Comparable<Subscriber> {
     private static final long serialVersionUID = 1L;
 
-    private final String id;
+    // Формат файла прежний: идентификатор хранится строкой
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", String.class),
+            new ObjectStreamField("lastName", String.class),
+            new ObjectStreamField("firstName", String.class),
+            new ObjectStreamField("middleName", String.class),
+            new ObjectStreamField("phoneNumbers", List.class)
+    };
+
+    private long idHigh;
+    private long idLow;
+    // Исходная строка идентификатора, если он записан не в каноническом виде UUID
+    private String legacyId;
     private String lastName;
     private String firstName;
     private String middleName;
-    private final List<PhoneNumber> phoneNumbers;
+    private List<PhoneNumber> phoneNumbers;
+
+    // Представление номеров только для чтения, выдаваемое без копирования
+    private transient List<PhoneNumber> phoneNumbersView;
+
+    // Признак неизменяемого экземпляра, хранимого в снимках
+    private transient boolean frozen;
+
+    // Кэш ключа сортировки, сбрасывается при изменении ФИО
+    private transient byte[] sortKey;
+    private transient int sortKeyGeneration;
 
     /**
      * Конструктор для создания нового абонента.
@@ -26,11 +58,13 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
      * @param middleName отчество
      */
     public Subscriber(String lastName, String firstName, String middleName) {
-        this.id = UUID.randomUUID().toString();
-        this.lastName = lastName;
-        this.firstName = firstName;
-        this.middleName = middleName;
+        this.idHigh = SubscriberIds.newHigh();
+        this.idLow = SubscriberIds.newLow();
+        this.lastName = NameDictionary.getDefault().intern(lastName);
+        this.firstName = NameDictionary.getDefault().intern(firstName);
+        this.middleName = NameDictionary.getDefault().intern(middleName);
         this.phoneNumbers = new ArrayList<>();
+        this.phoneNumbersView = Collections.unmodifiableList(this.phoneNumbers);
     }
 
     /**
@@ -43,20 +77,87 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
      * @param phoneNumbers список телефонных номеров
      */
     public Subscriber(String id, String lastName, String firstName, String middleName, List<PhoneNumber> phoneNumbers) {
-        this.id = id;
-        this.lastName = lastName;
-        this.firstName = firstName;
-        this.middleName = middleName;
+        this(lastName, firstName, middleName, phoneNumbers);
+        setId(id);
+    }
+
+    /**
+     * Конструктор для загрузки существующего абонента с идентификатором в компактном виде.
+     *
+     * @param idHigh старшие 64 бита идентификатора
+     * @param idLow младшие 64 бита идентификатора
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество
+     * @param phoneNumbers список телефонных номеров
+     */
+    public Subscriber(long idHigh, long idLow, String lastName, String firstName, String middleName,
+                      List<PhoneNumber> phoneNumbers) {
+        this(lastName, firstName, middleName, phoneNumbers);
+        this.idHigh = idHigh;
+        this.idLow = idLow;
+    }
+
+    private Subscriber(String lastName, String firstName, String middleName, List<PhoneNumber> phoneNumbers) {
+        this.lastName = NameDictionary.getDefault().intern(lastName);
+        this.firstName = NameDictionary.getDefault().intern(firstName);
+        this.middleName = NameDictionary.getDefault().intern(middleName);
         this.phoneNumbers = new ArrayList<>(phoneNumbers);
+        this.phoneNumbersView = Collections.unmodifiableList(this.phoneNumbers);
     }
 
     /**
-     * Возвращает уникальный идентификатор абонента.
+     * Возвращает уникальный идентификатор абонента в строковом виде.
+     * Строка формируется при каждом вызове, поэтому для сравнения и поиска
+     * следует использовать {@link #getIdHigh()} и {@link #getIdLow()}.
      *
      * @return идентификатор
      */
     public String getId() {
-        return id;
+        return legacyId != null ? legacyId : SubscriberIds.format(idHigh, idLow);
+    }
+
+    /**
+     * Возвращает старшие 64 бита идентификатора.
+     *
+     * @return старшая половина идентификатора
+     */
+    public long getIdHigh() {
+        return idHigh;
+    }
+
+    /**
+     * Возвращает младшие 64 бита идентификатора.
+     *
+     * @return младшая половина идентификатора
+     */
+    public long getIdLow() {
+        return idLow;
+    }
+
+    /**
+     * Возвращает исходную строку идентификатора, не представимую в каноническом виде UUID.
+     *
+     * @return исходная строка или null, если идентификатор хранится только в компактном виде
+     */
+    public String getLegacyId() {
+        return legacyId;
+    }
+
+    /**
+     * Устанавливает идентификатор из строки. Канонический UUID хранится только в двух числах,
+     * прочие строки сохраняются как есть, чтобы записываться в файл без изменений.
+     */
+    private void setId(String id) {
+        if (id == null) {
+            idHigh = SubscriberIds.newHigh();
+            idLow = SubscriberIds.newLow();
+            return;
+        }
+        UUID uuid = SubscriberIds.parse(id);
+        idHigh = uuid.getMostSignificantBits();
+        idLow = uuid.getLeastSignificantBits();
+        legacyId = SubscriberIds.isCanonical(id) ? null : id;
     }
 
     /**
@@ -74,7 +175,9 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
      * @param lastName новая фамилия
      */
     public void setLastName(String lastName) {
-        this.lastName = lastName;
+        checkNotFrozen();
+        this.lastName = NameDictionary.getDefault().intern(lastName);
+        this.sortKey = null;
     }
 
     /**
@@ -92,7 +195,9 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
      * @param firstName новое имя
      */
     public void setFirstName(String firstName) {
-        this.firstName = firstName;
+        checkNotFrozen();
+        this.firstName = NameDictionary.getDefault().intern(firstName);
+        this.sortKey = null;
     }
 
     /**
@@ -110,7 +215,9 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
      * @param middleName новое отчество
      */
     public void setMiddleName(String middleName) {
-        this.middleName = middleName;
+        checkNotFrozen();
+        this.middleName = NameDictionary.getDefault().intern(middleName);
+        this.sortKey = null;
     }
 
     /**
@@ -124,11 +231,21 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
 
     /**
      * Возвращает список телефонных номеров абонента.
+     * Список является представлением только для чтения и отражает последующие изменения номеров.
      *
      * @return неизменяемый список номеров
      */
     public List<PhoneNumber> getPhoneNumbers() {
-        return new ArrayList<>(phoneNumbers);
+        return phoneNumbersView;
+    }
+
+    /**
+     * Возвращает количество телефонных номеров абонента.
+     *
+     * @return количество номеров
+     */
+    public int getPhoneNumberCount() {
+        return phoneNumbers.size();
     }
 
     /**
@@ -138,6 +255,7 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
      * @return true если номер успешно добавлен, false если номер уже существует
      */
     public boolean addPhoneNumber(PhoneNumber phoneNumber) {
+        checkNotFrozen();
         if (!phoneNumbers.contains(phoneNumber)) {
             phoneNumbers.add(phoneNumber);
             return true;
@@ -152,9 +270,52 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
      * @return true если номер успешно удален, false если номер не найден
      */
     public boolean removePhoneNumber(PhoneNumber phoneNumber) {
+        checkNotFrozen();
         return phoneNumbers.remove(phoneNumber);
     }
 
+    /**
+     * Запрещает дальнейшие изменения абонента.
+     * Замороженный экземпляр можно безопасно разделять между снимками и потоками.
+     *
+     * @return этот же абонент
+     */
+    public Subscriber freeze() {
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * Проверяет, заморожен ли абонент.
+     *
+     * @return true если изменения запрещены, иначе false
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Создает изменяемую копию абонента с тем же идентификатором.
+     * Телефонные номера разделяются с исходным абонентом и не должны изменяться.
+     *
+     * @return копия абонента
+     */
+    public Subscriber copy() {
+        Subscriber copy = new Subscriber(lastName, firstName, middleName, phoneNumbers);
+        copy.idHigh = idHigh;
+        copy.idLow = idLow;
+        copy.legacyId = legacyId;
+        copy.sortKey = sortKey;
+        copy.sortKeyGeneration = sortKeyGeneration;
+        return copy;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Subscriber is frozen: " + getFullName());
+        }
+    }
+
     /**
      * Проверяет, содержит ли информация об абоненте указанный текст.
      * Поиск осуществляется по ФИО и всем телефонным номерам.
@@ -207,19 +368,53 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
                 firstName != null && !firstName.trim().isEmpty();
     }
 
+    /**
+     * Возвращает ключ сортировки абонента по ФИО.
+     * Ключ строится один раз и перестраивается только после изменения ФИО или локали сортировки.
+     *
+     * @return двоичный ключ сортировки
+     * @see SubscriberCollator
+     */
+    public byte[] getSortKey() {
+        byte[] key = sortKey;
+        int generation = SubscriberCollator.getGeneration();
+        if (key == null || sortKeyGeneration != generation) {
+            key = SubscriberCollator.sortKey(lastName, firstName, middleName);
+            sortKey = key;
+            sortKeyGeneration = generation;
+        }
+        return key;
+    }
+
     @Override
     public int compareTo(Subscriber other) {
-        int lastNameCompare = this.lastName.compareToIgnoreCase(other.lastName);
-        if (lastNameCompare != 0) {
-            return lastNameCompare;
-        }
+        return SubscriberCollator.compare(getSortKey(), other.getSortKey());
+    }
 
-        int firstNameCompare = this.firstName.compareToIgnoreCase(other.firstName);
-        if (firstNameCompare != 0) {
-            return firstNameCompare;
-        }
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("id", getId());
+        fields.put("lastName", lastName);
+        fields.put("firstName", firstName);
+        fields.put("middleName", middleName);
+        fields.put("phoneNumbers", phoneNumbers);
+        out.writeFields();
+    }
 
-        return this.middleName.compareToIgnoreCase(other.middleName);
+    /**
+     * Восстанавливает абонента из потока, заменяя имена экземплярами из общего словаря.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        setId((String) fields.get("id", null));
+        NameDictionary dictionary = NameDictionary.getDefault();
+        lastName = dictionary.intern((String) fields.get("lastName", null));
+        firstName = dictionary.intern((String) fields.get("firstName", null));
+        middleName = dictionary.intern((String) fields.get("middleName", null));
+        List<PhoneNumber> phones = (List<PhoneNumber>) fields.get("phoneNumbers", null);
+        phoneNumbers = phones != null ? phones : new ArrayList<>();
+        phoneNumbersView = Collections.unmodifiableList(phoneNumbers);
     }
 
     @Override
@@ -227,12 +422,12 @@ public class Subscriber implements Serializable, Comparable<Subscriber> {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Subscriber that = (Subscriber) obj;
-        return id.equals(that.id);
+        return idHigh == that.idHigh && idLow == that.idLow && Objects.equals(legacyId, that.legacyId);
     }
 
     @Override
     public int hashCode() {
-        return id.hashCode();
+        return Long.hashCode(idHigh ^ idLow);
     }
 
     @Override
@@ -0,0 +1,133 @@
+package com.phonebook.model;
+
+import java.io.ByteArrayOutputStream;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Правила сравнения ФИО абонентов с учетом языка.
+ * Строит двоичные ключи сортировки на основе {@link Collator}, которые
+ * абоненты кэшируют и сравнивают побайтно вместо повторного сравнения строк.
+ * Локаль задается системным свойством {@value #LOCALE_PROPERTY} или методом
+ * {@link #setLocale(Locale)}; по умолчанию используется русская локаль.
+ */
+public final class SubscriberCollator {
+
+    /**
+     * Системное свойство с тегом локали для сортировки, например "ru-RU".
+     */
+    public static final String LOCALE_PROPERTY = "phonebook.collation.locale";
+
+    private static final String DEFAULT_LOCALE = "ru-RU";
+
+    private static volatile Settings settings =
+            new Settings(Locale.forLanguageTag(System.getProperty(LOCALE_PROPERTY, DEFAULT_LOCALE)), 0);
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляров.
+     */
+    private SubscriberCollator() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Возвращает текущую локаль сортировки.
+     *
+     * @return локаль сортировки
+     */
+    public static Locale getLocale() {
+        return settings.locale;
+    }
+
+    /**
+     * Устанавливает локаль сортировки.
+     * Ранее построенные ключи становятся устаревшими и перестраиваются при следующем сравнении,
+     * поэтому уже упорядоченные списки абонентов необходимо пересортировать.
+     *
+     * @param locale новая локаль
+     */
+    public static synchronized void setLocale(Locale locale) {
+        settings = new Settings(locale, settings.generation + 1);
+    }
+
+    /**
+     * Возвращает номер поколения настроек.
+     * Изменяется при каждой смене локали.
+     *
+     * @return номер поколения
+     */
+    public static int getGeneration() {
+        return settings.generation;
+    }
+
+    /**
+     * Строит ключ сортировки для ФИО.
+     * Ключи полей записываются последовательно, каждый завершается нулевым символом,
+     * поэтому побайтное сравнение ключей сравнивает сначала фамилии, затем имена и отчества.
+     *
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество
+     * @return двоичный ключ сортировки
+     */
+    public static byte[] sortKey(String lastName, String firstName, String middleName) {
+        Settings current = settings;
+        ByteArrayOutputStream key = new ByteArrayOutputStream(64);
+        synchronized (current.collator) {
+            appendField(key, current.collator, lastName);
+            appendField(key, current.collator, firstName);
+            appendField(key, current.collator, middleName);
+        }
+        return key.toByteArray();
+    }
+
+    /**
+     * Строит ключ сортировки для одного поля ФИО.
+     * Сравнение ключей полей по очереди эквивалентно сравнению полных ключей {@link #sortKey}.
+     *
+     * @param value значение поля
+     * @return двоичный ключ сортировки поля
+     */
+    public static byte[] fieldKey(String value) {
+        Collator collator = settings.collator;
+        synchronized (collator) {
+            return collator.getCollationKey(value == null ? "" : value).toByteArray();
+        }
+    }
+
+    /**
+     * Сравнивает два ключа сортировки как беззнаковые последовательности байтов.
+     *
+     * @param first первый ключ
+     * @param second второй ключ
+     * @return отрицательное число, ноль или положительное число
+     */
+    public static int compare(byte[] first, byte[] second) {
+        return Arrays.compareUnsigned(first, second);
+    }
+
+    private static void appendField(ByteArrayOutputStream key, Collator collator, String value) {
+        byte[] fieldKey = collator.getCollationKey(value == null ? "" : value).toByteArray();
+        key.write(fieldKey, 0, fieldKey.length);
+        key.write(0);
+        key.write(0);
+    }
+
+    /**
+     * Неизменяемый набор текущих настроек сортировки.
+     */
+    private static final class Settings {
+        final Locale locale;
+        final int generation;
+        final Collator collator;
+
+        Settings(Locale locale, int generation) {
+            this.locale = locale;
+            this.generation = generation;
+            this.collator = Collator.getInstance(locale);
+            // Регистр не учитывается, как и при прежнем сравнении compareToIgnoreCase
+            this.collator.setStrength(Collator.SECONDARY);
+        }
+    }
+}
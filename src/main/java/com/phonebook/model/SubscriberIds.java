@@ -0,0 +1,89 @@
+package com.phonebook.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Утилиты для работы со 128-битными идентификаторами абонентов.
+ * Идентификатор хранится в двух числах long и формируется по схеме UUID версии 7:
+ * старшие 48 бит - время создания в миллисекундах, остальные - случайные.
+ * Поэтому идентификаторы новых абонентов возрастают со временем, а строковое
+ * представление совместимо с прежними идентификаторами UUID.
+ */
+public final class SubscriberIds {
+
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+    private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+
+    private SubscriberIds() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Формирует старшую половину нового идентификатора: время создания, версию и случайные биты.
+     *
+     * @return старшие 64 бита идентификатора
+     */
+    public static long newHigh() {
+        long millis = System.currentTimeMillis();
+        return (millis << 16) | VERSION_7 | (ThreadLocalRandom.current().nextInt() & 0x0FFF);
+    }
+
+    /**
+     * Формирует младшую половину нового идентификатора.
+     *
+     * @return младшие 64 бита идентификатора
+     */
+    public static long newLow() {
+        return (ThreadLocalRandom.current().nextLong() & VARIANT_MASK) | VARIANT_RFC_4122;
+    }
+
+    /**
+     * Возвращает строковое представление идентификатора в формате UUID.
+     *
+     * @param high старшие 64 бита
+     * @param low младшие 64 бита
+     * @return строковое представление
+     */
+    public static String format(long high, long low) {
+        return new UUID(high, low).toString();
+    }
+
+    /**
+     * Разбирает строковый идентификатор.
+     * Идентификатор, записанный не в каноническом виде UUID, преобразуется
+     * в 128 бит по хэшу строки, а сама строка должна храниться отдельно.
+     *
+     * @param id строковый идентификатор
+     * @return идентификатор в виде UUID
+     */
+    public static UUID parse(String id) {
+        if (isCanonical(id)) {
+            return UUID.fromString(id);
+        }
+        return UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Проверяет, что строка является UUID в каноническом виде,
+     * то есть восстанавливается из двух чисел long без изменений.
+     *
+     * @param id строковый идентификатор
+     * @return true если строка в каноническом виде UUID, иначе false
+     */
+    public static boolean isCanonical(String id) {
+        if (id == null || id.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,265 @@
+package com.phonebook.replication;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реплика: получает журнал изменений основного процесса и применяет его к собственному
+ * {@link PhoneBookService}, который обслуживает чтение. При разрыве соединения реплика
+ * переподключается и продолжает с последней примененной записи; если основной процесс
+ * перезапущен или записи уже вытеснены из его журнала, реплика получает снимок.
+ * <p>
+ * Отставание реплики определяется по сообщениям о состоянии журнала, которые основной
+ * процесс отправляет не реже раза в {@link ReplicationPrimary#HEARTBEAT_MILLIS} мс.
+ */
+public class ReplicationFollower implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(ReplicationFollower.class);
+
+    private static final long RECONNECT_DELAY_MILLIS = 500;
+    private static final long LAG_REPORT_MILLIS = 10_000;
+
+    private final PhoneBookService service;
+    private final InetSocketAddress primary;
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile Socket socket;
+
+    // Состояние репликации; изменяется только потоком реплики
+    private volatile long epoch;
+    private volatile long appliedSequence;
+    private volatile long appliedTimestamp;
+    private volatile long primarySequence;
+    private volatile long primaryTimestamp;
+    private volatile boolean connected;
+    private volatile int snapshotCount;
+    private long lastLagReport;
+
+    /**
+     * Создает реплику. Реплика подключается к основному процессу после {@link #start()}.
+     *
+     * @param service сервис телефонной книги реплики
+     * @param host адрес основного процесса
+     * @param port порт репликации основного процесса
+     */
+    public ReplicationFollower(PhoneBookService service, String host, int port) {
+        this.service = service;
+        this.primary = new InetSocketAddress(host, port);
+        this.thread = new Thread(this::run, "phonebook-follower");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Подключается к основному процессу и начинает применять журнал.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Прекращает репликацию.
+     */
+    @Override
+    public void close() {
+        running = false;
+        disconnect();
+        thread.interrupt();
+    }
+
+    /**
+     * Разрывает текущее соединение; реплика переподключится и продолжит с последней примененной записи.
+     */
+    void disconnect() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.debug("Error closing replication socket: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Проверяет, подключена ли реплика к основному процессу.
+     *
+     * @return true если соединение установлено
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Возвращает номер последней примененной записи журнала.
+     *
+     * @return номер записи
+     */
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * Возвращает номер последней записи журнала основного процесса, известный реплике.
+     *
+     * @return номер записи
+     */
+    public long getPrimarySequence() {
+        return primarySequence;
+    }
+
+    /**
+     * Возвращает количество записей журнала, которые еще не применены.
+     *
+     * @return отставание в записях
+     */
+    public long getLagEntries() {
+        return Math.max(0, primarySequence - appliedSequence);
+    }
+
+    /**
+     * Возвращает отставание реплики по времени: насколько последняя примененная запись
+     * старше последней записи основного процесса.
+     *
+     * @return отставание в миллисекундах; 0, если реплика применила все известные записи
+     */
+    public long getLagMillis() {
+        return getLagEntries() == 0 ? 0 : Math.max(0, primaryTimestamp - appliedTimestamp);
+    }
+
+    /**
+     * Возвращает количество снимков, полученных от основного процесса.
+     *
+     * @return количество снимков
+     */
+    public int getSnapshotCount() {
+        return snapshotCount;
+    }
+
+    /**
+     * Ждет, пока реплика применит указанную запись журнала.
+     *
+     * @param sequence номер записи основного процесса
+     * @param timeoutMillis время ожидания
+     * @return true если запись применена
+     * @throws InterruptedException если ожидание прервано
+     */
+    public boolean awaitSequence(long sequence, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (appliedSequence < sequence || snapshotCount == 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket current = new Socket()) {
+                socket = current;
+                current.setTcpNoDelay(true);
+                current.connect(primary);
+                connected = true;
+                DataOutputStream out = new DataOutputStream(current.getOutputStream());
+                out.writeLong(epoch);
+                out.writeLong(appliedSequence);
+                out.flush();
+                logger.info("Connected to primary {} at sequence {}", primary, appliedSequence);
+                receive(new DataInputStream(new BufferedInputStream(current.getInputStream())));
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("Replication from {} interrupted: {}", primary, e.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void receive(DataInputStream in) throws IOException {
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT:
+                    applySnapshot(in);
+                    break;
+                case ReplicationProtocol.ENTRY:
+                    applyEntry(in);
+                    break;
+                case ReplicationProtocol.HEARTBEAT:
+                    primarySequence = Math.max(primarySequence, in.readLong());
+                    primaryTimestamp = in.readLong();
+                    reportLag();
+                    break;
+                default:
+                    throw new IOException("Unknown replication message: " + type);
+            }
+        }
+    }
+
+    private void applySnapshot(DataInputStream in) throws IOException {
+        long snapshotEpoch = in.readLong();
+        long sequence = in.readLong();
+        long timestamp = in.readLong();
+        int count = in.readInt();
+        List<Subscriber> subscribers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            subscribers.add(ReplicationProtocol.readSubscriber(in));
+        }
+        service.replaceAll(subscribers);
+        epoch = snapshotEpoch;
+        // Номер журнала нового основного процесса может быть меньше прежнего
+        primarySequence = sequence;
+        appliedSequence = sequence;
+        appliedTimestamp = timestamp;
+        snapshotCount++;
+        logger.info("Applied snapshot of {} subscribers at sequence {}", count, sequence);
+    }
+
+    private void applyEntry(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        long timestamp = in.readLong();
+        byte kind = in.readByte();
+        if (kind == ReplicationJournal.Entry.PUT) {
+            service.putSubscriber(ReplicationProtocol.readSubscriber(in));
+        } else if (kind == ReplicationJournal.Entry.DELETE) {
+            Subscriber subscriber = service.findSubscriberById(in.readUTF());
+            if (subscriber != null) {
+                service.deleteSubscriber(subscriber);
+            }
+        } else {
+            throw new IOException("Unknown journal entry: " + kind);
+        }
+        appliedSequence = sequence;
+        appliedTimestamp = timestamp;
+        primarySequence = Math.max(primarySequence, sequence);
+    }
+
+    private void reportLag() {
+        long now = System.currentTimeMillis();
+        if (now - lastLagReport >= LAG_REPORT_MILLIS) {
+            lastLagReport = now;
+            logger.info("Replication lag: {} entries, {} ms (applied {}, primary {})",
+                    getLagEntries(), getLagMillis(), appliedSequence, primarySequence);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.phonebook.replication;
+
+import com.phonebook.model.Subscriber;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Журнал изменений основного процесса для передачи репликам.
+ * Журнал хранит ограниченное количество последних записей в кольцевом буфере; записи
+ * нумеруются подряд начиная с 1. Реплика, отставшая больше чем на размер журнала,
+ * получает снимок данных вместо вытесненных записей.
+ */
+final class ReplicationJournal {
+
+    /**
+     * Запись журнала.
+     */
+    static final class Entry {
+
+        /** Абонент добавлен или изменен; запись содержит его полное состояние. */
+        static final byte PUT = 0;
+        /** Абонент удален. */
+        static final byte DELETE = 1;
+        /** Данные заменены целиком; реплика должна получить снимок. */
+        static final byte RESET = 2;
+
+        final long sequence;
+        final long timestamp;
+        final byte kind;
+        final Subscriber subscriber;
+        final String id;
+
+        Entry(long sequence, long timestamp, byte kind, Subscriber subscriber, String id) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.kind = kind;
+            this.subscriber = subscriber;
+            this.id = id;
+        }
+    }
+
+    private final Entry[] ring;
+    private long lastSequence;
+    private long lastTimestamp;
+
+    /**
+     * Создает пустой журнал.
+     *
+     * @param capacity максимальное количество хранимых записей
+     */
+    ReplicationJournal(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Journal capacity must be positive: " + capacity);
+        }
+        this.ring = new Entry[capacity];
+    }
+
+    /**
+     * Добавляет запись и будит потоки, ожидающие новых записей.
+     *
+     * @param kind вид записи
+     * @param subscriber абонент для {@link Entry#PUT}
+     * @param id идентификатор для {@link Entry#DELETE}
+     */
+    synchronized void append(byte kind, Subscriber subscriber, String id) {
+        long sequence = ++lastSequence;
+        lastTimestamp = System.currentTimeMillis();
+        ring[(int) (sequence % ring.length)] = new Entry(sequence, lastTimestamp, kind, subscriber, id);
+        notifyAll();
+    }
+
+    /**
+     * Возвращает номер последней записи.
+     *
+     * @return номер последней записи или 0, если записей не было
+     */
+    synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Возвращает время добавления последней записи.
+     *
+     * @return время в миллисекундах или 0, если записей не было
+     */
+    synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Читает записи после указанной, ожидая появления новых записей не дольше указанного времени.
+     *
+     * @param after номер последней уже переданной записи
+     * @param max максимальное количество записей
+     * @param timeoutMillis время ожидания новых записей
+     * @return записи по порядку (пустой список, если новых записей нет) или null,
+     *         если следующая запись уже вытеснена из журнала
+     * @throws InterruptedException если ожидание прервано
+     */
+    synchronized List<Entry> read(long after, int max, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (long now = System.currentTimeMillis(); lastSequence <= after && now < deadline;
+             now = System.currentTimeMillis()) {
+            wait(deadline - now);
+        }
+        long first = Math.max(1, lastSequence - ring.length + 1);
+        if (after + 1 < first || after > lastSequence) {
+            return null;
+        }
+        if (lastSequence == after) {
+            return Collections.emptyList();
+        }
+        long to = Math.min(lastSequence, after + max);
+        List<Entry> entries = new ArrayList<>((int) (to - after));
+        for (long sequence = after + 1; sequence <= to; sequence++) {
+            entries.add(ring[(int) (sequence % ring.length)]);
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,259 @@
+package com.phonebook.replication;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookChange;
+import com.phonebook.service.PhoneBookListener;
+import com.phonebook.service.PhoneBookService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Основной процесс репликации: записывает изменения телефонной книги в журнал
+ * и передает журнал подключенным репликам.
+ * <p>
+ * Каждой реплике журнал передается отдельным потоком. Новая реплика, реплика после перезапуска
+ * основного процесса и реплика, отставшая больше чем на размер журнала, сначала получают снимок
+ * всех абонентов. Снимок снимается после запоминания номера последней записи, поэтому изменения,
+ * попавшие и в снимок, и в последующие записи, применяются повторно; записи содержат полное
+ * состояние абонента, и повторное применение безопасно.
+ */
+public class ReplicationPrimary implements PhoneBookListener {
+
+    private static final Logger logger = LogManager.getLogger(ReplicationPrimary.class);
+
+    /**
+     * Размер журнала по умолчанию.
+     */
+    public static final int DEFAULT_JOURNAL_CAPACITY = 100_000;
+
+    // Интервал сообщений о состоянии журнала, по которым реплика оценивает отставание
+    static final long HEARTBEAT_MILLIS = 200;
+    private static final int MAX_BATCH = 1024;
+
+    private final PhoneBookService service;
+    private final ReplicationJournal journal;
+    // Отличает журнал этого процесса от журнала предыдущего запуска
+    private final long epoch = new Random().nextLong();
+    private final ServerSocket serverSocket;
+    private final Thread acceptThread;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger followerNumber = new AtomicInteger();
+    private volatile boolean running;
+
+    /**
+     * Создает основной процесс репликации с журналом размера по умолчанию.
+     *
+     * @param service сервис телефонной книги, принимающий изменения
+     * @param address адрес и порт для подключения реплик; порт 0 выбирает свободный порт
+     * @throws IOException если порт занят
+     */
+    public ReplicationPrimary(PhoneBookService service, InetSocketAddress address) throws IOException {
+        this(service, address, DEFAULT_JOURNAL_CAPACITY);
+    }
+
+    /**
+     * Создает основной процесс репликации.
+     *
+     * @param service сервис телефонной книги, принимающий изменения
+     * @param address адрес и порт для подключения реплик; порт 0 выбирает свободный порт
+     * @param journalCapacity количество хранимых записей журнала
+     * @throws IOException если порт занят
+     */
+    public ReplicationPrimary(PhoneBookService service, InetSocketAddress address, int journalCapacity)
+            throws IOException {
+        this.service = service;
+        this.journal = new ReplicationJournal(journalCapacity);
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        this.acceptThread = new Thread(this::acceptFollowers, "phonebook-replication-accept");
+        acceptThread.setDaemon(true);
+        service.addListener(this);
+    }
+
+    /**
+     * Начинает принимать подключения реплик.
+     */
+    public void start() {
+        running = true;
+        acceptThread.start();
+        logger.info("Replication primary listening on port {}", getPort());
+    }
+
+    /**
+     * Прекращает передачу журнала и закрывает соединения с репликами.
+     */
+    public void stop() {
+        running = false;
+        service.removeListener(this);
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.warn("Error closing replication socket: {}", e.getMessage());
+        }
+        for (Socket follower : followers) {
+            closeQuietly(follower);
+        }
+        logger.info("Replication primary stopped");
+    }
+
+    /**
+     * Возвращает порт для подключения реплик.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Возвращает номер последней записи журнала.
+     *
+     * @return номер записи
+     */
+    public long getSequence() {
+        return journal.getLastSequence();
+    }
+
+    /**
+     * Возвращает количество подключенных реплик.
+     *
+     * @return количество реплик
+     */
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    @Override
+    public void onChanges(List<PhoneBookChange> changes) {
+        for (PhoneBookChange change : changes) {
+            switch (change.getType()) {
+                case RESET:
+                    journal.append(ReplicationJournal.Entry.RESET, null, null);
+                    break;
+                case REMOVED:
+                    journal.append(ReplicationJournal.Entry.DELETE, null, change.getSubscriber().getId());
+                    break;
+                default:
+                    journal.append(ReplicationJournal.Entry.PUT, change.getSubscriber(), null);
+            }
+        }
+    }
+
+    private void acceptFollowers() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Error accepting follower: {}", e.getMessage());
+                }
+                return;
+            }
+            followers.add(socket);
+            Thread sender = new Thread(() -> serve(socket),
+                    "phonebook-replication-" + followerNumber.incrementAndGet());
+            sender.setDaemon(true);
+            sender.start();
+        }
+    }
+
+    /**
+     * Передает журнал одной реплике до разрыва соединения.
+     */
+    private void serve(Socket socket) {
+        String follower = socket.getRemoteSocketAddress().toString();
+        try {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            long followerEpoch = in.readLong();
+            long position = in.readLong();
+            logger.info("Follower {} connected at sequence {}", follower, position);
+            if (followerEpoch != epoch) {
+                position = sendSnapshot(out, follower);
+            }
+
+            while (running) {
+                List<ReplicationJournal.Entry> entries = journal.read(position, MAX_BATCH, HEARTBEAT_MILLIS);
+                if (entries == null) {
+                    logger.info("Follower {} fell behind the journal at sequence {}", follower, position);
+                    position = sendSnapshot(out, follower);
+                    continue;
+                }
+                for (ReplicationJournal.Entry entry : entries) {
+                    if (entry.kind == ReplicationJournal.Entry.RESET) {
+                        // Снимок включает все последующие записи этого пакета
+                        position = sendSnapshot(out, follower);
+                        break;
+                    }
+                    out.writeByte(ReplicationProtocol.ENTRY);
+                    out.writeLong(entry.sequence);
+                    out.writeLong(entry.timestamp);
+                    out.writeByte(entry.kind);
+                    if (entry.kind == ReplicationJournal.Entry.PUT) {
+                        ReplicationProtocol.writeSubscriber(out, entry.subscriber);
+                    } else {
+                        out.writeUTF(entry.id);
+                    }
+                    position = entry.sequence;
+                }
+                out.writeByte(ReplicationProtocol.HEARTBEAT);
+                out.writeLong(journal.getLastSequence());
+                out.writeLong(journal.getLastTimestamp());
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.info("Follower {} disconnected: {}", follower, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Передает снимок всех абонентов.
+     *
+     * @return номер записи журнала, которой соответствует снимок
+     */
+    private long sendSnapshot(DataOutputStream out, String follower) throws IOException {
+        // Номер запоминается до снимка: записи после него применяются поверх снимка
+        long sequence = journal.getLastSequence();
+        List<Subscriber> subscribers = service.getAllSubscribers();
+        out.writeByte(ReplicationProtocol.SNAPSHOT);
+        out.writeLong(epoch);
+        out.writeLong(sequence);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(subscribers.size());
+        for (Subscriber subscriber : subscribers) {
+            ReplicationProtocol.writeSubscriber(out, subscriber);
+        }
+        out.flush();
+        logger.info("Sent snapshot of {} subscribers to follower {} at sequence {}",
+                subscribers.size(), follower, sequence);
+        return sequence;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.debug("Error closing follower socket: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.phonebook.replication;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Формат сообщений репликации. Числа записываются в порядке big-endian, строки - методом
+ * {@link DataOutput#writeUTF(String)}.
+ * <ul>
+ *   <li>Реплика при подключении: эпоха основного процесса (long) и номер последней примененной
+ *   записи (long); 0 и 0, если реплика еще ничего не получала.</li>
+ *   <li>{@link #SNAPSHOT}: эпоха (long), номер записи, которой соответствует снимок (long), время (long),
+ *   количество абонентов (int) и абоненты.</li>
+ *   <li>{@link #ENTRY}: номер записи (long), время (long), вид записи (byte) и абонент
+ *   или идентификатор удаленного абонента.</li>
+ *   <li>{@link #HEARTBEAT}: номер последней записи журнала (long) и время ее добавления (long).</li>
+ * </ul>
+ */
+final class ReplicationProtocol {
+
+    static final byte SNAPSHOT = 1;
+    static final byte ENTRY = 2;
+    static final byte HEARTBEAT = 3;
+
+    private static final PhoneType[] PHONE_TYPES = PhoneType.values();
+
+    private ReplicationProtocol() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    static void writeSubscriber(DataOutput out, Subscriber subscriber) throws IOException {
+        out.writeUTF(subscriber.getId());
+        out.writeUTF(subscriber.getLastName());
+        out.writeUTF(subscriber.getFirstName());
+        out.writeUTF(subscriber.getMiddleName() != null ? subscriber.getMiddleName() : "");
+        List<PhoneNumber> phones = subscriber.getPhoneNumbers();
+        out.writeShort(phones.size());
+        for (PhoneNumber phone : phones) {
+            out.writeUTF(phone.getNumber());
+            out.writeByte(phone.getType().ordinal());
+        }
+    }
+
+    static Subscriber readSubscriber(DataInput in) throws IOException {
+        String id = in.readUTF();
+        String lastName = in.readUTF();
+        String firstName = in.readUTF();
+        String middleName = in.readUTF();
+        int phoneCount = in.readUnsignedShort();
+        List<PhoneNumber> phones = new ArrayList<>(phoneCount);
+        for (int i = 0; i < phoneCount; i++) {
+            String number = in.readUTF();
+            int type = in.readUnsignedByte();
+            if (type >= PHONE_TYPES.length) {
+                throw new IOException("Unknown phone type: " + type);
+            }
+            phones.add(new PhoneNumber(number, PHONE_TYPES[type]));
+        }
+        return new Subscriber(id, lastName, firstName, middleName, phones);
+    }
+}
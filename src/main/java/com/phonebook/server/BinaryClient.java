@@ -0,0 +1,144 @@
+package com.phonebook.server;
+
+import com.phonebook.model.Subscriber;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Клиент двоичного протокола {@link BinaryProtocol}.
+ * Клиент держит одно соединение с сервером и не является потокобезопасным:
+ * каждому потоку нужен собственный клиент. Несколько запросов можно отправить подряд
+ * без ожидания ответов через {@link #findByPhones(List)}.
+ */
+public class BinaryClient implements Closeable {
+
+    /**
+     * Максимальное количество запросов, отправляемых до чтения ответов.
+     */
+    public static final int PIPELINE_WINDOW = 256;
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final ByteArrayOutputStream request = new ByteArrayOutputStream();
+    private final DataOutputStream requestData = new DataOutputStream(request);
+    private int nextRequestId;
+
+    /**
+     * Подключается к серверу.
+     *
+     * @param host имя или адрес сервера
+     * @param port порт сервера
+     * @throws IOException если подключиться не удалось
+     */
+    public BinaryClient(String host, int port) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    }
+
+    /**
+     * Находит абонентов по номеру телефона.
+     *
+     * @param number номер в произвольном форматировании
+     * @return абоненты с этим номером
+     * @throws IOException при ошибке соединения или ошибке выполнения запроса
+     */
+    public List<Subscriber> findByPhone(String number) throws IOException {
+        int requestId = sendFindByPhone(number);
+        out.flush();
+        return readResponse(requestId);
+    }
+
+    /**
+     * Находит абонентов по нескольким номерам. Запросы отправляются пакетами
+     * по {@link #PIPELINE_WINDOW}, ответы на пакет читаются после его отправки.
+     *
+     * @param numbers номера телефонов
+     * @return абоненты для каждого номера в порядке номеров
+     * @throws IOException при ошибке соединения или ошибке выполнения запроса
+     */
+    public List<List<Subscriber>> findByPhones(List<String> numbers) throws IOException {
+        List<List<Subscriber>> results = new ArrayList<>(numbers.size());
+        // Окно ограничивает объем неотправленных ответов: сервер не читает запросы,
+        // пока клиент не заберет ответы, а клиент не читает ответы, пока пишет запросы
+        for (int from = 0; from < numbers.size(); from += PIPELINE_WINDOW) {
+            int to = Math.min(from + PIPELINE_WINDOW, numbers.size());
+            int firstRequestId = nextRequestId;
+            for (int i = from; i < to; i++) {
+                sendFindByPhone(numbers.get(i));
+            }
+            out.flush();
+            for (int i = from; i < to; i++) {
+                results.add(readResponse(firstRequestId + i - from));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Находит абонентов, у которых есть номер, начинающийся с указанных цифр.
+     *
+     * @param prefix начало номера
+     * @param limit максимальное количество абонентов, не более {@link BinaryProtocol#MAX_RESULTS}
+     * @return абоненты в порядке номеров
+     * @throws IOException при ошибке соединения или ошибке выполнения запроса
+     */
+    public List<Subscriber> searchByPrefix(String prefix, int limit) throws IOException {
+        int requestId = nextRequestId++;
+        request.reset();
+        requestData.writeInt(requestId);
+        requestData.writeByte(BinaryProtocol.SEARCH_BY_PREFIX);
+        BinaryProtocol.writeString(requestData, prefix);
+        requestData.writeInt(limit);
+        sendFrame();
+        out.flush();
+        return readResponse(requestId);
+    }
+
+    private int sendFindByPhone(String number) throws IOException {
+        int requestId = nextRequestId++;
+        request.reset();
+        requestData.writeInt(requestId);
+        requestData.writeByte(BinaryProtocol.FIND_BY_PHONE);
+        BinaryProtocol.writeString(requestData, number);
+        sendFrame();
+        return requestId;
+    }
+
+    private void sendFrame() throws IOException {
+        out.writeInt(request.size());
+        request.writeTo(out);
+    }
+
+    private List<Subscriber> readResponse(int expectedRequestId) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        int requestId = in.readInt();
+        if (requestId != expectedRequestId) {
+            throw new IOException("Response " + requestId + " does not match request " + expectedRequestId);
+        }
+        if (in.readByte() != BinaryProtocol.STATUS_OK) {
+            throw new IOException("Request failed: " + BinaryProtocol.readString(in));
+        }
+        return BinaryProtocol.readSubscribers(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,167 @@
+package com.phonebook.server;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Двоичный протокол быстрого поиска абонентов по номеру телефона.
+ * <p>
+ * Каждое сообщение передается кадром: длина содержимого (int) и содержимое. Все числа
+ * записываются в порядке big-endian, строки - длиной (unsigned short) и байтами UTF-8.
+ * <ul>
+ *   <li>Запрос: номер запроса (int), код операции (byte), аргументы операции.
+ *   {@link #FIND_BY_PHONE}: номер телефона (строка).
+ *   {@link #SEARCH_BY_PREFIX}: начало номера (строка), максимальное количество абонентов (int).</li>
+ *   <li>Ответ: номер запроса (int), состояние (byte). При {@link #STATUS_OK} - количество абонентов (int)
+ *   и абоненты: идентификатор, фамилия, имя, отчество (строки), количество номеров (byte)
+ *   и номера: номер (строка), тип (byte, порядковый номер {@link PhoneType}).
+ *   При {@link #STATUS_ERROR} - текст ошибки (строка).</li>
+ * </ul>
+ * Клиент может отправить несколько запросов подряд, не дожидаясь ответов. Сервер отвечает
+ * в порядке запросов и отправляет ответы на все прочитанные запросы вместе.
+ */
+public final class BinaryProtocol {
+
+    /**
+     * Поиск абонентов по номеру телефона.
+     */
+    public static final byte FIND_BY_PHONE = 1;
+
+    /**
+     * Поиск абонентов по началу номера телефона.
+     */
+    public static final byte SEARCH_BY_PREFIX = 2;
+
+    /**
+     * Запрос выполнен.
+     */
+    public static final byte STATUS_OK = 0;
+
+    /**
+     * Запрос не выполнен.
+     */
+    public static final byte STATUS_ERROR = 1;
+
+    /**
+     * Максимальная длина содержимого кадра; кадр большей длины закрывает соединение.
+     */
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+
+    /**
+     * Максимальное количество абонентов в ответе на поиск по началу номера.
+     */
+    public static final int MAX_RESULTS = 1_000;
+
+    private static final PhoneType[] PHONE_TYPES = PhoneType.values();
+
+    private BinaryProtocol() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Записывает строку.
+     *
+     * @param out поток
+     * @param value строка; null записывается пустой строкой
+     * @throws IOException при ошибке записи
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String is too long: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Читает строку.
+     *
+     * @param in поток
+     * @return строка
+     * @throws IOException при ошибке чтения
+     */
+    static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Читает строку из содержимого кадра.
+     *
+     * @param in содержимое кадра
+     * @return строка
+     * @throws java.nio.BufferUnderflowException если кадр закончился раньше строки
+     */
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Записывает список абонентов.
+     *
+     * @param out поток
+     * @param subscribers абоненты
+     * @throws IOException при ошибке записи
+     */
+    static void writeSubscribers(DataOutput out, List<Subscriber> subscribers) throws IOException {
+        out.writeInt(subscribers.size());
+        for (Subscriber subscriber : subscribers) {
+            writeString(out, subscriber.getId());
+            writeString(out, subscriber.getLastName());
+            writeString(out, subscriber.getFirstName());
+            writeString(out, subscriber.getMiddleName());
+            List<PhoneNumber> phones = subscriber.getPhoneNumbers();
+            int count = Math.min(phones.size(), 0xFF);
+            out.writeByte(count);
+            for (int i = 0; i < count; i++) {
+                writeString(out, phones.get(i).getNumber());
+                out.writeByte(phones.get(i).getType().ordinal());
+            }
+        }
+    }
+
+    /**
+     * Читает список абонентов.
+     *
+     * @param in поток
+     * @return абоненты
+     * @throws IOException при ошибке чтения или неизвестном типе номера
+     */
+    static List<Subscriber> readSubscribers(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid subscriber count: " + count);
+        }
+        List<Subscriber> subscribers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = readString(in);
+            String lastName = readString(in);
+            String firstName = readString(in);
+            String middleName = readString(in);
+            int phoneCount = in.readUnsignedByte();
+            List<PhoneNumber> phones = new ArrayList<>(phoneCount);
+            for (int p = 0; p < phoneCount; p++) {
+                String number = readString(in);
+                int type = in.readUnsignedByte();
+                if (type >= PHONE_TYPES.length) {
+                    throw new IOException("Unknown phone type: " + type);
+                }
+                phones.add(new PhoneNumber(number, PHONE_TYPES[type]));
+            }
+            subscribers.add(new Subscriber(id, lastName, firstName, middleName, phones));
+        }
+        return subscribers;
+    }
+}
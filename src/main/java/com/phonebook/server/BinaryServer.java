@@ -0,0 +1,292 @@
+package com.phonebook.server;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Сервер двоичного протокола {@link BinaryProtocol} для поиска абонентов по номеру телефона
+ * с высокой частотой запросов. Все соединения обслуживает один поток с {@link Selector}:
+ * запросы выполняются по индексу номеров за микросекунды, поэтому переключение потоков
+ * обошлось бы дороже самого поиска.
+ * <p>
+ * Сервер разбирает все полные кадры, прочитанные из соединения за раз, и отправляет ответы
+ * на них одной записью. Пока ответы не отправлены, чтение из соединения приостанавливается.
+ */
+public class BinaryServer {
+
+    private static final Logger logger = LogManager.getLogger(BinaryServer.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+
+    private final PhoneBookService service;
+    private final PhoneIndex phoneIndex;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Thread thread;
+    private volatile boolean running;
+
+    // Используются только потоком сервера
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final DataOutputStream payloadData = new DataOutputStream(payload);
+
+    /**
+     * Создает сервер. Сервер начинает принимать соединения после {@link #start()}.
+     *
+     * @param service сервис телефонной книги
+     * @param address адрес и порт; порт 0 выбирает свободный порт
+     * @throws IOException если порт занят
+     */
+    public BinaryServer(PhoneBookService service, InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.phoneIndex = new PhoneIndex(service);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this::run, "phonebook-binary");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Соединение с клиентом.
+     */
+    private static final class Connection {
+
+        ByteBuffer input = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        // Ответы, которые не удалось отправить сразу
+        ByteBuffer output;
+        final ByteArrayOutputStream responses = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        final DataOutputStream responseData = new DataOutputStream(responses);
+    }
+
+    /**
+     * Запускает прием соединений.
+     */
+    public void start() {
+        running = true;
+        thread.start();
+        logger.info("Binary server listening on port {}", getPort());
+    }
+
+    /**
+     * Останавливает сервер и закрывает все соединения.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            close(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.warn("Error closing selector: {}", e.getMessage());
+        }
+        service.removeListener(phoneIndex);
+        logger.info("Binary server stopped");
+    }
+
+    /**
+     * Возвращает порт, на котором сервер принимает соединения.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Возвращает метрики времени выполнения запросов по операциям.
+     *
+     * @return метрики
+     */
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                logger.error("Selector failed: {}", e.getMessage(), e);
+                return;
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                try {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    if (key.isReadable()) {
+                        read(key);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        write(key);
+                    }
+                } catch (IOException e) {
+                    logger.debug("Connection closed: {}", e.getMessage());
+                    close(key);
+                } catch (RuntimeException e) {
+                    // Ошибка обработки одного запроса закрывает только его соединение, поток сервера продолжает работу
+                    logger.error("Error processing connection: {}", e.getMessage(), e);
+                    if (key.channel() instanceof SocketChannel) {
+                        close(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (((SocketChannel) key.channel()).read(connection.input) < 0) {
+            close(key);
+            return;
+        }
+
+        ByteBuffer input = connection.input;
+        input.flip();
+        int required = 0;
+        while (input.remaining() >= Integer.BYTES) {
+            int start = input.position();
+            int length = input.getInt(start);
+            if (length < 0 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            if (input.remaining() < Integer.BYTES + length) {
+                required = Integer.BYTES + length;
+                break;
+            }
+            ByteBuffer frame = input.slice(start + Integer.BYTES, length);
+            handle(frame, connection);
+            input.position(start + Integer.BYTES + length);
+        }
+        input.compact();
+        if (required > input.capacity()) {
+            // Кадр не помещается в буфер: буфер увеличивается до размера кадра
+            ByteBuffer larger = ByteBuffer.allocate(required);
+            input.flip();
+            larger.put(input);
+            connection.input = larger;
+        }
+        flush(key, connection);
+    }
+
+    /**
+     * Выполняет запрос из кадра и добавляет кадр ответа к неотправленным ответам соединения.
+     */
+    private void handle(ByteBuffer frame, Connection connection) throws IOException {
+        long start = System.nanoTime();
+        int requestId = 0;
+        String operation = "invalid";
+        payload.reset();
+        try {
+            requestId = frame.getInt();
+            byte opcode = frame.get();
+            List<Subscriber> found;
+            if (opcode == BinaryProtocol.FIND_BY_PHONE) {
+                operation = "findByPhone";
+                found = phoneIndex.find(BinaryProtocol.readString(frame));
+            } else if (opcode == BinaryProtocol.SEARCH_BY_PREFIX) {
+                operation = "searchByPrefix";
+                String prefix = BinaryProtocol.readString(frame);
+                found = phoneIndex.findByPrefix(prefix, Math.min(frame.getInt(), BinaryProtocol.MAX_RESULTS));
+            } else {
+                throw new IllegalArgumentException("Unknown operation: " + opcode);
+            }
+            payloadData.writeInt(requestId);
+            payloadData.writeByte(BinaryProtocol.STATUS_OK);
+            BinaryProtocol.writeSubscribers(payloadData, found);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            payload.reset();
+            payloadData.writeInt(requestId);
+            payloadData.writeByte(BinaryProtocol.STATUS_ERROR);
+            BinaryProtocol.writeString(payloadData,
+                    e instanceof BufferUnderflowException ? "Malformed request" : e.getMessage());
+        }
+        connection.responseData.writeInt(payload.size());
+        payload.writeTo(connection.responses);
+        metrics.record(operation, 0, System.nanoTime() - start);
+    }
+
+    /**
+     * Отправляет накопленные ответы одной записью. Если канал не принял все данные,
+     * остаток отправляется по готовности канала, а чтение приостанавливается.
+     */
+    private void flush(SelectionKey key, Connection connection) throws IOException {
+        if (connection.responses.size() == 0) {
+            return;
+        }
+        byte[] bytes = connection.responses.toByteArray();
+        connection.responses.reset();
+        if (connection.output == null) {
+            connection.output = ByteBuffer.wrap(bytes);
+        } else {
+            ByteBuffer combined = ByteBuffer.allocate(connection.output.remaining() + bytes.length);
+            combined.put(connection.output).put(bytes).flip();
+            connection.output = combined;
+        }
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        if (connection.output != null) {
+            ((SocketChannel) key.channel()).write(connection.output);
+            if (connection.output.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.output = null;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            logger.debug("Error closing channel: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.phonebook.server;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Минимальная поддержка JSON для HTTP-сервера и клиента: разбор документов и запись абонентов.
+ * Объекты разбираются в {@link Map}, массивы - в {@link List}, числа - в {@link Double}.
+ */
+final class Json {
+
+    /**
+     * Максимальная вложенность объектов и массивов; разбор рекурсивный, поэтому более глубокий
+     * документ отклоняется до переполнения стека.
+     */
+    static final int MAX_DEPTH = 64;
+
+    private final String text;
+    private int position;
+    private int depth;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Разбирает JSON-документ.
+     *
+     * @param text текст документа
+     * @return значение документа
+     * @throws IllegalArgumentException если документ некорректен
+     */
+    static Object parse(String text) {
+        Json parser = new Json(text);
+        Object value = parser.value();
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw parser.error("Unexpected trailing content");
+        }
+        return value;
+    }
+
+    /**
+     * Разбирает JSON-объект.
+     *
+     * @param text текст документа
+     * @return поля объекта
+     * @throws IllegalArgumentException если документ не является объектом
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(String text) {
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("JSON object expected");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private Object value() {
+        skipWhitespace();
+        if (position >= text.length()) {
+            throw error("Unexpected end of JSON");
+        }
+        char c = text.charAt(position);
+        switch (c) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return number();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> object() {
+        enter();
+        Map<String, Object> fields = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            depth--;
+            return fields;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Field name expected");
+            }
+            String name = string();
+            skipWhitespace();
+            expect(':');
+            fields.put(name, value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                depth--;
+                return fields;
+            }
+        }
+    }
+
+    private List<Object> array() {
+        enter();
+        List<Object> elements = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            depth--;
+            return elements;
+        }
+        while (true) {
+            elements.add(value());
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                depth--;
+                return elements;
+            }
+        }
+    }
+
+    private void enter() {
+        if (++depth > MAX_DEPTH) {
+            throw error("Nesting deeper than " + MAX_DEPTH);
+        }
+    }
+
+    private String string() {
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escape = text.charAt(position++);
+            switch (escape) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw error("Invalid unicode escape");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    value.append(escape);
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private Double number() {
+        int start = position;
+        while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            position++;
+        }
+        try {
+            return Double.valueOf(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number");
+        }
+    }
+
+    private Object literal(String literal, Object value) {
+        if (!text.startsWith(literal, position)) {
+            throw error("Unexpected literal");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("'" + expected + "' expected");
+        }
+        position++;
+    }
+
+    private char peek() {
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position);
+    }
+
+    /**
+     * Записывает строку в кавычках с экранированием.
+     *
+     * @param out буфер ответа
+     * @param value строка или null
+     * @return буфер ответа
+     */
+    static StringBuilder quote(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Записывает абонента JSON-объектом.
+     *
+     * @param out буфер ответа
+     * @param subscriber абонент
+     * @return буфер ответа
+     */
+    static StringBuilder subscriber(StringBuilder out, Subscriber subscriber) {
+        quote(out.append("{\"id\":"), subscriber.getId());
+        quote(out.append(",\"lastName\":"), subscriber.getLastName());
+        quote(out.append(",\"firstName\":"), subscriber.getFirstName());
+        quote(out.append(",\"middleName\":"), subscriber.getMiddleName());
+        out.append(",\"phones\":[");
+        List<PhoneNumber> phones = subscriber.getPhoneNumbers();
+        for (int i = 0; i < phones.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            quote(out.append("{\"number\":"), phones.get(i).getNumber());
+            quote(out.append(",\"type\":"), phones.get(i).getType().name()).append('}');
+        }
+        return out.append("]}");
+    }
+
+    /**
+     * Записывает список абонентов JSON-массивом.
+     *
+     * @param out буфер ответа
+     * @param subscribers абоненты
+     * @return буфер ответа
+     */
+    static StringBuilder subscribers(StringBuilder out, List<Subscriber> subscribers) {
+        out.append('[');
+        for (int i = 0; i < subscribers.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            subscriber(out, subscribers.get(i));
+        }
+        return out.append(']');
+    }
+
+    /**
+     * Восстанавливает абонента из разобранного JSON-объекта в формате {@link #subscriber}.
+     *
+     * @param value разобранный объект
+     * @return абонент
+     * @throws IllegalArgumentException если объект не описывает абонента
+     */
+    static Subscriber readSubscriber(Object value) {
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("Subscriber object expected");
+        }
+        Map<?, ?> fields = (Map<?, ?>) value;
+        List<PhoneNumber> phones = new ArrayList<>();
+        Object phoneList = fields.get("phones");
+        if (phoneList instanceof List) {
+            for (Object phone : (List<?>) phoneList) {
+                Map<?, ?> phoneFields = (Map<?, ?>) phone;
+                phones.add(new PhoneNumber((String) phoneFields.get("number"),
+                        PhoneType.valueOf((String) phoneFields.get("type"))));
+            }
+        }
+        return new Subscriber((String) fields.get("id"), (String) fields.get("lastName"),
+                (String) fields.get("firstName"), (String) fields.get("middleName"), phones);
+    }
+
+    /**
+     * Восстанавливает список абонентов из разобранного JSON-массива.
+     *
+     * @param value разобранный массив
+     * @return абоненты
+     */
+    static List<Subscriber> readSubscribers(Object value) {
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("Subscriber array expected");
+        }
+        List<?> elements = (List<?>) value;
+        List<Subscriber> subscribers = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            subscribers.add(readSubscriber(element));
+        }
+        return subscribers;
+    }
+}
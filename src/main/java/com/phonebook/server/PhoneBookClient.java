@@ -0,0 +1,154 @@
+package com.phonebook.server;
+
+import com.phonebook.model.Subscriber;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Клиент JSON HTTP API {@link PhoneBookServer}.
+ * Клиент потокобезопасен: запросы из разных потоков выполняются по общему пулу соединений.
+ */
+public class PhoneBookClient {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    // Пакет записи: около 200 байт JSON на абонента
+    private static final int PUT_BATCH_SIZE = 1_000;
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+    private final String baseUri;
+
+    /**
+     * Создает клиент сервера.
+     *
+     * @param host имя или адрес сервера
+     * @param port порт HTTP API
+     */
+    public PhoneBookClient(String host, int port) {
+        this.baseUri = "http://" + host + ":" + port + "/api/";
+    }
+
+    /**
+     * Возвращает абонента по идентификатору.
+     *
+     * @param id идентификатор абонента
+     * @return абонент или null, если абонент не найден
+     * @throws IOException при ошибке соединения или ответе с ошибкой
+     */
+    public Subscriber get(String id) throws IOException {
+        HttpResponse<String> response = send(request("subscribers/" + encode(id)).GET(), 404);
+        return response.statusCode() == 404 ? null : Json.readSubscriber(Json.parse(response.body()));
+    }
+
+    /**
+     * Записывает абонента целиком с его идентификатором, добавляя или заменяя абонента на сервере.
+     *
+     * @param subscriber абонент вместе с номерами телефонов
+     * @throws IOException при ошибке соединения или ответе с ошибкой
+     */
+    public void put(Subscriber subscriber) throws IOException {
+        String body = Json.subscriber(new StringBuilder(), subscriber).toString();
+        send(request("subscribers/" + encode(subscriber.getId()))
+                .PUT(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)), 0);
+    }
+
+    /**
+     * Записывает абонентов целиком с их идентификаторами. Абоненты отправляются пакетами
+     * по {@value #PUT_BATCH_SIZE}, и сервер сохраняет данные один раз на пакет.
+     *
+     * @param subscribers абоненты вместе с номерами телефонов
+     * @throws IOException при ошибке соединения или ответе с ошибкой; предыдущие пакеты уже записаны
+     */
+    public void putAll(List<Subscriber> subscribers) throws IOException {
+        for (int from = 0; from < subscribers.size(); from += PUT_BATCH_SIZE) {
+            List<Subscriber> batch = subscribers.subList(from, Math.min(from + PUT_BATCH_SIZE, subscribers.size()));
+            String body = Json.subscribers(new StringBuilder(), batch).toString();
+            send(request("subscribers").PUT(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)), 0);
+        }
+    }
+
+    /**
+     * Удаляет абонента.
+     *
+     * @param id идентификатор абонента
+     * @return true если абонент был удален
+     * @throws IOException при ошибке соединения или ответе с ошибкой
+     */
+    public boolean delete(String id) throws IOException {
+        return send(request("subscribers/" + encode(id)).DELETE(), 404).statusCode() != 404;
+    }
+
+    /**
+     * Выполняет поиск абонентов по тексту.
+     *
+     * @param text текст для поиска; пустой текст находит всех абонентов
+     * @param limit максимальное количество абонентов в ответе
+     * @return первые найденные абоненты в порядке сортировки
+     * @throws IOException при ошибке соединения или ответе с ошибкой
+     */
+    public List<Subscriber> search(String text, int limit) throws IOException {
+        return Json.readSubscribers(searchResult(text, limit).get("subscribers"));
+    }
+
+    /**
+     * Возвращает количество абонентов на сервере.
+     *
+     * @return количество абонентов
+     * @throws IOException при ошибке соединения или ответе с ошибкой
+     */
+    public int count() throws IOException {
+        return ((Double) searchResult("", 0).get("total")).intValue();
+    }
+
+    /**
+     * Находит абонентов по номеру телефона.
+     *
+     * @param number номер в произвольном форматировании
+     * @return абоненты с этим номером
+     * @throws IOException при ошибке соединения или ответе с ошибкой
+     */
+    public List<Subscriber> findByPhone(String number) throws IOException {
+        return Json.readSubscribers(Json.parse(send(request("phones/" + encode(number)).GET(), 0).body()));
+    }
+
+    private Map<String, Object> searchResult(String text, int limit) throws IOException {
+        return Json.parseObject(send(request("subscribers?q=" + encode(text) + "&limit=" + limit).GET(), 0).body());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).timeout(TIMEOUT);
+    }
+
+    /**
+     * Отправляет запрос и проверяет статус ответа.
+     *
+     * @param allowedError статус ошибки, который возвращается вызывающему, или 0
+     */
+    private HttpResponse<String> send(HttpRequest.Builder request, int allowedError) throws IOException {
+        HttpResponse<String> response;
+        try {
+            response = http.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request to " + baseUri + " interrupted");
+        }
+        int status = response.statusCode();
+        if (status >= 400 && status != allowedError) {
+            throw new IOException("Server " + baseUri + " returned " + status + ": " + response.body());
+        }
+        return response;
+    }
+
+    private static String encode(String value) {
+        // В пути знак + не обозначает пробел, поэтому пробелы кодируются как %20
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,505 @@
+package com.phonebook.server;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.PhoneBookValidator;
+import com.phonebook.util.ThreadPools;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * HTTP-сервер для доступа к телефонной книге из других приложений.
+ * Сервер построен на {@code com.sun.net.httpserver} из JDK, отвечает в формате JSON
+ * и обрабатывает каждый запрос в отдельном потоке, обращаясь к потокобезопасному {@link PhoneBookService}.
+ * <p>
+ * Маршруты:
+ * <ul>
+ *   <li>{@code GET /api/subscribers?q=текст&limit=N} - поиск абонентов;</li>
+ *   <li>{@code GET /api/subscribers/{id}} - абонент по идентификатору;</li>
+ *   <li>{@code POST /api/subscribers} - добавление абонента вместе с номерами;</li>
+ *   <li>{@code PUT /api/subscribers} - запись массива абонентов с их идентификаторами одним пакетом;</li>
+ *   <li>{@code PUT /api/subscribers/{id}} - изменение ФИО; если абонента нет или в теле указаны
+ *   номера, абонент записывается целиком с этим идентификатором;</li>
+ *   <li>{@code DELETE /api/subscribers/{id}} - удаление абонента;</li>
+ *   <li>{@code POST /api/subscribers/{id}/phones} - добавление номера;</li>
+ *   <li>{@code DELETE /api/subscribers/{id}/phones/{номер}} - удаление номера;</li>
+ *   <li>{@code GET /api/phones/{номер}} - абоненты с указанным номером;</li>
+ *   <li>{@code GET /api/metrics} - время обработки запросов по маршрутам.</li>
+ * </ul>
+ */
+public class PhoneBookServer {
+
+    private static final Logger logger = LogManager.getLogger(PhoneBookServer.class);
+
+    /**
+     * Количество абонентов в ответе поиска по умолчанию.
+     */
+    public static final int DEFAULT_SEARCH_LIMIT = 100;
+
+    /**
+     * Максимальная длина тела запроса в байтах; на более длинный запрос сервер отвечает 413.
+     */
+    public static final int MAX_BODY_LENGTH = BinaryProtocol.MAX_FRAME_LENGTH;
+
+    private static final String API_PREFIX = "/api/";
+
+    static {
+        // Заголовки и тело ответа записываются отдельно; без TCP_NODELAY алгоритм Нейгла
+        // вместе с отложенным подтверждением задерживает каждый ответ на десятки миллисекунд.
+        // Свойство читается при первом создании HTTP-сервера в JVM
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final PhoneBookService service;
+    private final PhoneIndex phoneIndex;
+    private final RequestMetrics metrics = new RequestMetrics();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile boolean readOnly;
+
+    /**
+     * Создает сервер. Сервер начинает принимать запросы после {@link #start()}.
+     *
+     * @param service сервис телефонной книги
+     * @param address адрес и порт; порт 0 выбирает свободный порт
+     * @throws IOException если порт занят
+     */
+    public PhoneBookServer(PhoneBookService service, InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.phoneIndex = new PhoneIndex(service);
+        this.executor = ThreadPools.newVirtualThreadPerTaskExecutor("phonebook-http");
+        this.server = HttpServer.create(address, 0);
+        server.createContext(API_PREFIX, this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Запускает прием запросов.
+     */
+    public void start() {
+        server.start();
+        logger.info("HTTP server listening on port {}", getPort());
+    }
+
+    /**
+     * Останавливает сервер, дожидаясь завершения начатых запросов не дольше указанного времени.
+     *
+     * @param delaySeconds время ожидания в секундах
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        service.removeListener(phoneIndex);
+        logger.info("HTTP server stopped");
+    }
+
+    /**
+     * Возвращает порт, на котором сервер принимает запросы.
+     *
+     * @return номер порта
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Включает режим только для чтения, в котором запросы на изменение отклоняются.
+     * Используется репликой, данные которой изменяются только журналом основного процесса.
+     *
+     * @param readOnly true для режима только для чтения
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Возвращает метрики обработки запросов.
+     *
+     * @return метрики
+     */
+    public RequestMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Ответ на запрос.
+     */
+    private static final class Response {
+
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Response ok(StringBuilder body) {
+            return new Response(200, body.toString());
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString());
+        }
+    }
+
+    /**
+     * Тело запроса длиннее {@link #MAX_BODY_LENGTH}.
+     */
+    private static final class BodyTooLargeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException() {
+            super("Request body exceeds " + MAX_BODY_LENGTH + " bytes");
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring(API_PREFIX.length()).split("/");
+        String route = method + " " + routeName(path);
+
+        Response response;
+        try {
+            response = route(exchange, method, path);
+        } catch (BodyTooLargeException e) {
+            response = Response.error(413, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response = Response.error(400, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Request {} failed: {}", route, e.getMessage(), e);
+            response = Response.error(500, "Internal server error");
+        }
+
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        // Время записывается до отправки, чтобы клиент, получивший ответ, видел его в метриках
+        metrics.record(route, response.status, System.nanoTime() - start);
+        try (OutputStream body = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            body.write(bytes);
+        }
+    }
+
+    /**
+     * Имя маршрута для метрик: переменные части пути заменяются обозначениями.
+     */
+    private static String routeName(String[] path) {
+        if (!path[0].equals("subscribers") && !path[0].equals("phones") && !path[0].equals("metrics")) {
+            // Неизвестные пути не должны порождать новые маршруты в метриках
+            return "/api/*";
+        }
+        StringBuilder name = new StringBuilder("/api/").append(path[0]);
+        if (path.length > 1) {
+            name.append(path[0].equals("phones") ? "/{number}" : "/{id}");
+        }
+        if (path.length > 2) {
+            name.append(path[2].equals("phones") ? "/phones" : "/*");
+        }
+        if (path.length > 3) {
+            name.append("/{number}");
+        }
+        return name.toString();
+    }
+
+    private Response route(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (readOnly && !method.equals("GET")) {
+            return Response.error(403, "Read-only replica: send changes to the primary");
+        }
+        switch (path[0]) {
+            case "subscribers":
+                if (path.length == 1) {
+                    if (method.equals("GET")) {
+                        return search(query(exchange));
+                    }
+                    if (method.equals("POST")) {
+                        return create(Json.parseObject(readBody(exchange)));
+                    }
+                    if (method.equals("PUT")) {
+                        return putAll(Json.parse(readBody(exchange)));
+                    }
+                } else if (path.length == 2) {
+                    switch (method) {
+                        case "GET":
+                            return get(path[1]);
+                        case "PUT":
+                            return update(path[1], Json.parseObject(readBody(exchange)));
+                        case "DELETE":
+                            return delete(path[1]);
+                        default:
+                            break;
+                    }
+                } else if (path[2].equals("phones")) {
+                    if (path.length == 3 && method.equals("POST")) {
+                        return addPhone(path[1], Json.parseObject(readBody(exchange)));
+                    }
+                    if (path.length == 4 && method.equals("DELETE")) {
+                        return removePhone(path[1], path[3]);
+                    }
+                }
+                break;
+            case "phones":
+                if (path.length == 2 && method.equals("GET")) {
+                    return Response.ok(Json.subscribers(new StringBuilder(), phoneIndex.find(path[1])));
+                }
+                break;
+            case "metrics":
+                if (path.length == 1 && method.equals("GET")) {
+                    return Response.ok(metrics.toJson(new StringBuilder()));
+                }
+                break;
+            default:
+                break;
+        }
+        return Response.error(404, "Not found: " + method + " " + exchange.getRequestURI().getPath());
+    }
+
+    private Response search(Map<String, String> query) {
+        String text = query.getOrDefault("q", "");
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_SEARCH_LIMIT;
+        List<Subscriber> found = service.searchSubscribers(text);
+        StringBuilder body = new StringBuilder("{\"total\":").append(found.size()).append(",\"subscribers\":");
+        // Результат может быть слиянием секций, поэтому строки берутся итератором, а не по индексу
+        List<Subscriber> page = new ArrayList<>(Math.min(Math.max(limit, 0), found.size()));
+        for (Iterator<Subscriber> rows = found.iterator(); page.size() < limit && rows.hasNext(); ) {
+            page.add(rows.next());
+        }
+        Json.subscribers(body, page);
+        return Response.ok(body.append('}'));
+    }
+
+    private Response get(String id) {
+        Subscriber subscriber = find(id);
+        return subscriber == null ? notFound(id) : Response.ok(Json.subscriber(new StringBuilder(), subscriber));
+    }
+
+    private Response create(Map<String, Object> fields) {
+        String lastName = text(fields, "lastName");
+        String firstName = text(fields, "firstName");
+        String middleName = text(fields, "middleName");
+        PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
+        List<PhoneNumber> phones = phoneNumbers(fields);
+
+        Subscriber[] created = new Subscriber[1];
+        boolean committed = service.transaction(tx -> {
+            created[0] = tx.addSubscriber(lastName, firstName, middleName);
+            for (PhoneNumber phone : phones) {
+                tx.addPhoneNumber(created[0], phone.getNumber(), phone.getType());
+            }
+        });
+        if (!committed) {
+            return Response.error(409, "Subscriber could not be added");
+        }
+        Subscriber stored = service.findSubscriberById(created[0].getId());
+        return new Response(201, Json.subscriber(new StringBuilder(), stored != null ? stored : created[0]).toString());
+    }
+
+    private Response update(String id, Map<String, Object> fields) {
+        Subscriber subscriber = find(id);
+        if (subscriber == null || fields.containsKey("phones")) {
+            return put(id, subscriber == null, fields);
+        }
+        String lastName = fields.containsKey("lastName") ? text(fields, "lastName") : subscriber.getLastName();
+        String firstName = fields.containsKey("firstName") ? text(fields, "firstName") : subscriber.getFirstName();
+        String middleName = fields.containsKey("middleName") ? text(fields, "middleName") : subscriber.getMiddleName();
+        PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
+        if (!service.updateSubscriber(subscriber, lastName, firstName, middleName)) {
+            return Response.error(409, "Subscriber could not be updated");
+        }
+        return get(id);
+    }
+
+    /**
+     * Записывает абонента целиком с идентификатором из пути. Так координатор кластера
+     * размещает абонентов на узлах под выбранными им идентификаторами.
+     */
+    private Response put(String id, boolean created, Map<String, Object> fields) {
+        service.putSubscriber(subscriber(id, fields));
+        Subscriber stored = service.findSubscriberById(id);
+        return new Response(created ? 201 : 200, Json.subscriber(new StringBuilder(), stored).toString());
+    }
+
+    /**
+     * Записывает массив абонентов с их идентификаторами одним пакетом, сохраняя данные один раз.
+     * Так координатор кластера импортирует абонентов на узел. Если хотя бы один абонент
+     * невалиден, не записывается ни один.
+     */
+    private Response putAll(Object body) {
+        if (!(body instanceof List)) {
+            throw new IllegalArgumentException("JSON array expected");
+        }
+        List<Subscriber> subscribers = new ArrayList<>(((List<?>) body).size());
+        for (Object element : (List<?>) body) {
+            if (!(element instanceof Map)) {
+                throw new IllegalArgumentException("Subscriber must be an object");
+            }
+            Map<?, ?> fields = (Map<?, ?>) element;
+            subscribers.add(subscriber(text(fields, "id"), fields));
+        }
+        service.putSubscribers(subscribers);
+        return Response.ok(new StringBuilder("{\"stored\":").append(subscribers.size()).append('}'));
+    }
+
+    /**
+     * Проверяет поля абонента, записываемого с заданным идентификатором.
+     */
+    private static Subscriber subscriber(String id, Map<?, ?> fields) {
+        if (!isCanonicalId(id)) {
+            throw new IllegalArgumentException("Invalid subscriber id: " + id);
+        }
+        String lastName = text(fields, "lastName");
+        String firstName = text(fields, "firstName");
+        String middleName = text(fields, "middleName");
+        PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
+        return new Subscriber(id, lastName, firstName, middleName, phoneNumbers(fields));
+    }
+
+    private static boolean isCanonicalId(String id) {
+        try {
+            return UUID.fromString(id).toString().equals(id);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private Response delete(String id) {
+        Subscriber subscriber = find(id);
+        if (subscriber == null || !service.deleteSubscriber(subscriber)) {
+            return notFound(id);
+        }
+        return new Response(200, "{\"deleted\":true}");
+    }
+
+    private Response addPhone(String id, Map<String, Object> fields) {
+        Subscriber subscriber = find(id);
+        if (subscriber == null) {
+            return notFound(id);
+        }
+        PhoneNumber phone = phoneNumber(fields);
+        if (!service.addPhoneNumber(subscriber, phone.getNumber(), phone.getType())) {
+            return Response.error(409, "Phone number already exists: " + phone.getNumber());
+        }
+        return get(id);
+    }
+
+    private Response removePhone(String id, String number) {
+        Subscriber subscriber = find(id);
+        if (subscriber == null) {
+            return notFound(id);
+        }
+        PhoneNumber phone = PhoneIndex.findNumber(subscriber, number);
+        if (phone == null || !service.removePhoneNumber(subscriber, phone)) {
+            return Response.error(404, "Phone number not found: " + number);
+        }
+        return get(id);
+    }
+
+    private Subscriber find(String id) {
+        try {
+            return service.findSubscriberById(id);
+        } catch (IllegalArgumentException e) {
+            // Строка не является идентификатором абонента
+            return null;
+        }
+    }
+
+    private static Response notFound(String id) {
+        return Response.error(404, "Subscriber not found: " + id);
+    }
+
+    private static List<PhoneNumber> phoneNumbers(Map<?, ?> fields) {
+        List<PhoneNumber> phones = new ArrayList<>();
+        Object phoneList = fields.get("phones");
+        if (phoneList instanceof List) {
+            for (Object phone : (List<?>) phoneList) {
+                if (!(phone instanceof Map)) {
+                    throw new IllegalArgumentException("Phone must be an object");
+                }
+                phones.add(phoneNumber((Map<?, ?>) phone));
+            }
+        } else if (phoneList != null) {
+            throw new IllegalArgumentException("Field 'phones' must be an array");
+        }
+        return phones;
+    }
+
+    private static PhoneNumber phoneNumber(Map<?, ?> fields) {
+        Object number = fields.get("number");
+        if (!(number instanceof String)) {
+            throw new IllegalArgumentException("Field 'number' must be a string");
+        }
+        PhoneBookValidator.validatePhoneNumber((String) number);
+        Object typeName = fields.get("type");
+        PhoneType type = PhoneType.MOBILE;
+        if (typeName instanceof String) {
+            type = PhoneType.fromDisplayName((String) typeName);
+            if (type == null) {
+                type = PhoneType.valueOf(((String) typeName).toUpperCase(Locale.ROOT));
+            }
+        }
+        return new PhoneNumber((String) number, type);
+    }
+
+    private static String text(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Field '" + name + "' must be a string");
+        }
+        return value == null ? "" : (String) value;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Читает тело запроса не длиннее {@link #MAX_BODY_LENGTH}. Длина проверяется по заголовку
+     * до чтения и по прочитанным байтам для запросов без заголовка длины.
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared != null && Long.parseLong(declared.trim()) > MAX_BODY_LENGTH) {
+            throw new BodyTooLargeException();
+        }
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_BODY_LENGTH + 1);
+            if (bytes.length > MAX_BODY_LENGTH) {
+                throw new BodyTooLargeException();
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.phonebook.server;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookChange;
+import com.phonebook.service.PhoneBookListener;
+import com.phonebook.service.PhoneBookService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Индекс абонентов по телефонному номеру для поиска по номеру без просмотра всей книги.
+ * Индекс обновляется по событиям изменений сервиса и перестраивается целиком при замене данных.
+ * Номера сравниваются без форматирования: учитываются только цифры и знак +.
+ * Номера хранятся упорядоченными, поэтому индекс отвечает и на поиск по началу номера.
+ * <p>
+ * События доставляются после снятия блокировок сервиса, поэтому индекс может ненадолго
+ * отставать от данных. Найденные по индексу абоненты перепроверяются по текущим данным.
+ * <p>
+ * Индекс используется HTTP-сервером и узлом кластера: каждый узел индексирует номера своих абонентов.
+ */
+public class PhoneIndex implements PhoneBookListener {
+
+    private final PhoneBookService service;
+
+    // Заменяется целиком при перестройке; отдельные изменения применяются к текущей карте
+    private volatile ConcurrentNavigableMap<String, Set<String>> idsByNumber = new ConcurrentSkipListMap<>();
+
+    /**
+     * Создает индекс и подписывает его на изменения сервиса.
+     *
+     * @param service сервис телефонной книги
+     */
+    public PhoneIndex(PhoneBookService service) {
+        this.service = service;
+        // Подписка до построения: изменения во время построения применятся повторно, что безопасно
+        service.addListener(this);
+        rebuild();
+    }
+
+    /**
+     * Приводит номер к виду для сравнения.
+     *
+     * @param number номер в произвольном форматировании
+     * @return цифры номера и знак +
+     */
+    public static String normalize(String number) {
+        return number.replaceAll("[^0-9+]", "");
+    }
+
+    /**
+     * Находит абонентов с указанным номером телефона.
+     *
+     * @param number номер телефона
+     * @return абоненты, у которых есть этот номер
+     */
+    public List<Subscriber> find(String number) {
+        String key = normalize(number);
+        Set<String> ids = idsByNumber.get(key);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<Subscriber> found = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Subscriber subscriber = service.findSubscriberById(id);
+            if (subscriber != null && findNumber(subscriber, key) != null) {
+                found.add(subscriber);
+            }
+        }
+        Collections.sort(found);
+        return found;
+    }
+
+    /**
+     * Находит абонентов, у которых есть номер, начинающийся с указанных цифр.
+     * Абоненты возвращаются в порядке номеров, каждый не более одного раза.
+     *
+     * @param prefix начало номера
+     * @param limit максимальное количество абонентов
+     * @return найденные абоненты
+     */
+    List<Subscriber> findByPrefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<Subscriber> found = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        // Все номера с этим началом лежат в индексе подряд
+        for (Map.Entry<String, Set<String>> entry : idsByNumber.subMap(key, key + Character.MAX_VALUE).entrySet()) {
+            for (String id : entry.getValue()) {
+                if (!seen.add(id)) {
+                    continue;
+                }
+                Subscriber subscriber = service.findSubscriberById(id);
+                if (subscriber != null && findNumber(subscriber, entry.getKey()) != null) {
+                    found.add(subscriber);
+                    if (found.size() == limit) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Находит номер абонента, совпадающий с указанным без учета форматирования.
+     *
+     * @param subscriber абонент
+     * @param number номер телефона
+     * @return номер абонента или null, если номера нет
+     */
+    public static PhoneNumber findNumber(Subscriber subscriber, String number) {
+        String key = normalize(number);
+        for (PhoneNumber phoneNumber : subscriber.getPhoneNumbers()) {
+            if (normalize(phoneNumber.getNumber()).equals(key)) {
+                return phoneNumber;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает количество различных номеров в индексе.
+     *
+     * @return количество номеров
+     */
+    int size() {
+        return idsByNumber.size();
+    }
+
+    @Override
+    public void onChanges(List<PhoneBookChange> changes) {
+        for (PhoneBookChange change : changes) {
+            if (change.getType() == PhoneBookChange.Type.RESET) {
+                // Перестройка читает текущие данные, в которые уже вошли остальные изменения пакета
+                rebuild();
+                return;
+            }
+        }
+        ConcurrentNavigableMap<String, Set<String>> index = idsByNumber;
+        for (PhoneBookChange change : changes) {
+            if (change.getPrevious() != null) {
+                unindex(index, change.getPrevious());
+            }
+            if (change.getType() != PhoneBookChange.Type.REMOVED) {
+                index(index, change.getSubscriber());
+            }
+        }
+    }
+
+    private void rebuild() {
+        ConcurrentNavigableMap<String, Set<String>> index = new ConcurrentSkipListMap<>();
+        for (Subscriber subscriber : service.getAllSubscribers()) {
+            index(index, subscriber);
+        }
+        idsByNumber = index;
+    }
+
+    private static void index(Map<String, Set<String>> index, Subscriber subscriber) {
+        for (PhoneNumber phoneNumber : subscriber.getPhoneNumbers()) {
+            index.computeIfAbsent(normalize(phoneNumber.getNumber()), key -> ConcurrentHashMap.newKeySet())
+                    .add(subscriber.getId());
+        }
+    }
+
+    private static void unindex(Map<String, Set<String>> index, Subscriber subscriber) {
+        for (PhoneNumber phoneNumber : subscriber.getPhoneNumbers()) {
+            String id = subscriber.getId();
+            index.computeIfPresent(normalize(phoneNumber.getNumber()), (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.phonebook.server;
+
+import com.phonebook.metrics.LatencyHistogram;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики времени обработки запросов HTTP-сервера по маршрутам.
+ * Время записывается без блокировок в гистограмму {@link LatencyHistogram},
+ * поэтому процентили оцениваются с точностью до интервала сверху.
+ */
+public class RequestMetrics {
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, RouteStats> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Метрики одного маршрута.
+     */
+    public static final class RouteStats {
+
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(int status, long nanos) {
+            if (status >= 500) {
+                errors.increment();
+            }
+            latency.record(nanos);
+        }
+
+        /**
+         * Возвращает количество обработанных запросов.
+         *
+         * @return количество запросов
+         */
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        /**
+         * Возвращает количество запросов, завершившихся ошибкой сервера.
+         *
+         * @return количество ошибок
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /**
+         * Возвращает среднее время обработки.
+         *
+         * @return среднее время в микросекундах
+         */
+        public double getMeanMicros() {
+            return latency.getMeanMicros();
+        }
+
+        /**
+         * Возвращает максимальное время обработки.
+         *
+         * @return максимальное время в микросекундах
+         */
+        public long getMaxMicros() {
+            return latency.getMaxNanos() / 1_000;
+        }
+
+        /**
+         * Оценивает процентиль времени обработки верхней границей интервала гистограммы.
+         *
+         * @param quantile доля запросов от 0 до 1
+         * @return время в микросекундах, не меньшее времени указанной доли запросов
+         */
+        public long getPercentileMicros(double quantile) {
+            return latency.getPercentileNanos(quantile) / 1_000;
+        }
+    }
+
+    /**
+     * Записывает время обработки запроса.
+     *
+     * @param route маршрут, например {@code GET /api/subscribers/{id}}
+     * @param status код ответа
+     * @param nanos время обработки в наносекундах
+     */
+    public void record(String route, int status, long nanos) {
+        routes.computeIfAbsent(route, key -> new RouteStats()).record(status, nanos);
+    }
+
+    /**
+     * Возвращает метрики маршрута.
+     *
+     * @param route маршрут
+     * @return метрики или null, если запросов по маршруту не было
+     */
+    public RouteStats getRoute(String route) {
+        return routes.get(route);
+    }
+
+    /**
+     * Возвращает общее количество обработанных запросов.
+     *
+     * @return количество запросов
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (RouteStats stats : routes.values()) {
+            total += stats.getCount();
+        }
+        return total;
+    }
+
+    /**
+     * Записывает метрики JSON-объектом.
+     *
+     * @param out буфер ответа
+     * @return буфер ответа
+     */
+    StringBuilder toJson(StringBuilder out) {
+        long uptimeMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        out.append("{\"uptimeMillis\":").append(uptimeMillis)
+                .append(",\"requests\":").append(getTotalCount())
+                .append(",\"routes\":{");
+        boolean first = true;
+        for (Map.Entry<String, RouteStats> entry : new TreeMap<>(routes).entrySet()) {
+            RouteStats stats = entry.getValue();
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            Json.quote(out, entry.getKey())
+                    .append(":{\"count\":").append(stats.getCount())
+                    .append(",\"errors\":").append(stats.getErrors())
+                    .append(",\"meanMicros\":").append(Math.round(stats.getMeanMicros()))
+                    .append(",\"p50Micros\":").append(stats.getPercentileMicros(0.50))
+                    .append(",\"p99Micros\":").append(stats.getPercentileMicros(0.99))
+                    .append(",\"maxMicros\":").append(stats.getMaxMicros())
+                    .append('}');
+        }
+        return out.append("}}");
+    }
+}
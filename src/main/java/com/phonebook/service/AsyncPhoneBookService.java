@@ -0,0 +1,260 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.util.ThreadPools;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный фасад сервиса телефонной книги.
+ * Каждый метод выполняет соответствующий метод {@link PhoneBookService} в пуле потоков и
+ * возвращает {@link CompletableFuture}, поэтому вызывающий поток (например, поток JavaFX)
+ * никогда не блокируется. Изменения одного абонента выполняются строго в порядке вызова;
+ * изменения разных абонентов выполняются независимо.
+ */
+public class AsyncPhoneBookService implements AutoCloseable {
+
+    /**
+     * Системное свойство с видом пула потоков по умолчанию: virtual или platform.
+     */
+    public static final String EXECUTOR_PROPERTY = "phonebook.async.executor";
+
+    private final PhoneBookService service;
+    private final Executor executor;
+    // Пул, созданный фасадом и закрываемый вместе с ним
+    private final ExecutorService ownedExecutor;
+
+    // Последнее незавершенное изменение каждого абонента; абоненты сравниваются по идентификатору
+    private final Map<Subscriber, CompletableFuture<?>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Создает фасад с пулом потоков по умолчанию, см. {@link #newDefaultExecutor()}.
+     *
+     * @param service сервис телефонной книги
+     */
+    public AsyncPhoneBookService(PhoneBookService service) {
+        this(service, newDefaultExecutor(), true);
+    }
+
+    /**
+     * Создает фасад с указанным пулом потоков. Пул не закрывается фасадом.
+     *
+     * @param service сервис телефонной книги
+     * @param executor пул потоков для выполнения вызовов
+     */
+    public AsyncPhoneBookService(PhoneBookService service, Executor executor) {
+        this(service, executor, false);
+    }
+
+    private AsyncPhoneBookService(PhoneBookService service, Executor executor, boolean owned) {
+        this.service = service;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+    }
+
+    /**
+     * Загружает телефонную книгу в пуле потоков по умолчанию и создает для нее фасад.
+     *
+     * @param factory создание сервиса вместе с загрузкой данных
+     * @return фасад, доступный после загрузки данных
+     */
+    public static CompletableFuture<AsyncPhoneBookService> load(Supplier<PhoneBookService> factory) {
+        ExecutorService executor = newDefaultExecutor();
+        return CompletableFuture.supplyAsync(factory, executor)
+                .thenApply(service -> new AsyncPhoneBookService(service, executor, true))
+                .whenComplete((async, error) -> {
+                    if (error != null) {
+                        executor.shutdown();
+                    }
+                });
+    }
+
+    /**
+     * Создает пул потоков по умолчанию. Если свойство {@value #EXECUTOR_PROPERTY} равно virtual
+     * и среда выполнения поддерживает виртуальные потоки, каждый вызов выполняется в отдельном
+     * виртуальном потоке, иначе используется пул фоновых потоков платформы.
+     *
+     * @return пул потоков
+     */
+    public static ExecutorService newDefaultExecutor() {
+        if ("virtual".equalsIgnoreCase(System.getProperty(EXECUTOR_PROPERTY, "virtual"))) {
+            return ThreadPools.newVirtualThreadPerTaskExecutor("phonebook-async");
+        }
+        return ThreadPools.newDaemonCachedThreadPool("phonebook-async");
+    }
+
+    /**
+     * Возвращает сервис, вызовы которого выполняет фасад.
+     *
+     * @return сервис телефонной книги
+     */
+    public PhoneBookService getService() {
+        return service;
+    }
+
+    /**
+     * Асинхронно возвращает снимок всех абонентов.
+     *
+     * @return список абонентов
+     */
+    public CompletableFuture<List<Subscriber>> getAllSubscribers() {
+        return CompletableFuture.supplyAsync(service::getAllSubscribers, executor);
+    }
+
+    /**
+     * Асинхронно выполняет поиск абонентов.
+     *
+     * @param searchText текст для поиска
+     * @return список найденных абонентов
+     */
+    public CompletableFuture<List<Subscriber>> searchSubscribers(String searchText) {
+        return CompletableFuture.supplyAsync(() -> service.searchSubscribers(searchText), executor);
+    }
+
+    /**
+     * Асинхронно находит абонента по идентификатору.
+     *
+     * @param id строковый идентификатор абонента
+     * @return абонент или null, если абонент не найден
+     */
+    public CompletableFuture<Subscriber> findSubscriberById(String id) {
+        return CompletableFuture.supplyAsync(() -> service.findSubscriberById(id), executor);
+    }
+
+    /**
+     * Асинхронно открывает снимок телефонной книги. Снимок нужно закрыть после использования.
+     *
+     * @return снимок телефонной книги
+     */
+    public CompletableFuture<PhoneBookSnapshot> openSnapshot() {
+        return CompletableFuture.supplyAsync(service::openSnapshot, executor);
+    }
+
+    /**
+     * Асинхронно добавляет абонента.
+     *
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество
+     * @return созданный абонент или null если абонент не добавлен
+     */
+    public CompletableFuture<Subscriber> addSubscriber(String lastName, String firstName, String middleName) {
+        return CompletableFuture.supplyAsync(() -> service.addSubscriber(lastName, firstName, middleName), executor);
+    }
+
+    /**
+     * Асинхронно обновляет ФИО абонента после ранее запрошенных изменений этого абонента.
+     *
+     * @param subscriber абонент
+     * @param lastName новая фамилия
+     * @param firstName новое имя
+     * @param middleName новое отчество
+     * @return true если обновление прошло успешно
+     */
+    public CompletableFuture<Boolean> updateSubscriber(Subscriber subscriber, String lastName, String firstName,
+                                                      String middleName) {
+        return ordered(subscriber, () -> service.updateSubscriber(subscriber, lastName, firstName, middleName));
+    }
+
+    /**
+     * Асинхронно удаляет абонента после ранее запрошенных изменений этого абонента.
+     *
+     * @param subscriber абонент
+     * @return true если абонент удален
+     */
+    public CompletableFuture<Boolean> deleteSubscriber(Subscriber subscriber) {
+        return ordered(subscriber, () -> service.deleteSubscriber(subscriber));
+    }
+
+    /**
+     * Асинхронно добавляет телефонный номер после ранее запрошенных изменений этого абонента.
+     *
+     * @param subscriber абонент
+     * @param number номер телефона
+     * @param type тип телефона
+     * @return true если номер добавлен
+     */
+    public CompletableFuture<Boolean> addPhoneNumber(Subscriber subscriber, String number, PhoneType type) {
+        return ordered(subscriber, () -> service.addPhoneNumber(subscriber, number, type));
+    }
+
+    /**
+     * Асинхронно удаляет телефонный номер после ранее запрошенных изменений этого абонента.
+     *
+     * @param subscriber абонент
+     * @param phoneNumber телефонный номер
+     * @return true если номер удален
+     */
+    public CompletableFuture<Boolean> removePhoneNumber(Subscriber subscriber, PhoneNumber phoneNumber) {
+        return ordered(subscriber, () -> service.removePhoneNumber(subscriber, phoneNumber));
+    }
+
+    /**
+     * Асинхронно применяет транзакцию. Тело транзакции выполняется в пуле потоков.
+     *
+     * @param body тело транзакции
+     * @return true если транзакция зафиксирована
+     */
+    public CompletableFuture<Boolean> transaction(Consumer<PhoneBookTransaction> body) {
+        return CompletableFuture.supplyAsync(() -> service.transaction(body), executor);
+    }
+
+    /**
+     * Асинхронно пересортировывает абонентов.
+     *
+     * @return завершается после сортировки
+     */
+    public CompletableFuture<Void> sortSubscribers() {
+        return CompletableFuture.runAsync(service::sortSubscribers, executor);
+    }
+
+    /**
+     * Асинхронно сохраняет данные в файл.
+     *
+     * @return true если сохранение прошло успешно
+     */
+    public CompletableFuture<Boolean> saveData() {
+        return CompletableFuture.supplyAsync(service::saveData, executor);
+    }
+
+    /**
+     * Асинхронно перечитывает данные из файла.
+     *
+     * @return true если данные загружены успешно
+     */
+    public CompletableFuture<Boolean> reloadData() {
+        return CompletableFuture.supplyAsync(service::reloadData, executor);
+    }
+
+    /**
+     * Закрывает пул потоков, если он был создан фасадом. Уже запущенные вызовы завершаются.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Выполняет изменение абонента после завершения предыдущего изменения того же абонента,
+     * даже если предыдущее изменение завершилось ошибкой.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> ordered(Subscriber subscriber, Supplier<T> action) {
+        CompletableFuture<?> next = pending.compute(subscriber, (key, previous) -> previous == null
+                ? CompletableFuture.supplyAsync(action, executor)
+                : previous.handle((result, error) -> null).thenApplyAsync(ignored -> action.get(), executor));
+        next.whenComplete((result, error) -> pending.remove(subscriber, next));
+        // Вызывающий получает копию, чтобы не мог завершить звено цепочки досрочно
+        return (CompletableFuture<T>) next.copy();
+    }
+}
@@ -0,0 +1,484 @@
+package com.phonebook.service;
+
+import com.phonebook.model.NameDictionary;
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.model.SubscriberCollator;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Поколоночное хранилище абонентов.
+ * Вместо отдельного объекта на каждого абонента данные хранятся в параллельных массивах:
+ * ФИО - в виде номеров в общем словаре имен {@link NameDictionary}, цифры телефонов - в общем
+ * упакованном массиве long со смещениями, длины и типы телефонов - в массивах байтов.
+ * Объекты {@link Subscriber} создаются по запросу и служат лишь представлением записи.
+ * Хранилище рассчитано на большие справочники с преобладанием чтения: вставка и удаление
+ * сдвигают массив порядка сортировки и выполняются за O(n).
+ */
+public class ColumnarSubscriberStore implements SubscriberStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final PhoneType[] PHONE_TYPES = PhoneType.values();
+    private static final byte NO_TYPE = -1;
+    private static final int INTERNATIONAL_FLAG = 0x40;
+    private static final int LENGTH_MASK = 0x3F;
+
+    // Ключи сортировки имен по номеру в словаре
+    private final NameKeyCache names = new NameKeyCache(NameDictionary.getDefault());
+
+    // Колонки записей; индекс в колонках - номер слота
+    private long[] idHighs = new long[INITIAL_CAPACITY];
+    private long[] idLows = new long[INITIAL_CAPACITY];
+    // Редкие идентификаторы, записанные не в каноническом виде UUID, по номеру слота
+    private final Map<Integer, String> legacyIds = new HashMap<>();
+    private final IdSlotIndex idIndex = new IdSlotIndex();
+    private int[] lastNames = new int[INITIAL_CAPACITY];
+    private int[] firstNames = new int[INITIAL_CAPACITY];
+    private int[] middleNames = new int[INITIAL_CAPACITY];
+    private int[] phoneOffsets = new int[INITIAL_CAPACITY];
+    private int[] phoneCounts = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+
+    // Упакованные телефоны всех абонентов; исходная запись хранится, только если отличается от цифр
+    private long[] phoneDigits = new long[INITIAL_CAPACITY];
+    private byte[] phoneLengths = new byte[INITIAL_CAPACITY];
+    private byte[] phoneTypes = new byte[INITIAL_CAPACITY];
+    private String[] phoneFormatting = new String[INITIAL_CAPACITY];
+    private int phoneSize;
+    private int phoneGarbage;
+
+    // Номера слотов в порядке сортировки
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int size;
+
+    @Override
+    public int insert(Subscriber subscriber) {
+        int slot = allocateSlot();
+        writeSlot(slot, subscriber);
+
+        int index = upperBound(slot);
+        order = ensureCapacity(order, size + 1);
+        System.arraycopy(order, index, order, index + 1, size - index);
+        order[index] = slot;
+        size++;
+        return index;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+
+        int slot = order[index];
+        System.arraycopy(order, index + 1, order, index, size - index - 1);
+        size--;
+        releaseSlot(slot);
+        return true;
+    }
+
+    @Override
+    public void update(Subscriber subscriber) {
+        int index = indexOf(subscriber);
+        if (index >= 0) {
+            int slot = order[index];
+            phoneGarbage += phoneCounts[slot];
+            writePhones(slot, subscriber.getPhoneNumbers());
+            compactPhonesIfNeeded();
+        }
+    }
+
+    @Override
+    public Subscriber get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return materialize(order[index]);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Subscriber)) {
+            return -1;
+        }
+        Subscriber target = (Subscriber) o;
+        byte[][] key = {
+                SubscriberCollator.fieldKey(target.getLastName()),
+                SubscriberCollator.fieldKey(target.getFirstName()),
+                SubscriberCollator.fieldKey(target.getMiddleName())
+        };
+
+        // Двоичный поиск первой записи с таким же ФИО
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSlotToKey(order[mid], key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < size && compareSlotToKey(order[i], key) == 0; i++) {
+            if (hasId(order[i], target)) {
+                return i;
+            }
+        }
+
+        // ФИО могло быть изменено в обход сервиса - ищем полным перебором
+        for (int i = 0; i < size; i++) {
+            if (hasId(order[i], target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Subscriber findById(long idHigh, long idLow) {
+        int slot = idIndex.get(idHigh, idLow);
+        return slot < 0 ? null : materialize(slot);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int phoneNumberCount() {
+        return phoneSize - phoneGarbage;
+    }
+
+    @Override
+    public void rebuild(Collection<? extends Subscriber> source) {
+        Subscriber[] sorted = source.toArray(new Subscriber[0]);
+        Arrays.sort(sorted);
+
+        clear();
+        order = new int[Math.max(INITIAL_CAPACITY, sorted.length)];
+        for (Subscriber subscriber : sorted) {
+            int slot = allocateSlot();
+            writeSlot(slot, subscriber);
+            order[size++] = slot;
+        }
+    }
+
+    @Override
+    public void clear() {
+        idHighs = new long[INITIAL_CAPACITY];
+        idLows = new long[INITIAL_CAPACITY];
+        legacyIds.clear();
+        idIndex.clear();
+        lastNames = new int[INITIAL_CAPACITY];
+        firstNames = new int[INITIAL_CAPACITY];
+        middleNames = new int[INITIAL_CAPACITY];
+        phoneOffsets = new int[INITIAL_CAPACITY];
+        phoneCounts = new int[INITIAL_CAPACITY];
+        slotCount = 0;
+        freeSlotCount = 0;
+        phoneDigits = new long[INITIAL_CAPACITY];
+        phoneLengths = new byte[INITIAL_CAPACITY];
+        phoneTypes = new byte[INITIAL_CAPACITY];
+        phoneFormatting = new String[INITIAL_CAPACITY];
+        phoneSize = 0;
+        phoneGarbage = 0;
+        order = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Subscriber> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Subscriber next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return materialize(order[index++]);
+            }
+        };
+    }
+
+    /**
+     * Возвращает снимок хранилища. Колонки слотов копируются в порядке сортировки за O(n)
+     * без создания объектов, а массивы телефонов используются совместно: записанные в них
+     * телефоны не изменяются, новые дописываются в конец, а уплотнение создает новые массивы.
+     */
+    @Override
+    public List<Subscriber> snapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Создает представление абонента по данным слота. Представление заморожено, как и абоненты
+     * остальных хранилищ: изменения в нем не попали бы в хранилище.
+     */
+    private Subscriber materialize(int slot) {
+        List<PhoneNumber> phones = phones(phoneDigits, phoneLengths, phoneTypes, phoneFormatting,
+                phoneOffsets[slot], phoneCounts[slot]);
+        String legacyId = legacyIds.isEmpty() ? null : legacyIds.get(slot);
+        if (legacyId != null) {
+            return new Subscriber(legacyId, names.nameOf(lastNames[slot]), names.nameOf(firstNames[slot]),
+                    names.nameOf(middleNames[slot]), phones).freeze();
+        }
+        return new Subscriber(idHighs[slot], idLows[slot], names.nameOf(lastNames[slot]),
+                names.nameOf(firstNames[slot]), names.nameOf(middleNames[slot]), phones).freeze();
+    }
+
+    private static List<PhoneNumber> phones(long[] digits, byte[] lengths, byte[] types, String[] formatting,
+                                            int offset, int count) {
+        List<PhoneNumber> phones = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            int length = lengths[i];
+            phones.add(new PhoneNumber(digits[i], (length & LENGTH_MASK) - 1, (length & INTERNATIONAL_FLAG) != 0,
+                    formatting[i], types[i] == NO_TYPE ? null : PHONE_TYPES[types[i]]));
+        }
+        return phones;
+    }
+
+    /**
+     * Неизменяемый снимок поколоночного хранилища; объекты абонентов создаются при обращении.
+     */
+    private static final class Snapshot extends AbstractList<Subscriber> implements RandomAccess {
+
+        private final NameKeyCache names;
+        private final long[] idHighs;
+        private final long[] idLows;
+        private final Map<Integer, String> legacyIds;
+        private final int[] lastNames;
+        private final int[] firstNames;
+        private final int[] middleNames;
+        private final int[] phoneOffsets;
+        private final int[] phoneCounts;
+        private final long[] phoneDigits;
+        private final byte[] phoneLengths;
+        private final byte[] phoneTypes;
+        private final String[] phoneFormatting;
+
+        Snapshot(ColumnarSubscriberStore store) {
+            int size = store.size;
+            names = store.names;
+            idHighs = new long[size];
+            idLows = new long[size];
+            lastNames = new int[size];
+            firstNames = new int[size];
+            middleNames = new int[size];
+            phoneOffsets = new int[size];
+            phoneCounts = new int[size];
+            legacyIds = store.legacyIds.isEmpty() ? Map.of() : new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                int slot = store.order[i];
+                idHighs[i] = store.idHighs[slot];
+                idLows[i] = store.idLows[slot];
+                lastNames[i] = store.lastNames[slot];
+                firstNames[i] = store.firstNames[slot];
+                middleNames[i] = store.middleNames[slot];
+                phoneOffsets[i] = store.phoneOffsets[slot];
+                phoneCounts[i] = store.phoneCounts[slot];
+                if (!store.legacyIds.isEmpty() && store.legacyIds.containsKey(slot)) {
+                    legacyIds.put(i, store.legacyIds.get(slot));
+                }
+            }
+            phoneDigits = store.phoneDigits;
+            phoneLengths = store.phoneLengths;
+            phoneTypes = store.phoneTypes;
+            phoneFormatting = store.phoneFormatting;
+        }
+
+        @Override
+        public Subscriber get(int index) {
+            List<PhoneNumber> phones = phones(phoneDigits, phoneLengths, phoneTypes, phoneFormatting,
+                    phoneOffsets[index], phoneCounts[index]);
+            String legacyId = legacyIds.get(index);
+            if (legacyId != null) {
+                return new Subscriber(legacyId, names.nameOf(lastNames[index]), names.nameOf(firstNames[index]),
+                        names.nameOf(middleNames[index]), phones).freeze();
+            }
+            return new Subscriber(idHighs[index], idLows[index], names.nameOf(lastNames[index]),
+                    names.nameOf(firstNames[index]), names.nameOf(middleNames[index]), phones).freeze();
+        }
+
+        @Override
+        public int size() {
+            return idHighs.length;
+        }
+    }
+
+    private boolean hasId(int slot, Subscriber subscriber) {
+        return idHighs[slot] == subscriber.getIdHigh() && idLows[slot] == subscriber.getIdLow();
+    }
+
+    private void writeSlot(int slot, Subscriber subscriber) {
+        idHighs[slot] = subscriber.getIdHigh();
+        idLows[slot] = subscriber.getIdLow();
+        if (subscriber.getLegacyId() != null) {
+            legacyIds.put(slot, subscriber.getLegacyId());
+        }
+        idIndex.put(subscriber.getIdHigh(), subscriber.getIdLow(), slot);
+        lastNames[slot] = names.idOf(subscriber.getLastName());
+        firstNames[slot] = names.idOf(subscriber.getFirstName());
+        middleNames[slot] = names.idOf(subscriber.getMiddleName());
+        writePhones(slot, subscriber.getPhoneNumbers());
+    }
+
+    /**
+     * Записывает телефоны слота в конец упакованного массива.
+     */
+    private void writePhones(int slot, List<PhoneNumber> phones) {
+        int required = phoneSize + phones.size();
+        phoneDigits = ensureCapacity(phoneDigits, required);
+        phoneLengths = ensureCapacity(phoneLengths, required);
+        phoneTypes = ensureCapacity(phoneTypes, required);
+        phoneFormatting = ensureCapacity(phoneFormatting, required);
+
+        phoneOffsets[slot] = phoneSize;
+        phoneCounts[slot] = phones.size();
+        for (PhoneNumber phone : phones) {
+            // Количество цифр (со сдвигом на единицу для ненормализованных номеров) занимает младшие биты,
+            // признак международного номера - отдельный бит
+            int length = phone.getDigitCount() + 1;
+            phoneDigits[phoneSize] = phone.getDigits();
+            phoneLengths[phoneSize] = (byte) (phone.isInternational() ? length | INTERNATIONAL_FLAG : length);
+            phoneTypes[phoneSize] = phone.getType() == null ? NO_TYPE : (byte) phone.getType().ordinal();
+            phoneFormatting[phoneSize] = phone.getFormatting();
+            phoneSize++;
+        }
+    }
+
+    /**
+     * Уплотняет массив телефонов, если более половины его занято удаленными записями.
+     */
+    private void compactPhonesIfNeeded() {
+        if (phoneGarbage < INITIAL_CAPACITY || phoneGarbage * 2 < phoneSize) {
+            return;
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, phoneSize - phoneGarbage);
+        long[] compactDigits = new long[capacity];
+        byte[] compactLengths = new byte[capacity];
+        byte[] compactTypes = new byte[capacity];
+        String[] compactFormatting = new String[capacity];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            int offset = phoneOffsets[slot];
+            int count = phoneCounts[slot];
+            System.arraycopy(phoneDigits, offset, compactDigits, position, count);
+            System.arraycopy(phoneLengths, offset, compactLengths, position, count);
+            System.arraycopy(phoneTypes, offset, compactTypes, position, count);
+            System.arraycopy(phoneFormatting, offset, compactFormatting, position, count);
+            phoneOffsets[slot] = position;
+            position += count;
+        }
+        phoneDigits = compactDigits;
+        phoneLengths = compactLengths;
+        phoneTypes = compactTypes;
+        phoneFormatting = compactFormatting;
+        phoneSize = position;
+        phoneGarbage = 0;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+
+        int slot = slotCount++;
+        idHighs = ensureCapacity(idHighs, slotCount);
+        idLows = ensureCapacity(idLows, slotCount);
+        lastNames = ensureCapacity(lastNames, slotCount);
+        firstNames = ensureCapacity(firstNames, slotCount);
+        middleNames = ensureCapacity(middleNames, slotCount);
+        phoneOffsets = ensureCapacity(phoneOffsets, slotCount);
+        phoneCounts = ensureCapacity(phoneCounts, slotCount);
+        return slot;
+    }
+
+    private void releaseSlot(int slot) {
+        idIndex.remove(idHighs[slot], idLows[slot]);
+        if (!legacyIds.isEmpty()) {
+            legacyIds.remove(slot);
+        }
+        phoneGarbage += phoneCounts[slot];
+        phoneCounts[slot] = 0;
+        freeSlots = ensureCapacity(freeSlots, freeSlotCount + 1);
+        freeSlots[freeSlotCount++] = slot;
+        compactPhonesIfNeeded();
+    }
+
+    private int compareSlots(int first, int second) {
+        int result = names.compare(lastNames[first], lastNames[second]);
+        if (result == 0) {
+            result = names.compare(firstNames[first], firstNames[second]);
+        }
+        if (result == 0) {
+            result = names.compare(middleNames[first], middleNames[second]);
+        }
+        return result;
+    }
+
+    private int compareSlotToKey(int slot, byte[][] key) {
+        int result = SubscriberCollator.compare(names.key(lastNames[slot]), key[0]);
+        if (result == 0) {
+            result = SubscriberCollator.compare(names.key(firstNames[slot]), key[1]);
+        }
+        if (result == 0) {
+            result = SubscriberCollator.compare(names.key(middleNames[slot]), key[2]);
+        }
+        return result;
+    }
+
+    /**
+     * Позиция после всех записей с таким же ФИО, чтобы сохранить порядок добавления.
+     */
+    private int upperBound(int slot) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSlots(order[mid], slot) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] ensureCapacity(int[] array, int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+
+    private static long[] ensureCapacity(long[] array, int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+
+    private static byte[] ensureCapacity(byte[] array, int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+
+    private static <T> T[] ensureCapacity(T[] array, int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+}
@@ -1,5 +1,10 @@
 package com.phonebook.service;
 
+import com.phonebook.metrics.Counter;
+import com.phonebook.metrics.LoadEvent;
+import com.phonebook.metrics.MetricsRegistry;
+import com.phonebook.metrics.Operation;
+import com.phonebook.metrics.SaveEvent;
 import com.phonebook.model.Subscriber;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,13 +15,42 @@ import java.util.List;
 /**
  * Сервис для работы с файловым хранилищем телефонной книги.
  * Обеспечивает сохранение и загрузку данных в бинарный файл.
+ * <p>
+ * Файл записывается потоком: метка формата, количество абонентов и абоненты по одному.
+ * Такой файл можно читать частями, не дожидаясь чтения всего файла. Файлы прежнего формата
+ * (сериализованный список целиком) по-прежнему читаются.
+ * <p>
+ * Время сохранения и загрузки, количество абонентов и байтов записываются в {@link MetricsRegistry#getDefault()}
+ * и событиями JFR {@link SaveEvent} и {@link LoadEvent}.
  */
 public class FileDataService {
 
     private static final Logger logger = LogManager.getLogger(FileDataService.class);
     private static final String DEFAULT_FILE_NAME = "phonebook.dat";
 
+    // Метка потокового формата; файлы прежнего формата начинаются со списка
+    private static final String STREAM_FORMAT = "phonebook-stream-v1";
+    // Таблица ссылок потока сбрасывается через это количество абонентов, чтобы не расти с размером файла
+    private static final int RESET_INTERVAL = 1024;
+    private static final int MAX_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Получатель абонентов, прочитанных из файла частями.
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+
+        /**
+         * Принимает очередную часть абонентов.
+         *
+         * @param chunk абоненты в порядке файла
+         * @param progress доля прочитанного файла от 0 до 1
+         */
+        void accept(List<Subscriber> chunk, double progress);
+    }
+
     private final String fileName;
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
 
     /**
      * Конструктор с использованием файла по умолчанию.
@@ -41,15 +75,50 @@ public class FileDataService {
      * @throws IOException если произошла ошибка при сохранении
      */
     public void saveSubscribers(List<Subscriber> subscribers) throws IOException {
-        logger.info("Saving {} subscribers to file: {}", subscribers.size(), fileName);
+        saveSubscribers(subscribers.size(), subscribers);
+    }
+
+    /**
+     * Сохраняет абонентов в файл по мере перебора, не требуя держать их всех в памяти.
+     * Количество записывается в начало файла, поэтому должно быть известно заранее.
+     *
+     * @param count количество абонентов, которое вернет перебор
+     * @param subscribers абоненты для сохранения
+     * @throws IOException если произошла ошибка при сохранении или перебор вернул другое количество
+     */
+    public void saveSubscribers(int count, Iterable<Subscriber> subscribers) throws IOException {
+        logger.info("Saving {} subscribers to file: {}", count, fileName);
 
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new BufferedOutputStream(new FileOutputStream(fileName)))) {
-            oos.writeObject(subscribers);
+        long start = System.nanoTime();
+        SaveEvent event = new SaveEvent();
+        event.begin();
+        event.file = fileName;
+        try (FileOutputStream file = new FileOutputStream(fileName);
+             ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(file))) {
+            oos.writeObject(STREAM_FORMAT);
+            oos.writeInt(count);
+            int written = 0;
+            for (Subscriber subscriber : subscribers) {
+                oos.writeObject(subscriber);
+                if (++written % RESET_INTERVAL == 0) {
+                    oos.reset();
+                }
+            }
+            if (written != count) {
+                throw new IOException("Expected " + count + " subscribers, got " + written);
+            }
+            oos.flush();
+            event.subscribers = written;
+            event.bytes = file.getChannel().position();
+            metrics.add(Counter.SUBSCRIBERS_SAVED, written);
+            metrics.add(Counter.BYTES_WRITTEN, event.bytes);
             logger.info("Subscribers saved successfully");
         } catch (IOException e) {
             logger.error("Error saving subscribers to file: {}", e.getMessage(), e);
             throw new IOException("Failed to save subscribers: " + e.getMessage(), e);
+        } finally {
+            metrics.recordSince(Operation.SAVE, start);
+            event.commit();
         }
     }
 
@@ -60,24 +129,117 @@ public class FileDataService {
      * @throws IOException если произошла ошибка при загрузке
      * @throws ClassNotFoundException если класс данных не найден
      */
-    @SuppressWarnings("unchecked")
     public List<Subscriber> loadSubscribers() throws IOException, ClassNotFoundException {
+        List<Subscriber> subscribers = new ArrayList<>();
+        streamSubscribers(MAX_CHUNK_SIZE, (chunk, progress) -> subscribers.addAll(chunk));
+        return subscribers;
+    }
+
+    /**
+     * Загружает абонентов из файла частями и передает каждую часть получателю сразу после чтения.
+     * Каждая следующая часть вдвое больше предыдущей: первые абоненты доступны быстро,
+     * а количество частей растет логарифмически с размером файла.
+     *
+     * @param firstChunkSize размер первой части
+     * @param consumer получатель частей
+     * @return количество загруженных абонентов
+     * @throws IOException если произошла ошибка при загрузке
+     * @throws ClassNotFoundException если класс данных не найден
+     */
+    @SuppressWarnings("unchecked")
+    public int streamSubscribers(int firstChunkSize, ChunkConsumer consumer)
+            throws IOException, ClassNotFoundException {
         logger.info("Loading subscribers from file: {}", fileName);
 
         File file = new File(fileName);
         if (!file.exists()) {
             logger.info("File not found, returning empty list");
-            return new ArrayList<>();
+            return 0;
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new BufferedInputStream(new FileInputStream(fileName)))) {
-            List<Subscriber> subscribers = (List<Subscriber>) ois.readObject();
-            logger.info("Loaded {} subscribers from file", subscribers.size());
-            return subscribers;
-        } catch (IOException | ClassNotFoundException e) {
+        long length = Math.max(1, file.length());
+        long start = System.nanoTime();
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        event.file = fileName;
+        try (CountingInputStream counter = new CountingInputStream(new FileInputStream(file));
+             ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(counter))) {
+            Object header = ois.readObject();
+            if (!STREAM_FORMAT.equals(header)) {
+                // Прежний формат: список читается целиком и передается одной частью
+                List<Subscriber> subscribers = (List<Subscriber>) header;
+                consumer.accept(subscribers, 1.0);
+                event.subscribers = subscribers.size();
+                event.bytes = counter.count;
+                metrics.add(Counter.SUBSCRIBERS_LOADED, subscribers.size());
+                metrics.add(Counter.BYTES_READ, counter.count);
+                logger.info("Loaded {} subscribers from legacy file", subscribers.size());
+                return subscribers.size();
+            }
+
+            int count = ois.readInt();
+            int chunkSize = Math.max(1, firstChunkSize);
+            List<Subscriber> chunk = new ArrayList<>(Math.min(chunkSize, count));
+            for (int i = 0; i < count; i++) {
+                chunk.add((Subscriber) ois.readObject());
+                if (chunk.size() == chunkSize || i == count - 1) {
+                    consumer.accept(chunk, i == count - 1 ? 1.0 : Math.min(1.0, counter.count / (double) length));
+                    chunkSize = Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+                    chunk = new ArrayList<>(Math.min(chunkSize, count - i - 1));
+                }
+            }
+            event.subscribers = count;
+            event.bytes = counter.count;
+            metrics.add(Counter.SUBSCRIBERS_LOADED, count);
+            metrics.add(Counter.BYTES_READ, counter.count);
+            logger.info("Loaded {} subscribers from file", count);
+            return count;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
             logger.error("Error loading subscribers from file: {}", e.getMessage(), e);
+            if (e instanceof ClassCastException) {
+                throw new IOException("Unexpected data file format: " + e.getMessage(), e);
+            }
             throw e;
+        } finally {
+            metrics.recordSince(Operation.LOAD, start);
+            event.commit();
+        }
+    }
+
+    /**
+     * Поток, считающий прочитанные байты, для оценки доли загруженного файла.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result >= 0) {
+                count++;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int result = super.read(buffer, offset, length);
+            if (result > 0) {
+                count += result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
         }
     }
 
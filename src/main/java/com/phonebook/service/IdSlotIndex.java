@@ -0,0 +1,119 @@
+package com.phonebook.service;
+
+import java.util.Arrays;
+
+/**
+ * Индекс номеров слотов по 128-битному идентификатору абонента для хранилищ,
+ * не держащих объекты {@link com.phonebook.model.Subscriber} в памяти.
+ * Все данные хранятся в примитивных массивах, которые сборщик мусора не обходит.
+ */
+class IdSlotIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final int EMPTY = -1;
+
+    private long[] highs;
+    private long[] lows;
+    private int[] slots;
+    private int size;
+    private int threshold;
+
+    IdSlotIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Связывает идентификатор с номером слота.
+     */
+    void put(long high, long low, int slot) {
+        int mask = slots.length - 1;
+        for (int i = LongSubscriberMap.slot(high, low, mask); ; i = (i + 1) & mask) {
+            if (slots[i] == EMPTY) {
+                highs[i] = high;
+                lows[i] = low;
+                slots[i] = slot;
+                if (++size > threshold) {
+                    resize(slots.length * 2);
+                }
+                return;
+            }
+            if (highs[i] == high && lows[i] == low) {
+                slots[i] = slot;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Возвращает номер слота или -1, если идентификатор не найден.
+     */
+    int get(long high, long low) {
+        int mask = slots.length - 1;
+        for (int i = LongSubscriberMap.slot(high, low, mask); slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (highs[i] == high && lows[i] == low) {
+                return slots[i];
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Удаляет идентификатор из индекса.
+     */
+    void remove(long high, long low) {
+        int mask = slots.length - 1;
+        int i = LongSubscriberMap.slot(high, low, mask);
+        while (slots[i] != EMPTY && !(highs[i] == high && lows[i] == low)) {
+            i = (i + 1) & mask;
+        }
+        if (slots[i] == EMPTY) {
+            return;
+        }
+
+        size--;
+        int gap = i;
+        for (int j = (gap + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+            int home = LongSubscriberMap.slot(highs[j], lows[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                highs[gap] = highs[j];
+                lows[gap] = lows[j];
+                slots[gap] = slots[j];
+                gap = j;
+            }
+        }
+        slots[gap] = EMPTY;
+    }
+
+    void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldSlots = slots;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldSlots.length; j++) {
+            if (oldSlots[j] != EMPTY) {
+                int i = LongSubscriberMap.slot(oldHighs[j], oldLows[j], mask);
+                while (slots[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                highs[i] = oldHighs[j];
+                lows[i] = oldLows[j];
+                slots[i] = oldSlots[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
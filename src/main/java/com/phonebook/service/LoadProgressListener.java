@@ -0,0 +1,17 @@
+package com.phonebook.service;
+
+/**
+ * Получатель хода постепенной загрузки телефонной книги,
+ * см. {@link PhoneBookService#loadProgressively(LoadProgressListener)}.
+ */
+@FunctionalInterface
+public interface LoadProgressListener {
+
+    /**
+     * Вызывается после добавления очередной части абонентов.
+     *
+     * @param loaded количество загруженных абонентов
+     * @param progress доля прочитанного файла от 0 до 1
+     */
+    void onProgress(int loaded, double progress);
+}
@@ -0,0 +1,195 @@
+package com.phonebook.service;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.model.SubscriberIds;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Индекс абонентов по 128-битному идентификатору.
+ * Ключи хранятся в примитивных массивах long с открытой адресацией и линейным
+ * пробированием, поэтому поиск не создает объектов и не вычисляет хэш строк.
+ * Удаление выполняется сдвигом следующих записей без специальных меток.
+ */
+public class LongSubscriberMap {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] highs;
+    private long[] lows;
+    private Subscriber[] values;
+    private int size;
+    private int threshold;
+
+    /**
+     * Создает пустой индекс.
+     */
+    public LongSubscriberMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Создает индекс, рассчитанный на указанное количество абонентов без перестроения.
+     *
+     * @param expectedSize ожидаемое количество абонентов
+     */
+    public LongSubscriberMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR)));
+    }
+
+    /**
+     * Добавляет абонента или заменяет абонента с тем же идентификатором.
+     *
+     * @param subscriber абонент
+     * @return замененный абонент или null
+     */
+    public Subscriber put(Subscriber subscriber) {
+        long high = subscriber.getIdHigh();
+        long low = subscriber.getIdLow();
+        int mask = values.length - 1;
+        for (int i = slot(high, low, mask); ; i = (i + 1) & mask) {
+            if (values[i] == null) {
+                highs[i] = high;
+                lows[i] = low;
+                values[i] = subscriber;
+                if (++size > threshold) {
+                    resize(values.length * 2);
+                }
+                return null;
+            }
+            if (highs[i] == high && lows[i] == low) {
+                Subscriber previous = values[i];
+                values[i] = subscriber;
+                return previous;
+            }
+        }
+    }
+
+    /**
+     * Возвращает абонента по идентификатору.
+     *
+     * @param high старшие 64 бита идентификатора
+     * @param low младшие 64 бита идентификатора
+     * @return абонент или null, если абонент не найден
+     */
+    public Subscriber get(long high, long low) {
+        int mask = values.length - 1;
+        for (int i = slot(high, low, mask); values[i] != null; i = (i + 1) & mask) {
+            if (highs[i] == high && lows[i] == low) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает абонента по строковому идентификатору.
+     *
+     * @param id строковый идентификатор
+     * @return абонент или null, если абонент не найден
+     */
+    public Subscriber get(String id) {
+        if (id == null) {
+            return null;
+        }
+        UUID uuid = SubscriberIds.parse(id);
+        Subscriber subscriber = get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        return subscriber != null && id.equals(subscriber.getId()) ? subscriber : null;
+    }
+
+    /**
+     * Удаляет абонента с идентификатором указанного абонента.
+     *
+     * @param subscriber абонент
+     * @return удаленный абонент или null, если абонент не найден
+     */
+    public Subscriber remove(Subscriber subscriber) {
+        long high = subscriber.getIdHigh();
+        long low = subscriber.getIdLow();
+        int mask = values.length - 1;
+        int i = slot(high, low, mask);
+        while (values[i] != null && !(highs[i] == high && lows[i] == low)) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return null;
+        }
+
+        Subscriber removed = values[i];
+        size--;
+        // Сдвигаем следующие записи цепочки на освободившееся место
+        int gap = i;
+        for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(highs[j], lows[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                highs[gap] = highs[j];
+                lows[gap] = lows[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+        return removed;
+    }
+
+    /**
+     * Возвращает количество абонентов в индексе.
+     *
+     * @return количество абонентов
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Удаляет всех абонентов из индекса.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        Subscriber[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldHighs[j], oldLows[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                highs[i] = oldHighs[j];
+                lows[i] = oldLows[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        values = new Subscriber[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Начальная позиция ключа: старшие биты содержат время создания,
+     * поэтому обе половины перемешиваются перед взятием младших битов.
+     */
+    static int slot(long high, long low, int mask) {
+        long hash = (high ^ Long.rotateLeft(low, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int required) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
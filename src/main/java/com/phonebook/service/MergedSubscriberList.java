@@ -0,0 +1,299 @@
+package com.phonebook.service;
+
+import com.phonebook.model.Subscriber;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+
+/**
+ * Неизменяемое представление нескольких упорядоченных списков абонентов в виде одного
+ * упорядоченного списка. Списки сливаются лениво: итерация выполняет слияние по мере обхода,
+ * а доступ по индексу продолжает слияние от одного из предыдущих обращений, если индекс близко
+ * за ним, иначе находит позицию в каждом списке двоичным поиском. Ни один из способов
+ * не читает весь список, поэтому первая страница снимка доступна сразу.
+ * Абоненты с одинаковым ФИО из разных списков упорядочиваются по номеру списка: внутри списка
+ * их порядок задан хранилищем, поэтому только такой порядок позволяет искать позицию в каждом списке.
+ */
+final class MergedSubscriberList extends AbstractList<Subscriber> implements RandomAccess {
+
+    // Наибольшее расстояние, на которое доступ по индексу продолжает слияние вместо поиска позиции
+    private static final int MAX_MERGE_STEP = 1024;
+    // Позиции запоминаются для нескольких потоков чтения, например таблицы и предзагрузки страниц
+    private static final int MAX_POSITIONS = 4;
+
+    private final List<List<Subscriber>> parts;
+    private final int size;
+
+    // Свободные позиции последних обращений по индексу; позиция используется одним потоком за раз
+    private final ArrayDeque<Position> idle = new ArrayDeque<>(MAX_POSITIONS);
+
+    private MergedSubscriberList(List<List<Subscriber>> parts, int size) {
+        this.parts = parts;
+        this.size = size;
+    }
+
+    /**
+     * Объединяет упорядоченные списки. Если непустой список только один, он возвращается как есть.
+     *
+     * @param parts упорядоченные неизменяемые списки
+     * @return упорядоченное объединение списков
+     */
+    static List<Subscriber> of(List<List<Subscriber>> parts) {
+        List<List<Subscriber>> nonEmpty = new ArrayList<>(parts.size());
+        int size = 0;
+        for (List<Subscriber> part : parts) {
+            if (!part.isEmpty()) {
+                nonEmpty.add(part);
+                size += part.size();
+            }
+        }
+        if (nonEmpty.isEmpty()) {
+            return List.of();
+        }
+        if (nonEmpty.size() == 1) {
+            return nonEmpty.get(0);
+        }
+        return new MergedSubscriberList(nonEmpty, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Subscriber get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        Position position = acquire(index);
+        try {
+            if (index < position.rank || index - position.rank > MAX_MERGE_STEP) {
+                position.seek(index);
+            }
+            while (position.rank < index) {
+                position.advance();
+            }
+            return position.head(position.smallestHead());
+        } finally {
+            release(position);
+        }
+    }
+
+    @Override
+    public Iterator<Subscriber> iterator() {
+        return new MergeIterator();
+    }
+
+    /**
+     * Берет свободную позицию, от которой ближе всего продолжить слияние до индекса,
+     * или новую позицию, если подходящей нет.
+     */
+    private Position acquire(int index) {
+        synchronized (idle) {
+            Position best = null;
+            for (Position position : idle) {
+                if (position.rank <= index && index - position.rank <= MAX_MERGE_STEP
+                        && (best == null || position.rank > best.rank)) {
+                    best = position;
+                }
+            }
+            if (best == null) {
+                best = idle.size() < MAX_POSITIONS ? null : idle.pollFirst();
+            } else {
+                idle.remove(best);
+            }
+            return best != null ? best : new Position();
+        }
+    }
+
+    private void release(Position position) {
+        synchronized (idle) {
+            if (idle.size() == MAX_POSITIONS) {
+                idle.pollFirst();
+            }
+            idle.addLast(position);
+        }
+    }
+
+    /**
+     * Позиция в объединении: сколько абонентов взято из каждого списка и текущие головы списков.
+     */
+    private final class Position {
+
+        final int[] taken = new int[parts.size()];
+        final Subscriber[] heads = new Subscriber[parts.size()];
+        int rank;
+
+        void advance() {
+            int next = smallestHead();
+            taken[next]++;
+            heads[next] = null;
+            rank++;
+        }
+
+        /**
+         * Номер списка с наименьшей текущей головой.
+         */
+        int smallestHead() {
+            int smallest = -1;
+            for (int i = 0; i < parts.size(); i++) {
+                Subscriber head = head(i);
+                // При равных ФИО остается список с меньшим номером
+                if (head != null && (smallest < 0 || head.compareTo(heads[smallest]) < 0)) {
+                    smallest = i;
+                }
+            }
+            return smallest;
+        }
+
+        Subscriber head(int part) {
+            if (heads[part] == null && taken[part] < parts.get(part).size()) {
+                heads[part] = parts.get(part).get(taken[part]);
+            }
+            return heads[part];
+        }
+
+        /**
+         * Находит, сколько абонентов каждого списка стоят в объединении раньше индекса.
+         * Для каждого списка поддерживается диапазон возможных значений; опорный абонент
+         * из середины самого широкого диапазона сужает диапазоны всех списков.
+         */
+        void seek(int index) {
+            int count = parts.size();
+            int[] low = new int[count];
+            int[] high = new int[count];
+            int[] below = new int[count];
+            for (int i = 0; i < count; i++) {
+                high[i] = parts.get(i).size();
+            }
+            while (true) {
+                int widest = 0;
+                for (int i = 1; i < count; i++) {
+                    if (high[i] - low[i] > high[widest] - low[widest]) {
+                        widest = i;
+                    }
+                }
+                if (high[widest] == low[widest]) {
+                    System.arraycopy(low, 0, taken, 0, count);
+                    break;
+                }
+                int middle = (low[widest] + high[widest]) >>> 1;
+                Subscriber pivot = parts.get(widest).get(middle);
+                int pivotRank = 0;
+                for (int i = 0; i < count; i++) {
+                    // Равные по ФИО абоненты списков с меньшим номером стоят раньше опорного
+                    below[i] = i == widest ? middle : lowerBound(parts.get(i), low[i], high[i], pivot, i < widest);
+                    pivotRank += below[i];
+                }
+                if (pivotRank == index) {
+                    System.arraycopy(below, 0, taken, 0, count);
+                    break;
+                }
+                if (pivotRank < index) {
+                    System.arraycopy(below, 0, low, 0, count);
+                    low[widest] = middle + 1;
+                } else {
+                    System.arraycopy(below, 0, high, 0, count);
+                }
+            }
+            Arrays.fill(heads, null);
+            rank = index;
+        }
+    }
+
+    /**
+     * Количество абонентов списка в диапазоне, стоящих раньше указанного, плюс начало диапазона.
+     *
+     * @param includeEqual считать ли стоящими раньше абонентов с тем же ФИО
+     */
+    private static int lowerBound(List<Subscriber> part, int from, int to, Subscriber key, boolean includeEqual) {
+        int limit = includeEqual ? 1 : 0;
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (part.get(middle).compareTo(key) < limit) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    private static int compareHeads(Cursor a, Cursor b) {
+        int order = a.head.compareTo(b.head);
+        return order != 0 ? order : Integer.compare(a.part, b.part);
+    }
+
+    /**
+     * Текущая позиция в одном из списков.
+     */
+    private static final class Cursor {
+
+        final int part;
+        final Iterator<Subscriber> iterator;
+        Subscriber head;
+
+        Cursor(int part, Iterator<Subscriber> iterator) {
+            this.part = part;
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            head = iterator.next();
+            return true;
+        }
+    }
+
+    /**
+     * Слияние списков через очередь с приоритетом по текущим головам списков.
+     */
+    private final class MergeIterator implements Iterator<Subscriber> {
+
+        private final PriorityQueue<Cursor> queue =
+                new PriorityQueue<>(parts.size(), MergedSubscriberList::compareHeads);
+        private Cursor last;
+
+        MergeIterator() {
+            for (int i = 0; i < parts.size(); i++) {
+                Cursor cursor = new Cursor(i, parts.get(i).iterator());
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty() || (last != null && last.iterator.hasNext());
+        }
+
+        @Override
+        public Subscriber next() {
+            return nextCursor().head;
+        }
+
+        /**
+         * Возвращает курсор со следующим абонентом; курсор продвигается при следующем вызове.
+         */
+        Cursor nextCursor() {
+            if (last != null && last.advance()) {
+                queue.add(last);
+            }
+            last = queue.poll();
+            if (last == null) {
+                throw new NoSuchElementException();
+            }
+            return last;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.phonebook.service;
+
+import com.phonebook.model.NameDictionary;
+import com.phonebook.model.SubscriberCollator;
+import java.util.Arrays;
+
+/**
+ * Кэш ключей сортировки имен по их номеру в словаре {@link NameDictionary}
+ * для хранилищ, которые держат ФИО в виде номеров, а не строк.
+ * Кэш сбрасывается при смене локали сортировки.
+ */
+class NameKeyCache {
+
+    static final int NO_NAME = -1;
+
+    private final NameDictionary dictionary;
+    private byte[][] keys = new byte[16][];
+    private int generation = SubscriberCollator.getGeneration();
+
+    NameKeyCache(NameDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Возвращает номер имени в словаре или {@link #NO_NAME} для отсутствующего имени.
+     */
+    int idOf(String name) {
+        return name == null ? NO_NAME : dictionary.idOf(name);
+    }
+
+    String nameOf(int id) {
+        return id == NO_NAME ? null : dictionary.nameOf(id);
+    }
+
+    /**
+     * Возвращает ключ сортировки имени, перестраивая кэш при смене локали.
+     */
+    byte[] key(int id) {
+        int current = SubscriberCollator.getGeneration();
+        if (generation != current) {
+            keys = new byte[dictionary.size() + 1][];
+            generation = current;
+        }
+        int index = id + 1;
+        if (index >= keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(index + 1, keys.length * 2));
+        }
+        byte[] key = keys[index];
+        if (key == null) {
+            key = SubscriberCollator.fieldKey(nameOf(id));
+            keys[index] = key;
+        }
+        return key;
+    }
+
+    int compare(int first, int second) {
+        return first == second ? 0 : SubscriberCollator.compare(key(first), key(second));
+    }
+}
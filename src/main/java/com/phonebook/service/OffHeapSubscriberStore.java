@@ -0,0 +1,583 @@
+package com.phonebook.service;
+
+import com.phonebook.metrics.Counter;
+import com.phonebook.metrics.MetricsRegistry;
+import com.phonebook.model.NameDictionary;
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Хранилище абонентов вне кучи JVM.
+ * Записи абонентов сериализуются в блоки памяти, выделенные через {@link ByteBuffer#allocateDirect(int)},
+ * и не обходятся сборщиком мусора. В куче остаются только примитивные индексы (порядок сортировки,
+ * адреса записей, индекс по идентификатору) и ограниченный кэш недавно запрошенных объектов
+ * {@link Subscriber}. Измененная запись дописывается в конец, а место прежней освобождается
+ * при уплотнении. Объем доступной памяти вне кучи ограничивается параметром JVM
+ * -XX:MaxDirectMemorySize.
+ */
+public class OffHeapSubscriberStore implements SubscriberStore {
+
+    /**
+     * Системное свойство с размером кэша объектов абонентов.
+     */
+    public static final String CACHE_SIZE_PROPERTY = "phonebook.offheap.cache";
+
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+    private static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+    // Первый блок небольшой, следующие растут вдвое до размера блока
+    private static final int INITIAL_CHUNK_SIZE = 1 << 20;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final PhoneType[] PHONE_TYPES = PhoneType.values();
+    private static final byte NO_TYPE = -1;
+    private static final int INTERNATIONAL_FLAG = 0x40;
+    private static final int LENGTH_MASK = 0x3F;
+
+    // Раскладка записи: заголовок фиксированного размера, исходная строка идентификатора, телефоны
+    private static final int ID_HIGH = 0;
+    private static final int ID_LOW = 8;
+    private static final int LAST_NAME = 16;
+    private static final int FIRST_NAME = 20;
+    private static final int MIDDLE_NAME = 24;
+    private static final int PHONE_COUNT = 28;
+    private static final int LEGACY_ID_LENGTH = 30;
+    private static final int HEADER_SIZE = 32;
+    // Телефон: цифры, длина с признаком международного номера, тип, длина исходной записи
+    private static final int PHONE_SIZE = 12;
+
+    private final int chunkSize;
+    private final int cacheSize;
+    private final NameKeyCache names = new NameKeyCache(NameDictionary.getDefault());
+
+    // Блоки памяти; адрес записи - номер блока в старших 32 битах и смещение в младших
+    private List<ByteBuffer> chunks = new ArrayList<>();
+    private int chunkUsed;
+    private long liveBytes;
+    private long garbageBytes;
+
+    // Слоты записей
+    private long[] addresses = new long[INITIAL_CAPACITY];
+    private int[] recordSizes = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+    private final IdSlotIndex idIndex = new IdSlotIndex();
+
+    // Номера слотов в порядке сортировки
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int size;
+    private int phoneNumberCount;
+
+    private final Map<Integer, Subscriber> cache;
+
+    /**
+     * Конструктор хранилища с параметрами по умолчанию.
+     * Размер кэша задается системным свойством {@value #CACHE_SIZE_PROPERTY}.
+     */
+    public OffHeapSubscriberStore() {
+        this(DEFAULT_CHUNK_SIZE, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+    }
+
+    /**
+     * Конструктор хранилища с указанием размера блока памяти и кэша.
+     *
+     * @param chunkSize размер одного блока памяти в байтах
+     * @param cacheSize максимальное количество абонентов в кэше
+     */
+    public OffHeapSubscriberStore(int chunkSize, int cacheSize) {
+        if (chunkSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("Chunk size is too small: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Subscriber> eldest) {
+                return size() > OffHeapSubscriberStore.this.cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public int insert(Subscriber subscriber) {
+        int slot = allocateSlot();
+        writeRecord(slot, subscriber);
+        idIndex.put(subscriber.getIdHigh(), subscriber.getIdLow(), slot);
+        phoneNumberCount += subscriber.getPhoneNumberCount();
+
+        int index = upperBound(slot);
+        order = ensureCapacity(order, size + 1);
+        System.arraycopy(order, index, order, index + 1, size - index);
+        order[index] = slot;
+        size++;
+        return index;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+
+        int slot = order[index];
+        System.arraycopy(order, index + 1, order, index, size - index - 1);
+        size--;
+        releaseSlot(slot);
+        compactIfNeeded();
+        return true;
+    }
+
+    @Override
+    public void update(Subscriber subscriber) {
+        int slot = idIndex.get(subscriber.getIdHigh(), subscriber.getIdLow());
+        if (slot < 0) {
+            return;
+        }
+        phoneNumberCount += subscriber.getPhoneNumberCount() - phoneCount(slot);
+        garbageBytes += recordSizes[slot];
+        liveBytes -= recordSizes[slot];
+        writeRecord(slot, subscriber);
+        cache.remove(slot);
+        compactIfNeeded();
+    }
+
+    @Override
+    public Subscriber get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return cached(order[index]);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Subscriber)) {
+            return -1;
+        }
+        Subscriber target = (Subscriber) o;
+        int slot = idIndex.get(target.getIdHigh(), target.getIdLow());
+        if (slot < 0) {
+            return -1;
+        }
+
+        // Позиция определяется по ФИО хранимой записи, а не переданного объекта
+        for (int i = lowerBound(slot); i < size && compareSlots(order[i], slot) == 0; i++) {
+            if (order[i] == slot) {
+                return i;
+            }
+        }
+
+        // Порядок мог нарушиться после смены локали сортировки - ищем перебором
+        for (int i = 0; i < size; i++) {
+            if (order[i] == slot) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Subscriber findById(long idHigh, long idLow) {
+        int slot = idIndex.get(idHigh, idLow);
+        return slot < 0 ? null : cached(slot);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int phoneNumberCount() {
+        return phoneNumberCount;
+    }
+
+    @Override
+    public void rebuild(Collection<? extends Subscriber> source) {
+        Subscriber[] sorted = source.toArray(new Subscriber[0]);
+        Arrays.sort(sorted);
+
+        clear();
+        order = new int[Math.max(INITIAL_CAPACITY, sorted.length)];
+        for (Subscriber subscriber : sorted) {
+            int slot = allocateSlot();
+            writeRecord(slot, subscriber);
+            idIndex.put(subscriber.getIdHigh(), subscriber.getIdLow(), slot);
+            phoneNumberCount += subscriber.getPhoneNumberCount();
+            order[size++] = slot;
+        }
+    }
+
+    @Override
+    public void clear() {
+        chunks = new ArrayList<>();
+        chunkUsed = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+        addresses = new long[INITIAL_CAPACITY];
+        recordSizes = new int[INITIAL_CAPACITY];
+        slotCount = 0;
+        freeSlotCount = 0;
+        idIndex.clear();
+        order = new int[INITIAL_CAPACITY];
+        size = 0;
+        phoneNumberCount = 0;
+        cache.clear();
+    }
+
+    @Override
+    public Iterator<Subscriber> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Subscriber next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                // Последовательный обход не вытесняет горячие записи из кэша
+                return materialize(order[index++]);
+            }
+        };
+    }
+
+    /**
+     * Возвращает объем памяти вне кучи, занятый действующими записями.
+     *
+     * @return количество байтов
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Возвращает объем выделенной памяти вне кучи.
+     *
+     * @return количество байтов
+     */
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer chunk : chunks) {
+            allocated += chunk.capacity();
+        }
+        return allocated;
+    }
+
+    /**
+     * Кэш изменяется и при чтении, поэтому параллельные читатели обращаются к нему по очереди.
+     * Попадания и промахи записываются в счетчики {@link MetricsRegistry#getDefault()}.
+     */
+    private Subscriber cached(int slot) {
+        synchronized (cache) {
+            Subscriber subscriber = cache.get(slot);
+            if (subscriber == null) {
+                subscriber = materialize(slot);
+                if (cacheSize > 0) {
+                    cache.put(slot, subscriber);
+                }
+                MetricsRegistry.getDefault().increment(Counter.CACHE_MISSES);
+            } else {
+                MetricsRegistry.getDefault().increment(Counter.CACHE_HITS);
+            }
+            return subscriber;
+        }
+    }
+
+    /**
+     * Возвращает снимок хранилища. Записи вне кучи не изменяются после записи: измененная запись
+     * дописывается заново, а уплотнение переносит записи в новые блоки. Поэтому снимок копирует
+     * только адреса записей в порядке сортировки и список блоков, а прежние блоки освобождаются
+     * сборщиком мусора, когда на них не остается снимков.
+     */
+    @Override
+    public List<Subscriber> snapshot() {
+        long[] recordAddresses = new long[size];
+        for (int i = 0; i < size; i++) {
+            recordAddresses[i] = addresses[order[i]];
+        }
+        return new Snapshot(new ArrayList<>(chunks), recordAddresses);
+    }
+
+    /**
+     * Неизменяемый снимок хранилища вне кучи; объекты абонентов создаются при обращении.
+     */
+    private final class Snapshot extends AbstractList<Subscriber> implements RandomAccess {
+
+        private final List<ByteBuffer> snapshotChunks;
+        private final long[] recordAddresses;
+
+        Snapshot(List<ByteBuffer> snapshotChunks, long[] recordAddresses) {
+            this.snapshotChunks = snapshotChunks;
+            this.recordAddresses = recordAddresses;
+        }
+
+        @Override
+        public Subscriber get(int index) {
+            long address = recordAddresses[index];
+            return materialize(snapshotChunks.get((int) (address >>> 32)), offset(address));
+        }
+
+        @Override
+        public int size() {
+            return recordAddresses.length;
+        }
+    }
+
+    private Subscriber materialize(int slot) {
+        return materialize(chunk(addresses[slot]), offset(addresses[slot]));
+    }
+
+    /**
+     * Создает объект абонента по записи, начинающейся с указанного смещения в блоке.
+     * Объект заморожен: он разделяется через кэш между читателями, а его изменения не попали бы в запись.
+     */
+    private Subscriber materialize(ByteBuffer buffer, int offset) {
+        int phoneCount = buffer.getChar(offset + PHONE_COUNT);
+        // Длины строк хранятся со сдвигом на единицу, чтобы отличать пустую строку от ее отсутствия
+        int legacyLength = buffer.getChar(offset + LEGACY_ID_LENGTH);
+        String legacyId = null;
+        int position = offset + HEADER_SIZE;
+        if (legacyLength > 0) {
+            legacyId = readString(buffer, position, legacyLength - 1);
+            position += legacyLength - 1;
+        }
+
+        List<PhoneNumber> phones = new ArrayList<>(phoneCount);
+        for (int i = 0; i < phoneCount; i++) {
+            long digits = buffer.getLong(position);
+            int length = buffer.get(position + 8);
+            byte type = buffer.get(position + 9);
+            int formattingLength = buffer.getChar(position + 10);
+            position += PHONE_SIZE;
+            String formatting = null;
+            if (formattingLength > 0) {
+                formatting = readString(buffer, position, formattingLength - 1);
+                position += formattingLength - 1;
+            }
+            phones.add(new PhoneNumber(digits, (length & LENGTH_MASK) - 1, (length & INTERNATIONAL_FLAG) != 0,
+                    formatting, type == NO_TYPE ? null : PHONE_TYPES[type]));
+        }
+
+        String lastName = names.nameOf(buffer.getInt(offset + LAST_NAME));
+        String firstName = names.nameOf(buffer.getInt(offset + FIRST_NAME));
+        String middleName = names.nameOf(buffer.getInt(offset + MIDDLE_NAME));
+        if (legacyId != null) {
+            return new Subscriber(legacyId, lastName, firstName, middleName, phones).freeze();
+        }
+        return new Subscriber(buffer.getLong(offset + ID_HIGH), buffer.getLong(offset + ID_LOW),
+                lastName, firstName, middleName, phones).freeze();
+    }
+
+    /**
+     * Сериализует абонента в новую запись и связывает ее со слотом.
+     */
+    private void writeRecord(int slot, Subscriber subscriber) {
+        List<PhoneNumber> phones = subscriber.getPhoneNumbers();
+        byte[] legacyId = subscriber.getLegacyId() == null
+                ? null : subscriber.getLegacyId().getBytes(StandardCharsets.UTF_8);
+        byte[][] formatting = new byte[phones.size()][];
+        int recordSize = HEADER_SIZE + (legacyId == null ? 0 : legacyId.length);
+        for (int i = 0; i < phones.size(); i++) {
+            String text = phones.get(i).getFormatting();
+            formatting[i] = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+            recordSize += PHONE_SIZE + (text == null ? 0 : formatting[i].length);
+        }
+        if (recordSize > chunkSize || phones.size() > Character.MAX_VALUE
+                || recordSize - HEADER_SIZE >= Character.MAX_VALUE) {
+            throw new IllegalArgumentException("Subscriber record is too large: " + recordSize + " bytes");
+        }
+
+        long address = allocate(recordSize);
+        ByteBuffer buffer = chunk(address);
+        int offset = offset(address);
+        buffer.putLong(offset + ID_HIGH, subscriber.getIdHigh());
+        buffer.putLong(offset + ID_LOW, subscriber.getIdLow());
+        buffer.putInt(offset + LAST_NAME, names.idOf(subscriber.getLastName()));
+        buffer.putInt(offset + FIRST_NAME, names.idOf(subscriber.getFirstName()));
+        buffer.putInt(offset + MIDDLE_NAME, names.idOf(subscriber.getMiddleName()));
+        buffer.putChar(offset + PHONE_COUNT, (char) phones.size());
+        buffer.putChar(offset + LEGACY_ID_LENGTH, (char) (legacyId == null ? 0 : legacyId.length + 1));
+        int position = offset + HEADER_SIZE;
+        if (legacyId != null) {
+            buffer.put(position, legacyId);
+            position += legacyId.length;
+        }
+
+        for (int i = 0; i < phones.size(); i++) {
+            PhoneNumber phone = phones.get(i);
+            int length = phone.getDigitCount() + 1;
+            buffer.putLong(position, phone.getDigits());
+            buffer.put(position + 8, (byte) (phone.isInternational() ? length | INTERNATIONAL_FLAG : length));
+            buffer.put(position + 9, phone.getType() == null ? NO_TYPE : (byte) phone.getType().ordinal());
+            buffer.putChar(position + 10, (char) (formatting[i] == null ? 0 : formatting[i].length + 1));
+            position += PHONE_SIZE;
+            if (formatting[i] != null) {
+                buffer.put(position, formatting[i]);
+                position += formatting[i].length;
+            }
+        }
+
+        addresses[slot] = address;
+        recordSizes[slot] = recordSize;
+        liveBytes += recordSize;
+    }
+
+    /**
+     * Выделяет место под запись в текущем блоке или в новом, если текущий заполнен.
+     * Новый блок вдвое больше предыдущего, но не больше размера блока, поэтому небольшое
+     * хранилище (например, один из сегментов сервиса) не резервирует память целым блоком.
+     */
+    private long allocate(int recordSize) {
+        ByteBuffer current = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (current == null || chunkUsed + recordSize > current.capacity()) {
+            int capacity = current == null
+                    ? Math.min(chunkSize, INITIAL_CHUNK_SIZE)
+                    : (int) Math.min(chunkSize, 2L * current.capacity());
+            chunks.add(ByteBuffer.allocateDirect(Math.max(capacity, recordSize)));
+            chunkUsed = 0;
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | chunkUsed;
+        chunkUsed += recordSize;
+        return address;
+    }
+
+    /**
+     * Переписывает действующие записи в новые блоки, если более половины памяти занято удаленными.
+     * Прежние блоки освобождаются сборщиком мусора вместе с объектами {@link ByteBuffer}.
+     */
+    private void compactIfNeeded() {
+        if (garbageBytes < chunkSize || garbageBytes < liveBytes) {
+            return;
+        }
+
+        List<ByteBuffer> oldChunks = chunks;
+        long[] oldAddresses = addresses.clone();
+        chunks = new ArrayList<>();
+        chunkUsed = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            long source = oldAddresses[slot];
+            long target = allocate(recordSizes[slot]);
+            ByteBuffer sourceChunk = oldChunks.get((int) (source >>> 32));
+            chunk(target).put(offset(target), sourceChunk, offset(source), recordSizes[slot]);
+            addresses[slot] = target;
+        }
+        garbageBytes = 0;
+    }
+
+    private int phoneCount(int slot) {
+        return chunk(addresses[slot]).getChar(offset(addresses[slot]) + PHONE_COUNT);
+    }
+
+    private int nameAt(int slot, int field) {
+        return chunk(addresses[slot]).getInt(offset(addresses[slot]) + field);
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static String readString(ByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int allocateSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+
+        int slot = slotCount++;
+        addresses = ensureCapacity(addresses, slotCount);
+        recordSizes = ensureCapacity(recordSizes, slotCount);
+        return slot;
+    }
+
+    private void releaseSlot(int slot) {
+        ByteBuffer buffer = chunk(addresses[slot]);
+        int offset = offset(addresses[slot]);
+        idIndex.remove(buffer.getLong(offset + ID_HIGH), buffer.getLong(offset + ID_LOW));
+        phoneNumberCount -= phoneCount(slot);
+        garbageBytes += recordSizes[slot];
+        liveBytes -= recordSizes[slot];
+        cache.remove(slot);
+        freeSlots = ensureCapacity(freeSlots, freeSlotCount + 1);
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private int compareSlots(int first, int second) {
+        int result = names.compare(nameAt(first, LAST_NAME), nameAt(second, LAST_NAME));
+        if (result == 0) {
+            result = names.compare(nameAt(first, FIRST_NAME), nameAt(second, FIRST_NAME));
+        }
+        if (result == 0) {
+            result = names.compare(nameAt(first, MIDDLE_NAME), nameAt(second, MIDDLE_NAME));
+        }
+        return result;
+    }
+
+    /**
+     * Позиция первой записи с таким же ФИО, как у записи слота.
+     */
+    private int lowerBound(int slot) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSlots(order[mid], slot) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Позиция после всех записей с таким же ФИО, чтобы сохранить порядок добавления.
+     */
+    private int upperBound(int slot) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSlots(order[mid], slot) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int[] ensureCapacity(int[] array, int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+
+    private static long[] ensureCapacity(long[] array, int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+}
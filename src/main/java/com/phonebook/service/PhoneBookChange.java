@@ -0,0 +1,112 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.Subscriber;
+
+/**
+ * Изменение телефонной книги, доставляемое слушателям {@link PhoneBookListener}.
+ * Абоненты в изменении заморожены и отражают состояние абонента до и после изменения.
+ */
+public final class PhoneBookChange {
+
+    /**
+     * Вид изменения.
+     */
+    public enum Type {
+        /** Абонент добавлен. */
+        ADDED,
+        /** Абонент удален. */
+        REMOVED,
+        /** Изменено ФИО или несколько полей абонента; позиция в порядке сортировки может измениться. */
+        UPDATED,
+        /** Абоненту добавлен телефонный номер; позиция абонента не меняется. */
+        PHONE_ADDED,
+        /** У абонента удален телефонный номер; позиция абонента не меняется. */
+        PHONE_REMOVED,
+        /** Данные заменены целиком (загрузка, сортировка, очистка, крупная транзакция). */
+        RESET
+    }
+
+    private static final PhoneBookChange RESET = new PhoneBookChange(Type.RESET, null, null, null);
+
+    private final Type type;
+    private final Subscriber subscriber;
+    private final Subscriber previous;
+    private final PhoneNumber phoneNumber;
+
+    private PhoneBookChange(Type type, Subscriber subscriber, Subscriber previous, PhoneNumber phoneNumber) {
+        this.type = type;
+        this.subscriber = subscriber;
+        this.previous = previous;
+        this.phoneNumber = phoneNumber;
+    }
+
+    static PhoneBookChange added(Subscriber subscriber) {
+        return new PhoneBookChange(Type.ADDED, subscriber, null, null);
+    }
+
+    static PhoneBookChange removed(Subscriber subscriber) {
+        return new PhoneBookChange(Type.REMOVED, subscriber, subscriber, null);
+    }
+
+    static PhoneBookChange updated(Subscriber subscriber, Subscriber previous) {
+        return new PhoneBookChange(Type.UPDATED, subscriber, previous, null);
+    }
+
+    static PhoneBookChange phoneAdded(Subscriber subscriber, Subscriber previous, PhoneNumber phoneNumber) {
+        return new PhoneBookChange(Type.PHONE_ADDED, subscriber, previous, phoneNumber);
+    }
+
+    static PhoneBookChange phoneRemoved(Subscriber subscriber, Subscriber previous, PhoneNumber phoneNumber) {
+        return new PhoneBookChange(Type.PHONE_REMOVED, subscriber, previous, phoneNumber);
+    }
+
+    static PhoneBookChange reset() {
+        return RESET;
+    }
+
+    /**
+     * Возвращает вид изменения.
+     *
+     * @return вид изменения
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Возвращает версию абонента после изменения; для удаления - удаленную версию.
+     *
+     * @return абонент или null для {@link Type#RESET}
+     */
+    public Subscriber getSubscriber() {
+        return subscriber;
+    }
+
+    /**
+     * Возвращает версию абонента до изменения. По ней представление находит позицию абонента,
+     * так как позиция определяется ФИО до изменения.
+     *
+     * @return абонент или null для {@link Type#ADDED} и {@link Type#RESET}
+     */
+    public Subscriber getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Возвращает добавленный или удаленный телефонный номер.
+     *
+     * @return номер или null, если изменение не касается номеров
+     */
+    public PhoneNumber getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.RESET) {
+            return "RESET";
+        }
+        return type + " " + subscriber.getFullName() + (phoneNumber != null ? " " + phoneNumber : "");
+    }
+}
@@ -0,0 +1,21 @@
+package com.phonebook.service;
+
+import java.util.List;
+
+/**
+ * Слушатель изменений телефонной книги.
+ * Изменения доставляются пакетами в порядке их применения: пакет содержит все изменения,
+ * накопленные с предыдущей доставки. Слушатель вызывается в потоке, выполнившем изменение,
+ * по одному пакету за раз, поэтому он должен быстро передать пакет дальше, например в поток
+ * интерфейса.
+ */
+@FunctionalInterface
+public interface PhoneBookListener {
+
+    /**
+     * Обрабатывает пакет изменений.
+     *
+     * @param changes изменения в порядке применения
+     */
+    void onChanges(List<PhoneBookChange> changes);
+}
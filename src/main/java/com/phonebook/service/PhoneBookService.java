@@ -1,30 +1,128 @@
 package com.phonebook.service;
 
+import com.phonebook.metrics.Counter;
+import com.phonebook.metrics.MetricsRegistry;
+import com.phonebook.metrics.Operation;
+import com.phonebook.metrics.SearchEvent;
+import com.phonebook.metrics.SortEvent;
+import com.phonebook.model.NameDictionary;
 import com.phonebook.model.Subscriber;
+import com.phonebook.model.SubscriberIds;
 import com.phonebook.model.PhoneNumber;
 import com.phonebook.model.PhoneType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Основной сервис телефонной книги.
  * Управляет операциями с абонентами и их телефонными номерами.
+ * Хранилище содержит только замороженные копии абонентов, поэтому выданные
+ * снимки {@link #getAllSubscribers()} не меняются при последующих изменениях.
+ * Переданный в метод изменяемый абонент изменяется вместе с хранимой копией.
+ * <p>
+ * Сервис безопасен для использования из нескольких потоков. Абоненты разделены на сегменты
+ * по хэшу идентификатора; у каждого сегмента свое хранилище, своя блокировка {@link StampedLock}
+ * и свой счетчик версий. Изменение одного абонента блокирует только его сегмент, поэтому
+ * изменения разных сегментов выполняются параллельно. Операции над всеми сегментами
+ * (транзакции, загрузка, сортировка, очистка) выполняются под общей блокировкой записи.
+ * Чтение счетчиков и снимков выполняется оптимистично по всем сегментам сразу и повторяется
+ * под общей блокировкой только если во время чтения произошло изменение. Поиск выполняется
+ * по снимку уже вне блокировки. Сохранение в файл выполняется вне блокировок записи:
+ * параллельные сохранения объединяются, и в файл записывается последняя версия данных.
+ * <p>
+ * Каждое изменение увеличивает версию своего сегмента; версия данных - сумма версий сегментов.
+ * Длительные операции чтения (сохранение, поиск, статистика) выполняются по снимку
+ * {@link PhoneBookSnapshot}, открытому на текущей версии: снимок не блокирует запись и видит
+ * данные на один момент времени. Упорядоченные снимки сегментов сливаются лениво.
+ * Прежние версии освобождаются, когда закрыт последний снимок, который на них ссылается.
+ * <p>
+ * Изменения публикуются слушателям {@link PhoneBookListener} пакетами {@link PhoneBookChange},
+ * поэтому представления могут применять только изменившиеся строки вместо перечитывания всех данных.
+ * <p>
+ * Время поиска, добавления, изменения и удаления и счетчики абонентов и номеров записываются
+ * в {@link MetricsRegistry#getDefault()}; время сохранения и загрузки записывает {@link FileDataService}.
+ * Поиск и пересортировка также записываются событиями JFR {@link SearchEvent} и {@link SortEvent}.
  */
 public class PhoneBookService {
 
+    /**
+     * Системное свойство с количеством сегментов; округляется вниз до степени двойки.
+     */
+    public static final String SHARDS_PROPERTY = "phonebook.shards";
+
     private static final Logger logger = LogManager.getLogger(PhoneBookService.class);
 
-    private final List<Subscriber> subscribers;
+    // Наименьший набор изменений, применяемый перестройкой хранилища
+    private static final int BULK_THRESHOLD = 1024;
+    // Первая часть при постепенной загрузке; следующие части вдвое больше
+    private static final int FIRST_LOAD_CHUNK = 1024;
+    private static final int MAX_SHARDS = 64;
+    // Попытки согласованного чтения без блокировки до чтения под блокировками
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 2;
+
+    private final Shard[] shards;
+    // Сдвиг хэша идентификатора, оставляющий номер сегмента
+    private final int shardShift;
     private final FileDataService fileDataService;
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+
+    // Изменения одного сегмента берут общую блокировку в режиме чтения, операции над всеми сегментами -
+    // в режиме записи
+    private final StampedLock global = new StampedLock();
+    private final Lock globalShared = global.asReadLock();
+    private final Lock globalExclusive = global.asWriteLock();
+
+    private final SnapshotRegistry snapshots = new SnapshotRegistry();
+
+    // Сохранения выполняются по одному; savedVersion защищена saveLock
+    private final ReentrantLock saveLock = new ReentrantLock();
+    private long savedVersion = -1;
+    private volatile boolean autoSave = true;
+    // Во время постепенной загрузки файл содержит больше данных, чем память, поэтому он не перезаписывается
+    private volatile boolean loading;
+    private volatile boolean changedWhileLoading;
+    // После неудачной постепенной загрузки в памяти только часть файла, поэтому файл не перезаписывается
+    // до успешной полной загрузки
+    private volatile boolean readOnly;
+
+    // Изменения записываются под блокировкой сегмента, поэтому изменения одного абонента
+    // попадают в очередь в порядке применения; доставка выполняется по одному пакету за раз
+    private final List<PhoneBookListener> listeners = new CopyOnWriteArrayList<>();
+    private final Queue<PhoneBookChange> pendingChanges = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
+    /**
+     * Сегмент абонентов со своим хранилищем, блокировкой и версией.
+     */
+    private static final class Shard {
+
+        final SubscriberStore store;
+        final StampedLock lock = new StampedLock();
+        final Lock readLock = lock.asReadLock();
+        final Lock writeLock = lock.asWriteLock();
+        // Изменяется под блокировкой записи сегмента
+        long version;
+
+        Shard(SubscriberStore store) {
+            this.store = store;
+        }
+    }
 
     /**
      * Конструктор сервиса телефонной книги.
+     * Способ хранения выбирается системным свойством {@value StorageEngine#ENGINE_PROPERTY}.
      */
     public PhoneBookService() {
-        this.subscribers = new ArrayList<>();
-        this.fileDataService = new FileDataService();
-        loadData();
+        this(new FileDataService(), StorageEngine.fromSystemProperty(), defaultShardCount(), true);
     }
 
     /**
@@ -33,25 +131,276 @@ public class PhoneBookService {
      * @param dataFileName имя файла данных
      */
     public PhoneBookService(String dataFileName) {
-        this.subscribers = new ArrayList<>();
-        this.fileDataService = new FileDataService(dataFileName);
-        loadData();
+        this(dataFileName, StorageEngine.fromSystemProperty());
+    }
+
+    /**
+     * Конструктор сервиса с указанием имени файла данных и способа хранения.
+     *
+     * @param dataFileName имя файла данных
+     * @param storageEngine способ хранения абонентов в памяти
+     */
+    public PhoneBookService(String dataFileName, StorageEngine storageEngine) {
+        this(dataFileName, storageEngine, defaultShardCount());
+    }
+
+    /**
+     * Конструктор сервиса с указанием имени файла данных, способа хранения и количества сегментов.
+     *
+     * @param dataFileName имя файла данных
+     * @param storageEngine способ хранения абонентов в памяти
+     * @param shardCount количество сегментов, округляется вниз до степени двойки
+     */
+    public PhoneBookService(String dataFileName, StorageEngine storageEngine, int shardCount) {
+        this(new FileDataService(dataFileName), storageEngine, shardCount, true);
+    }
+
+    /**
+     * Создает сервис с файлом данных и способом хранения по умолчанию, не загружая данные.
+     * Данные загружаются затем вызовом {@link #loadProgressively(LoadProgressListener)}.
+     *
+     * @return пустой сервис
+     */
+    public static PhoneBookService createUnloaded() {
+        return new PhoneBookService(new FileDataService(), StorageEngine.fromSystemProperty(), defaultShardCount(), false);
+    }
+
+    /**
+     * Создает сервис, не загружая данные.
+     * Данные загружаются затем вызовом {@link #loadProgressively(LoadProgressListener)}.
+     *
+     * @param dataFileName имя файла данных
+     * @param storageEngine способ хранения абонентов в памяти
+     * @return пустой сервис
+     */
+    public static PhoneBookService createUnloaded(String dataFileName, StorageEngine storageEngine) {
+        return new PhoneBookService(new FileDataService(dataFileName), storageEngine, defaultShardCount(), false);
+    }
+
+    private PhoneBookService(FileDataService fileDataService, StorageEngine storageEngine, int shardCount,
+                             boolean load) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS + ": " + shardCount);
+        }
+        int count = Integer.highestOneBit(shardCount);
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(storageEngine.createStore());
+        }
+        this.shardShift = 64 - Integer.numberOfTrailingZeros(count);
+        this.fileDataService = fileDataService;
+        if (load) {
+            loadData();
+        }
+    }
+
+    /**
+     * Количество сегментов по умолчанию: свойство {@value #SHARDS_PROPERTY}
+     * или количество процессоров, но не более 16.
+     */
+    private static int defaultShardCount() {
+        int count = Integer.getInteger(SHARDS_PROPERTY, Math.min(Runtime.getRuntime().availableProcessors(), 16));
+        return Math.max(1, Math.min(count, MAX_SHARDS));
     }
 
     /**
      * Загружает данные из файла.
      */
     private void loadData() {
+        if (!reloadData()) {
+            for (Shard shard : shards) {
+                shard.store.clear();
+            }
+        }
+    }
+
+    /**
+     * Перечитывает данные из файла, заменяя текущее содержимое телефонной книги.
+     * Файл читается без блокировки; при ошибке чтения текущие данные не изменяются.
+     *
+     * @return true если данные загружены успешно, иначе false
+     */
+    public boolean reloadData() {
+        List<Subscriber> loadedSubscribers;
         try {
-            List<Subscriber> loadedSubscribers = fileDataService.loadSubscribers();
-            subscribers.clear();
-            subscribers.addAll(loadedSubscribers);
-            sortSubscribers();
-            logger.info("Data loaded successfully. Total subscribers: {}", subscribers.size());
+            loadedSubscribers = fileDataService.loadSubscribers();
         } catch (Exception e) {
             logger.error("Error loading data: {}", e.getMessage(), e);
-            subscribers.clear();
+            return false;
         }
+        install(loadedSubscribers);
+        return true;
+    }
+
+    /**
+     * Создает сервис и загружает данные из файла. В отличие от конструктора, который при ошибке
+     * чтения продолжает работу с пустой книгой, ошибка чтения передается вызывающему,
+     * поэтому нечитаемый файл не будет перезаписан пустыми данными.
+     *
+     * @param dataFileName имя файла данных
+     * @param storageEngine способ хранения абонентов в памяти
+     * @return сервис с загруженными данными
+     * @throws IOException если файл существует, но не может быть прочитан
+     */
+    public static PhoneBookService open(String dataFileName, StorageEngine storageEngine) throws IOException {
+        PhoneBookService service = createUnloaded(dataFileName, storageEngine);
+        List<Subscriber> loadedSubscribers;
+        try {
+            loadedSubscribers = service.fileDataService.loadSubscribers();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unexpected data file content: " + e.getMessage(), e);
+        }
+        service.install(loadedSubscribers);
+        return service;
+    }
+
+    /**
+     * Заменяет содержимое сегментов загруженными из файла абонентами.
+     */
+    private void install(List<Subscriber> loadedSubscribers) {
+        List<List<Subscriber>> parts = partition(loadedSubscribers);
+
+        lockAll();
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].store.rebuild(parts.get(i));
+                shards[i].version++;
+            }
+            record(PhoneBookChange.reset());
+        } finally {
+            unlockAll();
+        }
+        readOnly = false;
+        dispatch();
+        logger.info("Data loaded successfully. Total subscribers: {}", loadedSubscribers.size());
+        logger.info(NameDictionary.getDefault().report());
+    }
+
+    /**
+     * Заменяет содержимое телефонной книги указанными абонентами, сохраняя их идентификаторы.
+     * Используется репликой для установки снимка данных основного процесса.
+     * Переданные абоненты становятся неизменяемыми и хранятся без копирования.
+     *
+     * @param subscribers новое содержимое телефонной книги
+     */
+    public void replaceAll(Collection<Subscriber> subscribers) {
+        List<List<Subscriber>> parts = partition(subscribers);
+        lockAll();
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i].store.rebuild(parts.get(i));
+                shards[i].version++;
+            }
+            record(PhoneBookChange.reset());
+        } finally {
+            unlockAll();
+        }
+        dispatch();
+        persist();
+        logger.info("Data replaced. Total subscribers: {}", subscribers.size());
+    }
+
+    /**
+     * Загружает данные из файла частями, заменяя текущее содержимое телефонной книги.
+     * Каждая часть добавляется в хранилище сразу после чтения и публикуется слушателям
+     * как {@link PhoneBookChange.Type#RESET}, поэтому уже загруженные абоненты доступны
+     * для поиска до окончания загрузки. Пока загрузка не завершена, файл не перезаписывается;
+     * изменения, сделанные во время загрузки, сохраняются после ее завершения.
+     * Если загрузка не удалась, сервис остается только для чтения ({@link #isReadOnly()}):
+     * файл не сохраняется, пока данные не будут полностью загружены.
+     *
+     * @param listener получатель хода загрузки
+     * @return true если данные загружены успешно, иначе false
+     */
+    public boolean loadProgressively(LoadProgressListener listener) {
+        loading = true;
+        readOnly = true;
+        changedWhileLoading = false;
+        try {
+            lockAll();
+            try {
+                for (Shard shard : shards) {
+                    shard.store.clear();
+                    shard.version++;
+                }
+                record(PhoneBookChange.reset());
+            } finally {
+                unlockAll();
+            }
+            dispatch();
+
+            int[] loaded = new int[1];
+            fileDataService.streamSubscribers(FIRST_LOAD_CHUNK, (chunk, progress) -> {
+                appendLoaded(chunk);
+                loaded[0] += chunk.size();
+                listener.onProgress(loaded[0], progress);
+            });
+            readOnly = false;
+            logger.info("Data loaded progressively. Total subscribers: {}", loaded[0]);
+            logger.info(NameDictionary.getDefault().report());
+            return true;
+        } catch (Exception e) {
+            logger.error("Error loading data: {}", e.getMessage(), e);
+            logger.warn("Data file is not fully loaded, saving is disabled until it is reloaded");
+            return false;
+        } finally {
+            loading = false;
+            if (!readOnly && changedWhileLoading) {
+                persist();
+            }
+        }
+    }
+
+    /**
+     * Добавляет часть загруженных абонентов. Крупная по сравнению с сегментом часть
+     * добавляется перестройкой сегмента, небольшая - вставкой каждого абонента.
+     */
+    private void appendLoaded(List<Subscriber> chunk) {
+        List<List<Subscriber>> parts = partition(chunk);
+        lockAll();
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                SubscriberStore store = shards[i].store;
+                List<Subscriber> part = parts.get(i);
+                if (part.isEmpty()) {
+                    continue;
+                }
+                if (part.size() > Math.max(BULK_THRESHOLD, store.size() / 8)) {
+                    List<Subscriber> merged = new ArrayList<>(store.size() + part.size());
+                    merged.addAll(store.snapshot());
+                    merged.addAll(part);
+                    store.rebuild(merged);
+                } else {
+                    for (Subscriber subscriber : part) {
+                        store.insert(subscriber);
+                    }
+                }
+                shards[i].version++;
+            }
+            record(PhoneBookChange.reset());
+        } finally {
+            unlockAll();
+        }
+        dispatch();
+    }
+
+    /**
+     * Проверяет, выполняется ли постепенная загрузка данных.
+     *
+     * @return true если загрузка не завершена
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Проверяет, запрещено ли сохранение в файл после неудачной постепенной загрузки.
+     * Запрет снимается успешной загрузкой {@link #loadProgressively} или {@link #reloadData()}.
+     *
+     * @return true если файл загружен не полностью и не перезаписывается
+     */
+    public boolean isReadOnly() {
+        return readOnly;
     }
 
     /**
@@ -60,16 +409,234 @@ public class PhoneBookService {
      * @return true если сохранение прошло успешно, иначе false
      */
     public boolean saveData() {
-        try {
-            fileDataService.saveSubscribers(subscribers);
-            logger.info("Data saved successfully. Total subscribers: {}", subscribers.size());
+        return writeSnapshot(true);
+    }
+
+    /**
+     * Включает или отключает сохранение в файл после каждого изменения.
+     * При отключенном сохранении данные записываются только вызовом {@link #saveData()};
+     * это ускоряет массовую загрузку, в которой файл сохраняется один раз в конце.
+     *
+     * @param autoSave true для сохранения после каждого изменения
+     */
+    public void setAutoSave(boolean autoSave) {
+        this.autoSave = autoSave;
+    }
+
+    /**
+     * Проверяет, сохраняются ли данные после каждого изменения.
+     * Пока сервис только для чтения, сохранение отключено независимо от {@link #setAutoSave}.
+     *
+     * @return true если данные сохраняются после каждого изменения
+     */
+    public boolean isAutoSave() {
+        return autoSave && !readOnly;
+    }
+
+    /**
+     * Добавляет слушателя изменений телефонной книги.
+     *
+     * @param listener слушатель
+     */
+    public void addListener(PhoneBookListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Удаляет слушателя изменений телефонной книги.
+     *
+     * @param listener слушатель
+     */
+    public void removeListener(PhoneBookListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Записывает изменение для доставки слушателям; вызывается под блокировкой записи.
+     */
+    private void record(PhoneBookChange change) {
+        if (!listeners.isEmpty()) {
+            pendingChanges.add(change);
+        }
+    }
+
+    /**
+     * Доставляет слушателям накопленные изменения одним пакетом. Если пакет уже доставляется
+     * другим потоком, этот поток заберет и новые изменения после завершения доставки.
+     */
+    private void dispatch() {
+        while (!pendingChanges.isEmpty() && dispatchLock.tryLock()) {
+            try {
+                List<PhoneBookChange> batch = new ArrayList<>();
+                for (PhoneBookChange change = pendingChanges.poll(); change != null; change = pendingChanges.poll()) {
+                    batch.add(change);
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                List<PhoneBookChange> delivered = Collections.unmodifiableList(batch);
+                for (PhoneBookListener listener : listeners) {
+                    try {
+                        listener.onChanges(delivered);
+                    } catch (RuntimeException e) {
+                        logger.error("Change listener failed: {}", e.getMessage(), e);
+                    }
+                }
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Сохраняет данные после изменения, если более позднее сохранение еще не записало эту версию.
+     */
+    private void persist() {
+        if (loading) {
+            changedWhileLoading = true;
+        } else if (isAutoSave()) {
+            writeSnapshot(false);
+        }
+    }
+
+    private boolean writeSnapshot(boolean force) {
+        if (loading) {
+            logger.warn("Data is still loading, save skipped");
+            changedWhileLoading = true;
+            return false;
+        }
+        if (readOnly) {
+            logger.warn("Data file is not fully loaded, save skipped");
+            return false;
+        }
+        saveLock.lock();
+        try (PhoneBookSnapshot snapshot = openSnapshot()) {
+            if (!force && snapshot.getVersion() <= savedVersion) {
+                logger.debug("Data version {} is already saved", snapshot.getVersion());
+                return true;
+            }
+            fileDataService.saveSubscribers(snapshot.getSubscribers());
+            savedVersion = snapshot.getVersion();
+            logger.info("Data saved successfully. Total subscribers: {}", snapshot.getSubscriberCount());
             return true;
         } catch (Exception e) {
             logger.error("Error saving data: {}", e.getMessage(), e);
             return false;
+        } finally {
+            saveLock.unlock();
+        }
+    }
+
+    /**
+     * Выполняет согласованное чтение всех сегментов без блокировки. Если ни в одном сегменте
+     * не было изменений между началом и проверкой чтения, все сегменты прочитаны на один момент
+     * времени. Иначе чтение повторяется без блокировки еще раз, а затем под общей блокировкой
+     * в режиме чтения и блокировками чтения всех сегментов: такие чтения не мешают друг другу
+     * и останавливают только изменения. Чтение должно только читать состояние хранилищ.
+     */
+    private <T> T read(Supplier<T> reader) {
+        long[] stamps = new long[shards.length];
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            boolean optimistic = true;
+            for (int i = 0; i < shards.length && optimistic; i++) {
+                stamps[i] = shards[i].lock.tryOptimisticRead();
+                optimistic = stamps[i] != 0L;
+            }
+            if (!optimistic) {
+                // Сегмент изменяется прямо сейчас
+                continue;
+            }
+            try {
+                T result = reader.get();
+                if (validate(stamps)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // Хранилище изменялось во время чтения - повторяем
+            }
+        }
+
+        // Изменения одного сегмента тоже берут общую блокировку в режиме чтения, поэтому
+        // блокировки сегментов берутся по порядку номеров, как в lockAll
+        globalShared.lock();
+        int locked = 0;
+        try {
+            for (; locked < shards.length; locked++) {
+                shards[locked].readLock.lock();
+            }
+            return reader.get();
+        } finally {
+            while (locked > 0) {
+                shards[--locked].readLock.unlock();
+            }
+            globalShared.unlock();
         }
     }
 
+    private boolean validate(long[] stamps) {
+        for (int i = 0; i < shards.length; i++) {
+            if (!shards[i].lock.validate(stamps[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Shard shardOf(Subscriber subscriber) {
+        return shards[shardIndex(subscriber.getIdHigh(), subscriber.getIdLow())];
+    }
+
+    /**
+     * Возвращает номер сегмента абонента по хэшу идентификатора. Номер берется из старших
+     * битов хэша, чтобы не совпадать с младшими битами, по которым раскладываются индексы хранилищ.
+     */
+    private int shardIndex(long idHigh, long idLow) {
+        if (shards.length == 1) {
+            return 0;
+        }
+        long hash = (idHigh ^ Long.rotateLeft(idLow, 29)) * 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash >>> shardShift);
+    }
+
+    private List<List<Subscriber>> partition(Collection<Subscriber> source) {
+        List<List<Subscriber>> parts = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            parts.add(new ArrayList<>(source.size() / shards.length + 1));
+        }
+        for (Subscriber subscriber : source) {
+            subscriber.freeze();
+            parts.get(shardIndex(subscriber.getIdHigh(), subscriber.getIdLow())).add(subscriber);
+        }
+        return parts;
+    }
+
+    private void lockShard(Shard shard) {
+        globalShared.lock();
+        shard.writeLock.lock();
+    }
+
+    private void unlockShard(Shard shard) {
+        shard.writeLock.unlock();
+        globalShared.unlock();
+    }
+
+    /**
+     * Блокирует все сегменты для изменения; блокировки берутся в одном порядке.
+     */
+    private void lockAll() {
+        globalExclusive.lock();
+        for (Shard shard : shards) {
+            shard.writeLock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            shards[i].writeLock.unlock();
+        }
+        globalExclusive.unlock();
+    }
+
     /**
      * Добавляет нового абонента.
      *
@@ -79,13 +646,24 @@ public class PhoneBookService {
      * @return созданный абонент или null если абонент не добавлен
      */
     public Subscriber addSubscriber(String lastName, String firstName, String middleName) {
+        long start = System.nanoTime();
         try {
             PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
 
             Subscriber subscriber = new Subscriber(lastName, firstName, middleName);
-            subscribers.add(subscriber);
-            sortSubscribers();
-            saveData();
+            Shard shard = shardOf(subscriber);
+            lockShard(shard);
+            try {
+                Subscriber stored = subscriber.copy().freeze();
+                shard.store.insert(stored);
+                shard.version++;
+                record(PhoneBookChange.added(stored));
+            } finally {
+                unlockShard(shard);
+            }
+            dispatch();
+            persist();
+            metrics.increment(Counter.SUBSCRIBERS_ADDED);
 
             logger.info("Subscriber added: {}", subscriber.getFullName());
             return subscriber;
@@ -93,6 +671,8 @@ public class PhoneBookService {
         } catch (IllegalArgumentException e) {
             logger.error("Error adding subscriber: {}", e.getMessage());
             return null;
+        } finally {
+            metrics.recordSince(Operation.ADD, start);
         }
     }
 
@@ -106,22 +686,45 @@ public class PhoneBookService {
      * @return true если обновление прошло успешно, иначе false
      */
     public boolean updateSubscriber(Subscriber subscriber, String lastName, String firstName, String middleName) {
+        long start = System.nanoTime();
         try {
             PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
 
-            subscriber.setLastName(lastName);
-            subscriber.setFirstName(firstName);
-            subscriber.setMiddleName(middleName);
+            Subscriber target;
+            Shard shard = shardOf(subscriber);
+            lockShard(shard);
+            try {
+                target = editable(shard, subscriber);
+
+                // Хранимая копия извлекается по своему ФИО, пока ее позиция в списке еще верна
+                Subscriber stored = shard.store.findById(subscriber.getIdHigh(), subscriber.getIdLow());
+                boolean removed = stored != null && shard.store.remove(stored);
 
-            sortSubscribers();
-            saveData();
+                target.setLastName(lastName);
+                target.setFirstName(firstName);
+                target.setMiddleName(middleName);
 
-            logger.info("Subscriber updated: {}", subscriber.getFullName());
+                if (removed) {
+                    Subscriber updated = target.copy().freeze();
+                    shard.store.insert(updated);
+                    shard.version++;
+                    record(PhoneBookChange.updated(updated, stored));
+                }
+                mirror(target, subscriber);
+            } finally {
+                unlockShard(shard);
+            }
+            dispatch();
+            persist();
+
+            logger.info("Subscriber updated: {}", target.getFullName());
             return true;
 
         } catch (IllegalArgumentException e) {
             logger.error("Error updating subscriber: {}", e.getMessage());
             return false;
+        } finally {
+            metrics.recordSince(Operation.UPDATE, start);
         }
     }
 
@@ -132,12 +735,115 @@ public class PhoneBookService {
      * @return true если абонент удален, иначе false
      */
     public boolean deleteSubscriber(Subscriber subscriber) {
-        if (subscribers.remove(subscriber)) {
-            saveData();
+        long start = System.nanoTime();
+        try {
+            Subscriber stored;
+            Shard shard = shardOf(subscriber);
+            lockShard(shard);
+            try {
+                stored = shard.store.findById(subscriber.getIdHigh(), subscriber.getIdLow());
+                if (stored == null || !shard.store.remove(stored)) {
+                    return false;
+                }
+                shard.version++;
+                record(PhoneBookChange.removed(stored));
+            } finally {
+                unlockShard(shard);
+            }
+            dispatch();
+            persist();
+            metrics.increment(Counter.SUBSCRIBERS_DELETED);
+            metrics.add(Counter.PHONES_REMOVED, stored.getPhoneNumbers().size());
             logger.info("Subscriber deleted: {}", subscriber.getFullName());
             return true;
+        } finally {
+            metrics.recordSince(Operation.DELETE, start);
+        }
+    }
+
+    /**
+     * Добавляет абонента с его идентификатором или заменяет хранимого абонента с тем же идентификатором.
+     * Используется репликой для применения изменений основного процесса и узлом кластера, которому
+     * координатор передает абонентов; данные не проверяются, так как их проверил источник изменения.
+     *
+     * @param subscriber абонент вместе с номерами телефонов
+     */
+    public void putSubscriber(Subscriber subscriber) {
+        long start = System.nanoTime();
+        Subscriber stored = subscriber.copy().freeze();
+        Subscriber previous = replace(stored);
+        dispatch();
+        persist();
+        if (previous == null) {
+            metrics.increment(Counter.SUBSCRIBERS_ADDED);
+        }
+        recordPhoneChanges(previous, stored);
+        metrics.recordSince(previous == null ? Operation.ADD : Operation.UPDATE, start);
+        logger.debug("Subscriber stored: {}", stored.getFullName());
+    }
+
+    /**
+     * Записывает абонентов так же, как {@link #putSubscriber(Subscriber)}, но сохраняет данные
+     * один раз для всего пакета. Используется узлом кластера при импорте: при сохранении после
+     * каждого абонента время импорта растет квадратично от размера книги.
+     *
+     * @param subscribers абоненты вместе с номерами телефонов
+     */
+    public void putSubscribers(Collection<Subscriber> subscribers) {
+        long start = System.nanoTime();
+        int added = 0;
+        for (Subscriber subscriber : subscribers) {
+            Subscriber stored = subscriber.copy().freeze();
+            Subscriber previous = replace(stored);
+            if (previous == null) {
+                added++;
+            }
+            recordPhoneChanges(previous, stored);
+        }
+        dispatch();
+        persist();
+        metrics.add(Counter.SUBSCRIBERS_ADDED, added);
+        metrics.recordSince(Operation.ADD, start);
+        logger.debug("Subscribers stored: {}", subscribers.size());
+    }
+
+    /**
+     * Помещает абонента в его сегмент вместо хранимого абонента с тем же идентификатором.
+     *
+     * @param stored неизменяемый абонент
+     * @return прежняя версия или null, если абонента не было
+     */
+    private Subscriber replace(Subscriber stored) {
+        Shard shard = shardOf(stored);
+        lockShard(shard);
+        try {
+            Subscriber previous = shard.store.findById(stored.getIdHigh(), stored.getIdLow());
+            if (previous != null) {
+                shard.store.remove(previous);
+            }
+            shard.store.insert(stored);
+            shard.version++;
+            record(previous == null ? PhoneBookChange.added(stored) : PhoneBookChange.updated(stored, previous));
+            return previous;
+        } finally {
+            unlockShard(shard);
+        }
+    }
+
+    /**
+     * Записывает в счетчики разницу количества номеров двух версий абонента.
+     *
+     * @param before прежняя версия или null
+     * @param after новая версия или null
+     */
+    private void recordPhoneChanges(Subscriber before, Subscriber after) {
+        int delta = (after == null ? 0 : after.getPhoneNumbers().size())
+                - (before == null ? 0 : before.getPhoneNumbers().size());
+        if (delta > 0) {
+            metrics.add(Counter.PHONES_ADDED, delta);
+        } else if (delta < 0) {
+            metrics.add(Counter.PHONES_REMOVED, -delta);
         }
-        return false;
     }
 
     /**
@@ -149,22 +855,41 @@ public class PhoneBookService {
      * @return true если номер добавлен, иначе false
      */
     public boolean addPhoneNumber(Subscriber subscriber, String number, PhoneType type) {
+        long start = System.nanoTime();
         try {
             PhoneBookValidator.validatePhoneNumber(number);
 
             PhoneNumber phoneNumber = new PhoneNumber(number, type);
-            if (subscriber.addPhoneNumber(phoneNumber)) {
-                saveData();
-                logger.info("Phone number added to {}: {}", subscriber.getFullName(), phoneNumber);
-                return true;
+            Shard shard = shardOf(subscriber);
+            lockShard(shard);
+            try {
+                Subscriber target = editable(shard, subscriber);
+                if (!target.addPhoneNumber(phoneNumber)) {
+                    logger.warn("Phone number already exists for subscriber: {}", number);
+                    return false;
+                }
+                Subscriber previous = shard.store.findById(subscriber.getIdHigh(), subscriber.getIdLow());
+                Subscriber updated = target.copy().freeze();
+                shard.store.update(updated);
+                shard.version++;
+                if (previous != null) {
+                    record(PhoneBookChange.phoneAdded(updated, previous, phoneNumber));
+                }
+                mirror(target, subscriber);
+            } finally {
+                unlockShard(shard);
             }
-
-            logger.warn("Phone number already exists for subscriber: {}", number);
-            return false;
+            dispatch();
+            persist();
+            metrics.increment(Counter.PHONES_ADDED);
+            logger.info("Phone number added to {}: {}", subscriber.getFullName(), phoneNumber);
+            return true;
 
         } catch (IllegalArgumentException e) {
             logger.error("Error adding phone number: {}", e.getMessage());
             return false;
+        } finally {
+            metrics.recordSince(Operation.UPDATE, start);
         }
     }
 
@@ -176,21 +901,345 @@ public class PhoneBookService {
      * @return true если номер удален, иначе false
      */
     public boolean removePhoneNumber(Subscriber subscriber, PhoneNumber phoneNumber) {
-        if (subscriber.removePhoneNumber(phoneNumber)) {
-            saveData();
+        long start = System.nanoTime();
+        try {
+            Shard shard = shardOf(subscriber);
+            lockShard(shard);
+            try {
+                Subscriber target = editable(shard, subscriber);
+                if (!target.removePhoneNumber(phoneNumber)) {
+                    // Номер, добавленный в изменяемый экземпляр в обход сервиса, удаляется только из него
+                    return !subscriber.isFrozen() && subscriber.removePhoneNumber(phoneNumber);
+                }
+                Subscriber previous = shard.store.findById(subscriber.getIdHigh(), subscriber.getIdLow());
+                Subscriber updated = target.copy().freeze();
+                shard.store.update(updated);
+                shard.version++;
+                if (previous != null) {
+                    record(PhoneBookChange.phoneRemoved(updated, previous, phoneNumber));
+                }
+                mirror(target, subscriber);
+            } finally {
+                unlockShard(shard);
+            }
+            dispatch();
+            persist();
+            metrics.increment(Counter.PHONES_REMOVED);
             logger.info("Phone number removed from {}: {}", subscriber.getFullName(), phoneNumber);
             return true;
+        } finally {
+            metrics.recordSince(Operation.UPDATE, start);
+        }
+    }
+
+    /**
+     * Применяет набор изменений одной транзакцией.
+     * Тело транзакции только записывает операции. Затем данные всех операций проверяются,
+     * изменения применяются к хранилищу под одной блокировкой записи и сохраняются в файл один раз.
+     * Если какую-либо операцию применить невозможно, хранилище возвращается к состоянию
+     * до транзакции. Крупные наборы изменений применяются одной перестройкой хранилища
+     * вместо вставки каждого абонента по отдельности.
+     *
+     * @param body тело транзакции, записывающее операции
+     * @return true если транзакция зафиксирована, иначе false
+     */
+    public boolean transaction(Consumer<PhoneBookTransaction> body) {
+        PhoneBookTransaction transaction = new PhoneBookTransaction();
+        body.accept(transaction);
+        if (transaction.size() == 0) {
+            return true;
+        }
+
+        try {
+            transaction.validate();
+        } catch (IllegalArgumentException e) {
+            logger.error("Transaction rejected: {}", e.getMessage());
+            return false;
+        }
+
+        lockAll();
+        try {
+            Collection<PhoneBookTransaction.Change> changes = transaction.plan(
+                    subscriber -> shardOf(subscriber).store.findById(subscriber.getIdHigh(), subscriber.getIdLow()));
+
+            Map<Shard, List<PhoneBookTransaction.Change>> byShard = new LinkedHashMap<>();
+            for (PhoneBookTransaction.Change change : changes) {
+                byShard.computeIfAbsent(shardOf(change.working), shard -> new ArrayList<>()).add(change);
+            }
+
+            Deque<Runnable> undo = new ArrayDeque<>();
+            try {
+                for (Map.Entry<Shard, List<PhoneBookTransaction.Change>> entry : byShard.entrySet()) {
+                    SubscriberStore store = entry.getKey().store;
+                    List<PhoneBookTransaction.Change> shardChanges = entry.getValue();
+                    if (shardChanges.size() > Math.max(BULK_THRESHOLD, store.size() / 8)) {
+                        applyByRebuild(store, shardChanges, undo);
+                    } else {
+                        applyIncrementally(store, shardChanges, undo);
+                    }
+                }
+            } catch (RuntimeException e) {
+                while (!undo.isEmpty()) {
+                    undo.pop().run();
+                }
+                throw e;
+            }
+            for (Shard shard : byShard.keySet()) {
+                shard.version++;
+            }
+            recordTransaction(changes);
+            countTransaction(changes);
+        } catch (RuntimeException e) {
+            logger.error("Transaction rolled back: {}", e.getMessage());
+            return false;
+        } finally {
+            unlockAll();
+        }
+
+        transaction.replay();
+        dispatch();
+        persist();
+        logger.info("Transaction committed: {} operations", transaction.size());
+        return true;
+    }
+
+    /**
+     * Записывает изменения зафиксированной транзакции; крупная транзакция публикуется
+     * как замена данных целиком.
+     */
+    private void recordTransaction(Collection<PhoneBookTransaction.Change> changes) {
+        if (changes.size() > BULK_THRESHOLD) {
+            record(PhoneBookChange.reset());
+            return;
+        }
+        for (PhoneBookTransaction.Change change : changes) {
+            if (change.isNew()) {
+                if (!change.deleted) {
+                    record(PhoneBookChange.added(change.working.freeze()));
+                }
+            } else if (change.deleted) {
+                record(PhoneBookChange.removed(change.stored));
+            } else if (change.isRenamed() || change.isPhonesChanged()) {
+                record(PhoneBookChange.updated(change.working.freeze(), change.stored));
+            }
+        }
+    }
+
+    /**
+     * Записывает в счетчики абонентов и номера, добавленные и удаленные зафиксированной транзакцией.
+     */
+    private void countTransaction(Collection<PhoneBookTransaction.Change> changes) {
+        for (PhoneBookTransaction.Change change : changes) {
+            if (change.isNew()) {
+                if (!change.deleted) {
+                    metrics.increment(Counter.SUBSCRIBERS_ADDED);
+                    recordPhoneChanges(null, change.working);
+                }
+            } else if (change.deleted) {
+                metrics.increment(Counter.SUBSCRIBERS_DELETED);
+                recordPhoneChanges(change.stored, null);
+            } else {
+                recordPhoneChanges(change.stored, change.working);
+            }
+        }
+    }
+
+    /**
+     * Применяет изменения по одному, записывая обратные действия для отката.
+     */
+    private static void applyIncrementally(SubscriberStore store, List<PhoneBookTransaction.Change> changes,
+                                           Deque<Runnable> undo) {
+        for (PhoneBookTransaction.Change change : changes) {
+            Subscriber updated = change.working.copy().freeze();
+            if (change.isNew()) {
+                if (!change.deleted) {
+                    store.insert(updated);
+                    undo.push(() -> store.remove(updated));
+                }
+            } else if (change.deleted || change.isRenamed()) {
+                store.remove(change.stored);
+                undo.push(() -> store.insert(change.stored));
+                if (!change.deleted) {
+                    store.insert(updated);
+                    undo.push(() -> store.remove(updated));
+                }
+            } else if (change.isPhonesChanged()) {
+                store.update(updated);
+                undo.push(() -> store.update(change.stored));
+            }
         }
-        return false;
     }
 
     /**
-     * Возвращает список всех абонентов.
+     * Применяет изменения одной перестройкой хранилища: заменяет измененных абонентов
+     * в снимке и сортирует результат один раз.
+     */
+    private static void applyByRebuild(SubscriberStore store, List<PhoneBookTransaction.Change> changes,
+                                       Deque<Runnable> undo) {
+        List<Subscriber> before = store.snapshot();
+        LongSubscriberMap changed = new LongSubscriberMap(changes.size());
+        List<Subscriber> added = new ArrayList<>();
+        for (PhoneBookTransaction.Change change : changes) {
+            if (!change.isNew()) {
+                changed.put(change.stored);
+            }
+            if (!change.deleted) {
+                added.add(change.working.copy().freeze());
+            }
+        }
+
+        List<Subscriber> after = new ArrayList<>(before.size() + added.size());
+        for (Subscriber subscriber : before) {
+            if (changed.get(subscriber.getIdHigh(), subscriber.getIdLow()) == null) {
+                after.add(subscriber);
+            }
+        }
+        after.addAll(added);
+
+        undo.push(() -> store.rebuild(before));
+        store.rebuild(after);
+    }
+
+    /**
+     * Возвращает копию актуальной версии абонента из хранилища, к которой применяются изменения.
+     * Переданный экземпляр может быть устаревшим (строка снимка или изменяемый объект, мимо которого
+     * абонент менялся через другую ссылку), поэтому изменения никогда не применяются к нему напрямую.
+     * Копия переданного абонента используется, только если абонента нет в хранилище.
+     * Вызывается под блокировкой записи сегмента.
+     */
+    private static Subscriber editable(Shard shard, Subscriber subscriber) {
+        Subscriber current = shard.store.findById(subscriber.getIdHigh(), subscriber.getIdLow());
+        return (current != null ? current : subscriber).copy();
+    }
+
+    /**
+     * Переносит примененные изменения на изменяемый экземпляр вызывающего,
+     * чтобы он совпадал с хранимой версией. Замороженный экземпляр не изменяется.
+     */
+    private static void mirror(Subscriber committed, Subscriber subscriber) {
+        if (subscriber.isFrozen() || subscriber == committed) {
+            return;
+        }
+        subscriber.setLastName(committed.getLastName());
+        subscriber.setFirstName(committed.getFirstName());
+        subscriber.setMiddleName(committed.getMiddleName());
+        for (PhoneNumber phoneNumber : new ArrayList<>(subscriber.getPhoneNumbers())) {
+            subscriber.removePhoneNumber(phoneNumber);
+        }
+        for (PhoneNumber phoneNumber : committed.getPhoneNumbers()) {
+            subscriber.addPhoneNumber(phoneNumber);
+        }
+    }
+
+    /**
+     * Возвращает неизменяемый снимок всех абонентов.
+     * Для хранилища в куче снимок разделяет структуру с текущей версией и создается за O(1);
+     * последующие изменения телефонной книги не отражаются в уже выданном снимке.
      *
-     * @return список всех абонентов
+     * @return снимок всех абонентов в порядке сортировки
      */
     public List<Subscriber> getAllSubscribers() {
-        return new ArrayList<>(subscribers);
+        return read(this::mergedSnapshot);
+    }
+
+    /**
+     * Сливает снимки сегментов в один упорядоченный список; вызывается при согласованном чтении.
+     */
+    private List<Subscriber> mergedSnapshot() {
+        if (shards.length == 1) {
+            return shards[0].store.snapshot();
+        }
+        List<List<Subscriber>> parts = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            parts.add(shard.store.snapshot());
+        }
+        return MergedSubscriberList.of(parts);
+    }
+
+    /**
+     * Открывает снимок телефонной книги на текущей версии данных.
+     * Снимок нужно закрыть после использования, например в блоке try-with-resources.
+     *
+     * @return снимок телефонной книги
+     */
+    public PhoneBookSnapshot openSnapshot() {
+        PhoneBookSnapshot snapshot = read(() -> {
+            long version = 0;
+            int phoneNumberCount = 0;
+            for (Shard shard : shards) {
+                version += shard.version;
+                phoneNumberCount += shard.store.phoneNumberCount();
+            }
+            return new PhoneBookSnapshot(version, mergedSnapshot(), phoneNumberCount, snapshots);
+        });
+        snapshots.register(snapshot.getVersion());
+        return snapshot;
+    }
+
+    /**
+     * Возвращает текущую версию данных, увеличивающуюся при каждом изменении.
+     *
+     * @return версия данных
+     */
+    public long getVersion() {
+        return read(() -> {
+            long version = 0;
+            for (Shard shard : shards) {
+                version += shard.version;
+            }
+            return version;
+        });
+    }
+
+    /**
+     * Возвращает количество сегментов абонентов.
+     *
+     * @return количество сегментов
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Возвращает количество открытых снимков.
+     *
+     * @return количество снимков
+     */
+    public int getOpenSnapshotCount() {
+        return snapshots.size();
+    }
+
+    /**
+     * Возвращает самую старую версию данных, которая еще нужна открытым снимкам.
+     *
+     * @return версия данных или -1, если открытых снимков нет
+     */
+    public long getOldestSnapshotVersion() {
+        return snapshots.oldestVersion();
+    }
+
+    /**
+     * Возвращает абонента по идентификатору.
+     * Поиск выполняется по индексу хранилища с ключами long и не зависит от количества абонентов.
+     *
+     * @param id строковый идентификатор абонента
+     * @return абонент или null, если абонент не найден
+     */
+    public Subscriber findSubscriberById(String id) {
+        if (id == null) {
+            return null;
+        }
+        UUID uuid = SubscriberIds.parse(id);
+        Shard shard = shards[shardIndex(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())];
+        // Хранилища вне кучи заполняют кэш при поиске, поэтому чтение выполняется под блокировкой сегмента
+        Subscriber subscriber;
+        shard.readLock.lock();
+        try {
+            subscriber = shard.store.findById(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        } finally {
+            shard.readLock.unlock();
+        }
+        return subscriber != null && id.equals(subscriber.getId()) ? subscriber : null;
     }
 
     /**
@@ -200,28 +1249,56 @@ public class PhoneBookService {
      * @return список найденных абонентов
      */
     public List<Subscriber> searchSubscribers(String searchText) {
-        if (searchText == null || searchText.trim().isEmpty()) {
-            return getAllSubscribers();
-        }
-
-        List<Subscriber> result = new ArrayList<>();
-        String lowerSearch = searchText.toLowerCase();
+        long start = System.nanoTime();
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        event.queryLength = searchText == null ? 0 : searchText.length();
+        try {
+            if (searchText == null || searchText.trim().isEmpty()) {
+                List<Subscriber> all = getAllSubscribers();
+                event.subscribers = all.size();
+                event.results = all.size();
+                return all;
+            }
 
-        for (Subscriber subscriber : subscribers) {
-            if (subscriber.contains(lowerSearch)) {
-                result.add(subscriber);
+            List<Subscriber> result;
+            try (PhoneBookSnapshot snapshot = openSnapshot()) {
+                event.subscribers = snapshot.getSubscriberCount();
+                result = snapshot.search(searchText);
             }
-        }
+            event.results = result.size();
 
-        logger.info("Search '{}' found {} subscribers", searchText, result.size());
-        return result;
+            logger.info("Search '{}' found {} subscribers", searchText, result.size());
+            return result;
+        } finally {
+            metrics.recordSince(Operation.SEARCH, start);
+            event.commit();
+        }
     }
 
     /**
      * Сортирует абонентов по ФИО.
+     * Список поддерживается в упорядоченном виде при каждом изменении,
+     * поэтому полная пересортировка нужна только если ФИО менялись в обход сервиса
+     * или была изменена локаль сортировки {@link com.phonebook.model.SubscriberCollator}.
      */
     public void sortSubscribers() {
-        subscribers.sort(Comparator.naturalOrder());
+        SortEvent event = new SortEvent();
+        event.begin();
+        lockAll();
+        try {
+            for (Shard shard : shards) {
+                shard.store.rebuild(shard.store.toList());
+                shard.version++;
+                event.subscribers += shard.store.size();
+            }
+            record(PhoneBookChange.reset());
+        } finally {
+            unlockAll();
+        }
+        event.shards = shards.length;
+        event.commit();
+        dispatch();
         logger.debug("Subscribers sorted");
     }
 
@@ -231,20 +1308,29 @@ public class PhoneBookService {
      * @return количество абонентов
      */
     public int getSubscriberCount() {
-        return subscribers.size();
+        return read(() -> {
+            int count = 0;
+            for (Shard shard : shards) {
+                count += shard.store.size();
+            }
+            return count;
+        });
     }
 
     /**
      * Возвращает общее количество телефонных номеров.
+     * Счетчик поддерживается хранилищем при каждом изменении, поэтому метод выполняется за O(1).
      *
      * @return количество телефонных номеров
      */
     public int getPhoneNumberCount() {
-        int count = 0;
-        for (Subscriber subscriber : subscribers) {
-            count += subscriber.getPhoneNumbers().size();
-        }
-        return count;
+        return read(() -> {
+            int count = 0;
+            for (Shard shard : shards) {
+                count += shard.store.phoneNumberCount();
+            }
+            return count;
+        });
     }
 
     /**
@@ -253,7 +1339,17 @@ public class PhoneBookService {
      * @return true если данные очищены успешно, иначе false
      */
     public boolean clearAllData() {
-        subscribers.clear();
+        lockAll();
+        try {
+            for (Shard shard : shards) {
+                shard.store.clear();
+                shard.version++;
+            }
+            record(PhoneBookChange.reset());
+        } finally {
+            unlockAll();
+        }
+        dispatch();
         return saveData();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,105 @@
+package com.phonebook.service;
+
+import com.phonebook.model.Subscriber;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Согласованный снимок телефонной книги на момент одной версии данных.
+ * Снимок не блокирует изменения: запись продолжается, а снимок по-прежнему видит
+ * данные своей версии. Снимок нужно закрыть после использования, чтобы прежние
+ * версии данных, на которые он ссылается, могли быть освобождены.
+ */
+public class PhoneBookSnapshot implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger(PhoneBookSnapshot.class);
+
+    private final long version;
+    private final int phoneNumberCount;
+    private final SnapshotRegistry registry;
+    private volatile List<Subscriber> subscribers;
+
+    PhoneBookSnapshot(long version, List<Subscriber> subscribers, int phoneNumberCount, SnapshotRegistry registry) {
+        this.version = version;
+        this.subscribers = subscribers;
+        this.phoneNumberCount = phoneNumberCount;
+        this.registry = registry;
+    }
+
+    /**
+     * Возвращает версию данных, которую видит снимок.
+     *
+     * @return версия данных
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Возвращает неизменяемый список абонентов снимка в порядке сортировки.
+     *
+     * @return список абонентов
+     * @throws IllegalStateException если снимок закрыт
+     */
+    public List<Subscriber> getSubscribers() {
+        List<Subscriber> current = subscribers;
+        if (current == null) {
+            throw new IllegalStateException("Snapshot is closed");
+        }
+        return current;
+    }
+
+    /**
+     * Возвращает количество абонентов в снимке.
+     *
+     * @return количество абонентов
+     */
+    public int getSubscriberCount() {
+        return getSubscribers().size();
+    }
+
+    /**
+     * Возвращает количество телефонных номеров в снимке.
+     *
+     * @return количество телефонных номеров
+     */
+    public int getPhoneNumberCount() {
+        return phoneNumberCount;
+    }
+
+    /**
+     * Выполняет поиск абонентов снимка по заданному тексту.
+     *
+     * @param searchText текст для поиска
+     * @return список найденных абонентов
+     */
+    public List<Subscriber> search(String searchText) {
+        if (searchText == null || searchText.trim().isEmpty()) {
+            return getSubscribers();
+        }
+
+        List<Subscriber> result = new ArrayList<>();
+        String lowerSearch = searchText.toLowerCase();
+        for (Subscriber subscriber : getSubscribers()) {
+            if (subscriber.contains(lowerSearch)) {
+                result.add(subscriber);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Закрывает снимок и освобождает ссылку на данные его версии.
+     * Повторное закрытие не выполняет никаких действий.
+     */
+    @Override
+    public synchronized void close() {
+        if (subscribers != null) {
+            subscribers = null;
+            registry.release(version);
+            logger.debug("Snapshot of version {} closed", version);
+        }
+    }
+}
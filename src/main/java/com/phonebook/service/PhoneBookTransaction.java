@@ -0,0 +1,334 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Набор изменений телефонной книги, применяемых одной транзакцией
+ * через {@link PhoneBookService#transaction(java.util.function.Consumer)}.
+ * Методы транзакции только записывают операции: данные проверяются все сразу перед применением,
+ * а сами изменения применяются атомарно после завершения тела транзакции.
+ */
+public class PhoneBookTransaction {
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    PhoneBookTransaction() {
+    }
+
+    /**
+     * Добавляет нового абонента.
+     * Возвращенный абонент можно использовать в последующих операциях этой же транзакции;
+     * после фиксации он отражает итоговое состояние абонента.
+     *
+     * @param lastName фамилия
+     * @param firstName имя
+     * @param middleName отчество
+     * @return новый абонент
+     */
+    public Subscriber addSubscriber(String lastName, String firstName, String middleName) {
+        Subscriber subscriber = new Subscriber(lastName, firstName, middleName);
+        operations.add(new AddSubscriber(subscriber));
+        return subscriber;
+    }
+
+    /**
+     * Изменяет ФИО абонента.
+     *
+     * @param subscriber абонент
+     * @param lastName новая фамилия
+     * @param firstName новое имя
+     * @param middleName новое отчество
+     * @return эта транзакция
+     */
+    public PhoneBookTransaction updateSubscriber(Subscriber subscriber, String lastName, String firstName,
+                                                 String middleName) {
+        operations.add(new UpdateSubscriber(Objects.requireNonNull(subscriber), lastName, firstName, middleName));
+        return this;
+    }
+
+    /**
+     * Удаляет абонента.
+     *
+     * @param subscriber абонент
+     * @return эта транзакция
+     */
+    public PhoneBookTransaction deleteSubscriber(Subscriber subscriber) {
+        operations.add(new DeleteSubscriber(Objects.requireNonNull(subscriber)));
+        return this;
+    }
+
+    /**
+     * Добавляет телефонный номер абоненту.
+     *
+     * @param subscriber абонент
+     * @param number номер телефона
+     * @param type тип телефона
+     * @return эта транзакция
+     */
+    public PhoneBookTransaction addPhoneNumber(Subscriber subscriber, String number, PhoneType type) {
+        operations.add(new AddPhoneNumber(Objects.requireNonNull(subscriber), number, type));
+        return this;
+    }
+
+    /**
+     * Удаляет телефонный номер у абонента.
+     *
+     * @param subscriber абонент
+     * @param phoneNumber телефонный номер
+     * @return эта транзакция
+     */
+    public PhoneBookTransaction removePhoneNumber(Subscriber subscriber, PhoneNumber phoneNumber) {
+        operations.add(new RemovePhoneNumber(Objects.requireNonNull(subscriber), phoneNumber));
+        return this;
+    }
+
+    /**
+     * Возвращает количество записанных операций.
+     *
+     * @return количество операций
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Проверяет данные всех операций до применения любой из них.
+     *
+     * @throws IllegalArgumentException если данные какой-либо операции невалидны
+     */
+    void validate() {
+        for (Operation operation : operations) {
+            operation.validate();
+        }
+    }
+
+    /**
+     * Применяет операции к рабочим копиям абонентов, не изменяя хранилище.
+     *
+     * @param lookup поиск текущей хранимой версии абонента; возвращает null, если абонента нет
+     * @return итоговые изменения по абонентам в порядке первого обращения
+     * @throws IllegalStateException если операцию невозможно применить
+     */
+    Collection<Change> plan(Function<Subscriber, Subscriber> lookup) {
+        Map<Subscriber, Change> changes = new LinkedHashMap<>();
+        for (Operation operation : operations) {
+            Change change = changes.get(operation.subscriber);
+            if (operation instanceof AddSubscriber) {
+                change = new Change(null, operation.subscriber.copy());
+                changes.put(operation.subscriber, change);
+            } else if (change == null) {
+                Subscriber stored = lookup.apply(operation.subscriber);
+                if (stored == null) {
+                    throw new IllegalStateException("Subscriber not found: " + operation.subscriber.getFullName());
+                }
+                change = new Change(stored, stored.copy());
+                changes.put(operation.subscriber, change);
+            }
+
+            if (change.deleted) {
+                throw new IllegalStateException("Subscriber is already deleted: " + operation.subscriber.getFullName());
+            }
+            if (!operation.apply(change)) {
+                throw new IllegalStateException("Operation cannot be applied: " + operation);
+            }
+        }
+        return changes.values();
+    }
+
+    /**
+     * Повторяет операции над изменяемыми экземплярами, переданными в транзакцию,
+     * чтобы они отражали зафиксированное состояние, как при отдельных изменениях.
+     */
+    void replay() {
+        for (Operation operation : operations) {
+            if (!operation.subscriber.isFrozen() && !(operation instanceof DeleteSubscriber)) {
+                operation.apply(new Change(null, operation.subscriber));
+            }
+        }
+    }
+
+    /**
+     * Итоговое изменение одного абонента.
+     */
+    static final class Change {
+
+        // Хранимая версия до транзакции или null для нового абонента
+        final Subscriber stored;
+        final Subscriber working;
+        boolean deleted;
+
+        Change(Subscriber stored, Subscriber working) {
+            this.stored = stored;
+            this.working = working;
+        }
+
+        boolean isNew() {
+            return stored == null;
+        }
+
+        boolean isRenamed() {
+            return !Objects.equals(stored.getLastName(), working.getLastName())
+                    || !Objects.equals(stored.getFirstName(), working.getFirstName())
+                    || !Objects.equals(stored.getMiddleName(), working.getMiddleName());
+        }
+
+        boolean isPhonesChanged() {
+            return !stored.getPhoneNumbers().equals(working.getPhoneNumbers());
+        }
+    }
+
+    private abstract static class Operation {
+
+        final Subscriber subscriber;
+
+        Operation(Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void validate() {
+        }
+
+        /**
+         * Применяет операцию к рабочей копии.
+         *
+         * @return false если операция не может быть применена
+         */
+        abstract boolean apply(Change change);
+    }
+
+    private static final class AddSubscriber extends Operation {
+
+        AddSubscriber(Subscriber subscriber) {
+            super(subscriber);
+        }
+
+        @Override
+        void validate() {
+            PhoneBookValidator.validateSubscriber(subscriber.getLastName(), subscriber.getFirstName(),
+                    subscriber.getMiddleName());
+        }
+
+        @Override
+        boolean apply(Change change) {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "add " + subscriber.getFullName();
+        }
+    }
+
+    private static final class UpdateSubscriber extends Operation {
+
+        private final String lastName;
+        private final String firstName;
+        private final String middleName;
+
+        UpdateSubscriber(Subscriber subscriber, String lastName, String firstName, String middleName) {
+            super(subscriber);
+            this.lastName = lastName;
+            this.firstName = firstName;
+            this.middleName = middleName;
+        }
+
+        @Override
+        void validate() {
+            PhoneBookValidator.validateSubscriber(lastName, firstName, middleName);
+        }
+
+        @Override
+        boolean apply(Change change) {
+            change.working.setLastName(lastName);
+            change.working.setFirstName(firstName);
+            change.working.setMiddleName(middleName);
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "update " + subscriber.getFullName();
+        }
+    }
+
+    private static final class DeleteSubscriber extends Operation {
+
+        DeleteSubscriber(Subscriber subscriber) {
+            super(subscriber);
+        }
+
+        @Override
+        boolean apply(Change change) {
+            change.deleted = true;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "delete " + subscriber.getFullName();
+        }
+    }
+
+    private static final class AddPhoneNumber extends Operation {
+
+        private final String number;
+        private final PhoneType type;
+
+        AddPhoneNumber(Subscriber subscriber, String number, PhoneType type) {
+            super(subscriber);
+            this.number = number;
+            this.type = type;
+        }
+
+        @Override
+        void validate() {
+            PhoneBookValidator.validatePhoneNumber(number);
+        }
+
+        @Override
+        boolean apply(Change change) {
+            return change.working.addPhoneNumber(new PhoneNumber(number, type));
+        }
+
+        @Override
+        public String toString() {
+            return "add phone " + number + " to " + subscriber.getFullName();
+        }
+    }
+
+    private static final class RemovePhoneNumber extends Operation {
+
+        private final PhoneNumber phoneNumber;
+
+        RemovePhoneNumber(Subscriber subscriber, PhoneNumber phoneNumber) {
+            super(subscriber);
+            this.phoneNumber = phoneNumber;
+        }
+
+        @Override
+        void validate() {
+            if (phoneNumber == null) {
+                throw new IllegalArgumentException("Phone number cannot be empty");
+            }
+        }
+
+        @Override
+        boolean apply(Change change) {
+            return change.working.removePhoneNumber(phoneNumber);
+        }
+
+        @Override
+        public String toString() {
+            return "remove phone " + phoneNumber + " from " + subscriber.getFullName();
+        }
+    }
+}
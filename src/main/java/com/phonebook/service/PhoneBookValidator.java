@@ -1,11 +1,14 @@
 package com.phonebook.service;
 
+import com.phonebook.metrics.ValidationEvent;
+import com.phonebook.model.NameDictionary;
 import com.phonebook.model.Subscriber;
 import com.phonebook.model.PhoneNumber;
 
 /**
  * Класс для валидации данных телефонной книги.
  * Проверяет корректность вводимых данных.
+ * Каждая проверка записывается событием JFR {@link ValidationEvent}.
  */
 public class PhoneBookValidator {
 
@@ -25,6 +28,19 @@ public class PhoneBookValidator {
      * @throws IllegalArgumentException если данные невалидны
      */
     public static void validateSubscriber(String lastName, String firstName, String middleName) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        try {
+            checkSubscriber(lastName, firstName, middleName);
+            event.valid = true;
+        } finally {
+            event.target = "subscriber";
+            event.inputLength = length(lastName) + length(firstName) + length(middleName);
+            event.commit();
+        }
+    }
+
+    private static void checkSubscriber(String lastName, String firstName, String middleName) {
         if (lastName == null || lastName.trim().isEmpty()) {
             throw new IllegalArgumentException("Last name cannot be empty");
         }
@@ -45,6 +61,12 @@ public class PhoneBookValidator {
         if (middleName != null && !middleName.trim().isEmpty() && !isValidName(middleName)) {
             throw new IllegalArgumentException("Middle name contains invalid characters");
         }
+
+        // Словарь имен не удаляет записи, поэтому после заполнения новые имена не принимаются
+        NameDictionary names = NameDictionary.getDefault();
+        if (!names.accepts(lastName) || !names.accepts(firstName) || !names.accepts(middleName)) {
+            throw new IllegalArgumentException("Name dictionary is full: new names are not accepted");
+        }
     }
 
     /**
@@ -54,6 +76,19 @@ public class PhoneBookValidator {
      * @throws IllegalArgumentException если номер невалиден
      */
     public static void validatePhoneNumber(String phoneNumber) {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        try {
+            checkPhoneNumber(phoneNumber);
+            event.valid = true;
+        } finally {
+            event.target = "phone";
+            event.inputLength = length(phoneNumber);
+            event.commit();
+        }
+    }
+
+    private static void checkPhoneNumber(String phoneNumber) {
         if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
             throw new IllegalArgumentException("Phone number cannot be empty");
         }
@@ -115,6 +150,10 @@ public class PhoneBookValidator {
         }
     }
 
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
     /**
      * Проверяет, содержит ли строка только допустимые символы для имени.
      *
@@ -0,0 +1,45 @@
+package com.phonebook.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Реестр открытых снимков телефонной книги по версиям данных.
+ * Позволяет узнать самую старую версию, которая еще нужна читателям.
+ */
+class SnapshotRegistry {
+
+    // Количество открытых снимков по версии данных
+    private final TreeMap<Long, Integer> open = new TreeMap<>();
+    private int count;
+
+    synchronized void register(long version) {
+        open.merge(version, 1, Integer::sum);
+        count++;
+    }
+
+    synchronized void release(long version) {
+        Integer readers = open.get(version);
+        if (readers == null) {
+            return;
+        }
+        if (readers == 1) {
+            open.remove(version);
+        } else {
+            open.put(version, readers - 1);
+        }
+        count--;
+    }
+
+    /**
+     * Возвращает самую старую версию, для которой открыт снимок, или -1, если снимков нет.
+     */
+    synchronized long oldestVersion() {
+        Map.Entry<Long, Integer> oldest = open.firstEntry();
+        return oldest == null ? -1 : oldest.getKey();
+    }
+
+    synchronized int size() {
+        return count;
+    }
+}
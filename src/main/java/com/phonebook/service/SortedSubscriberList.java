@@ -0,0 +1,620 @@
+package com.phonebook.service;
+
+import com.phonebook.model.Subscriber;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Упорядоченный список абонентов на основе B+-дерева со счетчиками.
+ * Вставка, удаление и доступ по индексу выполняются за O(log n),
+ * поэтому список не требуется пересортировывать после каждого изменения.
+ * Абоненты с одинаковыми ФИО хранятся в порядке добавления.
+ * <p>
+ * Дерево персистентное: узлы не изменяются после создания, а каждое изменение копирует
+ * только путь от корня до листа. Поэтому снимок {@link #snapshot()} получается за O(1),
+ * разделяет узлы с текущей версией и не меняется при последующих изменениях списка.
+ */
+public class SortedSubscriberList extends AbstractList<Subscriber> implements SubscriberStore, RandomAccess {
+
+    private static final int NODE_CAPACITY = 64;
+    private static final int MIN_NODE_SIZE = NODE_CAPACITY / 4;
+    private static final Leaf EMPTY = new Leaf(new Subscriber[0], new int[0], 0);
+
+    private final Comparator<? super Subscriber> comparator;
+    private Node root = EMPTY;
+    private final LongSubscriberMap byId = new LongSubscriberMap();
+
+    /**
+     * Конструктор списка с естественным порядком абонентов.
+     */
+    public SortedSubscriberList() {
+        this(Comparator.naturalOrder());
+    }
+
+    /**
+     * Конструктор списка с указанным порядком.
+     *
+     * @param comparator компаратор абонентов
+     */
+    public SortedSubscriberList(Comparator<? super Subscriber> comparator) {
+        this.comparator = Objects.requireNonNull(comparator);
+    }
+
+    /**
+     * Вставляет абонента в позицию, соответствующую порядку сортировки.
+     *
+     * @param subscriber абонент для вставки
+     * @return индекс, по которому был вставлен абонент
+     */
+    @Override
+    public int insert(Subscriber subscriber) {
+        Objects.requireNonNull(subscriber);
+        int[] position = new int[1];
+        Node[] result = root.insert(subscriber, comparator, position);
+        root = result.length == 1 ? result[0] : Inner.of(result);
+        byId.put(subscriber);
+        modCount++;
+        return position[0];
+    }
+
+    @Override
+    public void update(Subscriber subscriber) {
+        // Хранимый экземпляр заменяется, если изменения пришли в другом объекте с тем же идентификатором
+        int index = indexOf(subscriber);
+        if (index >= 0) {
+            root = root.set(index, subscriber, subscriber.getPhoneNumberCount());
+            byId.put(subscriber);
+            modCount++;
+        }
+    }
+
+    /**
+     * Полностью перестраивает список из указанной коллекции.
+     * Используется при загрузке данных и явной пересортировке.
+     *
+     * @param source коллекция абонентов
+     */
+    @Override
+    public void rebuild(Collection<? extends Subscriber> source) {
+        Subscriber[] sorted = source.toArray(new Subscriber[0]);
+        Arrays.sort(sorted, comparator);
+        root = build(sorted);
+        byId.clear();
+        for (Subscriber subscriber : sorted) {
+            byId.put(subscriber);
+        }
+        modCount++;
+    }
+
+    @Override
+    public Subscriber get(int index) {
+        Objects.checkIndex(index, root.size);
+        return root.get(index);
+    }
+
+    @Override
+    public int size() {
+        return root.size;
+    }
+
+    @Override
+    public int phoneNumberCount() {
+        return root.phones;
+    }
+
+    @Override
+    public Subscriber remove(int index) {
+        Objects.checkIndex(index, root.size);
+        Subscriber[] removed = new Subscriber[1];
+        Node node = root.remove(index, removed);
+        if (node.size == 0) {
+            node = EMPTY;
+        } else if (node instanceof Inner && node.count() == 1) {
+            node = ((Inner) node).children[0];
+        }
+        root = node;
+        byId.remove(removed[0]);
+        modCount++;
+        return removed[0];
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!(o instanceof Subscriber)) {
+            return -1;
+        }
+        Subscriber target = (Subscriber) o;
+
+        // Сначала ищем среди абонентов с таким же ФИО
+        for (int i = lowerBound(target); i < root.size; i++) {
+            Subscriber candidate = root.get(i);
+            if (comparator.compare(candidate, target) != 0) {
+                break;
+            }
+            if (candidate.equals(target)) {
+                return i;
+            }
+        }
+
+        // ФИО могло быть изменено в обход сервиса - ищем полным перебором
+        int index = 0;
+        for (Subscriber candidate : this) {
+            if (candidate.equals(target)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    @Override
+    public Subscriber findById(long idHigh, long idLow) {
+        return byId.get(idHigh, idLow);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        root = EMPTY;
+        byId.clear();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<Subscriber> iterator() {
+        return new LeafIterator(root);
+    }
+
+    /**
+     * Возвращает неизменяемый снимок текущего содержимого списка за O(1).
+     * Снимок разделяет узлы дерева со списком и не отражает последующие изменения.
+     *
+     * @return снимок списка
+     */
+    @Override
+    public List<Subscriber> snapshot() {
+        return new Snapshot(root);
+    }
+
+    /**
+     * Возвращает индекс первого абонента, не меньшего указанного.
+     *
+     * @param subscriber абонент для сравнения
+     * @return индекс нижней границы
+     */
+    public int lowerBound(Subscriber subscriber) {
+        int index = 0;
+        Node node = root;
+        while (node instanceof Inner) {
+            Node[] children = ((Inner) node).children;
+            int child = 0;
+            while (child < children.length - 1 && comparator.compare(children[child].last(), subscriber) < 0) {
+                index += children[child].size;
+                child++;
+            }
+            node = children[child];
+        }
+        Subscriber[] items = ((Leaf) node).items;
+        int low = 0;
+        int high = items.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(items[mid], subscriber) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return index + low;
+    }
+
+    /**
+     * Строит сбалансированное дерево из отсортированного массива.
+     */
+    private static Node build(Subscriber[] sorted) {
+        if (sorted.length == 0) {
+            return EMPTY;
+        }
+
+        // Листья заполняем на три четверти, чтобы первые вставки не приводили к разделению
+        int fill = NODE_CAPACITY * 3 / 4;
+        Node[] level = new Node[(sorted.length + fill - 1) / fill];
+        for (int i = 0; i < level.length; i++) {
+            int from = i * fill;
+            int to = Math.min(from + fill, sorted.length);
+            Subscriber[] items = Arrays.copyOfRange(sorted, from, to);
+            int[] phoneCounts = new int[items.length];
+            int phones = 0;
+            for (int j = 0; j < items.length; j++) {
+                phoneCounts[j] = items[j].getPhoneNumberCount();
+                phones += phoneCounts[j];
+            }
+            level[i] = new Leaf(items, phoneCounts, phones);
+        }
+
+        while (level.length > 1) {
+            Node[] parents = new Node[(level.length + fill - 1) / fill];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = Inner.of(Arrays.copyOfRange(level, i * fill, Math.min((i + 1) * fill, level.length)));
+            }
+            level = parents;
+        }
+        return level[0];
+    }
+
+    /**
+     * Неизменяемый узел дерева. Хранит количество абонентов и телефонных номеров в поддереве.
+     */
+    private abstract static class Node {
+        final int size;
+        final int phones;
+
+        Node(int size, int phones) {
+            this.size = size;
+            this.phones = phones;
+        }
+
+        abstract int count();
+
+        abstract Subscriber get(int index);
+
+        abstract Subscriber last();
+
+        /**
+         * Возвращает копию узла с замененным абонентом.
+         */
+        abstract Node set(int index, Subscriber subscriber, int phoneCount);
+
+        /**
+         * Возвращает один новый узел либо два, если узел пришлось разделить.
+         */
+        abstract Node[] insert(Subscriber subscriber, Comparator<? super Subscriber> comparator, int[] position);
+
+        /**
+         * Возвращает копию узла без абонента; удаленный абонент записывается в removed[0].
+         */
+        abstract Node remove(int index, Subscriber[] removed);
+    }
+
+    /**
+     * Листовой узел, содержащий абонентов и учтенное количество их номеров.
+     */
+    private static final class Leaf extends Node {
+        final Subscriber[] items;
+        final int[] phoneCounts;
+
+        Leaf(Subscriber[] items, int[] phoneCounts, int phones) {
+            super(items.length, phones);
+            this.items = items;
+            this.phoneCounts = phoneCounts;
+        }
+
+        @Override
+        int count() {
+            return items.length;
+        }
+
+        @Override
+        Subscriber get(int index) {
+            return items[index];
+        }
+
+        @Override
+        Subscriber last() {
+            return items[items.length - 1];
+        }
+
+        @Override
+        Node set(int index, Subscriber subscriber, int phoneCount) {
+            Subscriber[] newItems = items.clone();
+            int[] newPhoneCounts = phoneCounts.clone();
+            newItems[index] = subscriber;
+            newPhoneCounts[index] = phoneCount;
+            return new Leaf(newItems, newPhoneCounts, phones - phoneCounts[index] + phoneCount);
+        }
+
+        @Override
+        Node[] insert(Subscriber subscriber, Comparator<? super Subscriber> comparator, int[] position) {
+            // Верхняя граница: одинаковые ФИО сохраняют порядок добавления
+            int low = 0;
+            int high = items.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(items[mid], subscriber) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            position[0] += low;
+
+            int count = items.length + 1;
+            Subscriber[] newItems = new Subscriber[count];
+            int[] newPhoneCounts = new int[count];
+            System.arraycopy(items, 0, newItems, 0, low);
+            System.arraycopy(items, low, newItems, low + 1, items.length - low);
+            System.arraycopy(phoneCounts, 0, newPhoneCounts, 0, low);
+            System.arraycopy(phoneCounts, low, newPhoneCounts, low + 1, items.length - low);
+            newItems[low] = subscriber;
+            newPhoneCounts[low] = subscriber.getPhoneNumberCount();
+
+            if (count <= NODE_CAPACITY) {
+                return new Node[] {new Leaf(newItems, newPhoneCounts, phones + newPhoneCounts[low])};
+            }
+
+            // Узел переполнен - делим пополам
+            int half = count / 2;
+            return new Node[] {leaf(newItems, newPhoneCounts, 0, half), leaf(newItems, newPhoneCounts, half, count)};
+        }
+
+        @Override
+        Node remove(int index, Subscriber[] removed) {
+            removed[0] = items[index];
+            Subscriber[] newItems = new Subscriber[items.length - 1];
+            int[] newPhoneCounts = new int[items.length - 1];
+            System.arraycopy(items, 0, newItems, 0, index);
+            System.arraycopy(items, index + 1, newItems, index, items.length - index - 1);
+            System.arraycopy(phoneCounts, 0, newPhoneCounts, 0, index);
+            System.arraycopy(phoneCounts, index + 1, newPhoneCounts, index, items.length - index - 1);
+            return new Leaf(newItems, newPhoneCounts, phones - phoneCounts[index]);
+        }
+
+        /**
+         * Объединяет два соседних листа в новый лист.
+         */
+        Leaf merge(Leaf right) {
+            Subscriber[] newItems = Arrays.copyOf(items, items.length + right.items.length);
+            int[] newPhoneCounts = Arrays.copyOf(phoneCounts, newItems.length);
+            System.arraycopy(right.items, 0, newItems, items.length, right.items.length);
+            System.arraycopy(right.phoneCounts, 0, newPhoneCounts, items.length, right.items.length);
+            return new Leaf(newItems, newPhoneCounts, phones + right.phones);
+        }
+
+        private static Leaf leaf(Subscriber[] items, int[] phoneCounts, int from, int to) {
+            int[] counts = Arrays.copyOfRange(phoneCounts, from, to);
+            int phones = 0;
+            for (int count : counts) {
+                phones += count;
+            }
+            return new Leaf(Arrays.copyOfRange(items, from, to), counts, phones);
+        }
+    }
+
+    /**
+     * Внутренний узел, содержащий дочерние узлы.
+     */
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        private Inner(Node[] children, int size, int phones) {
+            super(size, phones);
+            this.children = children;
+        }
+
+        /**
+         * Создает узел с указанными потомками, суммируя их счетчики.
+         */
+        static Inner of(Node[] children) {
+            int size = 0;
+            int phones = 0;
+            for (Node child : children) {
+                size += child.size;
+                phones += child.phones;
+            }
+            return new Inner(children, size, phones);
+        }
+
+        @Override
+        int count() {
+            return children.length;
+        }
+
+        @Override
+        Subscriber get(int index) {
+            int child = 0;
+            while (index >= children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+            return children[child].get(index);
+        }
+
+        @Override
+        Subscriber last() {
+            return children[children.length - 1].last();
+        }
+
+        @Override
+        Node set(int index, Subscriber subscriber, int phoneCount) {
+            int child = 0;
+            while (index >= children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+            Node replaced = children[child].set(index, subscriber, phoneCount);
+            Node[] newChildren = children.clone();
+            newChildren[child] = replaced;
+            return new Inner(newChildren, size, phones - children[child].phones + replaced.phones);
+        }
+
+        @Override
+        Node[] insert(Subscriber subscriber, Comparator<? super Subscriber> comparator, int[] position) {
+            // Первый потомок, максимальный элемент которого больше вставляемого
+            int child = 0;
+            while (child < children.length - 1 && comparator.compare(children[child].last(), subscriber) <= 0) {
+                position[0] += children[child].size;
+                child++;
+            }
+
+            Node[] result = children[child].insert(subscriber, comparator, position);
+            int count = children.length + result.length - 1;
+            Node[] newChildren = new Node[count];
+            System.arraycopy(children, 0, newChildren, 0, child);
+            System.arraycopy(result, 0, newChildren, child, result.length);
+            System.arraycopy(children, child + 1, newChildren, child + result.length, children.length - child - 1);
+
+            if (count <= NODE_CAPACITY) {
+                int added = subscriber.getPhoneNumberCount();
+                return new Node[] {new Inner(newChildren, size + 1, phones + added)};
+            }
+
+            // Узел переполнен - делим пополам
+            int half = count / 2;
+            return new Node[] {
+                    of(Arrays.copyOfRange(newChildren, 0, half)),
+                    of(Arrays.copyOfRange(newChildren, half, count))
+            };
+        }
+
+        @Override
+        Node remove(int index, Subscriber[] removed) {
+            int child = 0;
+            while (index >= children[child].size) {
+                index -= children[child].size;
+                child++;
+            }
+
+            Node replaced = children[child].remove(index, removed);
+            int removedPhones = children[child].phones - replaced.phones;
+
+            // Опустевший потомок удаляется, малочисленный сливается с соседом
+            if (replaced.count() == 0) {
+                Node[] newChildren = new Node[children.length - 1];
+                System.arraycopy(children, 0, newChildren, 0, child);
+                System.arraycopy(children, child + 1, newChildren, child, children.length - child - 1);
+                return new Inner(newChildren, size - 1, phones - removedPhones);
+            }
+
+            Node[] newChildren = children.clone();
+            newChildren[child] = replaced;
+            if (replaced.count() < MIN_NODE_SIZE && newChildren.length > 1) {
+                int left = child > 0 ? child - 1 : child;
+                Node a = newChildren[left];
+                Node b = newChildren[left + 1];
+                if (a.count() + b.count() <= NODE_CAPACITY) {
+                    Node merged = a instanceof Leaf ? ((Leaf) a).merge((Leaf) b) : ((Inner) a).merge((Inner) b);
+                    Node[] merging = new Node[newChildren.length - 1];
+                    System.arraycopy(newChildren, 0, merging, 0, left);
+                    merging[left] = merged;
+                    System.arraycopy(newChildren, left + 2, merging, left + 1, newChildren.length - left - 2);
+                    newChildren = merging;
+                }
+            }
+            return new Inner(newChildren, size - 1, phones - removedPhones);
+        }
+
+        /**
+         * Объединяет два соседних внутренних узла в новый узел.
+         */
+        Inner merge(Inner right) {
+            Node[] newChildren = Arrays.copyOf(children, children.length + right.children.length);
+            System.arraycopy(right.children, 0, newChildren, children.length, right.children.length);
+            return new Inner(newChildren, size + right.size, phones + right.phones);
+        }
+    }
+
+    /**
+     * Неизменяемый снимок списка, разделяющий узлы дерева с исходным списком.
+     */
+    private static final class Snapshot extends AbstractList<Subscriber> implements RandomAccess {
+        private final Node root;
+
+        Snapshot(Node root) {
+            this.root = root;
+        }
+
+        @Override
+        public Subscriber get(int index) {
+            Objects.checkIndex(index, root.size);
+            return root.get(index);
+        }
+
+        @Override
+        public int size() {
+            return root.size;
+        }
+
+        @Override
+        public Iterator<Subscriber> iterator() {
+            return new LeafIterator(root);
+        }
+    }
+
+    /**
+     * Итератор по листьям дерева без обращения по индексу.
+     * Узлы не изменяются, поэтому итератор всегда обходит версию дерева на момент создания.
+     */
+    private static final class LeafIterator implements Iterator<Subscriber> {
+        private final Inner[] parents = new Inner[8];
+        private final int[] positions = new int[8];
+        private int depth;
+        private Leaf leaf;
+        private int index;
+
+        LeafIterator(Node start) {
+            descend(start);
+        }
+
+        private void descend(Node node) {
+            while (node instanceof Inner) {
+                parents[depth] = (Inner) node;
+                positions[depth] = 0;
+                depth++;
+                node = ((Inner) node).children[0];
+            }
+            leaf = (Leaf) node;
+            index = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (leaf != null && index >= leaf.items.length) {
+                advanceLeaf();
+            }
+            return leaf != null;
+        }
+
+        @Override
+        public Subscriber next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return leaf.items[index++];
+        }
+
+        private void advanceLeaf() {
+            while (depth > 0) {
+                Inner parent = parents[depth - 1];
+                int next = positions[depth - 1] + 1;
+                if (next < parent.children.length) {
+                    positions[depth - 1] = next;
+                    descend(parent.children[next]);
+                    return;
+                }
+                depth--;
+            }
+            leaf = null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.phonebook.service;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Доступные способы хранения абонентов в памяти.
+ * Выбирается системным свойством {@value #ENGINE_PROPERTY}.
+ */
+public enum StorageEngine {
+    HEAP(SortedSubscriberList::new),
+    COLUMNAR(ColumnarSubscriberStore::new),
+    OFF_HEAP(OffHeapSubscriberStore::new);
+
+    /**
+     * Системное свойство с именем способа хранения, например "columnar" или "off-heap".
+     */
+    public static final String ENGINE_PROPERTY = "phonebook.storage";
+
+    private final Supplier<SubscriberStore> factory;
+
+    /**
+     * Конструктор перечисления способов хранения.
+     *
+     * @param factory фабрика хранилищ
+     */
+    StorageEngine(Supplier<SubscriberStore> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Создает новое пустое хранилище.
+     *
+     * @return хранилище абонентов
+     */
+    public SubscriberStore createStore() {
+        return factory.get();
+    }
+
+    /**
+     * Возвращает способ хранения, заданный системным свойством.
+     *
+     * @return способ хранения или HEAP, если свойство не задано
+     */
+    public static StorageEngine fromSystemProperty() {
+        String value = System.getProperty(ENGINE_PROPERTY);
+        if (value == null || value.trim().isEmpty()) {
+            return HEAP;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,119 @@
+package com.phonebook.service;
+
+import com.phonebook.model.Subscriber;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Хранилище абонентов, упорядоченных по ФИО.
+ * Абстрагирует способ размещения данных в памяти от {@link PhoneBookService}.
+ * Абонент определяется по идентификатору; изменять ФИО хранимого абонента
+ * можно только после его извлечения из хранилища.
+ * <p>
+ * Реализации не обязаны быть потокобезопасными: {@link PhoneBookService} выполняет изменения
+ * под блокировкой записи. Методы чтения должны допускать параллельный вызов из нескольких потоков,
+ * а {@link #size()}, {@link #phoneNumberCount()} и {@link #snapshot()} - вызов без блокировки
+ * во время изменения: результат такого чтения отбрасывается, а исключение приводит к повтору.
+ */
+public interface SubscriberStore extends Iterable<Subscriber> {
+
+    /**
+     * Вставляет абонента в позицию, соответствующую порядку сортировки.
+     *
+     * @param subscriber абонент для вставки
+     * @return индекс вставленного абонента
+     */
+    int insert(Subscriber subscriber);
+
+    /**
+     * Удаляет абонента из хранилища.
+     *
+     * @param o абонент для удаления
+     * @return true если абонент был удален, иначе false
+     */
+    boolean remove(Object o);
+
+    /**
+     * Сохраняет изменения абонента, не влияющие на порядок сортировки,
+     * например список телефонных номеров.
+     *
+     * @param subscriber измененный абонент
+     */
+    void update(Subscriber subscriber);
+
+    /**
+     * Возвращает абонента по индексу в порядке сортировки.
+     *
+     * @param index индекс абонента
+     * @return абонент
+     */
+    Subscriber get(int index);
+
+    /**
+     * Возвращает индекс абонента в порядке сортировки.
+     *
+     * @param o абонент для поиска
+     * @return индекс абонента или -1, если абонент не найден
+     */
+    int indexOf(Object o);
+
+    /**
+     * Возвращает абонента по идентификатору без перебора хранилища.
+     *
+     * @param idHigh старшие 64 бита идентификатора
+     * @param idLow младшие 64 бита идентификатора
+     * @return абонент или null, если абонент не найден
+     */
+    Subscriber findById(long idHigh, long idLow);
+
+    /**
+     * Возвращает количество абонентов.
+     *
+     * @return количество абонентов
+     */
+    int size();
+
+    /**
+     * Возвращает общее количество телефонных номеров, поддерживаемое при каждом изменении.
+     *
+     * @return количество телефонных номеров
+     */
+    int phoneNumberCount();
+
+    /**
+     * Полностью перестраивает хранилище из указанной коллекции.
+     *
+     * @param source коллекция абонентов
+     */
+    void rebuild(Collection<? extends Subscriber> source);
+
+    /**
+     * Удаляет всех абонентов.
+     */
+    void clear();
+
+    /**
+     * Копирует содержимое хранилища в новый список.
+     *
+     * @return список абонентов в порядке сортировки
+     */
+    default List<Subscriber> toList() {
+        List<Subscriber> result = new ArrayList<>(size());
+        for (Subscriber subscriber : this) {
+            result.add(subscriber);
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает неизменяемый снимок содержимого хранилища, не отражающий последующие изменения.
+     * Реализация по умолчанию копирует хранилище; персистентные хранилища возвращают снимок за O(1).
+     *
+     * @return снимок абонентов в порядке сортировки
+     */
+    default List<Subscriber> snapshot() {
+        return Collections.unmodifiableList(toList());
+    }
+}
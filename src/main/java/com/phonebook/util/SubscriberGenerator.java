@@ -0,0 +1,436 @@
+package com.phonebook.util;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Генератор синтетических абонентов для нагрузочного тестирования.
+ * <p>
+ * Данные приближены к реальному справочнику: русские ФИО с мужскими и женскими формами
+ * и отчествами, доля латинских имен, частоты фамилий по закону Ципфа (самая частая фамилия
+ * встречается в сотни раз чаще сотой), от 0 до 5 номеров со смесью типов и форматов записи.
+ * Заданная доля абонентов содержит ошибки: недопустимые символы в ФИО, пустое имя или
+ * некорректный номер, как в данных, вводимых вручную.
+ * <p>
+ * Генерация детерминирована: абоненты создаются блоками, и каждый блок получает свой поток
+ * случайных чисел, вычисленный из начального значения и номера блока. Поэтому одинаковые
+ * параметры дают одинаковые ФИО и номера при любом количестве потоков; различаются только
+ * идентификаторы, которые содержат время создания.
+ */
+public class SubscriberGenerator {
+
+    /**
+     * Доля абонентов с латинскими ФИО по умолчанию.
+     */
+    public static final double DEFAULT_LATIN_SHARE = 0.1;
+
+    // Абоненты одного блока генерируются одним потоком из одного потока случайных чисел
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private static final String[] RUSSIAN_SURNAMES = {
+            "Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев", "Петров", "Соколов", "Михайлов",
+            "Новиков", "Федоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семенов", "Егоров",
+            "Павлов", "Козлов", "Степанов", "Николаев", "Орлов", "Андреев", "Макаров", "Никитин",
+            "Захаров", "Зайцев", "Соловьев", "Борисов", "Яковлев", "Григорьев", "Романов", "Воробьев",
+            "Сергеев", "Кузьмин", "Фролов", "Александров", "Дмитриев", "Королев", "Гусев", "Киселев",
+            "Ильин", "Максимов", "Поляков", "Сорокин", "Виноградов", "Ковалев", "Белов", "Медведев",
+            "Антонов", "Тарасов", "Жуков", "Баранов", "Филиппов", "Комаров", "Давыдов", "Беляев",
+            "Герасимов", "Богданов", "Осипов", "Сидоров", "Матвеев", "Титов", "Марков", "Миронов"
+    };
+    // Слоги и окончания для фамилий из длинного хвоста распределения
+    private static final String[] SURNAME_STEMS = {
+            "Бел", "Вер", "Гор", "Дол", "Жар", "Зим", "Кал", "Лап", "Мор", "Нес", "Пол", "Рад",
+            "Сав", "Тих", "Ус", "Хол", "Чер", "Шаб", "Щер", "Юр", "Яр", "Бор", "Гал", "Дер"
+    };
+    private static final String[] SURNAME_FIRST_MIDDLES = {
+            "", "ан", "ин", "ош", "ен", "ыг", "ух", "ал", "он", "ир", "ет", "ус"};
+    private static final String[] SURNAME_SECOND_MIDDLES = {
+            "ак", "ик", "ул", "ыш", "ер", "ом", "ят", "еж", "ун", "ох", "ид"};
+    private static final String[] SURNAME_ENDINGS = {"ов", "ев", "ин", "ын", "ский", "цкий"};
+    private static final String[][] RUSSIAN_FIRST_NAMES = {
+            {"Александр", "Сергей", "Дмитрий", "Андрей", "Алексей", "Максим", "Евгений", "Иван",
+                    "Михаил", "Артем", "Николай", "Владимир", "Павел", "Роман", "Олег", "Игорь"},
+            {"Елена", "Ольга", "Наталья", "Татьяна", "Анна", "Мария", "Ирина", "Екатерина",
+                    "Светлана", "Юлия", "Анастасия", "Марина", "Дарья", "Людмила", "Галина", "Ксения"}
+    };
+    // Отчество в мужской и женской форме
+    private static final String[][] PATRONYMICS = {
+            {"Александрович", "Александровна"}, {"Сергеевич", "Сергеевна"}, {"Дмитриевич", "Дмитриевна"},
+            {"Андреевич", "Андреевна"}, {"Алексеевич", "Алексеевна"}, {"Иванович", "Ивановна"},
+            {"Михайлович", "Михайловна"}, {"Николаевич", "Николаевна"}, {"Владимирович", "Владимировна"},
+            {"Викторович", "Викторовна"}, {"Петрович", "Петровна"}, {"Юрьевич", "Юрьевна"}
+    };
+    private static final String[] LATIN_SURNAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Miller", "Davis", "Garcia", "Wilson",
+            "Taylor", "Anderson", "Thomas", "Moore", "Martin", "Lee", "Clark", "Walker", "Young",
+            "Schmidt", "Schneider", "Fischer", "Weber", "Rossi", "Bianchi", "Dubois", "Moreau",
+            "O'Brien", "Smith-Jones", "Kowalski", "Novak"
+    };
+    private static final String[][] LATIN_FIRST_NAMES = {
+            {"James", "John", "Robert", "Michael", "David", "William", "Thomas", "Daniel", "Peter", "Mark"},
+            {"Mary", "Linda", "Anna", "Sarah", "Emma", "Laura", "Julia", "Sophie", "Maria", "Claire"}
+    };
+    private static final String[] CITY_CODES = {"495", "499", "812", "343", "383", "846", "863", "831"};
+
+    // Количество номеров 0-5 и типы номеров с их долями
+    private static final double[] PHONE_COUNT_WEIGHTS = {0.06, 0.42, 0.30, 0.13, 0.06, 0.03};
+    private static final PhoneType[] PHONE_TYPES = {
+            PhoneType.MOBILE, PhoneType.HOME, PhoneType.WORK, PhoneType.FAX, PhoneType.OTHER};
+    private static final double[] PHONE_TYPE_WEIGHTS = {0.62, 0.17, 0.14, 0.02, 0.05};
+
+    private static final int SURNAME_RANKS = 15_000;
+
+    // Распределения и фамилии общие для всех генераторов: их построение дороже генерации небольшой книги
+    private static final Distribution SURNAMES = Distribution.zipf(SURNAME_RANKS, 1.0);
+    private static final Distribution LATIN_SURNAME_RANKS = Distribution.zipf(LATIN_SURNAMES.length, 1.0);
+    private static final Distribution FIRST_NAMES = Distribution.zipf(16, 0.7);
+    private static final Distribution LATIN_FIRST_NAMES_RANKS = Distribution.zipf(10, 0.7);
+    private static final Distribution PATRONYMIC_RANKS = Distribution.zipf(PATRONYMICS.length, 0.7);
+    private static final Distribution PHONE_COUNTS = new Distribution(PHONE_COUNT_WEIGHTS);
+    private static final Distribution PHONE_TYPE_RANKS = new Distribution(PHONE_TYPE_WEIGHTS);
+    // Мужская и женская форма фамилии каждого ранга. Один экземпляр строки на фамилию
+    // избавляет словарь имен от сравнения и учета новых экземпляров для каждого абонента
+    private static final String[][] SURNAME_FORMS = surnameForms();
+
+    /**
+     * Дискретное распределение с таблицей-указателем: по случайному числу таблица сразу дает
+     * номер, близкий к искомому, поэтому выбор занимает в среднем один-два сравнения
+     * вместо двоичного поиска по всей функции распределения.
+     */
+    private static final class Distribution {
+
+        private final double[] cdf;
+        private final int[] guide;
+
+        Distribution(double[] weights) {
+            double total = 0;
+            for (double weight : weights) {
+                total += weight;
+            }
+            cdf = new double[weights.length];
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i];
+                cdf[i] = sum / total;
+            }
+            cdf[cdf.length - 1] = 1.0;
+            guide = new int[cdf.length];
+            int index = 0;
+            for (int bucket = 0; bucket < guide.length; bucket++) {
+                while (cdf[index] <= (double) bucket / guide.length) {
+                    index++;
+                }
+                guide[bucket] = index;
+            }
+        }
+
+        /**
+         * Распределение закона Ципфа: вероятность ранга k пропорциональна 1/k^s.
+         */
+        static Distribution zipf(int size, double exponent) {
+            double[] weights = new double[size];
+            for (int rank = 0; rank < size; rank++) {
+                weights[rank] = 1.0 / Math.pow(rank + 1, exponent);
+            }
+            return new Distribution(weights);
+        }
+
+        int sample(SplittableRandom random) {
+            double value = random.nextDouble();
+            int index = guide[(int) (value * guide.length)];
+            while (cdf[index] <= value) {
+                index++;
+            }
+            return index;
+        }
+    }
+
+    private final long seed;
+    private double malformedRate;
+    private double latinShare = DEFAULT_LATIN_SHARE;
+
+    /**
+     * Создает генератор.
+     *
+     * @param seed начальное значение; одинаковые значения дают одинаковые данные
+     */
+    public SubscriberGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Задает долю абонентов с ошибками в данных.
+     *
+     * @param malformedRate доля от 0 до 1; по умолчанию 0
+     */
+    public void setMalformedRate(double malformedRate) {
+        this.malformedRate = checkShare(malformedRate, "Malformed rate");
+    }
+
+    /**
+     * Задает долю абонентов с латинскими ФИО.
+     *
+     * @param latinShare доля от 0 до 1
+     */
+    public void setLatinShare(double latinShare) {
+        this.latinShare = checkShare(latinShare, "Latin share");
+    }
+
+    /**
+     * Генерирует абонентов во всех доступных процессорах.
+     *
+     * @param count количество абонентов
+     * @return абоненты
+     */
+    public List<Subscriber> generate(int count) {
+        return generate(count, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Генерирует абонентов в указанном количестве потоков.
+     *
+     * @param count количество абонентов
+     * @param threads количество потоков
+     * @return абоненты
+     */
+    public List<Subscriber> generate(int count, int threads) {
+        List<Subscriber> subscribers = new ArrayList<>(count);
+        iterator(count, threads).forEachRemaining(subscribers::add);
+        return subscribers;
+    }
+
+    /**
+     * Генерирует абонентов по мере чтения, не удерживая в памяти всю книгу: блоки создаются
+     * параллельно с небольшим опережением и выдаются по порядку. Так миллионы абонентов
+     * записываются в файл без роста кучи и без затрат сборщика мусора на долгоживущие объекты.
+     *
+     * @param count количество абонентов
+     * @param threads количество потоков
+     * @return абоненты в том же порядке, что и у {@link #generate(int, int)}
+     */
+    public Iterator<Subscriber> iterator(int count, int threads) {
+        if (count < 0 || threads < 1) {
+            throw new IllegalArgumentException("Invalid count " + count + " or threads " + threads);
+        }
+        return new ChunkIterator(count, threads);
+    }
+
+    /**
+     * Выдает абонентов блок за блоком, поддерживая очередь из заданных наперед блоков.
+     */
+    private final class ChunkIterator implements Iterator<Subscriber> {
+
+        private final int count;
+        private final int chunkCount;
+        private final int lookahead;
+        private final ThreadPoolExecutor executor;
+        private final ArrayDeque<Future<Subscriber[]>> pending = new ArrayDeque<>();
+        private int nextChunk;
+        private Subscriber[] current = new Subscriber[0];
+        private int position;
+        private int returned;
+
+        ChunkIterator(int count, int threads) {
+            this.count = count;
+            this.chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            this.lookahead = threads * 2;
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "phonebook-generator-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // Потоки завершаются сами, даже если перебор брошен на середине
+            executor.allowCoreThreadTimeOut(true);
+            submit();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return returned < count;
+        }
+
+        @Override
+        public Subscriber next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (position == current.length) {
+                current = take();
+                position = 0;
+            }
+            returned++;
+            Subscriber subscriber = current[position];
+            current[position++] = null;
+            return subscriber;
+        }
+
+        private void submit() {
+            while (nextChunk < chunkCount && pending.size() < lookahead) {
+                int chunk = nextChunk++;
+                pending.add(executor.submit(() -> generateChunk(chunk, count)));
+            }
+        }
+
+        private Subscriber[] take() {
+            try {
+                Subscriber[] chunk = pending.remove().get();
+                submit();
+                if (pending.isEmpty()) {
+                    executor.shutdown();
+                }
+                return chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                throw new IllegalStateException("Generation interrupted", e);
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                throw new IllegalStateException("Generation failed", e.getCause());
+            }
+        }
+    }
+
+    private Subscriber[] generateChunk(int chunk, int count) {
+        SplittableRandom random = new SplittableRandom(seed + chunk * 0x9E3779B97F4A7C15L);
+        Subscriber[] subscribers = new Subscriber[Math.min(CHUNK_SIZE, count - chunk * CHUNK_SIZE)];
+        for (int i = 0; i < subscribers.length; i++) {
+            subscribers[i] = next(random);
+        }
+        return subscribers;
+    }
+
+    private Subscriber next(SplittableRandom random) {
+        int gender = random.nextInt(2);
+        String lastName;
+        String firstName;
+        String middleName;
+        if (random.nextDouble() < latinShare) {
+            lastName = LATIN_SURNAMES[LATIN_SURNAME_RANKS.sample(random)];
+            firstName = LATIN_FIRST_NAMES[gender][LATIN_FIRST_NAMES_RANKS.sample(random)];
+            middleName = "";
+        } else {
+            lastName = SURNAME_FORMS[SURNAMES.sample(random)][gender];
+            firstName = RUSSIAN_FIRST_NAMES[gender][FIRST_NAMES.sample(random)];
+            // Отчество указывают не все
+            middleName = random.nextInt(100) < 95 ? PATRONYMICS[PATRONYMIC_RANKS.sample(random)][gender] : "";
+        }
+
+        int phoneCount = PHONE_COUNTS.sample(random);
+        List<PhoneNumber> phones = new ArrayList<>(phoneCount);
+        for (int i = 0; i < phoneCount; i++) {
+            PhoneType type = PHONE_TYPES[PHONE_TYPE_RANKS.sample(random)];
+            phones.add(new PhoneNumber(phoneNumber(type, random), type));
+        }
+
+        if (malformedRate > 0 && random.nextDouble() < malformedRate) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    lastName = lastName + random.nextInt(10);
+                    break;
+                case 1:
+                    firstName = "";
+                    break;
+                case 2:
+                    middleName = middleName + "#";
+                    break;
+                case 3:
+                    phones.add(new PhoneNumber(digits(new StringBuilder(), 3, random).toString(), PhoneType.MOBILE));
+                    break;
+                default:
+                    phones.add(new PhoneNumber(digits(new StringBuilder("+7 9"), 14, random).toString(),
+                            PhoneType.MOBILE));
+            }
+        }
+        Subscriber subscriber = new Subscriber(lastName, firstName, middleName);
+        for (PhoneNumber phone : phones) {
+            subscriber.addPhoneNumber(phone);
+        }
+        return subscriber;
+    }
+
+    private static String[][] surnameForms() {
+        String[][] forms = new String[SURNAME_RANKS][];
+        for (int rank = 0; rank < SURNAME_RANKS; rank++) {
+            String surname = russianSurname(rank);
+            String female = surname.endsWith("ий") ? surname.substring(0, surname.length() - 2) + "ая" : surname + "а";
+            forms[rank] = new String[] {surname, female};
+        }
+        return forms;
+    }
+
+    /**
+     * Фамилия по рангу частоты: частые фамилии берутся из списка, остальные составляются из слогов.
+     */
+    private static String russianSurname(int rank) {
+        String surname;
+        if (rank < RUSSIAN_SURNAMES.length) {
+            surname = RUSSIAN_SURNAMES[rank];
+        } else {
+            // Разные ранги хвоста дают разные сочетания слогов
+            int tail = rank - RUSSIAN_SURNAMES.length;
+            surname = SURNAME_STEMS[tail % SURNAME_STEMS.length];
+            tail /= SURNAME_STEMS.length;
+            surname += SURNAME_FIRST_MIDDLES[tail % SURNAME_FIRST_MIDDLES.length];
+            tail /= SURNAME_FIRST_MIDDLES.length;
+            surname += SURNAME_SECOND_MIDDLES[tail % SURNAME_SECOND_MIDDLES.length];
+            tail /= SURNAME_SECOND_MIDDLES.length;
+            surname += SURNAME_ENDINGS[tail % SURNAME_ENDINGS.length];
+        }
+        return surname;
+    }
+
+    private static String phoneNumber(PhoneType type, SplittableRandom random) {
+        StringBuilder number = new StringBuilder(18);
+        switch (type) {
+            case MOBILE:
+                // Мобильные номера записывают по-разному
+                if (random.nextInt(4) == 0) {
+                    digits(number.append("89"), 9, random);
+                } else {
+                    digits(number.append("+7 9"), 2, random).append(' ');
+                    digits(number, 3, random).append('-');
+                    digits(number, 2, random).append('-');
+                    digits(number, 2, random);
+                }
+                break;
+            case OTHER:
+                digits(number.append("+").append(random.nextInt(30, 99)).append(' '), 9, random);
+                break;
+            default:
+                number.append("+7 (").append(CITY_CODES[random.nextInt(CITY_CODES.length)]).append(") ");
+                digits(number, 3, random).append('-');
+                digits(number, 2, random).append('-');
+                digits(number, 2, random);
+        }
+        return number.toString();
+    }
+
+    private static StringBuilder digits(StringBuilder out, int count, SplittableRandom random) {
+        for (int i = 0; i < count; i++) {
+            out.append((char) ('0' + random.nextInt(10)));
+        }
+        return out;
+    }
+
+    private static double checkShare(double share, String name) {
+        if (!(share >= 0 && share <= 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + share);
+        }
+        return share;
+    }
+}
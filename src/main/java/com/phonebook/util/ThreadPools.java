@@ -0,0 +1,56 @@
+package com.phonebook.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Утилитарный класс для создания пулов потоков.
+ */
+public final class ThreadPools {
+
+    private static final Logger logger = LogManager.getLogger(ThreadPools.class);
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляров.
+     */
+    private ThreadPools() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Создает исполнителя, выполняющего каждую задачу в отдельном виртуальном потоке.
+     * Виртуальные потоки доступны начиная с Java 21, а проект собирается для более ранней версии,
+     * поэтому фабрика находится через отражение; в более ранней среде выполнения возвращается
+     * {@link #newDaemonCachedThreadPool(String)}.
+     *
+     * @param threadNamePrefix префикс имен потоков платформы
+     * @return исполнитель
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String threadNamePrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Virtual threads are not available, using platform threads");
+            return newDaemonCachedThreadPool(threadNamePrefix);
+        }
+    }
+
+    /**
+     * Создает пул фоновых потоков платформы, создаваемых по мере необходимости.
+     * Потоки называются префиксом и порядковым номером, например {@code phonebook-http-1}.
+     *
+     * @param threadNamePrefix префикс имен потоков
+     * @return пул потоков
+     */
+    public static ExecutorService newDaemonCachedThreadPool(String threadNamePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Сравнение отдельных изменений и одной транзакции при добавлении абонентов с тремя номерами.
+ * Отдельные изменения сохраняют файл после каждой операции, транзакция - один раз.
+ * java com.phonebook.benchmark.BatchMutationBenchmark [heap|columnar|off_heap] [количество]
+ */
+public class BatchMutationBenchmark {
+
+    private static final String[] LAST_NAMES = {"Ivanov", "Petrov", "Sidorov", "Smirnov", "Kuznetsov", "Popov"};
+    private static final String[] FIRST_NAMES = {"Ivan", "Petr", "Anna", "Maria", "Oleg", "Elena"};
+
+    public static void main(String[] args) throws IOException {
+        StorageEngine engine = StorageEngine.valueOf(args.length > 0 ? args[0].toUpperCase() : "HEAP");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        PhoneBookService single = new PhoneBookService(tempFile(), engine);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Subscriber subscriber = single.addSubscriber(lastName(i), firstName(i), "");
+            for (int p = 0; p < 3; p++) {
+                single.addPhoneNumber(subscriber, number(i, p), PhoneType.MOBILE);
+            }
+        }
+        long singleMillis = (System.nanoTime() - start) / 1_000_000;
+
+        PhoneBookService batched = new PhoneBookService(tempFile(), engine);
+        start = System.nanoTime();
+        batched.transaction(tx -> {
+            for (int i = 0; i < count; i++) {
+                Subscriber subscriber = tx.addSubscriber(lastName(i), firstName(i), "");
+                for (int p = 0; p < 3; p++) {
+                    tx.addPhoneNumber(subscriber, number(i, p), PhoneType.MOBILE);
+                }
+            }
+        });
+        long batchMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%-10s %,d subscribers x 3 phones%n", engine, count);
+        System.out.printf("  single operations: %,d ms%n", singleMillis);
+        System.out.printf("  one transaction:   %,d ms (%.0fx)%n", batchMillis,
+                singleMillis / (double) Math.max(batchMillis, 1));
+    }
+
+    private static String tempFile() throws IOException {
+        File file = File.createTempFile("phonebook-batch", ".dat");
+        file.delete();
+        file.deleteOnExit();
+        return file.getPath();
+    }
+
+    private static String lastName(int i) {
+        return LAST_NAMES[i % LAST_NAMES.length];
+    }
+
+    private static String firstName(int i) {
+        return FIRST_NAMES[(i / LAST_NAMES.length) % FIRST_NAMES.length];
+    }
+
+    private static String number(int i, int p) {
+        return "+7 9" + p + " " + (1_000_000 + i);
+    }
+}
@@ -0,0 +1,102 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.Subscriber;
+import com.phonebook.server.BinaryClient;
+import com.phonebook.server.BinaryServer;
+import com.phonebook.server.RequestMetrics;
+import com.phonebook.service.FileDataService;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Поиск по номеру телефона через двоичный протокол на localhost при разной глубине конвейера.
+ * Каждый клиент в своем потоке отправляет пакет из заданного количества запросов и ждет ответов;
+ * время ответа на каждый запрос пакета равно времени обработки всего пакета.
+ * java -Xmx4g com.phonebook.benchmark.BinaryLookupBenchmark [клиенты] [секунды] [количество абонентов]
+ */
+public class BinaryLookupBenchmark {
+
+    private static final int[] PIPELINE_DEPTHS = {1, 16, 128};
+    private static final int WARMUP_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.WARN);
+
+        File dataFile = File.createTempFile("phonebook-binary", ".dat");
+        dataFile.deleteOnExit();
+        new FileDataService(dataFile.getPath()).saveSubscribers(StoreMemoryBenchmark.generate(count));
+        PhoneBookService service = new PhoneBookService(dataFile.getPath(), StorageEngine.HEAP);
+        List<String> phones = new ArrayList<>();
+        for (Subscriber subscriber : service.getAllSubscribers()) {
+            for (PhoneNumber phone : subscriber.getPhoneNumbers()) {
+                phones.add(phone.getNumber());
+            }
+        }
+
+        BinaryServer server = new BinaryServer(service, new InetSocketAddress("localhost", 0));
+        server.start();
+        System.out.printf("%,d subscribers, %,d phone numbers, %d clients, %d CPUs%n",
+                count, phones.size(), clients, Runtime.getRuntime().availableProcessors());
+        for (int depth : PIPELINE_DEPTHS) {
+            run(server.getPort(), phones, clients, depth, seconds);
+        }
+        RequestMetrics.RouteStats serverStats = server.getMetrics().getRoute("findByPhone");
+        System.out.printf("  server findByPhone: p50 %,d us  p99 %,d us%n",
+                serverStats.getPercentileMicros(0.50), serverStats.getPercentileMicros(0.99));
+        server.stop();
+    }
+
+    private static void run(int port, List<String> phones, int clients, int depth, int seconds) throws Exception {
+        RequestMetrics latency = new RequestMetrics();
+        long warmupEnd = System.nanoTime() + WARMUP_SECONDS * 1_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<String> batch = new ArrayList<>(depth);
+                try (BinaryClient client = new BinaryClient("localhost", port)) {
+                    for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                        batch.clear();
+                        for (int i = 0; i < depth; i++) {
+                            batch.add(phones.get(random.nextInt(phones.size())));
+                        }
+                        if (depth == 1) {
+                            client.findByPhone(batch.get(0));
+                        } else {
+                            client.findByPhones(batch);
+                        }
+                        long elapsed = System.nanoTime() - now;
+                        if (now >= warmupEnd) {
+                            for (int i = 0; i < depth; i++) {
+                                latency.record("findByPhone", 0, elapsed);
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        RequestMetrics.RouteStats stats = latency.getRoute("findByPhone");
+        System.out.printf("  pipeline %3d: %,10.0f lookups/s  p50 %,7d us  p99 %,7d us  max %,7d us%n", depth,
+                stats.getCount() / (double) seconds, stats.getPercentileMicros(0.50), stats.getPercentileMicros(0.99),
+                stats.getMaxMicros());
+    }
+}
@@ -0,0 +1,130 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.Subscriber;
+import com.phonebook.server.PhoneBookServer;
+import com.phonebook.server.RequestMetrics;
+import com.phonebook.service.FileDataService;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузочный тест HTTP-сервера на localhost: клиенты в отдельных потоках непрерывно отправляют
+ * запросы поиска по идентификатору (70%), по номеру телефона (20%) и по фамилии (10%).
+ * Выводит устойчивое количество запросов в секунду и время ответа на стороне клиента и сервера.
+ * java -Xmx4g com.phonebook.benchmark.HttpLoadBenchmark [клиенты] [секунды] [количество абонентов]
+ */
+public class HttpLoadBenchmark {
+
+    private static final int WARMUP_SECONDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        Configurator.setAllLevels(LogManager.ROOT_LOGGER_NAME, Level.WARN);
+
+        File dataFile = File.createTempFile("phonebook-http", ".dat");
+        dataFile.deleteOnExit();
+        new FileDataService(dataFile.getPath()).saveSubscribers(StoreMemoryBenchmark.generate(count));
+        PhoneBookService service = new PhoneBookService(dataFile.getPath(), StorageEngine.HEAP);
+
+        List<String> ids = new ArrayList<>();
+        List<String> phones = new ArrayList<>();
+        List<String> lastNames = new ArrayList<>();
+        for (Subscriber subscriber : service.getAllSubscribers()) {
+            ids.add(subscriber.getId());
+            lastNames.add(subscriber.getLastName());
+            for (PhoneNumber phone : subscriber.getPhoneNumbers()) {
+                phones.add(phone.getNumber().replaceAll("[^0-9+]", ""));
+            }
+        }
+
+        PhoneBookServer server = new PhoneBookServer(service, new InetSocketAddress("localhost", 0));
+        server.start();
+        String base = "http://localhost:" + server.getPort() + "/api/";
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        System.out.printf("%,d subscribers, %d clients, %d s (+%d s warmup), %d CPUs%n",
+                count, clients, seconds, WARMUP_SECONDS, Runtime.getRuntime().availableProcessors());
+
+        RequestMetrics clientMetrics = new RequestMetrics();
+        LongAdder failures = new LongAdder();
+        long warmupEnd = System.nanoTime() + WARMUP_SECONDS * 1_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+                    int kind = random.nextInt(10);
+                    String route;
+                    String path;
+                    if (kind < 7) {
+                        route = "id";
+                        path = "subscribers/" + ids.get(random.nextInt(ids.size()));
+                    } else if (kind < 9) {
+                        route = "phone";
+                        path = "phones/" + phones.get(random.nextInt(phones.size()));
+                    } else {
+                        route = "search";
+                        path = "subscribers?limit=20&q="
+                                + URLEncoder.encode(lastNames.get(random.nextInt(lastNames.size())), StandardCharsets.UTF_8);
+                    }
+                    try {
+                        HttpResponse<String> response = client.send(
+                                HttpRequest.newBuilder(URI.create(base + path)).build(), HttpResponse.BodyHandlers.ofString());
+                        long elapsed = System.nanoTime() - now;
+                        if (now >= warmupEnd) {
+                            clientMetrics.record(route, response.statusCode(), elapsed);
+                        }
+                        if (response.statusCode() != 200) {
+                            failures.increment();
+                        }
+                    } catch (Exception e) {
+                        failures.increment();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        server.stop(0);
+
+        long total = clientMetrics.getTotalCount();
+        System.out.printf("  sustained: %,.0f requests/s (%,d requests, %d failures)%n",
+                total / (double) seconds, total, failures.sum());
+        for (String route : new String[] {"id", "phone", "search"}) {
+            RequestMetrics.RouteStats stats = clientMetrics.getRoute(route);
+            if (stats != null) {
+                System.out.printf("  client %-7s %,9d  p50 %,7d us  p99 %,7d us  max %,7d us%n", route,
+                        stats.getCount(), stats.getPercentileMicros(0.50), stats.getPercentileMicros(0.99),
+                        stats.getMaxMicros());
+            }
+        }
+        for (String route : new String[] {"GET /api/subscribers/{id}", "GET /api/phones/{number}", "GET /api/subscribers"}) {
+            RequestMetrics.RouteStats stats = server.getMetrics().getRoute(route);
+            if (stats != null) {
+                System.out.printf("  server %-27s p50 %,7d us  p99 %,7d us%n", route,
+                        stats.getPercentileMicros(0.50), stats.getPercentileMicros(0.99));
+            }
+        }
+    }
+}
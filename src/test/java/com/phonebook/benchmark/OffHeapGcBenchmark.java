@@ -0,0 +1,88 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.StorageEngine;
+import com.phonebook.service.SubscriberStore;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Сравнение пауз сборщика мусора и занятой кучи для хранилищ в куче и вне кучи.
+ * Каждый способ хранения следует запускать в отдельной JVM, чтобы замеры не влияли друг на друга:
+ * java -Xmx4g -XX:MaxDirectMemorySize=4g com.phonebook.benchmark.OffHeapGcBenchmark heap|columnar|off_heap [количество]
+ */
+public class OffHeapGcBenchmark {
+
+    private static final AtomicLong pauses = new AtomicLong();
+    private static final AtomicLong totalPauseMillis = new AtomicLong();
+    private static final AtomicLong maxPauseMillis = new AtomicLong();
+
+    public static void main(String[] args) {
+        StorageEngine engine = StorageEngine.valueOf(args.length > 0 ? args[0].toUpperCase() : "OFF_HEAP");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        SubscriberStore store = engine.createStore();
+        List<Subscriber> generated = StoreMemoryBenchmark.generate(count);
+        store.rebuild(generated);
+        generated = null;
+        long heapAfterLoad = usedHeapAfterGc();
+
+        listenToGcPauses();
+        Random random = new Random(3);
+        long start = System.nanoTime();
+        for (int i = 0; i < 500_000; i++) {
+            // Смешанная нагрузка: чтение по индексу и изменение телефонов абонента
+            Subscriber subscriber = store.get(random.nextInt(store.size()));
+            if (i % 10 == 0) {
+                subscriber.addPhoneNumber(new PhoneNumber("+7 495 " + random.nextInt(10_000_000), PhoneType.WORK));
+                store.update(subscriber);
+            }
+            if (i % 50_000 == 0) {
+                // Периодическая полная сборка показывает стоимость обхода всей кучи
+                System.gc();
+            }
+        }
+        long workloadMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%-10s %,d subscribers%n", engine, store.size());
+        System.out.printf("  heap after load:  %,d MB%n", heapAfterLoad >> 20);
+        System.out.printf("  workload time:    %,d ms%n", workloadMillis);
+        System.out.printf("  GC pauses:        %d, total %,d ms, max %,d ms%n",
+                pauses.get(), totalPauseMillis.get(), maxPauseMillis.get());
+    }
+
+    private static void listenToGcPauses() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) bean).addNotificationListener((notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    // Параллельные циклы G1 и ZGC не останавливают приложение
+                    if (info.getGcName().contains("Concurrent")) {
+                        return;
+                    }
+                    long duration = info.getGcInfo().getDuration();
+                    pauses.incrementAndGet();
+                    totalPauseMillis.addAndGet(duration);
+                    maxPauseMillis.accumulateAndGet(duration, Math::max);
+                }
+            }, null, null);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
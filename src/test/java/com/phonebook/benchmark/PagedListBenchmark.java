@@ -0,0 +1,123 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.gui.PagedSubscriberList;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Время открытия и прокрутки таблицы и объем дополнительной памяти для копии снимка
+ * в обычном наблюдаемом списке и для постраничного списка. Снимок берется у сервиса
+ * с несколькими сегментами, как в приложении, поэтому в замер входит слияние сегментов.
+ * Открытие включает чтение первой страницы и поиск строки двоичным поиском, как после
+ * каждого изменения в таблице. Прокрутка имитирует таблицу, читающую окно из 40 видимых строк.
+ * java -Xmx4g com.phonebook.benchmark.PagedListBenchmark [heap|columnar|off_heap] [количество] [сегменты]
+ */
+public class PagedListBenchmark {
+
+    private static final int VISIBLE_ROWS = 40;
+    private static final int SCROLL_STEPS = 2_000;
+
+    public static void main(String[] args) throws IOException {
+        StorageEngine engine = StorageEngine.valueOf(args.length > 0 ? args[0].toUpperCase() : "COLUMNAR");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int shards = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        File file = File.createTempFile("paged-list", ".dat");
+        // Пустой файл сервис счел бы поврежденным; данные в него не сохраняются
+        file.delete();
+        PhoneBookService service = new PhoneBookService(file.getPath(), engine, shards);
+        service.setAutoSave(false);
+        service.replaceAll(StoreMemoryBenchmark.generate(count));
+        Subscriber probe = service.getAllSubscribers().get(count / 2);
+
+        System.out.printf("%-10s %,d subscribers, %d shards%n", engine, count, service.getShardCount());
+
+        long before = usedMemory();
+        long start = System.nanoTime();
+        ObservableList<Subscriber> copied = FXCollections.observableArrayList(service.getAllSubscribers());
+        copied.get(0);
+        locate(copied, probe);
+        long openNanos = System.nanoTime() - start;
+        long scrollNanos = scroll(copied);
+        report("observableArrayList", openNanos, scrollNanos, usedMemory() - before);
+        copied = null;
+
+        before = usedMemory();
+        PagedSubscriberList paged = new PagedSubscriberList();
+        for (int round = 0; round < 2; round++) {
+            // Второе открытие - после изменения, как при замене снимка в таблице
+            service.addSubscriber("Smith", "John", "");
+            start = System.nanoTime();
+            paged.setAll(service.getAllSubscribers());
+            paged.get(0);
+            int index = locate(paged, probe);
+            openNanos = System.nanoTime() - start;
+            if (index < 0) {
+                throw new IllegalStateException("Subscriber not found");
+            }
+        }
+        scrollNanos = scroll(paged);
+        report("PagedSubscriberList", openNanos, scrollNanos, usedMemory() - before);
+        System.out.println("  cached pages: " + paged.getCachedPageCount());
+    }
+
+    /**
+     * Находит строку абонента двоичным поиском, как таблица после изменения.
+     */
+    private static int locate(List<Subscriber> list, Subscriber subscriber) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Subscriber row = list instanceof PagedSubscriberList ? ((PagedSubscriberList) list).peek(mid) : list.get(mid);
+            if (row.compareTo(subscriber) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < list.size(); i++) {
+            if (list.get(i).equals(subscriber)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Прокручивает список от начала до конца равными шагами, читая видимое окно строк.
+     */
+    private static long scroll(List<Subscriber> list) {
+        long start = System.nanoTime();
+        long step = Math.max(1, (list.size() - VISIBLE_ROWS) / SCROLL_STEPS);
+        int checksum = 0;
+        for (long top = 0; top + VISIBLE_ROWS <= list.size(); top += step) {
+            for (int row = 0; row < VISIBLE_ROWS; row++) {
+                checksum += list.get((int) top + row).getLastName().length();
+            }
+        }
+        if (checksum == 42) {
+            System.out.println();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long openNanos, long scrollNanos, long bytes) {
+        System.out.printf("  %-20s open %,8.1f ms  scroll %,8.1f ms  extra heap %,d KB%n",
+                name, openNanos / 1e6, scrollNanos / 1e6, bytes / 1024);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
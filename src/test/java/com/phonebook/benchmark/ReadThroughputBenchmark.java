@@ -0,0 +1,85 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.FileDataService;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пропускная способность чтения сервиса в зависимости от количества потоков-читателей
+ * при одном параллельном писателе.
+ * java com.phonebook.benchmark.ReadThroughputBenchmark [heap|columnar|off_heap] [количество]
+ */
+public class ReadThroughputBenchmark {
+
+    private static final long MEASURE_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        StorageEngine engine = StorageEngine.valueOf(args.length > 0 ? args[0].toUpperCase() : "HEAP");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        File dataFile = File.createTempFile("phonebook-read", ".dat");
+        dataFile.deleteOnExit();
+        new FileDataService(dataFile.getPath()).saveSubscribers(StoreMemoryBenchmark.generate(count));
+        PhoneBookService service = new PhoneBookService(dataFile.getPath(), engine);
+        List<Subscriber> ids = service.getAllSubscribers();
+
+        System.out.printf("%-10s readers  ops/sec    (writer updates/sec)%n", engine);
+        for (int readers : new int[]{1, 2, 4, 8}) {
+            measure(service, ids, readers);
+        }
+    }
+
+    private static void measure(PhoneBookService service, List<Subscriber> ids, int readers)
+            throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        CountDownLatch done = new CountDownLatch(readers + 1);
+
+        for (int r = 0; r < readers; r++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long local = 0;
+                while (running.get()) {
+                    // Типичная смесь чтения: счетчики, снимок и поиск по идентификатору
+                    service.getSubscriberCount();
+                    service.getPhoneNumberCount();
+                    List<Subscriber> snapshot = service.getAllSubscribers();
+                    if (!snapshot.isEmpty()) {
+                        snapshot.get(random.nextInt(snapshot.size()));
+                    }
+                    service.findSubscriberById(ids.get(random.nextInt(ids.size())).getId());
+                    local++;
+                }
+                reads.add(local);
+                done.countDown();
+            }).start();
+        }
+
+        new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                Subscriber subscriber = ids.get(random.nextInt(ids.size()));
+                service.addPhoneNumber(subscriber, "+7 495 " + (1_000_000 + random.nextInt(9_000_000)), PhoneType.WORK);
+                writes.increment();
+            }
+            done.countDown();
+        }).start();
+
+        Thread.sleep(MEASURE_MILLIS);
+        running.set(false);
+        done.await();
+
+        double seconds = MEASURE_MILLIS / 1000.0;
+        System.out.printf("           %2d       %,12.0f  (%,.0f)%n",
+                readers, reads.sum() / seconds, writes.sum() / seconds);
+    }
+}
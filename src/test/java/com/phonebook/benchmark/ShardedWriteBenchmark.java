@@ -0,0 +1,80 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.FileDataService;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пропускная способность изменений в зависимости от количества потоков-писателей
+ * для сервиса с одним сегментом и с несколькими сегментами.
+ * Сохранение после каждого изменения отключено, чтобы измерялись только изменения в памяти.
+ * java com.phonebook.benchmark.ShardedWriteBenchmark [heap|columnar|off_heap] [количество] [сегменты]
+ */
+public class ShardedWriteBenchmark {
+
+    private static final long MEASURE_MILLIS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        StorageEngine engine = StorageEngine.valueOf(args.length > 0 ? args[0].toUpperCase() : "HEAP");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int shards = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        File dataFile = File.createTempFile("phonebook-sharded", ".dat");
+        dataFile.deleteOnExit();
+        new FileDataService(dataFile.getPath()).saveSubscribers(StoreMemoryBenchmark.generate(count));
+
+        System.out.printf("%-10s writers  1 shard ops/sec  %d shards ops/sec%n", engine, shards);
+        for (int writers : new int[]{1, 2, 4, 8}) {
+            double single = measure(open(dataFile, engine, 1), writers);
+            double sharded = measure(open(dataFile, engine, shards), writers);
+            System.out.printf("           %2d       %,14.0f  %,16.0f%n", writers, single, sharded);
+        }
+    }
+
+    private static PhoneBookService open(File dataFile, StorageEngine engine, int shards) {
+        PhoneBookService service = new PhoneBookService(dataFile.getPath(), engine, shards);
+        service.setAutoSave(false);
+        return service;
+    }
+
+    private static double measure(PhoneBookService service, int writers) throws InterruptedException {
+        List<Subscriber> subscribers = service.getAllSubscribers();
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder writes = new LongAdder();
+        CountDownLatch done = new CountDownLatch(writers);
+
+        for (int w = 0; w < writers; w++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long local = 0;
+                while (running.get()) {
+                    // Смесь изменений: добавление и удаление номера у случайного абонента
+                    Subscriber subscriber = subscribers.get(random.nextInt(subscribers.size()));
+                    String number = "+7 495 " + (1_000_000 + random.nextInt(9_000_000));
+                    if (service.addPhoneNumber(subscriber, number, PhoneType.WORK)) {
+                        Subscriber current = service.findSubscriberById(subscriber.getId());
+                        if (!current.getPhoneNumbers().isEmpty()) {
+                            service.removePhoneNumber(current, current.getPhoneNumbers().get(0));
+                        }
+                    }
+                    local += 2;
+                }
+                writes.add(local);
+                done.countDown();
+            }).start();
+        }
+
+        Thread.sleep(MEASURE_MILLIS);
+        running.set(false);
+        done.await();
+        return writes.sum() / (MEASURE_MILLIS / 1000.0);
+    }
+}
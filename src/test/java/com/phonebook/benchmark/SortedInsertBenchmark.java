@@ -0,0 +1,61 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.SortedSubscriberList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Сравнение упорядоченной вставки с добавлением в конец и пересортировкой списка.
+ * Запуск: java com.phonebook.benchmark.SortedInsertBenchmark [количество]
+ */
+public class SortedInsertBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Subscriber[] subscribers = generate(count);
+
+        // Прогрев
+        insertSorted(generate(10_000));
+        appendAndSort(generate(2_000));
+
+        long start = System.nanoTime();
+        insertSorted(subscribers);
+        long sortedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        appendAndSort(subscribers);
+        long resortTime = System.nanoTime() - start;
+
+        System.out.printf("Sequential inserts: %d%n", count);
+        System.out.printf("SortedSubscriberList.insert: %d ms%n", sortedTime / 1_000_000);
+        System.out.printf("ArrayList.add + sort:        %d ms%n", resortTime / 1_000_000);
+    }
+
+    private static void insertSorted(Subscriber[] subscribers) {
+        SortedSubscriberList list = new SortedSubscriberList();
+        for (Subscriber subscriber : subscribers) {
+            list.insert(subscriber);
+        }
+    }
+
+    private static void appendAndSort(Subscriber[] subscribers) {
+        List<Subscriber> list = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            list.add(subscriber);
+            list.sort(Comparator.naturalOrder());
+        }
+    }
+
+    private static Subscriber[] generate(int count) {
+        Random random = new Random(1);
+        Subscriber[] subscribers = new Subscriber[count];
+        for (int i = 0; i < count; i++) {
+            subscribers[i] = new Subscriber("Last" + random.nextInt(count), "First" + random.nextInt(200),
+                    "Middle" + random.nextInt(2_000));
+        }
+        return subscribers;
+    }
+}
@@ -0,0 +1,45 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.service.FileDataService;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import java.io.File;
+
+/**
+ * Время до появления первых абонентов и до полной загрузки файла: загрузка целиком
+ * в конструкторе сервиса против постепенной загрузки частями.
+ * Время до первого кадра и до готовности окна к работе записывает в журнал сам интерфейс.
+ * java -Xmx4g com.phonebook.benchmark.StartupBenchmark [heap|columnar|off_heap] [количество]
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        StorageEngine engine = StorageEngine.valueOf(args.length > 0 ? args[0].toUpperCase() : "HEAP");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+
+        File dataFile = File.createTempFile("phonebook-startup", ".dat");
+        dataFile.deleteOnExit();
+        new FileDataService(dataFile.getPath()).saveSubscribers(StoreMemoryBenchmark.generate(count));
+        System.out.printf("%-10s %,d subscribers, file %,d KB%n", engine, count, dataFile.length() / 1024);
+
+        long start = System.nanoTime();
+        PhoneBookService blocking = new PhoneBookService(dataFile.getPath(), engine);
+        long blockingMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("  full load:        first rows %,6d ms  all rows %,6d ms (%,d)%n",
+                blockingMillis, blockingMillis, blocking.getSubscriberCount());
+        blocking = null;
+        System.gc();
+
+        PhoneBookService progressive = PhoneBookService.createUnloaded(dataFile.getPath(), engine);
+        long[] firstChunk = new long[1];
+        start = System.nanoTime();
+        progressive.loadProgressively((loaded, progress) -> {
+            if (firstChunk[0] == 0) {
+                firstChunk[0] = System.nanoTime();
+            }
+        });
+        long end = System.nanoTime();
+        System.out.printf("  progressive load: first rows %,6d ms  all rows %,6d ms (%,d)%n",
+                (firstChunk[0] - start) / 1_000_000, (end - start) / 1_000_000, progressive.getSubscriberCount());
+    }
+}
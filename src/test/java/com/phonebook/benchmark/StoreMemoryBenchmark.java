@@ -0,0 +1,76 @@
+package com.phonebook.benchmark;
+
+import com.phonebook.model.NameDictionary;
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.StorageEngine;
+import com.phonebook.service.SubscriberStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Сравнение объема памяти на одного абонента для разных способов хранения.
+ * Запуск: java -Xmx4g com.phonebook.benchmark.StoreMemoryBenchmark [количество]
+ */
+public class StoreMemoryBenchmark {
+
+    private static final String[] LAST_NAMES = {
+            "Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев", "Петров", "Соколов", "Михайлов",
+            "Новиков", "Федоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семенов", "Егоров",
+            "Павлов", "Козлов", "Степанов", "Николаев", "Орлов", "Андреев", "Макаров", "Никитин"
+    };
+    private static final String[] FIRST_NAMES = {
+            "Александр", "Сергей", "Дмитрий", "Андрей", "Алексей", "Иван", "Михаил", "Елена",
+            "Ольга", "Наталья", "Татьяна", "Мария", "Анна", "Екатерина", "Николай", "Владимир"
+    };
+    private static final String[] MIDDLE_NAMES = {
+            "Александрович", "Сергеевич", "Дмитриевич", "Андреевич", "Иванович", "Михайлович",
+            "Александровна", "Сергеевна", "Дмитриевна", "Андреевна", "Ивановна", "Михайловна"
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        for (StorageEngine engine : StorageEngine.values()) {
+            long before = usedMemory();
+            SubscriberStore store = engine.createStore();
+            store.rebuild(generate(count));
+            long after = usedMemory();
+
+            System.out.printf("%-10s %,d subscribers: %,d bytes total, %.1f bytes per subscriber%n",
+                    engine, store.size(), after - before, (after - before) / (double) store.size());
+        }
+        System.out.println(NameDictionary.getDefault().report());
+    }
+
+    /**
+     * Генерирует абонентов, имена которых создаются заново, как при чтении из файла.
+     */
+    static List<Subscriber> generate(int count) {
+        Random random = new Random(1);
+        List<Subscriber> subscribers = new ArrayList<>(count);
+        PhoneType[] types = PhoneType.values();
+        for (int i = 0; i < count; i++) {
+            Subscriber subscriber = new Subscriber(
+                    new String(LAST_NAMES[random.nextInt(LAST_NAMES.length)] + (i % 5_000)),
+                    new String(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]),
+                    new String(MIDDLE_NAMES[random.nextInt(MIDDLE_NAMES.length)]));
+            for (int p = random.nextInt(4); p > 0; p--) {
+                subscriber.addPhoneNumber(new PhoneNumber(
+                        "+7 9" + (100_000_000 + random.nextInt(900_000_000)), types[random.nextInt(types.length)]));
+            }
+            subscribers.add(subscriber);
+        }
+        return subscribers;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
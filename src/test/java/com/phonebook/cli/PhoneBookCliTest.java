@@ -0,0 +1,156 @@
+package com.phonebook.cli;
+
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.FileDataService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для командной строки телефонной книги.
+ */
+class PhoneBookCliTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dataFile;
+    private ByteArrayOutputStream out;
+    private ByteArrayOutputStream err;
+
+    @BeforeEach
+    void setUp() {
+        dataFile = tempDir.resolve("phonebook.dat").toString();
+        out = new ByteArrayOutputStream();
+        err = new ByteArrayOutputStream();
+    }
+
+    private int run(String... args) {
+        String[] withFile = new String[args.length + 2];
+        System.arraycopy(args, 0, withFile, 0, args.length);
+        withFile[args.length] = "--file";
+        withFile[args.length + 1] = dataFile;
+        out.reset();
+        err.reset();
+        return PhoneBookCli.run(withFile, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String errors() {
+        return err.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testImportSkipsInvalidRowsAndExportsCsv() throws IOException {
+        Path csv = tempDir.resolve("import.csv");
+        Files.write(csv, List.of(
+                "last_name,first_name,middle_name,phones",
+                "Smith,John,,MOBILE:+79001234567|HOME:4951234567",
+                "Brown,Anna,Maria,",
+                "Sm1th,John,,",
+                "Green,Paul,,MOBILE:12"), StandardCharsets.UTF_8);
+
+        assertEquals(0, run("import", csv.toString()));
+        assertTrue(output().contains("Imported 2 subscribers"));
+        assertTrue(errors().contains("Skipped line 4"));
+        assertTrue(errors().contains("Skipped line 5"));
+        assertTrue(errors().contains("import finished in"));
+
+        Path exported = tempDir.resolve("export.csv");
+        assertEquals(0, run("export", exported.toString()));
+        List<String> lines = Files.readAllLines(exported, StandardCharsets.UTF_8);
+        assertEquals(List.of(
+                "last_name,first_name,middle_name,phones",
+                "Brown,Anna,Maria,",
+                "Smith,John,,MOBILE:+79001234567|HOME:4951234567"), lines);
+    }
+
+    @Test
+    void testSearchStatsAndVerify() throws IOException {
+        Subscriber smith = new Subscriber("Smith", "John", "");
+        Subscriber brown = new Subscriber("Brown", "Anna", "");
+        new FileDataService(dataFile).saveSubscribers(List.of(smith, brown));
+
+        assertEquals(0, run("search", "smi"));
+        assertEquals("Smith,John,,", output().trim());
+        assertTrue(errors().contains("Found 1 subscribers"));
+
+        assertEquals(0, run("stats"));
+        assertTrue(output().contains("Subscribers:   2"));
+
+        assertEquals(0, run("verify"));
+        assertTrue(output().contains("Checked 2 subscribers: 0 problems"));
+
+        new FileDataService(dataFile).saveSubscribers(List.of(smith, smith));
+        assertEquals(1, run("verify"));
+        assertTrue(output().contains("Duplicate id: " + smith.getId()));
+    }
+
+    @Test
+    void testBackupAndCompact() throws Exception {
+        new FileDataService(dataFile).saveSubscribers(List.of(new Subscriber("Smith", "John", "")));
+
+        Path backup = tempDir.resolve("copy.dat");
+        assertEquals(0, run("backup", backup.toString()));
+        assertEquals(1, new FileDataService(backup.toString()).loadSubscribers().size());
+
+        assertEquals(0, run("compact"));
+        assertTrue(output().contains("Compacted 1 subscribers"));
+    }
+
+    @Test
+    void testUnreadableDataFileIsNotOverwritten() throws Exception {
+        byte[] garbage = "not a phone book".getBytes(StandardCharsets.UTF_8);
+        Files.write(Path.of(dataFile), garbage);
+        Path csv = tempDir.resolve("import.csv");
+        Files.write(csv, List.of("last_name,first_name,middle_name,phones", "Smith,John,,MOBILE:+79001234567"),
+                StandardCharsets.UTF_8);
+
+        assertEquals(1, run("compact"));
+        assertTrue(errors().startsWith("Error: "), errors());
+        assertEquals(1, run("stats"));
+        assertEquals("", output());
+        assertEquals(1, run("import", csv.toString()));
+        assertArrayEquals(garbage, Files.readAllBytes(Path.of(dataFile)));
+    }
+
+    @Test
+    void testGenerateWritesCsvAndDataFile() throws Exception {
+        Path csv = tempDir.resolve("generated.csv");
+        assertEquals(0, run("generate", "1000", csv.toString(), "--seed", "5", "--malformed-rate", "0.1"));
+        assertTrue(output().contains("Generated 1000 subscribers"));
+        assertEquals(1001, Files.readAllLines(csv, StandardCharsets.UTF_8).size());
+
+        assertEquals(0, run("import", csv.toString()));
+        assertTrue(errors().contains("Skipped line"));
+        assertFalse(output().contains("Imported 1000 subscribers"));
+
+        Path data = tempDir.resolve("generated.dat");
+        assertEquals(0, run("generate", "1000", data.toString(), "--seed", "5"));
+        List<Subscriber> loaded = new FileDataService(data.toString()).loadSubscribers();
+        assertEquals(1000, loaded.size());
+        assertEquals(Files.readAllLines(csv, StandardCharsets.UTF_8).get(1).split(",")[0], loaded.get(0).getLastName());
+    }
+
+    @Test
+    void testRejectsUnknownCommandAndMissingArguments() {
+        assertFalse(PhoneBookCli.isCommand("--fullscreen"));
+        assertTrue(PhoneBookCli.isCommand("search"));
+
+        assertEquals(2, run("search"));
+        assertTrue(errors().contains("Missing argument: text"));
+        assertEquals(2, run("export", "--engine", "fast"));
+    }
+}
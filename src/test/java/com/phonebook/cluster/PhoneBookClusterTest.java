@@ -0,0 +1,227 @@
+package com.phonebook.cluster;
+
+import com.phonebook.Main;
+import com.phonebook.cli.PhoneBookCli;
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для кластера телефонной книги.
+ */
+class PhoneBookClusterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<Process> processes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (Process process : processes) {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private PhoneBookService createService(String name) {
+        PhoneBookService service = PhoneBookService.createUnloaded(tempDir.resolve(name).toString(), StorageEngine.HEAP);
+        service.setAutoSave(false);
+        return service;
+    }
+
+    private static List<String> ids(List<Subscriber> subscribers) {
+        List<String> ids = new ArrayList<>();
+        for (Subscriber subscriber : subscribers) {
+            ids.add(subscriber.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void testRingBalancesNodesAndMovesOnlyKeysOfNewNode() {
+        HashRing four = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"));
+        HashRing five = new HashRing(List.of("node-a", "node-b", "node-c", "node-d", "node-e"));
+        int keys = 40_000;
+        int[] counts = new int[4];
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            String id = UUID.randomUUID().toString();
+            int before = four.nodeFor(id);
+            int after = five.nodeFor(id);
+            counts[before]++;
+            if (before != after) {
+                assertEquals(4, after, "key moved between existing nodes");
+                moved++;
+            }
+        }
+        for (int count : counts) {
+            assertTrue(count > keys * 0.2 && count < keys * 0.3, "unbalanced node: " + count);
+        }
+        assertTrue(moved > keys * 0.15 && moved < keys * 0.25, "moved " + moved);
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of("node-a", "node-a")));
+    }
+
+    @Test
+    void testClusterMatchesSingleService() throws Exception {
+        List<PartitionNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new LocalPartition("local-" + i, createService("node" + i + ".dat")));
+        }
+        PhoneBookService reference = createService("reference.dat");
+        try (PhoneBookCluster cluster = new PhoneBookCluster(nodes)) {
+            for (int i = 0; i < 300; i++) {
+                Subscriber added = cluster.addSubscriber("Smith" + (char) ('a' + i % 26), "John" + (char) ('a' + i / 26), "",
+                        List.of(new PhoneNumber(String.format("+7900%07d", i), PhoneType.MOBILE)));
+                reference.putSubscriber(added);
+            }
+            for (PartitionNode node : nodes) {
+                assertTrue(node.count() > 50, "node " + node.getName() + " holds " + node.count());
+            }
+
+            assertEquals(ids(reference.searchSubscribers("").subList(0, 40)), ids(cluster.search("", 40)));
+            assertEquals(ids(reference.searchSubscribers("Smithc")), ids(cluster.search("Smithc", 1000)));
+
+            Subscriber owner = cluster.findByPhone("+7 900 000 0123").get(0);
+            assertTrue(cluster.updateSubscriber(owner.getId(), "Brown", "Anna", ""));
+            assertTrue(cluster.addPhoneNumber(owner.getId(), "+79991112233", PhoneType.HOME));
+            assertFalse(cluster.addPhoneNumber(owner.getId(), "+7 999 111 22 33", PhoneType.WORK));
+            assertEquals("Brown", cluster.findByPhone("+79991112233").get(0).getLastName());
+            assertTrue(cluster.removePhoneNumber(owner.getId(), "+79000000123"));
+            assertTrue(cluster.findByPhone("+79000000123").isEmpty());
+
+            // Номера индексируются узлами, поэтому новый координатор и запись в узел напрямую их видят
+            Subscriber direct = new Subscriber("Green", "Paul", "");
+            direct.addPhoneNumber(new PhoneNumber("+79995554433", PhoneType.WORK));
+            cluster.nodeFor(direct.getId()).put(direct);
+            assertEquals(direct.getId(), cluster.findByPhone("+7 999 555 44 33").get(0).getId());
+            try (PhoneBookCluster restarted = new PhoneBookCluster(nodes)) {
+                assertEquals(owner.getId(), restarted.findByPhone("+79991112233").get(0).getId());
+                assertTrue(restarted.deleteSubscriber(owner.getId()));
+                assertTrue(restarted.findByPhone("+79991112233").isEmpty());
+                assertNull(restarted.findSubscriberById(owner.getId()));
+                assertFalse(restarted.deleteSubscriber(owner.getId()));
+            }
+        }
+    }
+
+    @Test
+    void testMergeKeepsGlobalOrder() {
+        List<Subscriber> all = new ArrayList<>();
+        for (int i = 0; i < 26; i++) {
+            all.add(new Subscriber("Smith" + (char) ('a' + i), "John", ""));
+        }
+        List<List<Subscriber>> parts = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (int i = 0; i < all.size(); i++) {
+            parts.get(i % 3).add(all.get(i));
+        }
+        assertEquals(ids(all.subList(0, 10)), ids(PhoneBookCluster.merge(parts, 10)));
+        assertEquals(ids(all), ids(PhoneBookCluster.merge(parts, Integer.MAX_VALUE)));
+        assertTrue(PhoneBookCluster.merge(parts, 0).isEmpty());
+    }
+
+    @Test
+    void testClusterOfSeparateProcesses() throws Exception {
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            addresses.add("localhost:" + startNode(tempDir.resolve("node" + i + ".dat")));
+        }
+        Path csv = tempDir.resolve("import.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("last_name,first_name,middle_name,phones");
+        for (int i = 0; i < 150; i++) {
+            lines.add("Smith" + (char) ('a' + i % 26) + ",John,," + String.format("MOBILE:+7900%07d", i));
+        }
+        Files.write(csv, lines, StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream print = new PrintStream(out, true, StandardCharsets.UTF_8);
+        String nodeList = String.join(",", addresses);
+        assertEquals(0, PhoneBookCli.run(new String[] {"import", csv.toString(), "--nodes", nodeList}, print, print));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("Imported 150 subscribers into 3 nodes, total 150"));
+
+        List<PartitionNode> nodes = new ArrayList<>();
+        for (String address : addresses) {
+            nodes.add(RemotePartition.parse(address));
+        }
+        try (PhoneBookCluster cluster = new PhoneBookCluster(nodes)) {
+            Map<String, Integer> perNode = new HashMap<>();
+            for (Subscriber subscriber : cluster.search("", Integer.MAX_VALUE)) {
+                String node = cluster.nodeFor(subscriber.getId()).getName();
+                assertNotNull(cluster.nodeFor(subscriber.getId()).get(subscriber.getId()), "misplaced subscriber");
+                perNode.merge(node, 1, Integer::sum);
+            }
+            assertEquals(3, perNode.size());
+
+            List<Subscriber> found = cluster.findByPhone("+79000000042");
+            assertEquals(1, found.size());
+            assertEquals("Smithq", found.get(0).getLastName());
+            List<Subscriber> smiths = cluster.search("Smithq", 100);
+            assertEquals(6, smiths.size());
+
+            Subscriber added = cluster.addSubscriber("Brown", "Anna", "Petrovna",
+                    List.of(new PhoneNumber("+79991112233", PhoneType.WORK)));
+            assertEquals(added.getId(), cluster.findByPhone("+79991112233").get(0).getId());
+            assertTrue(cluster.updateSubscriber(added.getId(), "Brown", "Maria", ""));
+            assertEquals("Maria", cluster.findSubscriberById(added.getId()).getFirstName());
+            assertEquals(PhoneType.WORK, cluster.findSubscriberById(added.getId()).getPhoneNumbers().get(0).getType());
+        }
+
+        out.reset();
+        assertEquals(0, PhoneBookCli.run(new String[] {"stats", "--nodes", nodeList}, print, print));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("Subscribers:   151"));
+    }
+
+    /**
+     * Запускает узел командой serve в отдельной JVM.
+     *
+     * @return порт HTTP API узла
+     */
+    private int startNode(Path dataFile) throws Exception {
+        String classPath = String.join(File.pathSeparator,
+                codeSource(Main.class), codeSource(LogManager.class), codeSource(Configurator.class));
+        Process node = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-cp", classPath,
+                Main.class.getName(), "serve", "--port", "0", "--file", dataFile.toString())
+                .redirectErrorStream(true)
+                .start();
+        processes.add(node);
+        BufferedReader output = new BufferedReader(new InputStreamReader(node.getInputStream(), StandardCharsets.UTF_8));
+        Pattern serving = Pattern.compile("http://localhost:(\\d+)/api/");
+        for (String line = output.readLine(); line != null; line = output.readLine()) {
+            Matcher matcher = serving.matcher(line);
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+        throw new IllegalStateException("Node did not start");
+    }
+
+    private static String codeSource(Class<?> type) throws Exception {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+}
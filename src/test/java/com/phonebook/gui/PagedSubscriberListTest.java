@@ -0,0 +1,144 @@
+package com.phonebook.gui;
+
+import com.phonebook.model.Subscriber;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для постраничного списка абонентов.
+ */
+class PagedSubscriberListTest {
+
+    private List<Subscriber> source;
+    private PagedSubscriberList list;
+
+    @BeforeEach
+    void setUp() {
+        source = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            source.add(new Subscriber("Smith" + (char) ('a' + i / 26 % 26) + (char) ('a' + i % 26), "John", ""));
+        }
+        // Предварительная загрузка выполняется сразу в вызывающем потоке
+        list = new PagedSubscriberList(16, 4, Runnable::run);
+        list.setAll(source);
+    }
+
+    @Test
+    void testReadsPagesOnDemandWithBoundedCache() {
+        assertEquals(1000, list.size());
+        assertEquals(0, list.getCachedPageCount());
+
+        for (int i = 0; i < list.size(); i++) {
+            assertSame(source.get(i), list.get(i));
+            assertTrue(list.getCachedPageCount() <= 4);
+        }
+
+        // Чтение без кэша не вытесняет страницы
+        int cached = list.getCachedPageCount();
+        assertSame(source.get(5), list.peek(5));
+        assertEquals(cached, list.getCachedPageCount());
+    }
+
+    @Test
+    void testPrefetchesNeighbourPage() {
+        list.get(15);
+        // Последняя строка страницы: следующая страница загружена заранее
+        assertEquals(2, list.getCachedPageCount());
+    }
+
+    @Test
+    void testRowChangesOverSnapshot() {
+        List<ListChangeListener.Change<? extends Subscriber>> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<Subscriber>) change -> changes.add(change));
+
+        Subscriber added = new Subscriber("Adams", "John", "");
+        Subscriber replaced = new Subscriber("Baker", "John", "");
+        list.add(0, added);
+        Subscriber removed = list.remove(501);
+        list.set(10, replaced);
+
+        List<Subscriber> expected = new ArrayList<>(source);
+        expected.add(0, added);
+        expected.remove(501);
+        expected.set(10, replaced);
+
+        assertEquals(source.get(500), removed);
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), list.get(i));
+            assertSame(expected.get(i), list.peek(i));
+        }
+        assertEquals(3, changes.size());
+        assertFalse(list.isFragmented());
+    }
+
+    @Test
+    void testSetAllReplacesSnapshot() {
+        list.get(0);
+        list.add(0, new Subscriber("Adams", "John", ""));
+        for (int i = 0; i < 200; i++) {
+            list.set(i, new Subscriber("Baker", "John", ""));
+        }
+        assertTrue(list.isFragmented());
+
+        List<Integer> removedSizes = new ArrayList<>();
+        list.addListener((ListChangeListener<Subscriber>) change -> {
+            while (change.next()) {
+                removedSizes.add(change.getRemovedSize());
+            }
+        });
+        List<Subscriber> replacement = source.subList(0, 10);
+        list.setAll(replacement);
+
+        assertEquals(List.of(1001), removedSizes);
+        assertEquals(10, list.size());
+        assertEquals(0, list.getCachedPageCount());
+        assertFalse(list.isFragmented());
+        assertSame(source.get(9), list.get(9));
+    }
+
+    @Test
+    void testSetAllDoesNotReadReplacedRows() {
+        int[] reads = new int[1];
+        class CountingList extends AbstractList<Subscriber> implements RandomAccess {
+            @Override
+            public Subscriber get(int index) {
+                reads[0]++;
+                return source.get(index);
+            }
+
+            @Override
+            public int size() {
+                return source.size();
+            }
+        }
+        List<Subscriber> counted = new CountingList();
+        list.setAll(counted);
+        list.get(0);
+        int readsBefore = reads[0];
+
+        List<List<? extends Subscriber>> removed = new ArrayList<>();
+        list.addListener((ListChangeListener<Subscriber>) change -> {
+            while (change.next()) {
+                assertTrue(change.wasReplaced());
+                assertEquals(0, change.getFrom());
+                assertEquals(10, change.getTo());
+                assertEquals(1000, change.getRemovedSize());
+                removed.add(change.getRemoved());
+            }
+        });
+        list.setAll(source.subList(0, 10));
+
+        // Прежние строки читаются только по запросу слушателя
+        assertEquals(readsBefore, reads[0]);
+        assertEquals(1, removed.size());
+        assertSame(source.get(500), removed.get(0).get(500));
+        assertEquals(readsBefore + 1, reads[0]);
+    }
+}
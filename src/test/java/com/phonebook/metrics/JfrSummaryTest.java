@@ -0,0 +1,76 @@
+package com.phonebook.metrics;
+
+import com.phonebook.cli.PhoneBookCli;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для событий JFR и сводки записи.
+ */
+class JfrSummaryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRecordingSummarizesPhoneBookEvents() throws Exception {
+        Path recordingFile = tempDir.resolve("phonebook.jfr");
+        Path dataFile = tempDir.resolve("phonebook.dat");
+        try (Recording recording = new Recording(FlightRecording.settings())) {
+            // В профиле записываются только медленные проверки
+            recording.enable(ValidationEvent.class).withoutThreshold();
+            recording.start();
+
+            PhoneBookService service = new PhoneBookService(dataFile.toString(), StorageEngine.HEAP);
+            service.setAutoSave(false);
+            for (int i = 0; i < 20; i++) {
+                Subscriber subscriber = service.addSubscriber("Smith" + (char) ('a' + i), "John", "");
+                service.addPhoneNumber(subscriber, "+7900123456" + (i % 10), PhoneType.MOBILE);
+            }
+            assertNull(service.addSubscriber("Sm1th", "John", ""));
+            assertEquals(1, service.searchSubscribers("Smithc").size());
+            assertTrue(service.saveData());
+            assertTrue(service.reloadData());
+            service.sortSubscribers();
+
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        JfrSummary summary = JfrSummary.read(recordingFile);
+        long fileSize = Files.size(dataFile);
+        JfrSummary.OperationStats save = summary.getOperation("com.phonebook.Save");
+        assertEquals(1, save.getCount());
+        assertEquals(20, save.getRecords());
+        assertEquals(fileSize, save.getBytes());
+        JfrSummary.OperationStats load = summary.getOperation("com.phonebook.Load");
+        assertEquals(1, load.getCount());
+        assertEquals(20, load.getRecords());
+        assertEquals(fileSize, load.getBytes());
+        JfrSummary.OperationStats search = summary.getOperation("com.phonebook.Search");
+        assertEquals(1, search.getCount());
+        assertEquals(1, search.getRecords());
+        assertEquals(20, summary.getOperation("com.phonebook.Sort").getRecords());
+        assertEquals(41, summary.getOperation("com.phonebook.Validation").getCount());
+        assertTrue(save.getTotalNanos() > 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream print = new PrintStream(out, true, StandardCharsets.UTF_8);
+        assertEquals(0, PhoneBookCli.run(new String[] {"jfr", recordingFile.toString()}, print, print));
+        String report = out.toString(StandardCharsets.UTF_8);
+        assertTrue(report.contains("com.phonebook.Save"), report);
+        assertTrue(report.contains("com.phonebook.Search"), report);
+        assertEquals(1, PhoneBookCli.run(new String[] {"jfr", tempDir.resolve("missing.jfr").toString()}, print, print));
+    }
+}
@@ -0,0 +1,135 @@
+package com.phonebook.metrics;
+
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для метрик телефонной книги.
+ */
+class MetricsRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testBucketsCoverValuesWithBoundedError() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong(Long.MAX_VALUE) >>> random.nextInt(63);
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.upperBound(index);
+            assertTrue(upper >= value, "value " + value + " above bucket " + index);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value, "value " + value + " below bucket " + index);
+            assertTrue(upper - value <= value / 32, "bucket of " + value + " is too wide");
+        }
+        assertEquals(LatencyHistogram.upperBound(LatencyHistogram.indexOf(Long.MAX_VALUE)), Long.MAX_VALUE);
+    }
+
+    @Test
+    void testPercentilesOfUniformLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000L);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000.5, histogram.getMeanMicros(), 0.01);
+        assertEquals(10_000.0, histogram.getMaxMicros());
+        assertEquals(5_000, histogram.getP50Micros(), 5_000 / 32.0);
+        assertEquals(9_900, histogram.getP99Micros(), 9_900 / 32.0);
+        assertTrue(histogram.getP50Micros() >= 5_000);
+        assertTrue(histogram.getP999Micros() <= histogram.getMaxMicros());
+        assertEquals(0, new LatencyHistogram().getP99Micros());
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(99_999, histogram.getMaxNanos());
+    }
+
+    @Test
+    void testRegistryIsPublishedAsMBeans() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram(Operation.SEARCH).record(2_000_000);
+        registry.add(Counter.BYTES_WRITTEN, 4096);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        registry.registerMBeans(server);
+
+        ObjectName search = new ObjectName(MetricsRegistry.DOMAIN + ":type=Latency,operation=search");
+        assertEquals(1L, server.getAttribute(search, "Count"));
+        assertEquals(2_000.0, (Double) server.getAttribute(search, "P99Micros"), 2_000 / 32.0);
+        ObjectName counters = new ObjectName(MetricsRegistry.DOMAIN + ":type=Metrics");
+        assertEquals(4096L, server.getAttribute(counters, "BytesWritten"));
+        assertTrue(((String) server.getAttribute(counters, "Report")).contains("bytes_written        4096"));
+    }
+
+    @Test
+    void testServiceRecordsOperations() {
+        MetricsRegistry metrics = MetricsRegistry.getDefault();
+        long searches = metrics.histogram(Operation.SEARCH).getCount();
+        long adds = metrics.histogram(Operation.ADD).getCount();
+        long updates = metrics.histogram(Operation.UPDATE).getCount();
+        long deletes = metrics.histogram(Operation.DELETE).getCount();
+        long saves = metrics.histogram(Operation.SAVE).getCount();
+        long loads = metrics.histogram(Operation.LOAD).getCount();
+        long added = metrics.get(Counter.SUBSCRIBERS_ADDED);
+        long deleted = metrics.get(Counter.SUBSCRIBERS_DELETED);
+        long phonesAdded = metrics.get(Counter.PHONES_ADDED);
+        long phonesRemoved = metrics.get(Counter.PHONES_REMOVED);
+        long written = metrics.get(Counter.BYTES_WRITTEN);
+        long read = metrics.get(Counter.BYTES_READ);
+
+        String file = tempDir.resolve("metrics.dat").toString();
+        PhoneBookService service = new PhoneBookService(file, StorageEngine.HEAP);
+        service.setAutoSave(false);
+        Subscriber smith = service.addSubscriber("Smith", "John", "");
+        service.addPhoneNumber(smith, "+79001234567", PhoneType.MOBILE);
+        service.addPhoneNumber(smith, "+79007654321", PhoneType.WORK);
+        service.updateSubscriber(smith, "Smith", "Jack", "");
+        service.transaction(tx -> tx.addPhoneNumber(tx.addSubscriber("Brown", "Anna", ""), "+79001112233", PhoneType.HOME));
+        service.searchSubscribers("Smith");
+        assertTrue(service.saveData());
+        service.deleteSubscriber(smith);
+        assertTrue(service.reloadData());
+
+        assertEquals(1, metrics.histogram(Operation.SEARCH).getCount() - searches);
+        assertEquals(1, metrics.histogram(Operation.ADD).getCount() - adds);
+        assertEquals(3, metrics.histogram(Operation.UPDATE).getCount() - updates);
+        assertEquals(1, metrics.histogram(Operation.DELETE).getCount() - deletes);
+        assertEquals(1, metrics.histogram(Operation.SAVE).getCount() - saves);
+        assertEquals(1, metrics.histogram(Operation.LOAD).getCount() - loads);
+        assertEquals(2, metrics.get(Counter.SUBSCRIBERS_ADDED) - added);
+        assertEquals(1, metrics.get(Counter.SUBSCRIBERS_DELETED) - deleted);
+        assertEquals(3, metrics.get(Counter.PHONES_ADDED) - phonesAdded);
+        assertEquals(2, metrics.get(Counter.PHONES_REMOVED) - phonesRemoved);
+        long fileSize = tempDir.resolve("metrics.dat").toFile().length();
+        assertEquals(fileSize, metrics.get(Counter.BYTES_WRITTEN) - written);
+        assertEquals(fileSize, metrics.get(Counter.BYTES_READ) - read);
+    }
+}
@@ -0,0 +1,88 @@
+package com.phonebook.model;
+
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для словаря имен.
+ */
+class NameDictionaryTest {
+
+    @Test
+    void testInternSharesInstances() {
+        NameDictionary dictionary = new NameDictionary();
+        String first = dictionary.intern(new String("Иван"));
+        String second = dictionary.intern(new String("Иван"));
+
+        assertSame(first, second);
+        assertEquals(1, dictionary.size());
+        assertEquals(1, dictionary.getDeduplicatedCount());
+        assertTrue(dictionary.getSavedBytes() > 0);
+        assertNull(dictionary.intern(null));
+    }
+
+    @Test
+    void testIds() {
+        NameDictionary dictionary = new NameDictionary();
+        int id = dictionary.idOf("Петрович");
+
+        assertEquals(id, dictionary.idOf(new String("Петрович")));
+        assertNotEquals(id, dictionary.idOf("Сергеевич"));
+        assertEquals("Петрович", dictionary.nameOf(id));
+    }
+
+    @Test
+    void testGrowth() {
+        NameDictionary dictionary = new NameDictionary();
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i, dictionary.idOf("Name" + i));
+        }
+        assertEquals("Name999", dictionary.nameOf(999));
+    }
+
+    @Test
+    void testLimit() {
+        NameDictionary dictionary = new NameDictionary(2);
+        String ivan = dictionary.intern("Иван");
+        dictionary.intern("Петр");
+        assertTrue(dictionary.isFull());
+
+        // Новые имена не добавляются, известные по-прежнему дедуплицируются
+        String sergey = new String("Сергей");
+        assertSame(sergey, dictionary.intern(sergey));
+        assertSame(ivan, dictionary.intern(new String("Иван")));
+        assertEquals(2, dictionary.size());
+        assertTrue(dictionary.accepts("Иван"));
+        assertTrue(dictionary.accepts(null));
+        assertFalse(dictionary.accepts("Сергей"));
+
+        // Номер для принятого абонента выдается и сверх предела
+        assertEquals("Сергей", dictionary.nameOf(dictionary.idOf("Сергей")));
+        assertTrue(dictionary.accepts("Сергей"));
+    }
+
+    @Test
+    void testSubscriberNamesAreShared() throws Exception {
+        Subscriber first = new Subscriber(new String("Smith"), new String("John"), new String("David"));
+        Subscriber second = new Subscriber(new String("Jones"), new String("John"), new String("David"));
+        assertSame(first.getFirstName(), second.getFirstName());
+
+        second.setMiddleName(new String("David"));
+        assertSame(first.getMiddleName(), second.getMiddleName());
+
+        // Имена, прочитанные из потока, также заменяются экземплярами из словаря
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(first);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Subscriber loaded = (Subscriber) in.readObject();
+            assertSame(first.getLastName(), loaded.getLastName());
+            assertSame(first.getFirstName(), loaded.getFirstName());
+        }
+    }
+}
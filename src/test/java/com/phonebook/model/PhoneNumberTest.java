@@ -57,4 +57,47 @@ class PhoneNumberTest {
         assertEquals(phone1.hashCode(), phone2.hashCode());
         assertNotEquals(phone1.hashCode(), phone3.hashCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompactEncoding() {
+        PhoneNumber plain = new PhoneNumber("+0012345", PhoneType.MOBILE);
+        assertEquals("+0012345", plain.getNumber());
+        assertEquals(12345, plain.getDigits());
+        assertEquals(7, plain.getDigitCount());
+        assertTrue(plain.isInternational());
+        assertNull(plain.getFormatting());
+
+        // Исходная запись сохраняется только если отличается от цифр
+        PhoneNumber formatted = new PhoneNumber("+1 (234) 567-890", PhoneType.HOME);
+        assertEquals("+1 (234) 567-890", formatted.getNumber());
+        assertEquals(1234567890L, formatted.getDigits());
+        assertEquals("+1 (234) 567-890", formatted.getFormatting());
+
+        PhoneNumber tooLong = new PhoneNumber("1234567890123456789012", PhoneType.WORK);
+        assertEquals("1234567890123456789012", tooLong.getNumber());
+        assertEquals(-1, tooLong.getDigits());
+
+        assertEquals("", new PhoneNumber("", PhoneType.OTHER).getNumber());
+        assertNull(new PhoneNumber(null, PhoneType.OTHER).getNumber());
+    }
+
+    @Test
+    void testSerializationKeepsFileFormat() throws Exception {
+        PhoneNumber phone = new PhoneNumber("8 (800) 555-35-35", PhoneType.WORK);
+
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+            out.writeObject(phone);
+        }
+        try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
+                new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(phone, in.readObject());
+        }
+
+        // Поля потока совпадают с прежними полями класса
+        java.io.ObjectStreamClass streamClass = java.io.ObjectStreamClass.lookup(PhoneNumber.class);
+        assertEquals(2, streamClass.getFields().length);
+        assertNotNull(streamClass.getField("number"));
+        assertNotNull(streamClass.getField("type"));
+    }
+}
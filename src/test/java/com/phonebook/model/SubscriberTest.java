@@ -165,6 +165,34 @@ class SubscriberTest {
         assertEquals(0, subscriber1.compareTo(sameAs1));
     }
 
+    @Test
+    void testRussianCollation() {
+        Subscriber yolkin = new Subscriber("Ёлкин", "Иван", "Петрович");
+        Subscriber ershov = new Subscriber("Ершов", "Иван", "Петрович");
+        Subscriber eliseev = new Subscriber("Елисеев", "Иван", "Петрович");
+        Subscriber zhukov = new Subscriber("Жуков", "Иван", "Петрович");
+
+        // Ё сортируется вместе с Е, а не после Я
+        assertTrue(eliseev.compareTo(yolkin) < 0);
+        assertTrue(yolkin.compareTo(ershov) < 0);
+        assertTrue(ershov.compareTo(zhukov) < 0);
+
+        // Регистр не влияет на порядок
+        assertEquals(0, new Subscriber("ершов", "иван", "петрович").compareTo(ershov));
+
+        // Латиница идет перед кириллицей
+        assertTrue(new Subscriber("Smith", "John", "David").compareTo(yolkin) < 0);
+    }
+
+    @Test
+    void testSortKeyRebuiltAfterRename() {
+        Subscriber other = new Subscriber("Jones", "John", "David");
+        assertTrue(subscriber.compareTo(other) > 0);
+
+        subscriber.setLastName("Adams");
+        assertTrue(subscriber.compareTo(other) < 0);
+    }
+
     @Test
     void testEqualsAndHashCode() {
         Subscriber subscriber1 = new Subscriber("Smith", "John", "David");
@@ -181,4 +209,62 @@ class SubscriberTest {
         // Проверка на один и тот же объект
         assertEquals(subscriber1, subscriber1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompactId() {
+        String id = subscriber.getId();
+        assertTrue(SubscriberIds.isCanonical(id));
+        assertNull(subscriber.getLegacyId());
+
+        Subscriber loaded = new Subscriber(id, "Smith", "John", "David", List.of());
+        assertEquals(subscriber, loaded);
+        assertEquals(subscriber.getIdHigh(), loaded.getIdHigh());
+        assertEquals(subscriber.getIdLow(), loaded.getIdLow());
+        assertEquals(id, loaded.getId());
+
+        // Идентификаторы упорядочены по времени создания
+        Subscriber later = new Subscriber("Jones", "John", "David");
+        assertTrue(Long.compareUnsigned(subscriber.getIdHigh() >>> 16, later.getIdHigh() >>> 16) <= 0);
+    }
+
+    @Test
+    void testLegacyIdPreserved() throws Exception {
+        Subscriber uppercase = new Subscriber("0C2D6F0E-1B7A-4A8B-9C3D-5E6F7A8B9C0D", "Smith", "John", "David", List.of());
+        Subscriber custom = new Subscriber("subscriber-42", "Smith", "John", "David", List.of());
+        assertEquals("0C2D6F0E-1B7A-4A8B-9C3D-5E6F7A8B9C0D", uppercase.getId());
+        assertEquals("subscriber-42", custom.getId());
+        assertNotEquals(uppercase, custom);
+
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+            out.writeObject(custom);
+        }
+        try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
+                new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+            Subscriber loaded = (Subscriber) in.readObject();
+            assertEquals(custom, loaded);
+            assertEquals("subscriber-42", loaded.getId());
+        }
+    }
+
+    @Test
+    void testFreezeAndCopy() {
+        subscriber.addPhoneNumber(new PhoneNumber("+1234567890", PhoneType.MOBILE));
+        Subscriber frozen = subscriber.copy().freeze();
+
+        assertTrue(frozen.isFrozen());
+        assertEquals(subscriber, frozen);
+        assertThrows(UnsupportedOperationException.class, () -> frozen.setLastName("Jones"));
+        assertThrows(UnsupportedOperationException.class,
+                () -> frozen.addPhoneNumber(new PhoneNumber("0987654321", PhoneType.HOME)));
+
+        // Копия не зависит от исходного абонента
+        subscriber.addPhoneNumber(new PhoneNumber("0987654321", PhoneType.HOME));
+        assertEquals(1, frozen.getPhoneNumberCount());
+
+        Subscriber editable = frozen.copy();
+        assertFalse(editable.isFrozen());
+        editable.setLastName("Jones");
+        assertEquals("Smith", frozen.getLastName());
+    }
+}
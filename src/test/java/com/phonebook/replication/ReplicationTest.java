@@ -0,0 +1,201 @@
+package com.phonebook.replication;
+
+import com.phonebook.Main;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для репликации журнала изменений.
+ */
+class ReplicationTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            resources.get(i).close();
+        }
+    }
+
+    private PhoneBookService primaryService() {
+        PhoneBookService service = new PhoneBookService(tempDir.resolve("primary.dat").toString(), StorageEngine.HEAP);
+        service.setAutoSave(false);
+        for (int i = 0; i < 100; i++) {
+            service.addSubscriber("Smith" + (char) ('a' + i % 26), "John", "");
+        }
+        return service;
+    }
+
+    private ReplicationPrimary startPrimary(PhoneBookService service, int journalCapacity) throws Exception {
+        ReplicationPrimary primary = new ReplicationPrimary(service, new InetSocketAddress("localhost", 0), journalCapacity);
+        primary.start();
+        resources.add(primary::stop);
+        return primary;
+    }
+
+    private ReplicationFollower startFollower(PhoneBookService service, ReplicationPrimary primary) {
+        ReplicationFollower follower = new ReplicationFollower(service, "localhost", primary.getPort());
+        follower.start();
+        resources.add(follower);
+        return follower;
+    }
+
+    private static void assertSameContent(PhoneBookService expected, PhoneBookService actual) {
+        List<Subscriber> expectedSubscribers = expected.getAllSubscribers();
+        List<Subscriber> actualSubscribers = actual.getAllSubscribers();
+        assertEquals(expectedSubscribers.size(), actualSubscribers.size());
+        for (int i = 0; i < expectedSubscribers.size(); i++) {
+            assertEquals(expectedSubscribers.get(i).getId(), actualSubscribers.get(i).getId());
+            assertEquals(expectedSubscribers.get(i).getFullName(), actualSubscribers.get(i).getFullName());
+            assertEquals(expectedSubscribers.get(i).getPhoneNumbers(), actualSubscribers.get(i).getPhoneNumbers());
+        }
+    }
+
+    @Test
+    void testFollowerAppliesSnapshotAndJournal() throws Exception {
+        PhoneBookService primaryService = primaryService();
+        ReplicationPrimary primary = startPrimary(primaryService, ReplicationPrimary.DEFAULT_JOURNAL_CAPACITY);
+        PhoneBookService replica = PhoneBookService.createUnloaded(tempDir.resolve("replica.dat").toString(),
+                StorageEngine.COLUMNAR);
+        ReplicationFollower follower = startFollower(replica, primary);
+        assertTrue(follower.awaitSequence(primary.getSequence(), TIMEOUT_MILLIS));
+        assertEquals(1, follower.getSnapshotCount());
+        assertSameContent(primaryService, replica);
+
+        Subscriber added = primaryService.addSubscriber("Brown", "Anna", "");
+        primaryService.addPhoneNumber(added, "+79001234567", PhoneType.MOBILE);
+        Subscriber first = primaryService.getAllSubscribers().get(5);
+        primaryService.updateSubscriber(first, "Green", "Paul", "");
+        primaryService.deleteSubscriber(primaryService.getAllSubscribers().get(10));
+
+        assertTrue(follower.awaitSequence(primary.getSequence(), TIMEOUT_MILLIS));
+        assertSameContent(primaryService, replica);
+        assertEquals(0, follower.getLagEntries());
+        assertEquals(0, follower.getLagMillis());
+        assertEquals(1, follower.getSnapshotCount());
+    }
+
+    @Test
+    void testFollowerResumesOrCatchesUpFromSnapshot() throws Exception {
+        PhoneBookService primaryService = primaryService();
+        ReplicationPrimary primary = startPrimary(primaryService, 16);
+        PhoneBookService replica = PhoneBookService.createUnloaded(tempDir.resolve("replica.dat").toString(),
+                StorageEngine.HEAP);
+        replica.setAutoSave(false);
+        ReplicationFollower follower = startFollower(replica, primary);
+        assertTrue(follower.awaitSequence(primary.getSequence(), TIMEOUT_MILLIS));
+
+        // Пропущенные записи еще в журнале: реплика продолжает с последней примененной
+        follower.disconnect();
+        for (int i = 0; i < 5; i++) {
+            primaryService.addSubscriber("Adams", "John", "");
+        }
+        assertTrue(follower.awaitSequence(primary.getSequence(), TIMEOUT_MILLIS));
+        assertEquals(1, follower.getSnapshotCount());
+        assertSameContent(primaryService, replica);
+
+        // Пропущенные записи вытеснены из журнала: реплика получает новый снимок
+        follower.disconnect();
+        for (int i = 0; i < 50; i++) {
+            primaryService.addSubscriber("Baker", "John", "");
+        }
+        assertTrue(follower.awaitSequence(primary.getSequence(), TIMEOUT_MILLIS));
+        assertEquals(2, follower.getSnapshotCount());
+        assertSameContent(primaryService, replica);
+
+        // Крупная транзакция публикуется заменой данных и передается снимком
+        primaryService.transaction(tx -> {
+            for (int i = 0; i < 2_000; i++) {
+                tx.addSubscriber("Clark", "John", "");
+            }
+        });
+        assertTrue(follower.awaitSequence(primary.getSequence(), TIMEOUT_MILLIS));
+        assertEquals(3, follower.getSnapshotCount());
+        assertSameContent(primaryService, replica);
+    }
+
+    @Test
+    void testReplicaInSeparateJvmServesReads() throws Exception {
+        PhoneBookService primaryService = primaryService();
+        ReplicationPrimary primary = startPrimary(primaryService, ReplicationPrimary.DEFAULT_JOURNAL_CAPACITY);
+
+        // Классы приложения и журнала берутся оттуда же, откуда их загрузил тест
+        String classPath = String.join(File.pathSeparator,
+                codeSource(Main.class), codeSource(LogManager.class), codeSource(Configurator.class));
+        Process replica = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(), "-cp", classPath,
+                Main.class.getName(), "serve", "--port", "0",
+                "--replicate-from", "localhost:" + primary.getPort(),
+                "--file", tempDir.resolve("replica.dat").toString())
+                .redirectErrorStream(true)
+                .start();
+        resources.add(() -> {
+            replica.destroy();
+            replica.waitFor(10, TimeUnit.SECONDS);
+        });
+
+        BufferedReader output = new BufferedReader(new InputStreamReader(replica.getInputStream(), StandardCharsets.UTF_8));
+        Pattern serving = Pattern.compile("http://localhost:(\\d+)/api/");
+        int port = -1;
+        for (String line = output.readLine(); line != null && port < 0; line = output.readLine()) {
+            Matcher matcher = serving.matcher(line);
+            if (matcher.find()) {
+                port = Integer.parseInt(matcher.group(1));
+            }
+        }
+        assertTrue(port > 0, "replica did not start");
+
+        Subscriber added = primaryService.addSubscriber("Brown", "Anna", "");
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create("http://localhost:" + port + "/api/subscribers/" + added.getId());
+        HttpResponse<String> response = null;
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"lastName\":\"Brown\""));
+
+        HttpResponse<String> write = client.send(HttpRequest.newBuilder(uri).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, write.statusCode());
+        assertEquals(1, primary.getFollowerCount());
+    }
+
+    private static String codeSource(Class<?> type) throws Exception {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+}
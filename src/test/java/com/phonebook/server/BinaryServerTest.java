@@ -0,0 +1,106 @@
+package com.phonebook.server;
+
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для сервера и клиента двоичного протокола.
+ */
+class BinaryServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PhoneBookService service;
+    private BinaryServer server;
+    private BinaryClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        service = new PhoneBookService(tempDir.resolve("phonebook.dat").toString(), StorageEngine.HEAP);
+        service.setAutoSave(false);
+        for (int i = 0; i < 500; i++) {
+            Subscriber subscriber = service.addSubscriber("Smith" + (char) ('a' + i % 26), "John", "");
+            service.addPhoneNumber(subscriber, "+7900" + (1_000_000 + i), PhoneType.MOBILE);
+        }
+        server = new BinaryServer(service, new InetSocketAddress("localhost", 0));
+        server.start();
+        client = new BinaryClient("localhost", server.getPort());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    void testFindByPhone() throws IOException {
+        List<Subscriber> found = client.findByPhone("+7 900 100-00-42");
+        assertEquals(1, found.size());
+        Subscriber expected = service.findSubscriberById(found.get(0).getId());
+        assertEquals(expected.getFullName(), found.get(0).getFullName());
+        assertEquals(expected.getPhoneNumbers(), found.get(0).getPhoneNumbers());
+
+        assertTrue(client.findByPhone("+79009999999").isEmpty());
+    }
+
+    @Test
+    void testSearchByPrefix() throws IOException {
+        List<Subscriber> found = client.searchByPrefix("+7900100010", 100);
+        assertEquals(10, found.size());
+        assertEquals("+79001000100", found.get(0).getPhoneNumbers().get(0).getNumber());
+        assertEquals(3, client.searchByPrefix("+7900", 3).size());
+    }
+
+    @Test
+    void testPipelinedRequestsAnsweredInOrder() throws IOException {
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            numbers.add("+7900" + (1_000_000 + i));
+        }
+        List<List<Subscriber>> results = client.findByPhones(numbers);
+        assertEquals(numbers.size(), results.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            assertEquals(i < 500 ? 1 : 0, results.get(i).size());
+        }
+        // Соединение остается пригодным после конвейерных запросов
+        assertEquals(1, client.findByPhone(numbers.get(7)).size());
+        assertEquals(1_001, server.getMetrics().getRoute("findByPhone").getCount());
+    }
+
+    @Test
+    void testRejectsUnknownOperationAndOversizedFrame() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeInt(5);
+            out.writeInt(42);
+            out.writeByte(99);
+            out.flush();
+            in.readInt();
+            assertEquals(42, in.readInt());
+            assertEquals(BinaryProtocol.STATUS_ERROR, in.readByte());
+            assertTrue(BinaryProtocol.readString(in).contains("Unknown operation"));
+
+            out.writeInt(BinaryProtocol.MAX_FRAME_LENGTH + 1);
+            out.flush();
+            assertEquals(-1, in.read());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.phonebook.server;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookService;
+import com.phonebook.service.StorageEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для HTTP-сервера телефонной книги.
+ */
+class PhoneBookServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PhoneBookService service;
+    private PhoneBookServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new PhoneBookService(tempDir.resolve("phonebook.dat").toString(), StorageEngine.HEAP);
+        server = new PhoneBookServer(service, new InetSocketAddress("localhost", 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testCrudAndLookupByPhone() throws Exception {
+        HttpResponse<String> created = send("POST", "/api/subscribers",
+                "{\"lastName\":\"Smith\",\"firstName\":\"John\",\"phones\":[{\"number\":\"+7 900 123-45-67\",\"type\":\"MOBILE\"}]}");
+        assertEquals(201, created.statusCode());
+        String id = (String) Json.parseObject(created.body()).get("id");
+        assertNotNull(service.findSubscriberById(id));
+
+        HttpResponse<String> found = send("GET", "/api/subscribers/" + id, null);
+        assertEquals(200, found.statusCode());
+        assertEquals("John", Json.parseObject(found.body()).get("firstName"));
+
+        // Номер находится без учета форматирования
+        HttpResponse<String> byPhone = send("GET", "/api/phones/+79001234567", null);
+        assertEquals(1, ((List<?>) Json.parse(byPhone.body())).size());
+
+        assertEquals(200, send("PUT", "/api/subscribers/" + id, "{\"lastName\":\"Brown\"}").statusCode());
+        assertEquals("Brown", service.findSubscriberById(id).getLastName());
+
+        assertEquals(200, send("POST", "/api/subscribers/" + id + "/phones", "{\"number\":\"4951234567\",\"type\":\"Home\"}")
+                .statusCode());
+        assertEquals(1, ((List<?>) Json.parse(send("GET", "/api/phones/495-123-45-67", null).body())).size());
+
+        assertEquals(200, send("DELETE", "/api/subscribers/" + id + "/phones/+79001234567", null).statusCode());
+        assertEquals("[]", send("GET", "/api/phones/+79001234567", null).body());
+
+        assertEquals(200, send("DELETE", "/api/subscribers/" + id, null).statusCode());
+        assertEquals(404, send("GET", "/api/subscribers/" + id, null).statusCode());
+        assertEquals("[]", send("GET", "/api/phones/4951234567", null).body());
+    }
+
+    @Test
+    void testSearchWithLimitAndErrors() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            service.addSubscriber("Smith" + (char) ('a' + i), "John", "");
+        }
+        service.addSubscriber("Brown", "Anna", "");
+
+        Map<String, Object> result = Json.parseObject(send("GET", "/api/subscribers?q=smith&limit=2", null).body());
+        assertEquals(5.0, result.get("total"));
+        assertEquals(2, ((List<?>) result.get("subscribers")).size());
+
+        assertEquals(400, send("POST", "/api/subscribers", "{\"lastName\":\"Sm1th\",\"firstName\":\"John\"}").statusCode());
+        assertEquals(400, send("POST", "/api/subscribers", "{\"lastName\":").statusCode());
+        assertEquals(404, send("GET", "/api/subscribers/not-an-id", null).statusCode());
+        assertEquals(404, send("GET", "/api/unknown", null).statusCode());
+        assertEquals(6, service.getSubscriberCount());
+
+        // Глубокая вложенность отклоняется до переполнения стека, а длинное тело - до разбора
+        assertEquals(400, send("POST", "/api/subscribers", "[".repeat(200_000)).statusCode());
+        // Тело не отправляется: сервер отвечает по заголовку длины, не дожидаясь тела
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.getOutputStream().write(("PUT /api/subscribers HTTP/1.1\r\nHost: localhost\r\nContent-Length: "
+                    + (PhoneBookServer.MAX_BODY_LENGTH + 1) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))
+                    .readLine();
+            assertTrue(statusLine.startsWith("HTTP/1.1 413"), statusLine);
+        }
+        assertEquals(200, send("GET", "/api/subscribers?q=smith", null).statusCode());
+    }
+
+    @Test
+    void testPutAllStoresBatchWithIds() throws Exception {
+        List<Subscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            Subscriber subscriber = new Subscriber("Smith", "John" + (char) ('a' + i % 26), "");
+            subscriber.addPhoneNumber(new PhoneNumber("+7900" + (1_000_000 + i), PhoneType.MOBILE));
+            subscribers.add(subscriber);
+        }
+        new PhoneBookClient("localhost", server.getPort()).putAll(subscribers);
+        assertEquals(2_500, service.getSubscriberCount());
+        assertEquals(subscribers.get(42).getId(), service.findSubscriberById(subscribers.get(42).getId()).getId());
+        assertEquals(1, ((List<?>) Json.parse(send("GET", "/api/phones/+79001000042", null).body())).size());
+
+        // Невалидный абонент отклоняет весь пакет
+        String id = new Subscriber("Brown", "Anna", "").getId();
+        assertEquals(400, send("PUT", "/api/subscribers",
+                "[{\"id\":\"" + id + "\",\"lastName\":\"Brown\",\"firstName\":\"Anna\"},"
+                        + "{\"id\":\"bad\",\"lastName\":\"Brown\",\"firstName\":\"Anna\"}]").statusCode());
+        assertNull(service.findSubscriberById(id));
+        assertEquals(400, send("PUT", "/api/subscribers", "{}").statusCode());
+    }
+
+    @Test
+    void testRecordsRequestMetrics() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            send("GET", "/api/subscribers?q=smith", null);
+        }
+        RequestMetrics.RouteStats stats = server.getMetrics().getRoute("GET /api/subscribers");
+        assertEquals(10, stats.getCount());
+        assertTrue(stats.getPercentileMicros(0.50) <= stats.getPercentileMicros(0.99));
+        assertTrue(stats.getPercentileMicros(0.99) <= stats.getMaxMicros());
+
+        Map<String, Object> metrics = Json.parseObject(send("GET", "/api/metrics", null).body());
+        assertEquals(10.0, metrics.get("requests"));
+    }
+
+    @Test
+    void testPhoneIndexFollowsBulkChanges() {
+        PhoneIndex index = new PhoneIndex(service);
+        // Крупная транзакция доставляется одним событием замены данных
+        service.transaction(tx -> {
+            for (int i = 0; i < 2_000; i++) {
+                Subscriber added = tx.addSubscriber("Smith", "John", "");
+                tx.addPhoneNumber(added, "+7900" + (1_000_000 + i), PhoneType.WORK);
+            }
+        });
+        assertEquals(2_000, index.size());
+        assertEquals(1, index.find("+79001000042").size());
+        assertTrue(index.find("+79009999999").isEmpty());
+    }
+}
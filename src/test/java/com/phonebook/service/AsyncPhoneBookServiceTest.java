@@ -0,0 +1,108 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для асинхронного фасада сервиса телефонной книги.
+ */
+class AsyncPhoneBookServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private AsyncPhoneBookService asyncService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        PhoneBookService service = new PhoneBookService(tempDir.resolve("async.dat").toString());
+        asyncService = new AsyncPhoneBookService(service, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncService.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testAddAndSearch() {
+        Subscriber smith = asyncService.addSubscriber("Smith", "John", "David").join();
+        assertNotNull(smith);
+        assertTrue(asyncService.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE).join());
+
+        assertEquals(1, asyncService.searchSubscribers("1234567890").join().size());
+        assertEquals(smith, asyncService.findSubscriberById(smith.getId()).join());
+        assertEquals(1, asyncService.getAllSubscribers().join().size());
+        assertNull(asyncService.addSubscriber("", "John", "David").join());
+    }
+
+    @Test
+    void testMutationsOfOneSubscriberAreOrdered() {
+        Subscriber smith = asyncService.addSubscriber("Smith", "John", "David").join();
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        List<PhoneNumber> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String number = "+7495" + (1_000_000 + i);
+            expected.add(new PhoneNumber(number, PhoneType.WORK));
+            results.add(asyncService.addPhoneNumber(smith, number, PhoneType.WORK));
+        }
+        // Невалидный номер не прерывает очередь изменений абонента
+        results.add(asyncService.addPhoneNumber(smith, "12", PhoneType.WORK));
+        results.add(asyncService.removePhoneNumber(smith, expected.remove(0)));
+        results.add(asyncService.updateSubscriber(smith, "Baker", "John", "David"));
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i != 50, results.get(i).join(), "operation " + i);
+        }
+        Subscriber stored = asyncService.findSubscriberById(smith.getId()).join();
+        assertEquals("Baker", stored.getLastName());
+        assertEquals(expected, stored.getPhoneNumbers());
+    }
+
+    @Test
+    void testSaveReloadAndTransaction() {
+        assertTrue(asyncService.transaction(tx -> {
+            Subscriber smith = tx.addSubscriber("Smith", "John", "David");
+            tx.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE);
+        }).join());
+        assertTrue(asyncService.saveData().join());
+        long version = asyncService.getService().getVersion();
+
+        assertTrue(asyncService.reloadData().join());
+
+        PhoneBookSnapshot snapshot = asyncService.openSnapshot().join();
+        assertTrue(snapshot.getVersion() > version);
+        assertEquals(1, snapshot.getSubscriberCount());
+        assertEquals(1, snapshot.getPhoneNumberCount());
+        snapshot.close();
+    }
+
+    @Test
+    void testDefaultExecutor() throws Exception {
+        AsyncPhoneBookService loaded = AsyncPhoneBookService.load(
+                () -> new PhoneBookService(tempDir.resolve("loaded.dat").toString())).get();
+        try {
+            assertNotNull(loaded.addSubscriber("Smith", "John", "David").join());
+            assertEquals(1, loaded.getService().getSubscriberCount());
+        } finally {
+            loaded.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для поколоночного хранилища абонентов.
+ */
+class ColumnarSubscriberStoreTest {
+
+    private ColumnarSubscriberStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ColumnarSubscriberStore();
+    }
+
+    @Test
+    void testInsertAndMaterialize() {
+        Subscriber subscriber = new Subscriber("Smith", "John", null);
+        subscriber.addPhoneNumber(new PhoneNumber("+1234567890", PhoneType.MOBILE));
+        subscriber.addPhoneNumber(new PhoneNumber("0987654321", PhoneType.HOME));
+
+        assertEquals(0, store.insert(subscriber));
+        assertEquals(0, store.insert(new Subscriber("Adams", "John", "David")));
+
+        Subscriber view = store.get(1);
+        assertNotSame(subscriber, view);
+        assertEquals(subscriber, view);
+        assertEquals("Smith", view.getLastName());
+        assertNull(view.getMiddleName());
+        assertEquals(subscriber.getPhoneNumbers(), view.getPhoneNumbers());
+    }
+
+    @Test
+    void testUpdatePhonesAndRemove() {
+        Subscriber subscriber = new Subscriber("Smith", "John", "David");
+        store.insert(subscriber);
+
+        subscriber.addPhoneNumber(new PhoneNumber("+1234567890", PhoneType.WORK));
+        store.update(subscriber);
+        assertEquals(1, store.get(0).getPhoneNumbers().size());
+
+        assertTrue(store.remove(store.get(0)));
+        assertFalse(store.remove(subscriber));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testOrderMatchesHeapStore() {
+        Random random = new Random(7);
+        SortedSubscriberList heap = new SortedSubscriberList();
+        List<Subscriber> all = new ArrayList<>();
+
+        for (int i = 0; i < 3_000; i++) {
+            Subscriber subscriber = new Subscriber("Фамилия" + random.nextInt(300),
+                    random.nextBoolean() ? "Иван" : "Ivan", random.nextBoolean() ? "Петрович" : null);
+            for (int p = random.nextInt(3); p > 0; p--) {
+                subscriber.addPhoneNumber(new PhoneNumber(String.valueOf(1_000_000 + random.nextInt(1_000_000)),
+                        PhoneType.values()[random.nextInt(PhoneType.values().length)]));
+            }
+            all.add(subscriber);
+            heap.insert(subscriber);
+            store.insert(subscriber);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            Subscriber removed = all.remove(random.nextInt(all.size()));
+            assertTrue(heap.remove(removed));
+            assertTrue(store.remove(removed));
+        }
+
+        assertEquals(heap.size(), store.size());
+        for (int i = 0; i < heap.size(); i++) {
+            assertEquals(heap.get(i), store.get(i));
+            assertEquals(heap.get(i).getPhoneNumbers(), store.get(i).getPhoneNumbers());
+        }
+    }
+
+    @Test
+    void testRebuild() {
+        List<Subscriber> source = List.of(
+                new Subscriber("Williams", "Michael", "David"),
+                new Subscriber("Adams", "John", "David"),
+                new Subscriber("Smith", "John", "David"));
+        store.rebuild(source);
+
+        assertEquals(3, store.size());
+        assertEquals("Adams", store.get(0).getLastName());
+        assertEquals("Williams", store.toList().get(2).getLastName());
+        assertEquals(1, store.indexOf(source.get(2)));
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByChanges() {
+        Subscriber smith = new Subscriber("Smith", "John", "David");
+        smith.addPhoneNumber(new PhoneNumber("+1234567890", PhoneType.MOBILE));
+        store.insert(smith);
+        store.insert(new Subscriber("legacy-7", "Adams", "John", "David", List.of()));
+
+        List<Subscriber> snapshot = store.snapshot();
+
+        // Слот удаленного абонента переиспользуется, а телефоны уплотняются в новые массивы
+        store.remove(smith);
+        Subscriber baker = new Subscriber("Baker", "Anna", "Maria");
+        baker.addPhoneNumber(new PhoneNumber("+0987654321", PhoneType.HOME));
+        store.insert(baker);
+        for (int i = 0; i < 20; i++) {
+            baker.addPhoneNumber(new PhoneNumber("+7495" + (1_000_000 + i), PhoneType.WORK));
+            store.update(baker);
+        }
+
+        assertEquals(2, snapshot.size());
+        assertEquals("legacy-7", snapshot.get(0).getId());
+        assertEquals(smith, snapshot.get(1));
+        assertEquals("Smith", snapshot.get(1).getLastName());
+        assertEquals(smith.getPhoneNumbers(), snapshot.get(1).getPhoneNumbers());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+    }
+}
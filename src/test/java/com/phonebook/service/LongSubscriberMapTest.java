@@ -0,0 +1,64 @@
+package com.phonebook.service;
+
+import com.phonebook.model.Subscriber;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для индекса абонентов по идентификатору.
+ */
+class LongSubscriberMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        LongSubscriberMap map = new LongSubscriberMap();
+        Subscriber subscriber = new Subscriber("Smith", "John", "David");
+
+        assertNull(map.put(subscriber));
+        assertSame(subscriber, map.get(subscriber.getIdHigh(), subscriber.getIdLow()));
+        assertSame(subscriber, map.get(subscriber.getId()));
+        assertEquals(1, map.size());
+
+        assertSame(subscriber, map.remove(subscriber));
+        assertNull(map.get(subscriber.getId()));
+        assertNull(map.remove(subscriber));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void testLegacyIds() {
+        LongSubscriberMap map = new LongSubscriberMap();
+        Subscriber subscriber = new Subscriber("legacy-1", "Smith", "John", "David", List.of());
+        map.put(subscriber);
+
+        assertSame(subscriber, map.get("legacy-1"));
+        assertNull(map.get("legacy-2"));
+        assertNull(map.get((String) null));
+    }
+
+    @Test
+    void testRandomWorkload() {
+        LongSubscriberMap map = new LongSubscriberMap();
+        List<Subscriber> present = new ArrayList<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 50_000; i++) {
+            if (present.isEmpty() || random.nextInt(3) > 0) {
+                Subscriber subscriber = new Subscriber("Name" + i, "First", "Middle");
+                map.put(subscriber);
+                present.add(subscriber);
+            } else {
+                Subscriber removed = present.remove(random.nextInt(present.size()));
+                assertSame(removed, map.remove(removed));
+            }
+        }
+
+        assertEquals(present.size(), map.size());
+        for (Subscriber subscriber : present) {
+            assertSame(subscriber, map.get(subscriber.getIdHigh(), subscriber.getIdLow()));
+        }
+    }
+}
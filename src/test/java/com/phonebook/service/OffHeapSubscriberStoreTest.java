@@ -0,0 +1,157 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для хранилища абонентов вне кучи.
+ */
+class OffHeapSubscriberStoreTest {
+
+    private OffHeapSubscriberStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Маленькие блоки и кэш, чтобы проверить переход между блоками, уплотнение и вытеснение
+        store = new OffHeapSubscriberStore(4096, 8);
+    }
+
+    @Test
+    void testInsertAndMaterialize() {
+        Subscriber subscriber = new Subscriber("Smith", "John", null);
+        subscriber.addPhoneNumber(new PhoneNumber("+1 (234) 567-890", PhoneType.MOBILE));
+        subscriber.addPhoneNumber(new PhoneNumber("0987654321", PhoneType.HOME));
+
+        assertEquals(0, store.insert(subscriber));
+        assertEquals(0, store.insert(new Subscriber("Adams", "John", "David")));
+
+        Subscriber view = store.get(1);
+        assertNotSame(subscriber, view);
+        assertEquals(subscriber, view);
+        assertEquals("Smith", view.getLastName());
+        assertNull(view.getMiddleName());
+        assertEquals(subscriber.getPhoneNumbers(), view.getPhoneNumbers());
+        assertEquals("+1 (234) 567-890", view.getPhoneNumbers().get(0).getNumber());
+        assertSame(view, store.findById(subscriber.getIdHigh(), subscriber.getIdLow()));
+        assertEquals(2, store.phoneNumberCount());
+    }
+
+    @Test
+    void testLegacyId() {
+        Subscriber subscriber = new Subscriber("legacy-7", "Smith", "John", "David", List.of());
+        store.insert(subscriber);
+
+        assertEquals("legacy-7", store.get(0).getId());
+        assertEquals(subscriber, store.get(0));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        Subscriber subscriber = new Subscriber("Smith", "John", "David");
+        store.insert(subscriber);
+        Subscriber cached = store.get(0);
+
+        subscriber.addPhoneNumber(new PhoneNumber("+1234567890", PhoneType.WORK));
+        store.update(subscriber);
+        assertNotSame(cached, store.get(0));
+        assertEquals(1, store.get(0).getPhoneNumbers().size());
+        assertEquals(1, store.phoneNumberCount());
+
+        assertTrue(store.remove(store.get(0)));
+        assertFalse(store.remove(subscriber));
+        assertEquals(0, store.size());
+        assertEquals(0, store.phoneNumberCount());
+        assertNull(store.findById(subscriber.getIdHigh(), subscriber.getIdLow()));
+    }
+
+    @Test
+    void testOrderMatchesHeapStore() {
+        Random random = new Random(11);
+        SortedSubscriberList heap = new SortedSubscriberList();
+        List<Subscriber> all = new ArrayList<>();
+
+        for (int i = 0; i < 3_000; i++) {
+            Subscriber subscriber = new Subscriber("Фамилия" + random.nextInt(300),
+                    random.nextBoolean() ? "Иван" : "Ivan", random.nextBoolean() ? "Петрович" : null);
+            for (int p = random.nextInt(3); p > 0; p--) {
+                subscriber.addPhoneNumber(new PhoneNumber("8-" + (1_000_000 + random.nextInt(1_000_000)),
+                        PhoneType.values()[random.nextInt(PhoneType.values().length)]));
+            }
+            all.add(subscriber);
+            heap.insert(subscriber);
+            store.insert(subscriber);
+        }
+        // Удаления и перезапись записей приводят к уплотнению памяти
+        for (int i = 0; i < 2_000; i++) {
+            Subscriber removed = all.remove(random.nextInt(all.size()));
+            assertTrue(heap.remove(removed));
+            assertTrue(store.remove(removed));
+        }
+        for (Subscriber subscriber : all) {
+            subscriber.addPhoneNumber(new PhoneNumber("+7000" + random.nextInt(1_000_000), PhoneType.OTHER));
+            heap.update(subscriber);
+            store.update(subscriber);
+        }
+
+        assertEquals(heap.size(), store.size());
+        assertEquals(heap.phoneNumberCount(), store.phoneNumberCount());
+        assertTrue(store.getAllocatedBytes() < 4 * store.getLiveBytes() + 8192);
+        for (int i = 0; i < heap.size(); i++) {
+            assertEquals(heap.get(i), store.get(i));
+            assertEquals(heap.get(i).getPhoneNumbers(), store.get(i).getPhoneNumbers());
+        }
+    }
+
+    @Test
+    void testRebuild() {
+        List<Subscriber> source = List.of(
+                new Subscriber("Williams", "Michael", "David"),
+                new Subscriber("Adams", "John", "David"),
+                new Subscriber("Smith", "John", "David"));
+        store.rebuild(source);
+
+        assertEquals(3, store.size());
+        assertEquals("Adams", store.get(0).getLastName());
+        assertEquals("Williams", store.toList().get(2).getLastName());
+        assertEquals(1, store.indexOf(source.get(2)));
+
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(0, store.getAllocatedBytes());
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByChanges() {
+        List<Subscriber> inserted = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Subscriber subscriber = new Subscriber("Smith" + (char) ('a' + i % 26), "John", "David");
+            subscriber.addPhoneNumber(new PhoneNumber("+7495" + (1_000_000 + i), PhoneType.WORK));
+            store.insert(subscriber);
+            inserted.add(subscriber);
+        }
+        List<Subscriber> expected = store.toList();
+        List<Subscriber> snapshot = store.snapshot();
+
+        // Многократные изменения приводят к уплотнению в новые блоки
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            Subscriber subscriber = inserted.get(random.nextInt(inserted.size()));
+            subscriber.addPhoneNumber(new PhoneNumber("+7812" + (1_000_000 + i), PhoneType.HOME));
+            store.update(subscriber);
+        }
+        store.remove(inserted.get(0));
+
+        assertEquals(expected.size(), snapshot.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), snapshot.get(i));
+            assertEquals(expected.get(i).getPhoneNumbers(), snapshot.get(i).getPhoneNumbers());
+        }
+    }
+}
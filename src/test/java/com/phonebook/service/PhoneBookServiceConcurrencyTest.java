@@ -0,0 +1,165 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для параллельной работы с сервисом телефонной книги.
+ */
+class PhoneBookServiceConcurrencyTest {
+
+    private static final String[] LAST_NAMES = {"Ivanov", "Petrov", "Sidorov", "Smirnov", "Kuznetsov", "Popov"};
+    private static final String[] FIRST_NAMES = {"Ivan", "Petr", "Anna", "Maria", "Oleg", "Elena"};
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int OPERATIONS_PER_WRITER = 150;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testConcurrentReadsAndWritesOnHeap() throws Exception {
+        stress(StorageEngine.HEAP);
+    }
+
+    @Test
+    void testConcurrentReadsAndWritesColumnar() throws Exception {
+        stress(StorageEngine.COLUMNAR);
+    }
+
+    @Test
+    void testConcurrentReadsAndWritesOffHeap() throws Exception {
+        stress(StorageEngine.OFF_HEAP);
+    }
+
+    @Test
+    void testConcurrentReadsAndWritesAcrossShards() throws Exception {
+        for (StorageEngine engine : StorageEngine.values()) {
+            stress(engine, 8);
+        }
+    }
+
+    private void stress(StorageEngine engine) throws Exception {
+        stress(engine, 1);
+    }
+
+    private void stress(StorageEngine engine, int shards) throws Exception {
+        String dataFile = tempDir.resolve(engine + "-" + shards + ".dat").toString();
+        PhoneBookService service = new PhoneBookService(dataFile, engine, shards);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger expectedSubscribers = new AtomicInteger();
+        AtomicInteger expectedPhones = new AtomicInteger();
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(executor.submit(() -> {
+                start.await();
+                Random random = new Random(writer);
+                List<Subscriber> own = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS_PER_WRITER; i++) {
+                    int operation = own.isEmpty() ? 0 : random.nextInt(4);
+                    if (operation == 0) {
+                        Subscriber added = service.addSubscriber(lastName(random), firstName(random), "");
+                        assertNotNull(added);
+                        own.add(added);
+                        expectedSubscribers.incrementAndGet();
+                    } else if (operation == 1) {
+                        Subscriber subscriber = own.get(random.nextInt(own.size()));
+                        assertTrue(service.updateSubscriber(subscriber, lastName(random), firstName(random), ""));
+                    } else if (operation == 2) {
+                        Subscriber subscriber = own.remove(random.nextInt(own.size()));
+                        expectedPhones.addAndGet(-subscriber.getPhoneNumberCount());
+                        assertTrue(service.deleteSubscriber(subscriber));
+                        expectedSubscribers.decrementAndGet();
+                    } else {
+                        // Номер уникален для писателя и операции, поэтому добавление всегда успешно
+                        Subscriber subscriber = own.get(random.nextInt(own.size()));
+                        String number = String.format("+7 9%02d %07d", writer, i);
+                        assertTrue(service.addPhoneNumber(subscriber, number, PhoneType.MOBILE));
+                        expectedPhones.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        for (int r = 0; r < READERS; r++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                int checks = 0;
+                while (writing.get() || checks == 0) {
+                    assertConsistent(service.getAllSubscribers());
+                    for (Subscriber found : service.searchSubscribers("ov")) {
+                        assertTrue(found.getLastName().contains("ov"));
+                    }
+                    assertTrue(service.getSubscriberCount() >= 0);
+                    checks++;
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(expectedSubscribers.get(), service.getSubscriberCount());
+        assertEquals(expectedPhones.get(), service.getPhoneNumberCount());
+        assertConsistent(service.getAllSubscribers());
+
+        // Последнее сохранение содержит итоговое состояние
+        PhoneBookService reloaded = new PhoneBookService(dataFile, engine, shards);
+        assertEquals(expectedSubscribers.get(), reloaded.getSubscriberCount());
+        assertEquals(expectedPhones.get(), reloaded.getPhoneNumberCount());
+    }
+
+    /**
+     * Снимок упорядочен по ФИО и не содержит повторяющихся абонентов.
+     */
+    private static void assertConsistent(List<Subscriber> snapshot) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Subscriber subscriber = snapshot.get(i);
+            assertTrue(ids.add(subscriber.getId()), "Duplicate subscriber in snapshot");
+            if (i > 0) {
+                assertTrue(snapshot.get(i - 1).compareTo(subscriber) <= 0, "Snapshot is not sorted");
+            }
+        }
+    }
+
+    private static String lastName(Random random) {
+        return LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private static String firstName(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+    }
+}
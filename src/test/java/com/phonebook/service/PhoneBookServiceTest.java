@@ -7,8 +7,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -221,4 +227,462 @@ class PhoneBookServiceTest {
         assertEquals("John", subscribers.get(0).getFirstName());
         assertEquals(1, subscribers.get(0).getPhoneNumbers().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testColumnarStorageEngine() {
+        String columnarFile = tempDir.resolve("columnar_phonebook.dat").toString();
+        PhoneBookService service = new PhoneBookService(columnarFile, StorageEngine.COLUMNAR);
+
+        Subscriber smith = service.addSubscriber("Smith", "John", "David");
+        service.addSubscriber("Adams", "John", "David");
+        assertTrue(service.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE));
+        assertTrue(service.updateSubscriber(smith, "Baker", "John", "David"));
+
+        List<Subscriber> subscribers = service.getAllSubscribers();
+        assertEquals("Adams", subscribers.get(0).getLastName());
+        assertEquals("Baker", subscribers.get(1).getLastName());
+        assertEquals(1, service.getPhoneNumberCount());
+        assertEquals(1, service.searchSubscribers("1234567890").size());
+
+        assertTrue(service.deleteSubscriber(subscribers.get(1)));
+        assertEquals(1, new PhoneBookService(columnarFile, StorageEngine.COLUMNAR).getSubscriberCount());
+    }
+
+    @Test
+    void testOffHeapStorageEngine() {
+        String offHeapFile = tempDir.resolve("off_heap_phonebook.dat").toString();
+        PhoneBookService service = new PhoneBookService(offHeapFile, StorageEngine.OFF_HEAP);
+
+        Subscriber smith = service.addSubscriber("Smith", "John", "David");
+        service.addSubscriber("Adams", "John", "David");
+        assertTrue(service.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE));
+        assertTrue(service.updateSubscriber(smith, "Baker", "John", "David"));
+
+        List<Subscriber> subscribers = service.getAllSubscribers();
+        assertEquals("Baker", subscribers.get(1).getLastName());
+        assertEquals(1, service.getPhoneNumberCount());
+        assertEquals(1, service.searchSubscribers("1234567890").size());
+        assertEquals(smith, service.findSubscriberById(smith.getId()));
+
+        assertTrue(service.deleteSubscriber(smith));
+        assertEquals(1, new PhoneBookService(offHeapFile, StorageEngine.OFF_HEAP).getSubscriberCount());
+    }
+
+    @Test
+    void testFindSubscriberById() {
+        Subscriber subscriber = phoneBookService.addSubscriber("Smith", "John", "David");
+        phoneBookService.addSubscriber("Jones", "Mary", "Anne");
+
+        assertEquals(subscriber, phoneBookService.findSubscriberById(subscriber.getId()));
+        assertNull(phoneBookService.findSubscriberById("missing"));
+
+        PhoneBookService reloaded = new PhoneBookService(testDataFile);
+        assertEquals(subscriber, reloaded.findSubscriberById(subscriber.getId()));
+
+        phoneBookService.deleteSubscriber(subscriber);
+        assertNull(phoneBookService.findSubscriberById(subscriber.getId()));
+    }
+
+    @Test
+    void testSnapshotIsolation() {
+        Subscriber smith = phoneBookService.addSubscriber("Smith", "John", "David");
+        List<Subscriber> before = phoneBookService.getAllSubscribers();
+
+        phoneBookService.addSubscriber("Adams", "John", "David");
+        assertTrue(phoneBookService.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE));
+
+        assertEquals(1, before.size());
+        assertEquals(0, before.get(0).getPhoneNumbers().size());
+
+        // Абонент из снимка не изменяется, изменения получает хранимая версия
+        Subscriber fromSnapshot = phoneBookService.getAllSubscribers().get(1);
+        assertTrue(fromSnapshot.isFrozen());
+        assertTrue(phoneBookService.addPhoneNumber(fromSnapshot, "+0987654321", PhoneType.HOME));
+        assertEquals(1, fromSnapshot.getPhoneNumbers().size());
+        assertEquals(2, phoneBookService.findSubscriberById(smith.getId()).getPhoneNumbers().size());
+        assertEquals(2, phoneBookService.getPhoneNumberCount());
+
+        assertTrue(phoneBookService.updateSubscriber(fromSnapshot, "Baker", "John", "David"));
+        assertEquals("Smith", fromSnapshot.getLastName());
+        assertEquals("Baker", phoneBookService.getAllSubscribers().get(1).getLastName());
+        assertEquals(2, phoneBookService.getAllSubscribers().get(1).getPhoneNumbers().size());
+    }
+
+    @Test
+    void testOpenSnapshotSeesOneVersion() {
+        for (StorageEngine engine : StorageEngine.values()) {
+            PhoneBookService service = new PhoneBookService(
+                    tempDir.resolve(engine + "_snapshot.dat").toString(), engine);
+            Subscriber smith = service.addSubscriber("Smith", "John", "David");
+            service.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE);
+
+            PhoneBookSnapshot snapshot = service.openSnapshot();
+            assertEquals(service.getVersion(), snapshot.getVersion());
+            assertEquals(1, service.getOpenSnapshotCount());
+            assertEquals(snapshot.getVersion(), service.getOldestSnapshotVersion());
+
+            // Изменения не ждут закрытия снимка и не видны в нем
+            service.addSubscriber("Adams", "John", "David");
+            service.addPhoneNumber(smith, "+0987654321", PhoneType.HOME);
+            service.updateSubscriber(smith, "Baker", "John", "David");
+            assertTrue(service.getVersion() > snapshot.getVersion());
+
+            assertEquals(1, snapshot.getSubscriberCount(), engine.name());
+            assertEquals(1, snapshot.getPhoneNumberCount(), engine.name());
+            assertEquals("Smith", snapshot.getSubscribers().get(0).getLastName(), engine.name());
+            assertEquals(1, snapshot.search("1234567890").size(), engine.name());
+            assertTrue(snapshot.search("Baker").isEmpty(), engine.name());
+
+            snapshot.close();
+            snapshot.close();
+            assertEquals(0, service.getOpenSnapshotCount());
+            assertEquals(-1, service.getOldestSnapshotVersion());
+            assertThrows(IllegalStateException.class, snapshot::getSubscribers);
+        }
+    }
+
+    @Test
+    void testTransaction() {
+        Subscriber adams = phoneBookService.addSubscriber("Adams", "John", "David");
+
+        boolean committed = phoneBookService.transaction(tx -> {
+            Subscriber smith = tx.addSubscriber("Smith", "John", "David");
+            tx.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE);
+            tx.addPhoneNumber(smith, "+0987654321", PhoneType.HOME);
+            tx.addPhoneNumber(smith, "+1122334455", PhoneType.WORK);
+            tx.updateSubscriber(adams, "Baker", "Anna", "Maria");
+            tx.addPhoneNumber(adams, "+5566778899", PhoneType.HOME);
+        });
+
+        assertTrue(committed);
+        assertEquals(2, phoneBookService.getSubscriberCount());
+        assertEquals(4, phoneBookService.getPhoneNumberCount());
+        assertEquals("Baker", adams.getLastName());
+        assertEquals(1, adams.getPhoneNumbers().size());
+        List<Subscriber> subscribers = phoneBookService.getAllSubscribers();
+        assertEquals("Baker", subscribers.get(0).getLastName());
+        assertEquals(3, subscribers.get(1).getPhoneNumbers().size());
+
+        PhoneBookService reloaded = new PhoneBookService(testDataFile);
+        assertEquals(2, reloaded.getSubscriberCount());
+        assertEquals(4, reloaded.getPhoneNumberCount());
+    }
+
+    @Test
+    void testTransactionIsAllOrNothing() {
+        Subscriber smith = phoneBookService.addSubscriber("Smith", "John", "David");
+        phoneBookService.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE);
+        long version = phoneBookService.getVersion();
+
+        // Невалидные данные отклоняют транзакцию до применения
+        assertFalse(phoneBookService.transaction(tx -> {
+            tx.addSubscriber("Adams", "John", "David");
+            tx.addPhoneNumber(smith, "12", PhoneType.HOME);
+        }));
+
+        // Операция над удаленным абонентом откатывает все изменения
+        assertFalse(phoneBookService.transaction(tx -> {
+            tx.addSubscriber("Adams", "John", "David");
+            tx.updateSubscriber(smith, "Baker", "John", "David");
+            tx.deleteSubscriber(smith);
+            tx.addPhoneNumber(smith, "+0987654321", PhoneType.HOME);
+        }));
+
+        // Повторное добавление существующего номера также откатывает транзакцию
+        assertFalse(phoneBookService.transaction(tx -> tx.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE)));
+
+        assertEquals(version, phoneBookService.getVersion());
+        assertEquals(1, phoneBookService.getSubscriberCount());
+        assertEquals(1, phoneBookService.getPhoneNumberCount());
+        assertEquals("Smith", smith.getLastName());
+        assertEquals("Smith", phoneBookService.getAllSubscribers().get(0).getLastName());
+    }
+
+    @Test
+    void testFoundSubscribersAreFrozenOnAllEngines() {
+        for (StorageEngine engine : StorageEngine.values()) {
+            String file = tempDir.resolve(engine + "_frozen.dat").toString();
+            PhoneBookService service = new PhoneBookService(file, engine);
+            Subscriber smith = service.addSubscriber("Smith", "John", "David");
+            assertTrue(service.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE), engine.name());
+
+            // Абоненты, прочитанные из хранилища после загрузки, ведут себя так же, как в HEAP
+            PhoneBookService reloaded = new PhoneBookService(file, engine);
+            Subscriber found = reloaded.findSubscriberById(smith.getId());
+            assertThrows(UnsupportedOperationException.class, () -> found.setLastName("Jones"), engine.name());
+            assertTrue(reloaded.getAllSubscribers().get(0).isFrozen(), engine.name());
+            assertTrue(reloaded.searchSubscribers("1234567890").get(0).isFrozen(), engine.name());
+            assertEquals("Smith", reloaded.findSubscriberById(smith.getId()).getLastName(), engine.name());
+
+            // Изменения через сервис по-прежнему применяются к замороженному абоненту
+            assertTrue(reloaded.updateSubscriber(found, "Jones", "John", "David"), engine.name());
+            assertEquals("Jones", reloaded.findSubscriberById(smith.getId()).getLastName(), engine.name());
+        }
+    }
+
+    @Test
+    void testLargeTransactionOnAllEngines() {
+        for (StorageEngine engine : StorageEngine.values()) {
+            String file = tempDir.resolve(engine + "_batch.dat").toString();
+            PhoneBookService service = new PhoneBookService(file, engine);
+            Subscriber existing = service.addSubscriber("Zimmer", "Anna", "Maria");
+
+            // Набор больше порога применяется перестройкой хранилища
+            assertTrue(service.transaction(tx -> {
+                for (int i = 0; i < 2000; i++) {
+                    Subscriber subscriber = tx.addSubscriber("Smith" + (char) ('a' + i % 26), "John", "");
+                    tx.addPhoneNumber(subscriber, "+7495" + (1_000_000 + i), PhoneType.WORK);
+                }
+                tx.updateSubscriber(existing, "Adams", "Anna", "Maria");
+            }), engine.name());
+
+            List<Subscriber> subscribers = service.getAllSubscribers();
+            assertEquals(2001, subscribers.size(), engine.name());
+            assertEquals(2000, service.getPhoneNumberCount(), engine.name());
+            assertEquals("Adams", subscribers.get(0).getLastName(), engine.name());
+            for (int i = 1; i < subscribers.size(); i++) {
+                assertTrue(subscribers.get(i - 1).compareTo(subscribers.get(i)) <= 0, engine.name());
+            }
+            assertEquals(2001, new PhoneBookService(file, engine).getSubscriberCount(), engine.name());
+        }
+    }
+
+    @Test
+    void testShardedServiceKeepsSortedOrder() {
+        for (StorageEngine engine : StorageEngine.values()) {
+            String file = tempDir.resolve(engine + "_sharded.dat").toString();
+            PhoneBookService service = new PhoneBookService(file, engine, 8);
+            assertEquals(8, service.getShardCount());
+
+            List<Subscriber> added = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                added.add(service.addSubscriber("Smith" + (char) ('a' + i % 26), "John", ""));
+            }
+            Subscriber last = added.get(199);
+            assertTrue(service.addPhoneNumber(last, "+7495" + 1_000_000, PhoneType.WORK));
+            assertTrue(service.deleteSubscriber(added.get(0)));
+
+            // Слитый снимок упорядочен одинаково при обходе и при доступе по индексу
+            List<Subscriber> subscribers = service.getAllSubscribers();
+            assertEquals(199, subscribers.size(), engine.name());
+            int index = 0;
+            for (Subscriber subscriber : subscribers) {
+                assertEquals(subscriber, subscribers.get(index), engine.name());
+                if (index > 0) {
+                    assertTrue(subscribers.get(index - 1).compareTo(subscriber) <= 0, engine.name());
+                }
+                index++;
+            }
+            assertEquals(last, service.findSubscriberById(last.getId()), engine.name());
+            assertNull(service.findSubscriberById(added.get(0).getId()), engine.name());
+
+            // Транзакция затрагивает несколько сегментов и применяется целиком
+            assertTrue(service.transaction(tx -> {
+                for (int i = 1; i < 50; i++) {
+                    tx.deleteSubscriber(added.get(i));
+                }
+                tx.updateSubscriber(last, "Adams", "John", "");
+            }), engine.name());
+            assertEquals(150, service.getSubscriberCount(), engine.name());
+            assertEquals("Adams", service.getAllSubscribers().get(0).getLastName(), engine.name());
+            assertEquals(1, service.getPhoneNumberCount(), engine.name());
+
+            PhoneBookService reloaded = new PhoneBookService(file, engine, 4);
+            assertEquals(150, reloaded.getSubscriberCount(), engine.name());
+            assertEquals(last, reloaded.findSubscriberById(last.getId()), engine.name());
+        }
+    }
+
+    @Test
+    void testMergedSnapshotRandomAccessOnColumnarShards() {
+        PhoneBookService service = new PhoneBookService(tempDir.resolve("merged.dat").toString(),
+                StorageEngine.COLUMNAR, 8);
+        service.setAutoSave(false);
+        assertTrue(service.transaction(tx -> {
+            for (int i = 0; i < 20_000; i++) {
+                // Повторяющиеся ФИО в разных сегментах упорядочиваются по идентификатору
+                tx.addSubscriber("Smith" + (char) ('a' + i % 26), "John" + (char) ('a' + i % 7), "");
+            }
+        }));
+
+        List<Subscriber> subscribers = service.getAllSubscribers();
+        List<Subscriber> iterated = new ArrayList<>(subscribers);
+        assertEquals(20_000, iterated.size());
+        // Доступ по индексу не зависит от порядка обращений: вперед, назад и скачками
+        assertEquals(iterated.get(19_999), subscribers.get(19_999));
+        assertEquals(iterated.get(0), subscribers.get(0));
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            int index = random.nextInt(iterated.size());
+            assertEquals(iterated.get(index), subscribers.get(index), "index " + index);
+        }
+        for (int i = 10_000; i < 12_000; i++) {
+            assertEquals(iterated.get(i), subscribers.get(i), "index " + i);
+        }
+        for (int i = 500; i >= 0; i--) {
+            assertEquals(iterated.get(i), subscribers.get(i), "index " + i);
+        }
+    }
+
+    @Test
+    void testChangeEvents() {
+        List<PhoneBookChange> received = new ArrayList<>();
+        PhoneBookListener listener = received::addAll;
+        phoneBookService.addListener(listener);
+
+        Subscriber smith = phoneBookService.addSubscriber("Smith", "John", "David");
+        assertTrue(phoneBookService.addPhoneNumber(smith, "+1234567890", PhoneType.MOBILE));
+        PhoneNumber phone = smith.getPhoneNumbers().get(0);
+        assertTrue(phoneBookService.removePhoneNumber(smith, phone));
+        assertTrue(phoneBookService.updateSubscriber(smith, "Baker", "John", "David"));
+        assertTrue(phoneBookService.deleteSubscriber(smith));
+
+        assertEquals(5, received.size());
+        assertEquals(PhoneBookChange.Type.ADDED, received.get(0).getType());
+        assertEquals(smith, received.get(0).getSubscriber());
+        assertTrue(received.get(0).getSubscriber().isFrozen());
+
+        assertEquals(PhoneBookChange.Type.PHONE_ADDED, received.get(1).getType());
+        assertEquals(phone, received.get(1).getPhoneNumber());
+        assertEquals(0, received.get(1).getPrevious().getPhoneNumbers().size());
+        assertEquals(1, received.get(1).getSubscriber().getPhoneNumbers().size());
+
+        assertEquals(PhoneBookChange.Type.PHONE_REMOVED, received.get(2).getType());
+        assertEquals(phone, received.get(2).getPhoneNumber());
+
+        assertEquals(PhoneBookChange.Type.UPDATED, received.get(3).getType());
+        assertEquals("Smith", received.get(3).getPrevious().getLastName());
+        assertEquals("Baker", received.get(3).getSubscriber().getLastName());
+
+        assertEquals(PhoneBookChange.Type.REMOVED, received.get(4).getType());
+        assertEquals("Baker", received.get(4).getPrevious().getLastName());
+
+        // Транзакция публикует итоговые изменения абонентов, сортировка - замену данных
+        received.clear();
+        assertTrue(phoneBookService.transaction(tx -> {
+            Subscriber jones = tx.addSubscriber("Jones", "Mary", "Anne");
+            tx.addPhoneNumber(jones, "+0987654321", PhoneType.HOME);
+        }));
+        phoneBookService.sortSubscribers();
+        assertEquals(2, received.size());
+        assertEquals(PhoneBookChange.Type.ADDED, received.get(0).getType());
+        assertEquals(1, received.get(0).getSubscriber().getPhoneNumbers().size());
+        assertEquals(PhoneBookChange.Type.RESET, received.get(1).getType());
+
+        phoneBookService.removeListener(listener);
+        phoneBookService.addSubscriber("Adams", "John", "David");
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    void testLoadProgressively() throws Exception {
+        List<Subscriber> source = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            source.add(new Subscriber("Smith" + (char) ('a' + i % 26), "John", ""));
+        }
+        new FileDataService(testDataFile).saveSubscribers(source);
+
+        PhoneBookService service = PhoneBookService.createUnloaded(testDataFile, StorageEngine.COLUMNAR);
+        assertEquals(0, service.getSubscriberCount());
+
+        // Части растут вдвое, уже загруженные абоненты доступны для поиска во время загрузки
+        List<Integer> loadedCounts = new ArrayList<>();
+        List<Double> progress = new ArrayList<>();
+        assertTrue(service.loadProgressively((loaded, fraction) -> {
+            loadedCounts.add(loaded);
+            progress.add(fraction);
+            assertEquals(loaded, service.getSubscriberCount());
+            assertTrue(service.isLoading());
+            assertFalse(service.searchSubscribers("Smitha").isEmpty());
+        }));
+        assertEquals(List.of(1024, 3072, 5000), loadedCounts);
+        assertEquals(1.0, progress.get(progress.size() - 1));
+        assertTrue(progress.get(0) > 0 && progress.get(0) < progress.get(1));
+        assertFalse(service.isLoading());
+        assertEquals(5000, service.getSubscriberCount());
+
+        List<Subscriber> subscribers = service.getAllSubscribers();
+        for (int i = 1; i < subscribers.size(); i++) {
+            assertTrue(subscribers.get(i - 1).compareTo(subscribers.get(i)) <= 0);
+        }
+    }
+
+    @Test
+    void testFailedProgressiveLoadNeverOverwritesFile() throws Exception {
+        List<Subscriber> source = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            source.add(new Subscriber("Smith" + (char) ('a' + i % 26), "John", ""));
+        }
+        new FileDataService(testDataFile).saveSubscribers(source);
+        byte[] complete = Files.readAllBytes(Path.of(testDataFile));
+        byte[] truncated = Arrays.copyOf(complete, complete.length / 2);
+        Files.write(Path.of(testDataFile), truncated);
+
+        // Изменение во время загрузки не сохраняется, если загрузка не удалась
+        PhoneBookService service = PhoneBookService.createUnloaded(testDataFile, StorageEngine.HEAP);
+        assertFalse(service.loadProgressively((loaded, fraction) -> {
+            if (loaded == 1024) {
+                assertNotNull(service.addSubscriber("Brown", "Anna", ""));
+            }
+        }));
+        assertTrue(service.isReadOnly());
+        assertFalse(service.isAutoSave());
+        assertNotNull(service.addSubscriber("Green", "Paul", ""));
+        assertFalse(service.saveData());
+        assertArrayEquals(truncated, Files.readAllBytes(Path.of(testDataFile)));
+
+        Files.write(Path.of(testDataFile), complete);
+        assertTrue(service.reloadData());
+        assertFalse(service.isReadOnly());
+        assertTrue(service.isAutoSave());
+        assertEquals(5000, service.getSubscriberCount());
+    }
+
+    @Test
+    void testLoadsLegacyFileFormat() throws Exception {
+        ArrayList<Subscriber> legacy = new ArrayList<>();
+        legacy.add(new Subscriber("Smith", "John", "David"));
+        legacy.add(new Subscriber("Adams", "Mary", "Anne"));
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new FileOutputStream(testDataFile))) {
+            out.writeObject(legacy);
+        }
+
+        assertEquals(2, new PhoneBookService(testDataFile).getSubscriberCount());
+
+        PhoneBookService service = PhoneBookService.createUnloaded(testDataFile, StorageEngine.HEAP);
+        List<Integer> loadedCounts = new ArrayList<>();
+        assertTrue(service.loadProgressively((loaded, fraction) -> loadedCounts.add(loaded)));
+        assertEquals(List.of(2), loadedCounts);
+        assertEquals("Adams", service.getAllSubscribers().get(0).getLastName());
+    }
+
+    @Test
+    void testUpdateThroughStaleReferenceKeepsOtherChanges() {
+        PhoneBookService service = new PhoneBookService(tempDir.resolve("stale.dat").toString(), StorageEngine.HEAP, 1);
+        Subscriber subscriber = service.addSubscriber("Smith", "John", "");
+        // Номер добавляется через строку снимка, мимо изменяемого экземпляра
+        assertTrue(service.addPhoneNumber(service.getAllSubscribers().get(0), "+1234567890", PhoneType.MOBILE));
+        assertTrue(service.updateSubscriber(subscriber, "Smythe", "John", ""));
+
+        Subscriber stored = service.findSubscriberById(subscriber.getId());
+        assertEquals("Smythe", stored.getLastName());
+        assertEquals(1, stored.getPhoneNumbers().size());
+        assertEquals(1, service.getPhoneNumberCount());
+        // Изменяемый экземпляр вызывающего совпадает с хранимой версией
+        assertEquals(stored.getPhoneNumbers(), subscriber.getPhoneNumbers());
+
+        assertTrue(service.removePhoneNumber(service.getAllSubscribers().get(0), stored.getPhoneNumbers().get(0)));
+        assertTrue(service.addPhoneNumber(subscriber, "+79001234567", PhoneType.WORK));
+        assertEquals(List.of("79001234567"), phoneDigits(service.findSubscriberById(subscriber.getId())));
+        assertEquals(1, service.getPhoneNumberCount());
+    }
+
+    private static List<String> phoneDigits(Subscriber subscriber) {
+        List<String> digits = new ArrayList<>();
+        for (PhoneNumber phoneNumber : subscriber.getPhoneNumbers()) {
+            digits.add(phoneNumber.getNumber().replaceAll("[^0-9]", ""));
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,143 @@
+package com.phonebook.service;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для упорядоченного списка абонентов.
+ */
+class SortedSubscriberListTest {
+
+    private SortedSubscriberList list;
+
+    @BeforeEach
+    void setUp() {
+        list = new SortedSubscriberList();
+    }
+
+    @Test
+    void testInsertKeepsOrder() {
+        assertEquals(0, list.insert(new Subscriber("Smith", "John", "David")));
+        assertEquals(0, list.insert(new Subscriber("Adams", "John", "David")));
+        assertEquals(2, list.insert(new Subscriber("Williams", "Michael", "David")));
+
+        assertEquals(3, list.size());
+        assertEquals("Adams", list.get(0).getLastName());
+        assertEquals("Smith", list.get(1).getLastName());
+        assertEquals("Williams", list.get(2).getLastName());
+    }
+
+    @Test
+    void testEqualNamesKeepInsertionOrder() {
+        Subscriber first = new Subscriber("Smith", "John", "David");
+        Subscriber second = new Subscriber("Smith", "John", "David");
+        list.insert(first);
+        list.insert(second);
+
+        assertSame(first, list.get(0));
+        assertSame(second, list.get(1));
+        assertEquals(1, list.indexOf(second));
+    }
+
+    @Test
+    void testRemove() {
+        Subscriber subscriber = new Subscriber("Smith", "John", "David");
+        list.insert(new Subscriber("Adams", "John", "David"));
+        list.insert(subscriber);
+
+        assertTrue(list.remove(subscriber));
+        assertFalse(list.remove(subscriber));
+        assertEquals(1, list.size());
+        assertFalse(list.contains(subscriber));
+    }
+
+    @Test
+    void testLargeRandomWorkload() {
+        Random random = new Random(42);
+        List<Subscriber> expected = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            Subscriber subscriber = new Subscriber("Name" + random.nextInt(5_000), "First", "Middle");
+            expected.add(subscriber);
+            list.insert(subscriber);
+        }
+        for (int i = 0; i < 15_000; i++) {
+            Subscriber removed = expected.remove(random.nextInt(expected.size()));
+            assertTrue(list.remove(removed));
+        }
+
+        List<Subscriber> sorted = new ArrayList<>(expected);
+        Collections.sort(sorted);
+        assertEquals(sorted.size(), list.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(0, sorted.get(i).compareTo(list.get(i)));
+        }
+
+        List<Subscriber> iterated = new ArrayList<>(list);
+        assertEquals(sorted.size(), iterated.size());
+        for (int i = 1; i < iterated.size(); i++) {
+            assertTrue(iterated.get(i - 1).compareTo(iterated.get(i)) <= 0);
+        }
+    }
+
+    @Test
+    void testRebuild() {
+        List<Subscriber> source = new ArrayList<>();
+        for (int i = 1000; i > 0; i--) {
+            source.add(new Subscriber("Name" + i, "First", "Middle"));
+        }
+        list.rebuild(source);
+
+        assertEquals(1000, list.size());
+        for (int i = 1; i < list.size(); i++) {
+            assertTrue(list.get(i - 1).compareTo(list.get(i)) <= 0);
+        }
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(list.iterator().hasNext());
+    }
+
+    @Test
+    void testPhoneNumberCount() {
+        Subscriber subscriber = new Subscriber("Smith", "John", "David");
+        subscriber.addPhoneNumber(new PhoneNumber("+1234567890", PhoneType.MOBILE));
+        list.insert(subscriber);
+        list.insert(new Subscriber("Adams", "John", "David"));
+        assertEquals(1, list.phoneNumberCount());
+
+        subscriber.addPhoneNumber(new PhoneNumber("0987654321", PhoneType.HOME));
+        list.update(subscriber);
+        assertEquals(2, list.phoneNumberCount());
+
+        list.remove(subscriber);
+        assertEquals(0, list.phoneNumberCount());
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByChanges() {
+        for (int i = 0; i < 500; i++) {
+            list.insert(new Subscriber("Name" + i, "First", "Middle"));
+        }
+        List<Subscriber> snapshot = list.snapshot();
+        Subscriber first = snapshot.get(0);
+
+        list.remove(first);
+        list.insert(new Subscriber("AAA", "First", "Middle"));
+        list.clear();
+
+        assertEquals(500, snapshot.size());
+        assertSame(first, snapshot.get(0));
+        List<Subscriber> iterated = new ArrayList<>(snapshot);
+        assertEquals(500, iterated.size());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+    }
+}
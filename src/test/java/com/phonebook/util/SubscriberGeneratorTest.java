@@ -0,0 +1,95 @@
+package com.phonebook.util;
+
+import com.phonebook.model.PhoneNumber;
+import com.phonebook.model.PhoneType;
+import com.phonebook.model.Subscriber;
+import com.phonebook.service.PhoneBookValidator;
+import org.junit.jupiter.api.Test;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для генератора синтетических абонентов.
+ */
+class SubscriberGeneratorTest {
+
+    private static boolean isValid(Subscriber subscriber) {
+        if (!PhoneBookValidator.isValidSubscriber(subscriber)) {
+            return false;
+        }
+        for (PhoneNumber phone : subscriber.getPhoneNumbers()) {
+            if (!PhoneBookValidator.isValidPhoneNumber(phone)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    void testSameSeedGivesSameDataForAnyThreadCount() {
+        List<Subscriber> single = new SubscriberGenerator(42).generate(50_000, 1);
+        List<Subscriber> parallel = new SubscriberGenerator(42).generate(50_000, 4);
+        List<Subscriber> otherSeed = new SubscriberGenerator(43).generate(50_000, 4);
+        assertEquals(50_000, parallel.size());
+        int differences = 0;
+        for (int i = 0; i < single.size(); i++) {
+            assertEquals(single.get(i).getFullName(), parallel.get(i).getFullName());
+            assertEquals(single.get(i).getPhoneNumbers(), parallel.get(i).getPhoneNumbers());
+            if (!single.get(i).getFullName().equals(otherSeed.get(i).getFullName())) {
+                differences++;
+            }
+        }
+        assertTrue(differences > 40_000, "seeds produce similar data");
+    }
+
+    @Test
+    void testDistributions() {
+        List<Subscriber> subscribers = new SubscriberGenerator(1).generate(100_000);
+        Map<String, Integer> surnames = new HashMap<>();
+        Map<PhoneType, Integer> types = new EnumMap<>(PhoneType.class);
+        int[] phoneCounts = new int[6];
+        int latin = 0;
+        for (Subscriber subscriber : subscribers) {
+            assertTrue(isValid(subscriber), "invalid " + subscriber.getFullName() + " " + subscriber.getPhoneNumbers());
+            surnames.merge(subscriber.getLastName(), 1, Integer::sum);
+            phoneCounts[subscriber.getPhoneNumberCount()]++;
+            for (PhoneNumber phone : subscriber.getPhoneNumbers()) {
+                types.merge(phone.getType(), 1, Integer::sum);
+            }
+            if (subscriber.getLastName().charAt(0) < 'А') {
+                latin++;
+            }
+        }
+
+        // Закон Ципфа: частая фамилия встречается намного чаще редких, а редких фамилий много
+        int ivanov = surnames.get("Иванов") + surnames.get("Иванова");
+        int titov = surnames.get("Титов") + surnames.getOrDefault("Титова", 0);
+        assertTrue(ivanov > 30 * titov, "Иванов " + ivanov + ", Титов " + titov);
+        assertTrue(surnames.size() > 5_000, "distinct surnames " + surnames.size());
+
+        for (int count : phoneCounts) {
+            assertTrue(count > 0);
+        }
+        assertTrue(phoneCounts[1] > phoneCounts[3] && phoneCounts[3] > phoneCounts[5]);
+        assertTrue(types.get(PhoneType.MOBILE) > types.get(PhoneType.HOME));
+        assertTrue(types.get(PhoneType.HOME) > types.get(PhoneType.FAX));
+        assertTrue(latin > 8_000 && latin < 12_000, "latin " + latin);
+    }
+
+    @Test
+    void testMalformedRate() {
+        SubscriberGenerator generator = new SubscriberGenerator(7);
+        generator.setMalformedRate(0.05);
+        int malformed = 0;
+        for (Subscriber subscriber : generator.generate(40_000)) {
+            if (!isValid(subscriber)) {
+                malformed++;
+            }
+        }
+        assertTrue(malformed > 1_600 && malformed < 2_400, "malformed " + malformed);
+        assertThrows(IllegalArgumentException.class, () -> generator.setMalformedRate(1.5));
+    }
+}